@@ -1,21 +1,35 @@
 package org.dclayer;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.LinkedList;
 
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.dclayer.crypto.cipher.AesGcmCipherBackend;
 import org.dclayer.crypto.hash.HashAlgorithm;
+import org.dclayer.crypto.key.Ed25519KeyPairFile;
+import org.dclayer.crypto.key.KeyPairPool;
 import org.dclayer.exception.net.parse.ParseException;
+import org.dclayer.net.DataPool;
 import org.dclayer.net.apbr.APBRNetworkType;
 import org.dclayer.net.circle.CircleNetworkType;
+import org.dclayer.net.link.control.congestion.CongestionControlAlgorithm;
 import org.dclayer.net.lla.InetSocketLLA;
 import org.dclayer.net.lla.LLA;
 import org.dclayer.net.lla.database.LLADatabase;
 import org.dclayer.net.network.NetworkType;
+import org.dclayer.net.socket.DatagramSocket;
+import org.dclayer.net.socket.NIOTCPSocket;
+import org.dclayer.net.socket.NIOUDPSocket;
+import org.dclayer.net.socket.ShardedUDPSocket;
+import org.dclayer.net.socket.StreamSocket;
 import org.dclayer.net.socket.TCPSocket;
 import org.dclayer.net.socket.UDPSocket;
+import org.dclayer.threadswitch.ThreadMode;
+import org.dclayer.threadswitch.ThreadSwitch;
 
 public class DCL {
 	
@@ -35,6 +49,15 @@ public class DCL {
 		
 		int s2sPort = 1337;
 		int a2sPort = 2000;
+		String s2sSocketType = "udp";
+		int s2sShards = 1;
+		String a2sSocketType = "tcp";
+		int a2sWorkers = NIOTCPSocket.DEFAULT_NUM_WORKERS;
+		int numCryptoThreads = 0;
+		File keyPairPoolFile = null;
+		int keyPairPoolReserve = KeyPairPool.DEFAULT_RESERVE;
+		File ed25519KeyPairFile = null;
+		CongestionControlAlgorithm congestionControlAlgorithm = CongestionControlAlgorithm.LINEAR;
 		
 		LinkedList<NetworkType> networkTypes = new LinkedList<>();
 		
@@ -50,6 +73,80 @@ public class DCL {
 				a2sPort = Integer.parseInt(argParts[1]);
 				break;
 			}
+			case "s2ssocket": {
+				s2sSocketType = argParts[1];
+				break;
+			}
+			case "s2sshards": {
+				s2sShards = Integer.parseInt(argParts[1]);
+				break;
+			}
+			case "a2ssocket": {
+				a2sSocketType = argParts[1];
+				break;
+			}
+			case "a2sworkers": {
+				a2sWorkers = Integer.parseInt(argParts[1]);
+				break;
+			}
+			case "a2shandlers": {
+				ThreadSwitch.setDefaultMaxThreads(Integer.parseInt(argParts[1]));
+				break;
+			}
+			case "a2squeue": {
+				ThreadSwitch.setDefaultQueueCapacity(Integer.parseInt(argParts[1]));
+				break;
+			}
+			case "cryptothreads": {
+				numCryptoThreads = Integer.parseInt(argParts[1]);
+				break;
+			}
+			case "keypool": {
+				keyPairPoolFile = new File(argParts[1]);
+				break;
+			}
+			case "linkkey": {
+				ed25519KeyPairFile = new File(argParts[1]);
+				break;
+			}
+			case "keypoolsize": {
+				keyPairPoolReserve = Integer.parseInt(argParts[1]);
+				break;
+			}
+			case "leakdetection": {
+				DataPool.getDefault().setLeakDetection(Boolean.parseBoolean(argParts[1]));
+				break;
+			}
+			case "threads": {
+				ThreadMode threadMode = ThreadMode.get(argParts[1]);
+				if(threadMode == null) {
+					System.out.println(String.format("unknown thread mode: %s", argParts[1]));
+					return;
+				}
+				if(!threadMode.isSupported()) {
+					System.out.println(String.format("%s threads are not supported by this JVM", threadMode.getName()));
+					return;
+				}
+				ThreadMode.setDefault(threadMode);
+				break;
+			}
+			case "cc": {
+				congestionControlAlgorithm = CongestionControlAlgorithm.get(argParts[1]);
+				if(congestionControlAlgorithm == null) {
+					System.out.println(String.format("unknown congestion control algorithm: %s", argParts[1]));
+					return;
+				}
+				break;
+			}
+			case "cipher": {
+				AesGcmCipherBackend aesGcmCipherBackend = AesGcmCipherBackend.get(argParts[1]);
+				if(aesGcmCipherBackend == null) {
+					System.out.println(String.format("unknown cipher backend: %s", argParts[1]));
+					return;
+				}
+				AesGcmCipherBackend.setDefault(aesGcmCipherBackend);
+				break;
+			}
 			case "remote": {
 				String[] remoteParts = argParts[1].split(":");
 				String remoteHost = remoteParts[0];
@@ -78,15 +175,47 @@ public class DCL {
 			}
 		}
 		
-		System.out.println(String.format("starting... s2s=%d a2s=%d", s2sPort, a2sPort));
+		System.out.println(String.format("starting... s2s=%d (%s, %d shards) a2s=%d (%s)", s2sPort, s2sSocketType, s2sShards, a2sPort, a2sSocketType));
+		
+		// start generating key pairs before the sockets are set up
+		KeyPairPool keyPairPool = new KeyPairPool(keyPairPoolReserve, KeyPairPool.DEFAULT_NUM_THREADS, keyPairPoolFile);
+		
+		// remotes pin the Ed25519 key, keep it next to the key pair pool unless another file is given
+		if(ed25519KeyPairFile == null && keyPairPoolFile != null) {
+			ed25519KeyPairFile = new File(keyPairPoolFile.getPath() + ".ed25519");
+		}
+		
+		AsymmetricCipherKeyPair linkCryptoInitializationEd25519KeyPair = null;
+		if(ed25519KeyPairFile != null) {
+			try {
+				linkCryptoInitializationEd25519KeyPair = new Ed25519KeyPairFile(ed25519KeyPairFile).loadOrGenerate();
+			} catch (IOException e) {
+				e.printStackTrace();
+				return;
+			}
+		} else {
+			System.out.println("no keypool or linkkey file given, remotes will reject the link crypto initialization key after a restart until their pins expire");
+		}
 		
 		DCLService service;
 		try {
 			
-			UDPSocket s2sDatagramSocket = new UDPSocket(s2sPort);
-			TCPSocket a2sStreamSocket = new TCPSocket(a2sPort);
+			DatagramSocket s2sDatagramSocket;
+			if(s2sShards > 1) {
+				s2sDatagramSocket = new ShardedUDPSocket(s2sPort, s2sShards);
+			} else if("nio".equals(s2sSocketType)) {
+				s2sDatagramSocket = new NIOUDPSocket(s2sPort);
+			} else {
+				s2sDatagramSocket = new UDPSocket(s2sPort);
+			}
+			StreamSocket a2sStreamSocket;
+			if("nio".equals(a2sSocketType)) {
+				a2sStreamSocket = new NIOTCPSocket(a2sPort, a2sWorkers);
+			} else {
+				a2sStreamSocket = new TCPSocket(a2sPort);
+			}
 			
-			service = new DCLService(s2sDatagramSocket, a2sStreamSocket, llaDatabase);
+			service = new DCLService(s2sDatagramSocket, a2sStreamSocket, llaDatabase, congestionControlAlgorithm, numCryptoThreads, keyPairPool, linkCryptoInitializationEd25519KeyPair);
 			
 			s2sDatagramSocket.setParentHierarchicalLevel(service);
 			a2sStreamSocket.setParentHierarchicalLevel(service);
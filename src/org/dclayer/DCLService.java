@@ -10,11 +10,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
 import org.dclayer.PreLinkCommunicationManager.Result;
 import org.dclayer.crypto.Crypto;
 import org.dclayer.crypto.key.Key;
 import org.dclayer.crypto.key.KeyPair;
+import org.dclayer.crypto.key.KeyPairPool;
 import org.dclayer.exception.net.buf.BufException;
 import org.dclayer.exception.net.parse.ParseException;
 import org.dclayer.listener.net.NetworkInstanceListener;
@@ -26,6 +31,7 @@ import org.dclayer.net.a2s.ApplicationConnection;
 import org.dclayer.net.a2s.ApplicationConnectionActionListener;
 import org.dclayer.net.address.Address;
 import org.dclayer.net.applicationchannel.ApplicationChannel;
+import org.dclayer.net.buf.ByteBuf;
 import org.dclayer.net.buf.DataByteBuf;
 import org.dclayer.net.crisp.CrispMessageReceiver;
 import org.dclayer.net.crisp.CrispPacket;
@@ -37,7 +43,13 @@ import org.dclayer.net.link.Link;
 import org.dclayer.net.link.Link.Status;
 import org.dclayer.net.link.LinkSendInterface;
 import org.dclayer.net.link.OnLinkActionListener;
+import org.dclayer.net.link.bmcp.crypto.init.resume.CryptoSessionCache;
+import org.dclayer.net.link.bmcp.crypto.init.x25519ed25519.Ed25519KeyPins;
 import org.dclayer.net.link.channel.data.DataChannel;
+import org.dclayer.net.link.control.CryptoPipeline;
+import org.dclayer.net.link.control.FlowControlScheduler;
+import org.dclayer.net.link.control.ResendTimerWheel;
+import org.dclayer.net.link.control.congestion.CongestionControlAlgorithm;
 import org.dclayer.net.lla.CachedLLA;
 import org.dclayer.net.lla.LLA;
 import org.dclayer.net.lla.cache.LLACache;
@@ -70,6 +82,11 @@ public class DCLService implements CrispMessageReceiver<NetworkInstance>, OnRece
 	
 	private KeyPair linkCryptoInitializationKeyPair;
 	
+	/**
+	 * the Ed25519 key pair signing ephemeral X25519 keys during link crypto initialization
+	 */
+	private AsymmetricCipherKeyPair linkCryptoInitializationEd25519KeyPair;
+	
 	private LLACache llaCache = new LLACache();
 	private LLADatabase llaDatabase;
 	
@@ -81,6 +98,41 @@ public class DCLService implements CrispMessageReceiver<NetworkInstance>, OnRece
 	
 	private ConnectionManager connectionManager;
 	
+	/**
+	 * the {@link FlowControlScheduler} pacing the packets of all {@link Link}s
+	 */
+	private FlowControlScheduler flowControlScheduler = new FlowControlScheduler(this);
+	
+	/**
+	 * the {@link ResendTimerWheel} timing the resends of the management packets of all {@link Link}s
+	 */
+	private ResendTimerWheel resendTimerWheel = new ResendTimerWheel(this);
+	
+	/**
+	 * the {@link CongestionControlAlgorithm} used for new {@link Link}s
+	 */
+	private CongestionControlAlgorithm congestionControlAlgorithm;
+	
+	/**
+	 * the {@link CryptoSessionCache} storing the tickets for resuming crypto sessions with remotes
+	 */
+	private CryptoSessionCache cryptoSessionCache = new CryptoSessionCache();
+	
+	/**
+	 * the {@link Ed25519KeyPins} binding the Ed25519 public keys of remotes to those remotes
+	 */
+	private Ed25519KeyPins ed25519KeyPins = new Ed25519KeyPins();
+	
+	/**
+	 * the {@link CryptoPipeline} the packets of all {@link Link}s are encrypted and decrypted on, or null if disabled
+	 */
+	private CryptoPipeline cryptoPipeline;
+	
+	/**
+	 * the {@link KeyPairPool} the RSA key pairs of this service and its applications are taken from
+	 */
+	private KeyPairPool keyPairPool;
+	
 	private List<InterserviceChannel> interserviceChannels = new LinkedList<>();
 	private List<NetworkNode> networkNodes = new LinkedList<>();
 	
@@ -88,18 +140,65 @@ public class DCLService implements CrispMessageReceiver<NetworkInstance>, OnRece
 	private CrispPacket inCrispPacket = new CrispPacket();
 	
 	private HashMap<LLA, AtomicInteger> localLLAReports = new HashMap<>();
-	private LLA localLLA;
+	private volatile LLA localLLA;
+	/**
+	 * guards {@link #localLLAReports}, a lock instead of a monitor so that virtual threads waiting for the local LLA do not pin their carrier
+	 */
+	private ReentrantLock localLLALock = new ReentrantLock();
+	private Condition localLLAKnownCondition = localLLALock.newCondition();
 	
 	public DCLService(DatagramSocket s2sDatagramSocket, StreamSocket a2sStreamSocket, LLADatabase llaDatabase) throws IOException {
+		this(s2sDatagramSocket, a2sStreamSocket, llaDatabase, CongestionControlAlgorithm.LINEAR);
+	}
+	
+	public DCLService(DatagramSocket s2sDatagramSocket, StreamSocket a2sStreamSocket, LLADatabase llaDatabase, CongestionControlAlgorithm congestionControlAlgorithm) throws IOException {
+		this(s2sDatagramSocket, a2sStreamSocket, llaDatabase, congestionControlAlgorithm, 0);
+	}
+	
+	/**
+	 * @param numCryptoThreads the amount of threads encrypting and decrypting link packets in parallel, 0 to encrypt and decrypt on the sending and receiving threads
+	 */
+	public DCLService(DatagramSocket s2sDatagramSocket, StreamSocket a2sStreamSocket, LLADatabase llaDatabase, CongestionControlAlgorithm congestionControlAlgorithm, int numCryptoThreads) throws IOException {
+		this(s2sDatagramSocket, a2sStreamSocket, llaDatabase, congestionControlAlgorithm, numCryptoThreads, new KeyPairPool());
+	}
+	
+	/**
+	 * @param numCryptoThreads the amount of threads encrypting and decrypting link packets in parallel, 0 to encrypt and decrypt on the sending and receiving threads
+	 * @param keyPairPool the {@link KeyPairPool} to take the RSA key pairs of this service and its applications from
+	 */
+	public DCLService(DatagramSocket s2sDatagramSocket, StreamSocket a2sStreamSocket, LLADatabase llaDatabase, CongestionControlAlgorithm congestionControlAlgorithm, int numCryptoThreads, KeyPairPool keyPairPool) throws IOException {
+		this(s2sDatagramSocket, a2sStreamSocket, llaDatabase, congestionControlAlgorithm, numCryptoThreads, keyPairPool, null);
+	}
+	
+	/**
+	 * @param numCryptoThreads the amount of threads encrypting and decrypting link packets in parallel, 0 to encrypt and decrypt on the sending and receiving threads
+	 * @param keyPairPool the {@link KeyPairPool} to take the RSA key pairs of this service and its applications from
+	 * @param linkCryptoInitializationEd25519KeyPair the long-term Ed25519 key pair remotes pin this service to, or null to generate a new one
+	 */
+	public DCLService(DatagramSocket s2sDatagramSocket, StreamSocket a2sStreamSocket, LLADatabase llaDatabase, CongestionControlAlgorithm congestionControlAlgorithm, int numCryptoThreads, KeyPairPool keyPairPool, AsymmetricCipherKeyPair linkCryptoInitializationEd25519KeyPair) throws IOException {
 		
 		this.llaDatabase = llaDatabase;
+		this.keyPairPool = keyPairPool;
+		keyPairPool.setParentHierarchicalLevel(this);
+		this.congestionControlAlgorithm = congestionControlAlgorithm;
+		if(numCryptoThreads > 0) {
+			this.cryptoPipeline = new CryptoPipeline(numCryptoThreads, this);
+		}
 		
-		Log.debug(this, "generating link crypto initialization keypair...");
-		this.linkCryptoInitializationKeyPair = Crypto.generateLinkCryptoInitRSAKeyPair();
+		Log.debug(this, "taking link crypto initialization keypair from pool (%d in reserve)...", keyPairPool.size());
+		this.linkCryptoInitializationKeyPair = keyPairPool.take();
 		Log.debug(this, "done, public key sha1: %s (%d bits)", Crypto.sha1(linkCryptoInitializationKeyPair.getPublicKey().toData()), linkCryptoInitializationKeyPair.getPublicKey().getNumBits());
 		
-		Log.debug(this, "generating address RSA keypair...");
-		KeyPair addressKeyPair = Crypto.generateAddressRSAKeyPair();
+		if(linkCryptoInitializationEd25519KeyPair == null) {
+			linkCryptoInitializationEd25519KeyPair = Crypto.generateLinkCryptoInitEd25519KeyPair();
+			Log.debug(this, "generated link crypto initialization Ed25519 keypair, public key sha1: %s", Crypto.sha1(Crypto.toData((Ed25519PublicKeyParameters) linkCryptoInitializationEd25519KeyPair.getPublic())));
+		} else {
+			Log.debug(this, "using given link crypto initialization Ed25519 keypair, public key sha1: %s", Crypto.sha1(Crypto.toData((Ed25519PublicKeyParameters) linkCryptoInitializationEd25519KeyPair.getPublic())));
+		}
+		this.linkCryptoInitializationEd25519KeyPair = linkCryptoInitializationEd25519KeyPair;
+		
+		Log.debug(this, "taking address RSA keypair from pool (%d in reserve)...", keyPairPool.size());
+		KeyPair addressKeyPair = keyPairPool.take();
 		Log.debug(this, "done, public key sha1: %s (%d bits)", Crypto.sha1(addressKeyPair.getPublicKey().toData()), addressKeyPair.getPublicKey().getNumBits());
 		this.localAddress = new Address<>(addressKeyPair, new NetworkInstanceCollection());
 		
@@ -287,7 +386,8 @@ public class DCLService implements CrispMessageReceiver<NetworkInstance>, OnRece
 	
 	@Override
 	public void onLocalLLAReport(InterserviceChannel interserviceChannel, LLA oldLocalLLA, LLA newLocalLLA) {
-		synchronized(localLLAReports) {
+		localLLALock.lock();
+		try {
 			
 			if(oldLocalLLA != null) {
 				AtomicInteger i = localLLAReports.get(oldLocalLLA);
@@ -314,24 +414,29 @@ public class DCLService implements CrispMessageReceiver<NetworkInstance>, OnRece
 			
 			boolean notify = localLLA == null;
 			localLLA = maxLLA;
-			if(notify) localLLAReports.notify();
+			if(notify) localLLAKnownCondition.signalAll();
 			
 			Log.debug(this, "local LLA is %s (map updated due to transition from %s to %s by remote %s: %s)", localLLA, oldLocalLLA, newLocalLLA, interserviceChannel.getCachedLLA(), localLLAReports.toString());
 			
+		} finally {
+			localLLALock.unlock();
 		}
 	}
 
 	@Override
 	public LLA getLocalLLA(boolean wait) {
 		if(localLLA == null && wait) {
-			synchronized(localLLAReports) {
+			localLLALock.lock();
+			try {
 				if(localLLA == null) {
 					Log.debug(this, "local LLA not known yet, waiting");
 					try {
-						localLLAReports.wait();
+						localLLAKnownCondition.await();
 					} catch (InterruptedException e) {}
 					Log.debug(this, "local LLA known, returning: %s", localLLA);
 				}
+			} finally {
+				localLLALock.unlock();
 			}
 		}
 		return localLLA;
@@ -342,6 +447,11 @@ public class DCLService implements CrispMessageReceiver<NetworkInstance>, OnRece
 		return new ApplicationConnection(this, this, socket);
 	}
 	
+	@Override
+	public ApplicationConnection onApplicationConnection(Socket socket, ByteBuf sendByteBuf) {
+		return new ApplicationConnection(this, this, socket, sendByteBuf);
+	}
+	
 	@Override
 	public synchronized void onAddress(Address asymmetricKeyPairAddress) {
 		// do nothing (add AddressSlots when adding NetworkInstances)
@@ -546,7 +656,7 @@ public class DCLService implements CrispMessageReceiver<NetworkInstance>, OnRece
 				
 				Result result = preLinkCommunicationManager.echo(data);
 				if(result.done) {
-					cachedLLA.setLink(link = new Link<CachedLLA>(this, this, cachedLLA, this));
+					cachedLLA.setLink(link = new Link<CachedLLA>(this, this, flowControlScheduler, resendTimerWheel, cachedLLA, this));
 					cachedLLA.setStatus(CachedLLA.CONNECTING_LINK);
 					cachedLLA.setPunchData(null);
 					link.connect(result.firstLinkPacketPrefixData);
@@ -565,7 +675,7 @@ public class DCLService implements CrispMessageReceiver<NetworkInstance>, OnRece
 				
 					// the first link packet is prefixed with the expected data
 					// -> create the link and feed it the rest (the latter happens at the bottom of this method)
-					link = new Link<CachedLLA>(this, this, cachedLLA, this);
+					link = new Link<CachedLLA>(this, this, flowControlScheduler, resendTimerWheel, cachedLLA, this);
 					cachedLLA.setLink(link);
 					cachedLLA.setFirstLinkPacketPrefixData(null);
 					cachedLLA.setStatus(CachedLLA.CONNECTING_LINK);
@@ -652,6 +762,36 @@ public class DCLService implements CrispMessageReceiver<NetworkInstance>, OnRece
 	public KeyPair getLinkCryptoInitializationKeyPair() {
 		return linkCryptoInitializationKeyPair;
 	}
+	
+	@Override
+	public AsymmetricCipherKeyPair getLinkCryptoInitializationEd25519KeyPair() {
+		return linkCryptoInitializationEd25519KeyPair;
+	}
+	
+	@Override
+	public Ed25519KeyPins getEd25519KeyPins() {
+		return ed25519KeyPins;
+	}
+	
+	@Override
+	public KeyPairPool getKeyPairPool() {
+		return keyPairPool;
+	}
+	
+	@Override
+	public CryptoSessionCache getCryptoSessionCache() {
+		return cryptoSessionCache;
+	}
+	
+	@Override
+	public CongestionControlAlgorithm getCongestionControlAlgorithm() {
+		return congestionControlAlgorithm;
+	}
+	
+	@Override
+	public CryptoPipeline getCryptoPipeline() {
+		return cryptoPipeline;
+	}
 
 	@Override
 	public HierarchicalLevel getParentHierarchicalLevel() {
@@ -42,17 +42,14 @@ public class PreLinkCommunicationManager implements HierarchicalLevel {
 	private Data ignoreData;
 	private long lastIgnoreDataRenew;
 	
-	private Data echoData = new Data();
-	
-	private Result result = new Result();
-	
 	private HierarchicalLevel parentHierarchicalLevel;
 	
 	public PreLinkCommunicationManager(HierarchicalLevel parentHierarchicalLevel) {
 		this.parentHierarchicalLevel = parentHierarchicalLevel;
 	}
 	
-	public Data getCurrentIgnoreData() {
+	// synchronized because the s2s socket may receive on multiple threads
+	public synchronized Data getCurrentIgnoreData() {
 		
 		long now = System.nanoTime();
 		long timePassed = (now - lastIgnoreDataRenew);
@@ -74,7 +71,8 @@ public class PreLinkCommunicationManager implements HierarchicalLevel {
 		
 	}
 
-	public Result permit(InetAddress inetAddress, int port, Data receivedData) {
+	// synchronized because of digest and hashData
+	public synchronized Result permit(InetAddress inetAddress, int port, Data receivedData) {
 		
 		long now = System.nanoTime();
 		
@@ -111,11 +109,15 @@ public class PreLinkCommunicationManager implements HierarchicalLevel {
 		
 		Log.debug(this, "hashData=%s hashedData=%s receivedData=%s", hashData, hashedData, receivedData);
 		
+		// a new Result is returned for every call so that concurrent callers don't overwrite each other's results
+		Result result = new Result();
+		
 		if(receivedData.length() >= digestSize && hashedData.equals(0, receivedData, 0, digestSize)) {
 			
 			receivedData.relativeReset(digestSize, receivedData.length() - digestSize);
 			Data firstLinkPacketPrefixData = new Data(RANDOM_DATA_LENGTH);
 			new Random().nextBytes(firstLinkPacketPrefixData.getData());
+			Data echoData = new Data();
 			echoData.prepare(receivedData.length() + firstLinkPacketPrefixData.length());
 			echoData.setBytes(0, receivedData.getData(), receivedData.offset(), receivedData.length());
 			echoData.setBytes(receivedData.length(), firstLinkPacketPrefixData.getData(), firstLinkPacketPrefixData.offset(), firstLinkPacketPrefixData.length());
@@ -130,7 +132,7 @@ public class PreLinkCommunicationManager implements HierarchicalLevel {
 		
 			Log.debug(this, "receivedData is invalid, replying with hashedData: %s", hashedData);
 			result.done = false;
-			result.echoData = hashedData;
+			result.echoData = hashedData.copy();
 			
 		}
 		
@@ -142,6 +144,8 @@ public class PreLinkCommunicationManager implements HierarchicalLevel {
 		
 		Log.debug(this, "received data from remote we're trying to connect to: %s", remoteData);
 		
+		Result result = new Result();
+		
 		if(connectData.equals(0, remoteData, 0, connectData.length())) {
 			
 			// done
@@ -153,6 +157,7 @@ public class PreLinkCommunicationManager implements HierarchicalLevel {
 			
 		} else {
 		
+			Data echoData = new Data();
 			echoData.prepare(remoteData.length() + connectData.length());
 			echoData.setBytes(0, remoteData.getData(), remoteData.offset(), remoteData.length());
 			echoData.setBytes(remoteData.length(), connectData.getData(), connectData.offset(), connectData.length());
@@ -1,6 +1,5 @@
 package org.dclayer.application;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -33,9 +32,11 @@ import org.dclayer.net.a2s.message.ApplicationChannelAcceptMessageI;
 import org.dclayer.net.a2s.message.ApplicationChannelDataMessageI;
 import org.dclayer.net.a2s.message.ApplicationChannelOutgoingRequestMessageI;
 import org.dclayer.net.a2s.message.DataMessageI;
+import org.dclayer.net.a2s.message.KeyCryptoDataResponseMessageI;
 import org.dclayer.net.a2s.rev0.Rev0Message;
 import org.dclayer.net.address.Address;
 import org.dclayer.net.applicationchannel.ApplicationChannelTarget;
+import org.dclayer.net.buf.BufferedStreamByteBuf;
 import org.dclayer.net.buf.StreamByteBuf;
 import org.dclayer.net.component.AbsKeyComponent;
 import org.dclayer.net.componentinterface.AbsKeyComponentI;
@@ -44,7 +45,10 @@ import org.dclayer.net.network.NetworkType;
 
 public class ApplicationInstance extends Thread implements A2SMessageReceiver {
 	
-	public static final int REVISION = 0;
+	/**
+	 * revision 0 with request ids on remote key operations, falls back to revision 0 if the service does not support it
+	 */
+	public static final int REVISION = 1;
 	
 	//
 	
@@ -81,9 +85,9 @@ public class ApplicationInstance extends Thread implements A2SMessageReceiver {
 			Socket socket = new Socket(inetAddress, port);
 			
 			InputStream inputStream = socket.getInputStream();
-			OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream());
+			OutputStream outputStream = socket.getOutputStream();
 			
-			this.streamByteBuf = new StreamByteBuf(inputStream, outputStream);
+			this.streamByteBuf = new BufferedStreamByteBuf(inputStream, outputStream);
 			
 		} catch(IOException e) {
 			throw new ConnectionException(e);
@@ -218,6 +222,18 @@ public class ApplicationInstance extends Thread implements A2SMessageReceiver {
 		send();
 	}
 	
+	private synchronized void sendKeyCryptoDataResponseMessage(int requestId, Data responseData) {
+		KeyCryptoDataResponseMessageI keyCryptoDataResponseMessage = sendMessage.setKeyCryptoDataResponseMessage();
+		keyCryptoDataResponseMessage.setRequestId(requestId);
+		keyCryptoDataResponseMessage.getResponseDataComponent().setData(responseData);
+		send();
+	}
+	
+	private synchronized void sendKeyCryptoErrorResponseMessage(int requestId) {
+		sendMessage.setKeyCryptoErrorResponseMessage().setRequestId(requestId);
+		send();
+	}
+	
 	private synchronized void sendKeyResponseNumMessage(int responseNum) {
 		sendMessage.setKeyResponseNumMessage().setResponseNum(responseNum);
 		send();
@@ -364,6 +380,40 @@ public class ApplicationInstance extends Thread implements A2SMessageReceiver {
 	public void onReceiveKeyResponseNumMessage(int maxEncryptionBlockNumBytes) {
 		// TODO illegal
 	}
+	
+	@Override
+	public synchronized void onReceiveKeyEncryptDataRequestMessage(int requestId, Data plainData) {
+		Data cipherData;
+		try {
+			cipherData = this.address.getKeyPair().getPrivateKey().encrypt(plainData);
+		} catch (InvalidCipherCryptoException e) {
+			sendKeyCryptoErrorResponseMessage(requestId);
+			return;
+		}
+		sendKeyCryptoDataResponseMessage(requestId, cipherData);
+	}
+	
+	@Override
+	public synchronized void onReceiveKeyDecryptDataRequestMessage(int requestId, Data cipherData) {
+		Data plainData;
+		try {
+			plainData = this.address.getKeyPair().getPrivateKey().decrypt(cipherData);
+		} catch (InvalidCipherCryptoException e) {
+			sendKeyCryptoErrorResponseMessage(requestId);
+			return;
+		}
+		sendKeyCryptoDataResponseMessage(requestId, plainData);
+	}
+	
+	@Override
+	public void onReceiveKeyCryptoDataResponseMessage(int requestId, Data responseData) {
+		// TODO illegal
+	}
+	
+	@Override
+	public void onReceiveKeyCryptoErrorResponseMessage(int requestId) {
+		// TODO illegal
+	}
 
 	@Override
 	public synchronized void onReceiveApplicationChannelIncomingRequestMessage(int networkSlotId, String actionIdentifierSuffix, AbsKeyComponent keyComponent, LLA senderLLA, Data ignoreData) {
@@ -17,6 +17,11 @@ import org.dclayer.net.buf.ByteBufInputStream;
 
 public abstract class AbsApplicationChannel implements ApplicationChannel {
 	
+	/**
+	 * the maximum amount of received bytes buffered until they are read
+	 */
+	public static final int MAX_RECEIVE_PIPE_CAPACITY = 4 * 1024 * 1024;
+	
 	private ApplicationChannelSlot applicationChannelSlot;
 	private ApplicationChannelActionListener applicationChannelActionListener;
 	
@@ -99,7 +104,9 @@ public abstract class AbsApplicationChannel implements ApplicationChannel {
 			
 		});
 		
-		final AsyncPipeByteBuf asyncPipeByteBuf = new AsyncPipeByteBuf(512);
+		// pushData() is called by the thread receiving from the service for all channels, so the pipe grows instead of blocking it.
+		// growth is capped, a reader that falls further behind blocks that thread, which stops the service and in turn the remote
+		final AsyncPipeByteBuf asyncPipeByteBuf = new AsyncPipeByteBuf(64 * 1024, MAX_RECEIVE_PIPE_CAPACITY);
 		this.byteBufInputStream = new ByteBufInputStream(asyncPipeByteBuf);
 		
 	}
@@ -5,14 +5,26 @@ import java.security.SecureRandom;
 
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.agreement.X25519Agreement;
 import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.generators.Ed25519KeyPairGenerator;
 import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
+import org.bouncycastle.crypto.generators.X25519KeyPairGenerator;
+import org.bouncycastle.crypto.params.Ed25519KeyGenerationParameters;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
 import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.params.X25519KeyGenerationParameters;
+import org.bouncycastle.crypto.params.X25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.X25519PublicKeyParameters;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
 import org.dclayer.crypto.key.KeyPair;
 import org.dclayer.crypto.key.RSAKey;
 import org.dclayer.crypto.key.RSAPrivateKey;
 import org.dclayer.crypto.key.RSAPublicKey;
+import org.dclayer.exception.crypto.CryptoException;
 import org.dclayer.exception.crypto.InsufficientKeySizeException;
 import org.dclayer.net.Data;
 
@@ -26,6 +38,10 @@ public class Crypto {
 	public static final int CRYPTO_INIT_KEY_NUMBITS = RSA_ADDRESS_KEY_NUMBITS;
 	public static final int CRYPTO_INIT_KEY_CERTAINTY = RSA_ADDRESS_KEY_CERTAINTY;
 	
+	public static final int X25519_KEY_NUMBYTES = X25519PublicKeyParameters.KEY_SIZE;
+	public static final int ED25519_KEY_NUMBYTES = Ed25519PublicKeyParameters.KEY_SIZE;
+	public static final int ED25519_SIGNATURE_NUMBYTES = Ed25519PrivateKeyParameters.SIGNATURE_SIZE;
+	
 	private static KeyPair<RSAKey> generateRSAKeyPair(int numBits, int certainty) {
 		
 		RSAKeyPairGenerator rsaKeyPairGenerator = new RSAKeyPairGenerator();
@@ -71,9 +87,121 @@ public class Crypto {
 		
 	}
 	
+	/**
+	 * generates a long-term Ed25519 key pair used to sign ephemeral keys during link crypto initialization
+	 */
+	public static AsymmetricCipherKeyPair generateLinkCryptoInitEd25519KeyPair() {
+		
+		Ed25519KeyPairGenerator ed25519KeyPairGenerator = new Ed25519KeyPairGenerator();
+		ed25519KeyPairGenerator.init(new Ed25519KeyGenerationParameters(new SecureRandom()));
+		return ed25519KeyPairGenerator.generateKeyPair();
+		
+	}
+	
+	/**
+	 * generates an ephemeral X25519 key pair
+	 */
+	public static AsymmetricCipherKeyPair generateX25519KeyPair() {
+		
+		X25519KeyPairGenerator x25519KeyPairGenerator = new X25519KeyPairGenerator();
+		x25519KeyPairGenerator.init(new X25519KeyGenerationParameters(new SecureRandom()));
+		return x25519KeyPairGenerator.generateKeyPair();
+		
+	}
+	
+	public static Data toData(X25519PublicKeyParameters publicKey) {
+		return new Data(publicKey.getEncoded());
+	}
+	
+	public static Data toData(Ed25519PublicKeyParameters publicKey) {
+		return new Data(publicKey.getEncoded());
+	}
+	
+	/**
+	 * computes the X25519 shared secret of the given private key and the remote's public key
+	 * @param privateKey the local private key
+	 * @param remotePublicKeyData the encoded public key of the remote
+	 * @return the shared secret
+	 * @throws CryptoException if the remote's public key is invalid
+	 */
+	public static Data x25519(X25519PrivateKeyParameters privateKey, Data remotePublicKeyData) throws CryptoException {
+		
+		if(remotePublicKeyData.length() != X25519_KEY_NUMBYTES) {
+			throw new CryptoException(String.format("invalid X25519 public key length: %d", remotePublicKeyData.length()));
+		}
+		
+		X25519Agreement x25519Agreement = new X25519Agreement();
+		x25519Agreement.init(privateKey);
+		
+		Data sharedData = new Data(x25519Agreement.getAgreementSize());
+		try {
+			x25519Agreement.calculateAgreement(new X25519PublicKeyParameters(remotePublicKeyData.getData(), remotePublicKeyData.offset()), sharedData.getData(), 0);
+		} catch(IllegalStateException e) {
+			// the agreement is all zeros, i.e. the remote sent a low-order point
+			throw new CryptoException(e);
+		}
+		
+		return sharedData;
+		
+	}
+	
+	/**
+	 * signs the concatenation of the given datas using Ed25519
+	 */
+	public static Data ed25519Sign(Ed25519PrivateKeyParameters privateKey, Data... inputDatas) {
+		
+		Ed25519Signer ed25519Signer = new Ed25519Signer();
+		ed25519Signer.init(true, privateKey);
+		for(Data inputData : inputDatas) {
+			ed25519Signer.update(inputData.getData(), inputData.offset(), inputData.length());
+		}
+		
+		return new Data(ed25519Signer.generateSignature());
+		
+	}
+	
+	/**
+	 * verifies an Ed25519 signature over the concatenation of the given datas
+	 * @return true if the signature is valid, false otherwise
+	 */
+	public static boolean ed25519Verify(Data publicKeyData, Data signatureData, Data... inputDatas) {
+		
+		if(publicKeyData.length() != ED25519_KEY_NUMBYTES || signatureData.length() != ED25519_SIGNATURE_NUMBYTES) {
+			return false;
+		}
+		
+		Ed25519PublicKeyParameters publicKey;
+		try {
+			publicKey = new Ed25519PublicKeyParameters(publicKeyData.getData(), publicKeyData.offset());
+		} catch(IllegalArgumentException e) {
+			// not a valid point
+			return false;
+		}
+		
+		Ed25519Signer ed25519Signer = new Ed25519Signer();
+		ed25519Signer.init(false, publicKey);
+		for(Data inputData : inputDatas) {
+			ed25519Signer.update(inputData.getData(), inputData.offset(), inputData.length());
+		}
+		
+		return ed25519Signer.verifySignature(signatureData.copyToByteArray());
+		
+	}
+	
 	public static Data sha1(Data... inputDatas) {
 		
-		Digest digest = new SHA1Digest();
+		return digest(new SHA1Digest(), inputDatas);
+		
+	}
+	
+	public static Data sha256(Data... inputDatas) {
+		
+		return digest(new SHA256Digest(), inputDatas);
+		
+	}
+	
+	private static Data digest(Digest digest, Data... inputDatas) {
+		
 		Data outputData = new Data(digest.getDigestSize());
 		
 		for(Data inputData : inputDatas) {
@@ -0,0 +1,80 @@
+package org.dclayer.crypto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.dclayer.net.Data;
+
+/**
+ * a bounded cache of successfully verified signatures, evicting the least recently used entries first.<br />
+ * an entry is identified by a digest over the public key, the signature and the hash of the signed data,
+ * thus a hit means that exactly this signature was verified against exactly this data and key before.
+ */
+public class SignatureVerificationCache {
+	
+	public static final int DEFAULT_MAX_ENTRIES = 8192;
+	
+	//
+	
+	private final int maxEntries;
+	
+	private final LinkedHashMap<Data, Boolean> entries;
+	
+	private long numHits = 0;
+	private long numMisses = 0;
+	
+	public SignatureVerificationCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+	
+	/**
+	 * @param maxEntries the maximum amount of cached verifications
+	 */
+	public SignatureVerificationCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<Data, Boolean>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Data, Boolean> eldest) {
+				return size() > SignatureVerificationCache.this.maxEntries;
+			}
+		};
+	}
+	
+	/**
+	 * @return the digest identifying the verification of the given signature
+	 */
+	public static Data digest(Data publicKeyData, Data signatureData, Data hashData) {
+		return Crypto.sha256(publicKeyData, signatureData, hashData);
+	}
+	
+	/**
+	 * @param digestData the digest returned by {@link #digest(Data, Data, Data)}
+	 * @return true if the signature identified by the given digest was verified before
+	 */
+	public synchronized boolean contains(Data digestData) {
+		if(entries.get(digestData) != null) {
+			numHits++;
+			return true;
+		}
+		numMisses++;
+		return false;
+	}
+	
+	/**
+	 * stores that the signature identified by the given digest was verified successfully
+	 * @param digestData the digest returned by {@link #digest(Data, Data, Data)}
+	 */
+	public synchronized void put(Data digestData) {
+		entries.put(digestData, Boolean.TRUE);
+	}
+	
+	public synchronized long getNumHits() {
+		return numHits;
+	}
+	
+	public synchronized long getNumMisses() {
+		return numMisses;
+	}
+	
+}
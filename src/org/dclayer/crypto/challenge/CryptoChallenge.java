@@ -1,5 +1,7 @@
 package org.dclayer.crypto.challenge;
 
+import org.dclayer.crypto.key.RemoteRSAKey;
+import org.dclayer.crypto.key.RemoteRSAKeyFuture;
 import org.dclayer.exception.crypto.CryptoException;
 import org.dclayer.net.Data;
 
@@ -10,4 +12,10 @@ public abstract class CryptoChallenge {
 	
 	public abstract Data solveChallengeData(Data challengeData) throws CryptoException;
 	
+	/**
+	 * starts solving the given challenge data without waiting for a {@link RemoteRSAKey} to answer
+	 * @return a {@link RemoteRSAKeyFuture} completed with the solved data
+	 */
+	public abstract RemoteRSAKeyFuture solveChallengeDataAsync(Data challengeData);
+	
 }
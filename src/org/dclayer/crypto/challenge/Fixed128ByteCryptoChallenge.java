@@ -3,6 +3,8 @@ package org.dclayer.crypto.challenge;
 import java.util.Random;
 
 import org.dclayer.crypto.key.Key;
+import org.dclayer.crypto.key.RemoteRSAKey;
+import org.dclayer.crypto.key.RemoteRSAKeyFuture;
 import org.dclayer.exception.crypto.CryptoException;
 import org.dclayer.net.Data;
 
@@ -30,13 +32,29 @@ public class Fixed128ByteCryptoChallenge extends CryptoChallenge {
 
 	// crypto challenge resolution
 	
-	public Data solveChallengeData(Data challengeData) throws CryptoException {
+	private Data padChallengeData(Data challengeData) {
 		Data cryptData = new Data(challengeData.length() + PLAINDATA_PADDING);
 		byte[] padding = new byte[PLAINDATA_PADDING];
 		(new Random()).nextBytes(padding); // TODO is a simple random padding sufficient?
 		cryptData.setBytes(0, padding, 0, padding.length);
 		cryptData.setBytes(padding.length, challengeData.getData(), challengeData.offset(), challengeData.length());
-		return key.encrypt(cryptData);
+		return cryptData;
+	}
+	
+	public Data solveChallengeData(Data challengeData) throws CryptoException {
+		return key.encrypt(padChallengeData(challengeData));
+	}
+	
+	public RemoteRSAKeyFuture solveChallengeDataAsync(Data challengeData) {
+		Data cryptData = padChallengeData(challengeData);
+		if(key instanceof RemoteRSAKey) {
+			return ((RemoteRSAKey) key).encryptAsync(cryptData);
+		}
+		try {
+			return RemoteRSAKeyFuture.completed(key.encrypt(cryptData));
+		} catch (CryptoException e) {
+			return RemoteRSAKeyFuture.failed(e);
+		}
 	}
 
 	// crypto challenge verification
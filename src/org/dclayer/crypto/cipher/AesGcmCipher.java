@@ -1,43 +1,47 @@
 package org.dclayer.crypto.cipher;
 
-import org.bouncycastle.crypto.InvalidCipherTextException;
-import org.bouncycastle.crypto.engines.AESEngine;
-import org.bouncycastle.crypto.modes.GCMBlockCipher;
-import org.bouncycastle.crypto.params.AEADParameters;
-import org.bouncycastle.crypto.params.KeyParameter;
 import org.dclayer.exception.crypto.CryptoException;
 import org.dclayer.net.Data;
+import org.dclayer.net.DataPool;
 
-public class AesGcmCipher {
+/**
+ * AES-GCM cipher operating on {@link Data} objects. the actual cipher implementation is provided
+ * by subclasses, see {@link AesGcmCipherBackend}.
+ */
+public abstract class AesGcmCipher {
 	
 	public static final int MAC_BYTES = 16;
 	public static final int DEFAULT_KEY_BYTES = 16;
 	
-	//
+	/**
+	 * creates a new {@link AesGcmCipher} using the default {@link AesGcmCipherBackend}
+	 * @param forEncryption true if the cipher should encrypt, false if it should decrypt
+	 * @param key the key bytes
+	 * @return a new {@link AesGcmCipher} instance
+	 * @throws CryptoException if the default backend can not be initialized
+	 */
+	public static AesGcmCipher make(boolean forEncryption, byte[] key) throws CryptoException {
+		return AesGcmCipherBackend.getDefault().make(forEncryption, key);
+	}
 	
-	private AESEngine aesEngine = new AESEngine();
-	private GCMBlockCipher gcmBlockCipher = new GCMBlockCipher(aesEngine);
+	//
 	
-	private boolean forEncryption;
-	private KeyParameter keyParameter;
+	protected final boolean forEncryption;
 	
-	private Data ownOutData = new Data(1024);
+	private Data ownOutData = DataPool.getDefault().newData();
 	private Data outData;
 	private int outDataLength = 0;
 	private int inDataLength = 0;
 	
-	public AesGcmCipher(boolean forEncryption, byte[] key) {
-		
+	public AesGcmCipher(boolean forEncryption) {
 		this.forEncryption = forEncryption;
-		this.keyParameter = new KeyParameter(key);
-		
 	}
 	
 	/**
 	 * clears this cipher's in- and out-data and (re-)initializes it with the given IV
 	 * @param iv the initialization vector bytes
 	 */
-	public void reset(byte[] iv) {
+	public void reset(byte[] iv) throws CryptoException {
 		reset(iv, null);
 	}
 	
@@ -47,7 +51,7 @@ public class AesGcmCipher {
 	 * @param outData the {@link Data} object the resulting bytes should be stored in
 	 * @param prefixDatas {@link Data} objects containing bytes outData should be prefixed with, or null if outData should not be prefixed
 	 */
-	public void reset(byte[] iv, Data outData, Data... prefixDatas) {
+	public void reset(byte[] iv, Data outData, Data... prefixDatas) throws CryptoException {
 		if(outData == null) {
 			outData = this.ownOutData;
 		}
@@ -79,41 +83,25 @@ public class AesGcmCipher {
 	 * another message to be processed and returned by {@link AesGcmCipher#finish()} along with its predecessors.
 	 * @param iv the initialization vector bytes
 	 */
-	public void init(byte[] iv) {
-		gcmBlockCipher.init(forEncryption, new AEADParameters(keyParameter, MAC_BYTES*8, iv));
-	}
+	public abstract void init(byte[] iv) throws CryptoException;
 	
 	public void process(byte[] data, int offset, int length) {
 		inDataLength += length;
 		outData.enlarge(inDataLength);
-		outDataLength += gcmBlockCipher.processBytes(data, offset, length, outData.getData(), outData.offset() + outDataLength);
+		outDataLength += processBytes(data, offset, length, outData.getData(), outData.offset() + outDataLength);
 	}
 	
 	public void process(byte b) {
 		inDataLength++;
 		outData.enlarge(inDataLength);
-		outDataLength += gcmBlockCipher.processByte(b, outData.getData(), outData.offset() + outDataLength);
-	}
-	
-	public void processAssociatedData(byte[] data, int offset, int length) {
-		gcmBlockCipher.processAADBytes(data, offset, length);
-	}
-	
-	public void processAssociatedData(byte b) {
-		gcmBlockCipher.processAADByte(b);
+		outDataLength += processByte(b, outData.getData(), outData.offset() + outDataLength);
 	}
 	
 	public Data finish() throws CryptoException {
 		
 		outData.resize(inDataLength + MAC_BYTES);
 		
-		try {
-			outDataLength += gcmBlockCipher.doFinal(outData.getData(), outData.offset() + outDataLength);
-		} catch (IllegalStateException e) {
-			throw new CryptoException(e);
-		} catch (InvalidCipherTextException e) {
-			throw new CryptoException(e);
-		}
+		outDataLength += doFinal(outData.getData(), outData.offset() + outDataLength);
 		
 		outData.resize(outDataLength);
 		
@@ -121,4 +109,27 @@ public class AesGcmCipher {
 		
 	}
 	
+	public abstract void processAssociatedData(byte[] data, int offset, int length);
+	
+	public abstract void processAssociatedData(byte b);
+	
+	/**
+	 * processes the given bytes, writing the resulting bytes to out
+	 * @return the amount of bytes written to out
+	 */
+	protected abstract int processBytes(byte[] in, int inOffset, int length, byte[] out, int outOffset);
+	
+	/**
+	 * processes the given byte, writing the resulting bytes to out
+	 * @return the amount of bytes written to out
+	 */
+	protected abstract int processByte(byte b, byte[] out, int outOffset);
+	
+	/**
+	 * finishes the current message, writing the remaining bytes (and the MAC, if encrypting) to out
+	 * @return the amount of bytes written to out
+	 * @throws CryptoException if the message can not be finished, e.g. because the MAC does not match
+	 */
+	protected abstract int doFinal(byte[] out, int outOffset) throws CryptoException;
+	
 }
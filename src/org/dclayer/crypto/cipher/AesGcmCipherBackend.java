@@ -0,0 +1,73 @@
+package org.dclayer.crypto.cipher;
+
+import org.dclayer.exception.crypto.CryptoException;
+
+/**
+ * the available {@link AesGcmCipher} implementations
+ */
+public enum AesGcmCipherBackend {
+	
+	BOUNCYCASTLE("bc") {
+		@Override
+		public AesGcmCipher make(boolean forEncryption, byte[] key) {
+			return new BouncyCastleAesGcmCipher(forEncryption, key);
+		}
+	},
+	JCE("jce") {
+		@Override
+		public AesGcmCipher make(boolean forEncryption, byte[] key) throws CryptoException {
+			return new JceAesGcmCipher(forEncryption, key);
+		}
+	};
+	
+	/**
+	 * the {@link AesGcmCipherBackend} used by {@link AesGcmCipher#make(boolean, byte[])}
+	 */
+	private static volatile AesGcmCipherBackend defaultBackend = BOUNCYCASTLE;
+	
+	public static AesGcmCipherBackend getDefault() {
+		return defaultBackend;
+	}
+	
+	/**
+	 * sets the {@link AesGcmCipherBackend} used for ciphers created from now on
+	 * @param aesGcmCipherBackend the {@link AesGcmCipherBackend} to use
+	 */
+	public static void setDefault(AesGcmCipherBackend aesGcmCipherBackend) {
+		defaultBackend = aesGcmCipherBackend;
+	}
+	
+	/**
+	 * returns the {@link AesGcmCipherBackend} with the given name
+	 * @param name the name of the {@link AesGcmCipherBackend}
+	 * @return the {@link AesGcmCipherBackend} with the given name or null if there is none
+	 */
+	public static AesGcmCipherBackend get(String name) {
+		for(AesGcmCipherBackend aesGcmCipherBackend : values()) {
+			if(aesGcmCipherBackend.name.equals(name)) return aesGcmCipherBackend;
+		}
+		return null;
+	}
+	
+	//
+	
+	private String name;
+	
+	private AesGcmCipherBackend(String name) {
+		this.name = name;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * creates a new {@link AesGcmCipher} using this backend
+	 * @param forEncryption true if the cipher should encrypt, false if it should decrypt
+	 * @param key the key bytes
+	 * @return a new {@link AesGcmCipher} instance
+	 * @throws CryptoException if the backend can not be initialized
+	 */
+	public abstract AesGcmCipher make(boolean forEncryption, byte[] key) throws CryptoException;
+	
+}
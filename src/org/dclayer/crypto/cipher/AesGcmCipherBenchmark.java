@@ -0,0 +1,123 @@
+package org.dclayer.crypto.cipher;
+
+import java.security.SecureRandom;
+
+import org.dclayer.exception.crypto.CryptoException;
+import org.dclayer.net.Data;
+
+/**
+ * compares the throughput of the {@link AesGcmCipherBackend}s by encrypting and decrypting packets of typical sizes.<br />
+ * usage: AesGcmCipherBenchmark [packetsize=1400] [packets=200000] [rounds=5]
+ */
+public class AesGcmCipherBenchmark {
+
+	public static void main(String[] args) throws CryptoException {
+
+		int packetSize = 1400;
+		int numPackets = 200000;
+		int numRounds = 5;
+
+		for(String arg : args) {
+			String[] argParts = arg.split("=", 2);
+			if(argParts.length < 2) continue;
+			switch(argParts[0]) {
+			case "packetsize": {
+				packetSize = Integer.parseInt(argParts[1]);
+				break;
+			}
+			case "packets": {
+				numPackets = Integer.parseInt(argParts[1]);
+				break;
+			}
+			case "rounds": {
+				numRounds = Integer.parseInt(argParts[1]);
+				break;
+			}
+			}
+		}
+
+		SecureRandom secureRandom = new SecureRandom();
+
+		byte[] key = new byte[AesGcmCipher.DEFAULT_KEY_BYTES];
+		secureRandom.nextBytes(key);
+
+		byte[] plain = new byte[packetSize];
+		secureRandom.nextBytes(plain);
+
+		// make sure the backends are wire-compatible before measuring
+		checkCompatibility(AesGcmCipherBackend.BOUNCYCASTLE, AesGcmCipherBackend.JCE, key, plain);
+		checkCompatibility(AesGcmCipherBackend.JCE, AesGcmCipherBackend.BOUNCYCASTLE, key, plain);
+
+		for(int round = 0; round < numRounds; round++) {
+			for(AesGcmCipherBackend aesGcmCipherBackend : AesGcmCipherBackend.values()) {
+				run(round, aesGcmCipherBackend, key, plain, numPackets);
+			}
+		}
+
+	}
+
+	private static void checkCompatibility(AesGcmCipherBackend encryptBackend, AesGcmCipherBackend decryptBackend, byte[] key, byte[] plain) throws CryptoException {
+
+		byte[] iv = new byte[12];
+
+		AesGcmCipher encryptCipher = encryptBackend.make(true, key);
+		encryptCipher.reset(iv);
+		encryptCipher.process(plain, 0, plain.length);
+		Data encrypted = encryptCipher.finish().copy();
+
+		AesGcmCipher decryptCipher = decryptBackend.make(false, key);
+		decryptCipher.reset(iv);
+		decryptCipher.process(encrypted.getData(), encrypted.offset(), encrypted.length());
+		Data decrypted = decryptCipher.finish();
+
+		if(!decrypted.equals(new Data(plain))) {
+			throw new CryptoException(String.format("%s output can not be decrypted by %s", encryptBackend.getName(), decryptBackend.getName()));
+		}
+
+	}
+
+	private static void run(int round, AesGcmCipherBackend aesGcmCipherBackend, byte[] key, byte[] plain, int numPackets) throws CryptoException {
+
+		AesGcmCipher encryptCipher = aesGcmCipherBackend.make(true, key);
+		AesGcmCipher decryptCipher = aesGcmCipherBackend.make(false, key);
+
+		Data encryptedData = new Data(plain.length + AesGcmCipher.MAC_BYTES);
+		Data decryptedData = new Data(plain.length);
+
+		byte[] iv = new byte[12];
+
+		long encryptNanos = 0, decryptNanos = 0;
+
+		for(int i = 0; i < numPackets; i++) {
+
+			for(int j = iv.length - 1; j >= 4; j--) {
+				if(++iv[j] != 0) break;
+			}
+
+			long start = System.nanoTime();
+			encryptCipher.reset(iv, encryptedData);
+			encryptCipher.process(plain, 0, plain.length);
+			Data encrypted = encryptCipher.finish();
+			long middle = System.nanoTime();
+			decryptCipher.reset(iv, decryptedData);
+			decryptCipher.process(encrypted.getData(), encrypted.offset(), encrypted.length());
+			decryptCipher.finish();
+			long end = System.nanoTime();
+
+			encryptNanos += middle - start;
+			decryptNanos += end - middle;
+
+		}
+
+		double numMegabytes = (double) numPackets * plain.length / (1024d * 1024d);
+		System.out.println(String.format("round %d, %-4s: encrypt %8.1f MiB/s, decrypt %8.1f MiB/s (%d packets of %d bytes)",
+				round,
+				aesGcmCipherBackend.getName(),
+				numMegabytes / (encryptNanos / 1e9),
+				numMegabytes / (decryptNanos / 1e9),
+				numPackets,
+				plain.length));
+
+	}
+
+}
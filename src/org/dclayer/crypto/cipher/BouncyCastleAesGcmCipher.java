@@ -0,0 +1,70 @@
+package org.dclayer.crypto.cipher;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.dclayer.exception.crypto.CryptoException;
+
+/**
+ * {@link AesGcmCipher} using BouncyCastle's pure-Java {@link AESEngine} and {@link GCMBlockCipher}
+ */
+public class BouncyCastleAesGcmCipher extends AesGcmCipher {
+	
+	private AESEngine aesEngine = new AESEngine();
+	private GCMBlockCipher gcmBlockCipher = new GCMBlockCipher(aesEngine);
+	
+	private KeyParameter keyParameter;
+	/**
+	 * true once the {@link GCMBlockCipher} has been initialized with {@link #keyParameter}
+	 */
+	private boolean keyInitialized = false;
+	
+	public BouncyCastleAesGcmCipher(boolean forEncryption, byte[] key) {
+		
+		super(forEncryption);
+		this.keyParameter = new KeyParameter(key);
+		
+	}
+	
+	@Override
+	public void init(byte[] iv) {
+		// the key never changes, only pass it on the first init so that the AES key schedule
+		// and the GHASH tables are not recomputed for every message
+		gcmBlockCipher.init(forEncryption, new AEADParameters(keyInitialized ? null : keyParameter, MAC_BYTES*8, iv));
+		keyInitialized = true;
+	}
+	
+	@Override
+	public void processAssociatedData(byte[] data, int offset, int length) {
+		gcmBlockCipher.processAADBytes(data, offset, length);
+	}
+	
+	@Override
+	public void processAssociatedData(byte b) {
+		gcmBlockCipher.processAADByte(b);
+	}
+	
+	@Override
+	protected int processBytes(byte[] in, int inOffset, int length, byte[] out, int outOffset) {
+		return gcmBlockCipher.processBytes(in, inOffset, length, out, outOffset);
+	}
+	
+	@Override
+	protected int processByte(byte b, byte[] out, int outOffset) {
+		return gcmBlockCipher.processByte(b, out, outOffset);
+	}
+	
+	@Override
+	protected int doFinal(byte[] out, int outOffset) throws CryptoException {
+		try {
+			return gcmBlockCipher.doFinal(out, outOffset);
+		} catch (IllegalStateException e) {
+			throw new CryptoException(e);
+		} catch (InvalidCipherTextException e) {
+			throw new CryptoException(e);
+		}
+	}
+	
+}
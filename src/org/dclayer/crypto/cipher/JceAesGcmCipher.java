@@ -0,0 +1,90 @@
+package org.dclayer.crypto.cipher;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.dclayer.exception.crypto.CryptoException;
+
+/**
+ * {@link AesGcmCipher} using the JCE's "AES/GCM/NoPadding" {@link Cipher}, which the JIT compiles to
+ * hardware AES and carry-less multiplication instructions where available.<br />
+ * produces the same output as {@link BouncyCastleAesGcmCipher}.
+ */
+public class JceAesGcmCipher extends AesGcmCipher {
+	
+	public static final String TRANSFORMATION = "AES/GCM/NoPadding";
+	
+	//
+	
+	private Cipher cipher;
+	private SecretKeySpec keySpec;
+	
+	/**
+	 * single byte buffer used for {@link #processByte(byte, byte[], int)} and {@link #processAssociatedData(byte)}
+	 */
+	private byte[] singleByte = new byte[1];
+	
+	public JceAesGcmCipher(boolean forEncryption, byte[] key) throws CryptoException {
+		
+		super(forEncryption);
+		this.keySpec = new SecretKeySpec(key, "AES");
+		try {
+			this.cipher = Cipher.getInstance(TRANSFORMATION);
+		} catch (GeneralSecurityException e) {
+			throw new CryptoException(e);
+		}
+		
+	}
+	
+	@Override
+	public void init(byte[] iv) throws CryptoException {
+		try {
+			cipher.init(forEncryption ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(MAC_BYTES*8, iv));
+		} catch (GeneralSecurityException e) {
+			throw new CryptoException(e);
+		}
+	}
+	
+	@Override
+	public void processAssociatedData(byte[] data, int offset, int length) {
+		cipher.updateAAD(data, offset, length);
+	}
+	
+	@Override
+	public void processAssociatedData(byte b) {
+		singleByte[0] = b;
+		cipher.updateAAD(singleByte, 0, 1);
+	}
+	
+	@Override
+	protected int processBytes(byte[] in, int inOffset, int length, byte[] out, int outOffset) {
+		try {
+			return cipher.update(in, inOffset, length, out, outOffset);
+		} catch (ShortBufferException e) {
+			// this can not happen, the output never exceeds the input processed so far
+			throw new RuntimeException(e);
+		}
+	}
+	
+	@Override
+	protected int processByte(byte b, byte[] out, int outOffset) {
+		singleByte[0] = b;
+		return processBytes(singleByte, 0, 1, out, outOffset);
+	}
+	
+	@Override
+	protected int doFinal(byte[] out, int outOffset) throws CryptoException {
+		try {
+			return cipher.doFinal(out, outOffset);
+		} catch (GeneralSecurityException e) {
+			throw new CryptoException(e);
+		} catch (IllegalStateException e) {
+			throw new CryptoException(e);
+		}
+	}
+	
+}
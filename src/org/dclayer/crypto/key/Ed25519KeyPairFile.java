@@ -0,0 +1,131 @@
+package org.dclayer.crypto.key;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.dclayer.crypto.Crypto;
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.meta.Log;
+
+/**
+ * a file storing the long-term Ed25519 key pair the service signs its ephemeral keys with during link crypto initialization.<br />
+ * remotes pin this key, thus it must survive restarts. the file is created next to the {@link KeyPairPool}'s file by default
+ * and, like that file, can only be read and written by its owner.
+ */
+public class Ed25519KeyPairFile implements HierarchicalLevel {
+
+	private static final int FILE_MAGIC = 0x4443454b;
+	private static final int FILE_VERSION = 0;
+
+	private final File file;
+
+	private HierarchicalLevel parentHierarchicalLevel;
+
+	/**
+	 * @param file the file to load the key pair from and store it to
+	 */
+	public Ed25519KeyPairFile(File file) {
+		this.file = file;
+	}
+
+	public void setParentHierarchicalLevel(HierarchicalLevel parentHierarchicalLevel) {
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+	}
+
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return parentHierarchicalLevel;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Ed25519KeyPairFile %s", file);
+	}
+
+	/**
+	 * loads the key pair from the file, generating a new one and storing it if the file does not exist
+	 * @return the loaded or generated key pair
+	 * @throws IOException if the file exists but can not be read, or if the generated key pair can not be stored.
+	 * the key pair is not replaced then, as remotes would reject the new one
+	 */
+	public AsymmetricCipherKeyPair loadOrGenerate() throws IOException {
+
+		AsymmetricCipherKeyPair keyPair = load();
+		if(keyPair != null) {
+			return keyPair;
+		}
+
+		keyPair = Crypto.generateLinkCryptoInitEd25519KeyPair();
+		store(keyPair);
+		Log.msg(this, "generated and stored new link crypto initialization Ed25519 key pair");
+		return keyPair;
+
+	}
+
+	/**
+	 * @return the key pair read from the file, or null if the file does not exist
+	 */
+	private AsymmetricCipherKeyPair load() throws IOException {
+
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+			if(in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+				throw new IOException(String.format("unknown format of Ed25519 key pair file %s", file));
+			}
+
+			byte[] privateKeyBytes = new byte[Ed25519PrivateKeyParameters.KEY_SIZE];
+			in.readFully(privateKeyBytes);
+
+			Ed25519PrivateKeyParameters privateKey = new Ed25519PrivateKeyParameters(privateKeyBytes, 0);
+			Log.debug(this, "loaded link crypto initialization Ed25519 key pair");
+			return new AsymmetricCipherKeyPair(privateKey.generatePublicKey(), privateKey);
+
+		} catch (FileNotFoundException e) {
+			Log.debug(this, "no Ed25519 key pair file at %s", file);
+			return null;
+		}
+
+	}
+
+	/**
+	 * writes the given key pair to the file, replacing the old file atomically
+	 */
+	private void store(AsymmetricCipherKeyPair keyPair) throws IOException {
+
+		Path tmpFile = KeyPairPool.createTmpFile(file);
+
+		try {
+
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+				out.writeInt(FILE_MAGIC);
+				out.writeInt(FILE_VERSION);
+				out.write(((Ed25519PrivateKeyParameters) keyPair.getPrivate()).getEncoded());
+			}
+
+			Files.move(tmpFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			tmpFile = null;
+
+		} finally {
+			if(tmpFile != null) {
+				try {
+					Files.deleteIfExists(tmpFile);
+				} catch (IOException e) {
+					Log.exception(this, e, "could not delete temporary file %s", tmpFile);
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,322 @@
+package org.dclayer.crypto.key;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.dclayer.crypto.Crypto;
+import org.dclayer.exception.crypto.InsufficientKeySizeException;
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.meta.Log;
+
+/**
+ * a pool of RSA key pairs that are generated on background threads ahead of time.<br />
+ * the pool keeps a reserve of key pairs that can be taken without waiting for prime generation. if a file is given,
+ * the reserve is persisted to it so that it is available immediately after a restart. the file is rewritten
+ * every time the reserve changes, thus a key pair that was taken is never handed out again.<br />
+ * all key pairs are generated using {@link Crypto#generateAddressRSAKeyPair()}, which uses the same parameters as
+ * {@link Crypto#generateLinkCryptoInitRSAKeyPair()}.
+ */
+public class KeyPairPool implements HierarchicalLevel {
+
+	public static final int DEFAULT_RESERVE = 4;
+	public static final int DEFAULT_NUM_THREADS = Math.min(2, Runtime.getRuntime().availableProcessors());
+
+	private static final int FILE_MAGIC = 0x44434b50;
+	private static final int FILE_VERSION = 0;
+
+	/**
+	 * thread generating key pairs while the reserve is not full
+	 */
+	private class Generator extends Thread {
+
+		public Generator(int index) {
+			super(String.format("KeyPairPool generator %d", index));
+			this.setDaemon(true);
+			this.start();
+		}
+
+		@Override
+		public void run() {
+			for(;;) {
+
+				synchronized(KeyPairPool.this) {
+					while(keyPairs.size() + numGenerating >= reserve) {
+						try {
+							KeyPairPool.this.wait();
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+					numGenerating++;
+				}
+
+				KeyPair<RSAKey> keyPair = Crypto.generateAddressRSAKeyPair();
+
+				synchronized(KeyPairPool.this) {
+					numGenerating--;
+					keyPairs.addLast(keyPair);
+					Log.debug(KeyPairPool.this, "generated key pair, %d/%d in reserve", keyPairs.size(), reserve);
+				}
+
+				persist();
+
+			}
+		}
+
+	}
+
+	//
+
+	private HierarchicalLevel parentHierarchicalLevel;
+
+	/**
+	 * the amount of key pairs to keep in reserve
+	 */
+	private final int reserve;
+
+	/**
+	 * the file the reserve is persisted to, or null
+	 */
+	private final File file;
+
+	/**
+	 * the reserve, locked by this
+	 */
+	private final LinkedList<KeyPair<RSAKey>> keyPairs = new LinkedList<>();
+
+	/**
+	 * the amount of key pairs currently being generated, locked by this
+	 */
+	private int numGenerating = 0;
+
+	/**
+	 * lock serializing writes to {@link #file}
+	 */
+	private final Object fileLock = new Object();
+
+	public KeyPairPool() {
+		this(DEFAULT_RESERVE, DEFAULT_NUM_THREADS, null);
+	}
+
+	/**
+	 * @param reserve the amount of key pairs to keep in reserve
+	 * @param numThreads the amount of threads generating key pairs
+	 * @param file the file to persist the reserve to, or null if the reserve should not be persisted
+	 */
+	public KeyPairPool(int reserve, int numThreads, File file) {
+
+		this.reserve = reserve;
+		this.file = file;
+
+		if(file != null) {
+			load();
+		}
+
+		for(int i = 0; i < numThreads; i++) {
+			new Generator(i);
+		}
+
+	}
+
+	public void setParentHierarchicalLevel(HierarchicalLevel parentHierarchicalLevel) {
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+	}
+
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return parentHierarchicalLevel;
+	}
+
+	@Override
+	public String toString() {
+		return "KeyPairPool";
+	}
+
+	/**
+	 * takes a key pair from the reserve. if the reserve is empty, a key pair is generated on the calling thread.
+	 * @return the key pair, which is removed from the reserve and never returned again
+	 */
+	public KeyPair<RSAKey> take() {
+
+		KeyPair<RSAKey> keyPair;
+		synchronized(this) {
+			keyPair = keyPairs.pollFirst();
+			// wake up the generators to refill the reserve
+			this.notifyAll();
+		}
+
+		if(keyPair == null) {
+			Log.debug(this, "reserve is empty, generating key pair");
+			return Crypto.generateAddressRSAKeyPair();
+		}
+
+		persist();
+
+		return keyPair;
+
+	}
+
+	/**
+	 * @return the amount of key pairs currently in reserve
+	 */
+	public synchronized int size() {
+		return keyPairs.size();
+	}
+
+	private static void writeBigInteger(DataOutputStream out, BigInteger bigInteger) throws IOException {
+		byte[] bytes = bigInteger.toByteArray();
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	private static BigInteger readBigInteger(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readUnsignedShort()];
+		in.readFully(bytes);
+		return new BigInteger(bytes);
+	}
+
+	/**
+	 * creates a new temporary file next to the given file that only the owner can read and write.<br />
+	 * the file contains private keys, thus on POSIX file systems it is created with these permissions atomically,
+	 * elsewhere the permissions are restricted right after creating it while it is still empty
+	 */
+	static Path createTmpFile(File file) throws IOException {
+
+		Path dir = file.getAbsoluteFile().getParentFile().toPath();
+		String prefix = file.getName() + ".";
+
+		if(dir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			return Files.createTempFile(dir, prefix, ".tmp", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		}
+
+		Path tmpFile = Files.createTempFile(dir, prefix, ".tmp");
+		File f = tmpFile.toFile();
+		f.setReadable(false, false);
+		f.setReadable(true, true);
+		f.setWritable(false, false);
+		f.setWritable(true, true);
+		return tmpFile;
+
+	}
+
+	/**
+	 * writes the current reserve to the file, replacing the old file atomically
+	 */
+	private void persist() {
+
+		if(file == null) {
+			return;
+		}
+
+		synchronized(fileLock) {
+
+			ArrayList<KeyPair<RSAKey>> snapshot;
+			synchronized(this) {
+				snapshot = new ArrayList<>(keyPairs);
+			}
+
+			Path tmpFile = null;
+
+			try {
+
+				tmpFile = createTmpFile(file);
+
+				try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+
+					out.writeInt(FILE_MAGIC);
+					out.writeInt(FILE_VERSION);
+					out.writeInt(snapshot.size());
+
+					for(KeyPair<RSAKey> keyPair : snapshot) {
+						RSAPrivateCrtKeyParameters p = (RSAPrivateCrtKeyParameters) keyPair.getPrivateKey().getRSAKeyParameters();
+						writeBigInteger(out, p.getModulus());
+						writeBigInteger(out, p.getPublicExponent());
+						writeBigInteger(out, p.getExponent());
+						writeBigInteger(out, p.getP());
+						writeBigInteger(out, p.getQ());
+						writeBigInteger(out, p.getDP());
+						writeBigInteger(out, p.getDQ());
+						writeBigInteger(out, p.getQInv());
+					}
+
+				}
+
+				Files.move(tmpFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				tmpFile = null;
+
+			} catch (IOException e) {
+				Log.exception(this, e, "could not persist key pair reserve to %s", file);
+			} finally {
+				if(tmpFile != null) {
+					try {
+						Files.deleteIfExists(tmpFile);
+					} catch (IOException e) {
+						Log.exception(this, e, "could not delete temporary file %s", tmpFile);
+					}
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * reads the reserve from the file
+	 */
+	private void load() {
+
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+			if(in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+				Log.warning(this, "ignoring key pair reserve file %s: unknown format", file);
+				return;
+			}
+
+			int n = in.readInt();
+			for(int i = 0; i < n; i++) {
+
+				BigInteger modulus = readBigInteger(in);
+				BigInteger publicExponent = readBigInteger(in);
+				BigInteger privateExponent = readBigInteger(in);
+				BigInteger p = readBigInteger(in);
+				BigInteger q = readBigInteger(in);
+				BigInteger dP = readBigInteger(in);
+				BigInteger dQ = readBigInteger(in);
+				BigInteger qInv = readBigInteger(in);
+
+				try {
+					keyPairs.addLast(KeyPair.fromKeys(
+							(RSAKey) new RSAPublicKey(new RSAKeyParameters(false, modulus, publicExponent)),
+							(RSAKey) new RSAPrivateKey(new RSAPrivateCrtKeyParameters(modulus, publicExponent, privateExponent, p, q, dP, dQ, qInv))));
+				} catch (InsufficientKeySizeException e) {
+					Log.warning(this, "ignoring key pair with insufficient key size in %s", file);
+				}
+
+			}
+
+			Log.debug(this, "loaded %d key pairs from %s", keyPairs.size(), file);
+
+		} catch (FileNotFoundException e) {
+			Log.debug(this, "no key pair reserve file at %s", file);
+		} catch (IOException e) {
+			Log.exception(this, e, "could not load key pair reserve from %s", file);
+		}
+
+	}
+
+}
@@ -43,6 +43,22 @@ public class RemoteRSAKey extends Key {
 		return remoteRSAKeyInterface.decrypt(cipherData);
 	}
 
+	/**
+	 * starts encrypting the given data, allowing multiple operations to be in flight at once
+	 * @return a {@link RemoteRSAKeyFuture} completed with the encrypted data, failing if the application could not encrypt it
+	 */
+	public RemoteRSAKeyFuture encryptAsync(Data plainData) {
+		return remoteRSAKeyInterface.encryptAsync(plainData);
+	}
+	
+	/**
+	 * starts decrypting the given data, allowing multiple operations to be in flight at once
+	 * @return a {@link RemoteRSAKeyFuture} completed with the decrypted data, failing if the application could not decrypt it
+	 */
+	public RemoteRSAKeyFuture decryptAsync(Data cipherData) {
+		return remoteRSAKeyInterface.decryptAsync(cipherData);
+	}
+
 	@Override
 	public Data toData() {
 		return null;
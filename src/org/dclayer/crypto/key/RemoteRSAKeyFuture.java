@@ -0,0 +1,193 @@
+package org.dclayer.crypto.key;
+
+import java.util.LinkedList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.dclayer.net.Data;
+
+/**
+ * the pending result of an operation on a {@link RemoteRSAKey}
+ */
+public class RemoteRSAKeyFuture implements Future<Data> {
+	
+	/**
+	 * @return a {@link RemoteRSAKeyFuture} that is already completed with the given result
+	 */
+	public static RemoteRSAKeyFuture completed(Data resultData) {
+		RemoteRSAKeyFuture remoteRSAKeyFuture = new RemoteRSAKeyFuture();
+		remoteRSAKeyFuture.complete(resultData);
+		return remoteRSAKeyFuture;
+	}
+	
+	/**
+	 * @return a {@link RemoteRSAKeyFuture} that already failed because of the given {@link Throwable}
+	 */
+	public static RemoteRSAKeyFuture failed(Throwable failure) {
+		RemoteRSAKeyFuture remoteRSAKeyFuture = new RemoteRSAKeyFuture();
+		remoteRSAKeyFuture.fail(failure);
+		return remoteRSAKeyFuture;
+	}
+	
+	//
+	
+	private Data resultData;
+	/**
+	 * the reason the operation failed, or null
+	 */
+	private Throwable failure;
+	private boolean done = false;
+	private boolean cancelled = false;
+	
+	/**
+	 * the {@link Runnable}s to run once this future is done
+	 */
+	private LinkedList<Runnable> doneRunnables = new LinkedList<>();
+	
+	/**
+	 * a lock instead of a monitor so that virtual threads waiting for the result do not pin their carrier
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition doneCondition = lock.newCondition();
+	
+	/**
+	 * completes this future with the given result, waking up all threads waiting for it
+	 * @return false if this future was completed or cancelled already, true otherwise
+	 */
+	public boolean complete(Data resultData) {
+		lock.lock();
+		try {
+			if(done) return false;
+			this.resultData = resultData;
+			this.done = true;
+			doneCondition.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		runDoneRunnables();
+		return true;
+	}
+	
+	/**
+	 * completes this future exceptionally, {@link #get()} throws an {@link ExecutionException} caused by the given {@link Throwable}
+	 * @return false if this future was completed or cancelled already, true otherwise
+	 */
+	public boolean fail(Throwable failure) {
+		lock.lock();
+		try {
+			if(done) return false;
+			this.failure = failure;
+			this.done = true;
+			doneCondition.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		runDoneRunnables();
+		return true;
+	}
+	
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		lock.lock();
+		try {
+			if(done) return false;
+			this.cancelled = true;
+			this.done = true;
+			doneCondition.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		runDoneRunnables();
+		return true;
+	}
+	
+	/**
+	 * runs the given {@link Runnable} once this future is done, immediately if it is done already.<br />
+	 * the {@link Runnable} is run by the thread completing this future, which may be the thread receiving the
+	 * application's response, thus it must not block
+	 */
+	public void onDone(Runnable runnable) {
+		lock.lock();
+		try {
+			if(!done) {
+				doneRunnables.add(runnable);
+				return;
+			}
+		} finally {
+			lock.unlock();
+		}
+		runnable.run();
+	}
+	
+	private void runDoneRunnables() {
+		LinkedList<Runnable> runnables;
+		lock.lock();
+		try {
+			runnables = doneRunnables;
+			doneRunnables = null;
+		} finally {
+			lock.unlock();
+		}
+		for(Runnable runnable : runnables) {
+			runnable.run();
+		}
+	}
+	
+	@Override
+	public boolean isCancelled() {
+		lock.lock();
+		try {
+			return cancelled;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public boolean isDone() {
+		lock.lock();
+		try {
+			return done;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public Data get() throws InterruptedException, ExecutionException {
+		lock.lock();
+		try {
+			while(!done) {
+				doneCondition.await();
+			}
+			if(cancelled) throw new CancellationException();
+			if(failure != null) throw new ExecutionException(failure);
+			return resultData;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public Data get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		lock.lock();
+		try {
+			long remainingNanos = unit.toNanos(timeout);
+			while(!done) {
+				if(remainingNanos <= 0) throw new TimeoutException();
+				remainingNanos = doneCondition.awaitNanos(remainingNanos);
+			}
+			if(cancelled) throw new CancellationException();
+			if(failure != null) throw new ExecutionException(failure);
+			return resultData;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+}
@@ -9,4 +9,14 @@ public interface RemoteRSAKeyInterface {
 	public Data encrypt(Data plainData);
 	public Data decrypt(Data cipherData);
 	
+	/**
+	 * starts encrypting the given data without waiting for the result
+	 */
+	public RemoteRSAKeyFuture encryptAsync(Data plainData);
+	
+	/**
+	 * starts decrypting the given data without waiting for the result
+	 */
+	public RemoteRSAKeyFuture decryptAsync(Data cipherData);
+	
 }
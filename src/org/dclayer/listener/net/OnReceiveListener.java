@@ -3,15 +3,17 @@ package org.dclayer.listener.net;
 import java.net.InetSocketAddress;
 
 import org.dclayer.net.Data;
+import org.dclayer.net.PooledData;
 
 /**
  * used to execute callbacks upon data receipt
  */
 public interface OnReceiveListener {
 	/**
-	 * Service-to-Service receive callback, called by UDPSocket
+	 * Service-to-Service receive callback, called by the S2S DatagramSocket
 	 * @param inetSocketAddress the InetSocketAddress this was received from
-	 * @param data TODO
+	 * @param data the received datagram, which is only valid during this call.
+	 * if it is a {@link PooledData}, it can be retained to keep it beyond this call without copying it
 	 */
 	public void onReceiveS2S(InetSocketAddress inetSocketAddress, Data data);
 }
@@ -82,7 +82,7 @@ public class Data implements PacketComponentI {
 	 */
 	public void prepare(int length) {
 		if(data == null || length > data.length) {
-			reset(new byte[length], 0, length);
+			reset(allocate(length), 0, length);
 		} else {
 			reset(0, length);
 		}
@@ -108,7 +108,7 @@ public class Data implements PacketComponentI {
 		
 		if(data == null) {
 			
-			reset(new byte[dataLength], 0, dataLength);
+			reset(allocate(dataLength), 0, dataLength);
 			
 		} else if((offset + dataLength) > data.length) {
 			
@@ -123,7 +123,7 @@ public class Data implements PacketComponentI {
 			} else {
 				
 				// a new byte array is needed
-				byte[] newData = new byte[Math.max(bytesLength, dataLength)];
+				byte[] newData = allocate(Math.max(bytesLength, dataLength));
 				System.arraycopy(data, offset, newData, 0, this.length);
 				reset(newData, 0, dataLength);
 			
@@ -198,6 +198,16 @@ public class Data implements PacketComponentI {
 		this.length = length;
 	}
 	
+	/**
+	 * creates a byte array whenever this {@link Data} needs a new one. the returned array may be bigger than requested.<br />
+	 * byte arrays that are replaced are never handed back, other objects may still reference them
+	 * @param length the minimum length of the byte array
+	 * @return the new byte array
+	 */
+	protected byte[] allocate(int length) {
+		return new byte[length];
+	}
+	
 	/**
 	 * returns the byte array containing the data
 	 * @return the byte array containing the data
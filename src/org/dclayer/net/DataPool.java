@@ -0,0 +1,234 @@
+package org.dclayer.net;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.meta.Log;
+
+/**
+ * a slab allocator for the byte arrays of {@link PooledData} objects.<br />
+ * byte arrays are handed out in power-of-two size classes from {@link #MIN_SIZE} up to {@link #MAX_SIZE} bytes and
+ * are kept for reuse once they are freed, up to {@link #MAX_BYTES_PER_CLASS} bytes per size class. bigger byte arrays
+ * are not pooled.<br />
+ * if leak detection is enabled (see {@link #setLeakDetection(boolean)} or the system property
+ * {@value #PROPERTY_LEAK_DETECTION}), the allocation site of every {@link PooledData} object that is garbage
+ * collected without being released is logged.
+ */
+public class DataPool implements HierarchicalLevel {
+
+	public static final int MIN_SIZE = 64;
+	public static final int MAX_SIZE = 65536;
+	public static final int MAX_BYTES_PER_CLASS = 4 * 1024 * 1024;
+
+	public static final String PROPERTY_LEAK_DETECTION = "dcl.datapool.leakdetection";
+
+	private static final int MIN_SIZE_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+	private static final int NUM_CLASSES = Integer.numberOfTrailingZeros(MAX_SIZE) - MIN_SIZE_SHIFT + 1;
+
+	private static final DataPool DEFAULT = new DataPool();
+
+	/**
+	 * @return the {@link DataPool} shared by all links
+	 */
+	public static DataPool getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * the free byte arrays of one size class
+	 */
+	private static class SizeClass {
+
+		final int size;
+		final int maxFree;
+		final ConcurrentLinkedQueue<byte[]> free = new ConcurrentLinkedQueue<>();
+		final AtomicInteger numFree = new AtomicInteger();
+
+		SizeClass(int size) {
+			this.size = size;
+			this.maxFree = Math.max(1, MAX_BYTES_PER_CLASS / size);
+		}
+
+	}
+
+	/**
+	 * remembers where a {@link PooledData} object was taken from the pool
+	 */
+	static class LeakTracker extends PhantomReference<PooledData> {
+
+		final Exception allocationSite = new Exception("allocation site");
+
+		LeakTracker(PooledData pooledData, ReferenceQueue<PooledData> referenceQueue) {
+			super(pooledData, referenceQueue);
+		}
+
+	}
+
+	//
+
+	private final SizeClass[] sizeClasses = new SizeClass[NUM_CLASSES];
+
+	private volatile boolean leakDetection = Boolean.getBoolean(PROPERTY_LEAK_DETECTION);
+	private final ReferenceQueue<PooledData> leakReferenceQueue = new ReferenceQueue<>();
+	/**
+	 * the {@link LeakTracker}s of all {@link PooledData} objects that were not released yet, keeps the trackers reachable
+	 */
+	private final Set<LeakTracker> leakTrackers = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<LeakTracker, Boolean>()));
+
+	private final AtomicLong numAllocated = new AtomicLong();
+	private final AtomicLong numReused = new AtomicLong();
+	private final AtomicLong numLeaked = new AtomicLong();
+
+	public DataPool() {
+		for(int i = 0; i < NUM_CLASSES; i++) {
+			sizeClasses[i] = new SizeClass(MIN_SIZE << i);
+		}
+	}
+
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "DataPool";
+	}
+
+	/**
+	 * enables or disables leak detection for {@link PooledData} objects taken from now on
+	 * @param leakDetection true if leak detection should be enabled, false otherwise
+	 */
+	public void setLeakDetection(boolean leakDetection) {
+		this.leakDetection = leakDetection;
+	}
+
+	/**
+	 * returns the {@link SizeClass} for byte arrays of the given length
+	 * @param length the minimum length of the byte array
+	 * @return the {@link SizeClass}, or null if byte arrays of the given length are not pooled
+	 */
+	private SizeClass getSizeClass(int length) {
+		if(length > MAX_SIZE) return null;
+		if(length <= MIN_SIZE) return sizeClasses[0];
+		return sizeClasses[32 - Integer.numberOfLeadingZeros(length - 1) - MIN_SIZE_SHIFT];
+	}
+
+	/**
+	 * takes a byte array of at least the given length from the pool, creating a new one if there is none of that size class
+	 * @param length the minimum length of the byte array
+	 * @return the byte array, which may contain old data
+	 */
+	public byte[] allocate(int length) {
+		SizeClass sizeClass = getSizeClass(length);
+		if(sizeClass == null) {
+			return new byte[length];
+		}
+		byte[] bytes = sizeClass.free.poll();
+		if(bytes == null) {
+			numAllocated.incrementAndGet();
+			return new byte[sizeClass.size];
+		}
+		sizeClass.numFree.decrementAndGet();
+		numReused.incrementAndGet();
+		return bytes;
+	}
+
+	/**
+	 * returns a byte array obtained from {@link #allocate(int)} to the pool. the byte array must not be used afterwards.
+	 * @param bytes the byte array to return
+	 */
+	public void free(byte[] bytes) {
+		if(bytes == null) return;
+		SizeClass sizeClass = getSizeClass(bytes.length);
+		if(sizeClass == null || sizeClass.size != bytes.length) {
+			// not from this pool
+			return;
+		}
+		if(sizeClass.numFree.incrementAndGet() > sizeClass.maxFree) {
+			sizeClass.numFree.decrementAndGet();
+			return;
+		}
+		sizeClass.free.offer(bytes);
+	}
+
+	/**
+	 * takes a new {@link PooledData} object with a reference count of one, prepared to the given length
+	 * @param length the length of the new {@link PooledData}
+	 * @return the new {@link PooledData}
+	 */
+	public PooledData take(int length) {
+		LeakTracker leakTracker = null;
+		if(leakDetection) {
+			pollLeaks();
+		}
+		PooledData pooledData = new PooledData(this, length);
+		if(leakDetection) {
+			leakTracker = new LeakTracker(pooledData, leakReferenceQueue);
+			leakTrackers.add(leakTracker);
+			pooledData.setLeakTracker(leakTracker);
+		}
+		return pooledData;
+	}
+
+	/**
+	 * creates a new, empty {@link Data} object for a single long-lived owner that reuses it and never releases it.
+	 * whenever it grows, the new byte array is taken from this pool, the old one is not returned.
+	 * @return the new {@link Data}
+	 */
+	public Data newData() {
+		return new PooledData(this, 0);
+	}
+
+	/**
+	 * called by {@link PooledData} once it was released
+	 */
+	void onReleased(LeakTracker leakTracker) {
+		leakTrackers.remove(leakTracker);
+		leakTracker.clear();
+	}
+
+	/**
+	 * logs all {@link PooledData} objects that were garbage collected without being released
+	 */
+	public void pollLeaks() {
+		Reference<? extends PooledData> reference;
+		while((reference = leakReferenceQueue.poll()) != null) {
+			LeakTracker leakTracker = (LeakTracker) reference;
+			if(leakTrackers.remove(leakTracker)) {
+				numLeaked.incrementAndGet();
+				Log.exception(this, leakTracker.allocationSite, "PooledData was garbage collected without being released");
+			}
+		}
+	}
+
+	/**
+	 * @return the amount of byte arrays that were newly created for a size class
+	 */
+	public long getNumAllocated() {
+		return numAllocated.get();
+	}
+
+	/**
+	 * @return the amount of byte arrays that were reused
+	 */
+	public long getNumReused() {
+		return numReused.get();
+	}
+
+	/**
+	 * @return the amount of {@link PooledData} objects that were detected as leaked
+	 */
+	public long getNumLeaked() {
+		return numLeaked.get();
+	}
+
+}
@@ -0,0 +1,85 @@
+package org.dclayer.net;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * a reference counted {@link Data} whose byte arrays are taken from and returned to a {@link DataPool}.<br />
+ * a {@link PooledData} is created with a reference count of one by {@link DataPool#take(int)}. every additional
+ * owner calls {@link #retain()}, every owner calls {@link #release()} once it does not use it anymore. the byte
+ * array is returned to the pool once the reference count drops to zero. this is the only way byte arrays are
+ * returned to the pool: byte arrays that are replaced because this {@link PooledData} grows are left to the garbage
+ * collector, as other objects may still reference them.
+ */
+public class PooledData extends Data {
+
+	private final DataPool dataPool;
+	private final AtomicInteger refCount = new AtomicInteger(1);
+
+	private DataPool.LeakTracker leakTracker;
+
+	/**
+	 * the byte array most recently taken from the pool, returned to it on the last {@link #release()}
+	 */
+	private byte[] allocatedBytes;
+
+	PooledData(DataPool dataPool, int length) {
+		super();
+		this.dataPool = dataPool;
+		prepare(length);
+	}
+
+	void setLeakTracker(DataPool.LeakTracker leakTracker) {
+		this.leakTracker = leakTracker;
+	}
+
+	@Override
+	protected byte[] allocate(int length) {
+		return allocatedBytes = dataPool.allocate(length);
+	}
+
+	/**
+	 * increments the reference count
+	 * @return this {@link PooledData}
+	 */
+	public PooledData retain() {
+		int n;
+		do {
+			n = refCount.get();
+			if(n <= 0) {
+				throw new IllegalStateException("PooledData was already released");
+			}
+		} while(!refCount.compareAndSet(n, n + 1));
+		return this;
+	}
+
+	/**
+	 * decrements the reference count, returning the byte array to the pool if it drops to zero.
+	 * this {@link PooledData} must not be used by the caller afterwards.
+	 * @return true if the byte array was returned to the pool, false otherwise
+	 */
+	public boolean release() {
+		int n = refCount.decrementAndGet();
+		if(n > 0) {
+			return false;
+		}
+		if(n < 0) {
+			throw new IllegalStateException("PooledData was already released");
+		}
+		reset(null, 0, 0);
+		dataPool.free(allocatedBytes);
+		allocatedBytes = null;
+		if(leakTracker != null) {
+			dataPool.onReleased(leakTracker);
+			leakTracker = null;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the current reference count
+	 */
+	public int refCount() {
+		return refCount.get();
+	}
+
+}
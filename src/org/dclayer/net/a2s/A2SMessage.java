@@ -8,9 +8,13 @@ import org.dclayer.net.a2s.message.ApplicationChannelIncomingRequestMessageI;
 import org.dclayer.net.a2s.message.ApplicationChannelOutgoingRequestMessageI;
 import org.dclayer.net.a2s.message.DataMessageI;
 import org.dclayer.net.a2s.message.JoinDefaultNetworksMessageI;
+import org.dclayer.net.a2s.message.KeyCryptoDataResponseMessageI;
+import org.dclayer.net.a2s.message.KeyCryptoErrorResponseMessageI;
 import org.dclayer.net.a2s.message.KeyCryptoResponseDataMessageI;
 import org.dclayer.net.a2s.message.KeyDecryptDataMessageI;
+import org.dclayer.net.a2s.message.KeyDecryptDataRequestMessageI;
 import org.dclayer.net.a2s.message.KeyEncryptDataMessageI;
+import org.dclayer.net.a2s.message.KeyEncryptDataRequestMessageI;
 import org.dclayer.net.a2s.message.KeyMaxEncryptionBlockNumBytesRequestMessageI;
 import org.dclayer.net.a2s.message.KeyResponseNumMessageI;
 import org.dclayer.net.a2s.message.RevisionMessageI;
@@ -21,6 +25,12 @@ public abstract class A2SMessage extends A2SPacketComponent {
 
 	public abstract byte getRevision();
 	
+	/**
+	 * @return true if this message answers a remote key operation, false otherwise.
+	 * the receiver of such a message only hands the response to a waiting thread, it never blocks.
+	 */
+	public abstract boolean isKeyResponse();
+	
 	public abstract RevisionMessageI setRevisionMessage();
 	public abstract DataMessageI setDataMessage();
 	public abstract SlotAssignMessageI setSlotAssignMessage();
@@ -36,5 +46,9 @@ public abstract class A2SMessage extends A2SPacketComponent {
 	public abstract ApplicationChannelDataMessageI setApplicationChannelDataMessage();
 	public abstract KeyMaxEncryptionBlockNumBytesRequestMessageI setKeyMaxEncryptionBlockNumBytesRequestMessage();
 	public abstract KeyResponseNumMessageI setKeyResponseNumMessage();
+	public abstract KeyEncryptDataRequestMessageI setKeyEncryptDataRequestMessage();
+	public abstract KeyDecryptDataRequestMessageI setKeyDecryptDataRequestMessage();
+	public abstract KeyCryptoDataResponseMessageI setKeyCryptoDataResponseMessage();
+	public abstract KeyCryptoErrorResponseMessageI setKeyCryptoErrorResponseMessage();
 	
 }
@@ -25,5 +25,9 @@ public interface A2SMessageReceiver {
 	public void onReceiveApplicationChannelDataMessage(int channelSlotId, Data data);
 	public void onReceiveKeyMaxEncryptionBlockNumBytesRequestMessage();
 	public void onReceiveKeyResponseNumMessage(int maxEncryptionBlockNumBytes);
+	public void onReceiveKeyEncryptDataRequestMessage(int requestId, Data plainData);
+	public void onReceiveKeyDecryptDataRequestMessage(int requestId, Data cipherData);
+	public void onReceiveKeyCryptoDataResponseMessage(int requestId, Data responseData);
+	public void onReceiveKeyCryptoErrorResponseMessage(int requestId);
 	
 }
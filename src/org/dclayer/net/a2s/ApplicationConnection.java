@@ -1,15 +1,14 @@
 package org.dclayer.net.a2s;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.dclayer.DCL;
-import org.dclayer.crypto.Crypto;
 import org.dclayer.crypto.challenge.CryptoChallenge;
 import org.dclayer.crypto.challenge.Fixed128ByteCryptoChallenge;
 import org.dclayer.crypto.key.Key;
@@ -27,6 +26,8 @@ import org.dclayer.net.a2s.message.ApplicationChannelConnectedMessageI;
 import org.dclayer.net.a2s.message.ApplicationChannelDataMessageI;
 import org.dclayer.net.a2s.message.ApplicationChannelIncomingRequestMessageI;
 import org.dclayer.net.a2s.message.DataMessageI;
+import org.dclayer.net.a2s.message.KeyDecryptDataRequestMessageI;
+import org.dclayer.net.a2s.message.KeyEncryptDataRequestMessageI;
 import org.dclayer.net.a2s.message.RevisionMessageI;
 import org.dclayer.net.a2s.message.SlotAssignMessageI;
 import org.dclayer.net.a2s.remotekey.ApplicationConnectionRemoteRSAKeyInterface;
@@ -38,6 +39,8 @@ import org.dclayer.net.address.Address;
 import org.dclayer.net.applicationchannel.ApplicationChannel;
 import org.dclayer.net.applicationchannel.ApplicationChannelTarget;
 import org.dclayer.net.applicationchannel.ApplicationSideApplicationChannelActionListener;
+import org.dclayer.net.buf.BufferedStreamByteBuf;
+import org.dclayer.net.buf.ByteBuf;
 import org.dclayer.net.buf.StreamByteBuf;
 import org.dclayer.net.component.AbsKeyComponent;
 import org.dclayer.net.componentinterface.AbsKeyComponentI;
@@ -56,19 +59,34 @@ import org.dclayer.net.network.slot.GenericNetworkSlot;
 import org.dclayer.net.network.slot.GenericNetworkSlotMap;
 import org.dclayer.threadswitch.ThreadEnvironment;
 import org.dclayer.threadswitch.ThreadExecutor;
+import org.dclayer.threadswitch.ThreadMode;
 import org.dclayer.threadswitch.ThreadSwitch;
 
 /**
- * a connection to an application instance
+ * a connection to an application instance.<br />
+ * messages from the application are either read by a thread of this {@link ApplicationConnection} itself,
+ * or read by the owner of the connection and passed to {@link #receiveRevision(Rev35Message)} and {@link #receive(A2SMessage)}.
  */
-public class ApplicationConnection extends Thread implements A2SMessageReceiver, RemoteRSAKeyCommunicationInterface, ApplicationSideApplicationChannelActionListener, HierarchicalLevel {
+public class ApplicationConnection implements A2SMessageReceiver, RemoteRSAKeyCommunicationInterface, ApplicationSideApplicationChannelActionListener, HierarchicalLevel {
+	
+	/**
+	 * revision 0 with request ids on remote key operations, allowing multiple operations to be in flight at once
+	 */
+	public static final int REVISION_BINARY_KEY_REQUEST_IDS = 1;
+	
+	//
 	
 	private Socket socket;
+	private String description;
 	
 	private HierarchicalLevel parentHierarchicalLevel;
 	private ApplicationConnectionActionListener applicationConnectionActionListener;
 	
 	private StreamByteBuf streamByteBuf;
+	/**
+	 * the {@link ByteBuf} messages to the application are written to
+	 */
+	private ByteBuf sendByteBuf;
 	
 	private final Rev0Message receiveRev0Message = new Rev0Message();
 	private final Rev0Message sendRev0Message = new Rev0Message();
@@ -98,14 +116,17 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 	private ApplicationChannelSlotMap applicationChannelSlotMap = new ApplicationChannelSlotMap();
 	
 	/**
-	 * create a new {@link ApplicationConnection} for the given {@link TCPSocketConnection}
-	 * @param tcpSocketConnection the {@link TCPSocketConnection} to create an {@link ApplicationConnection} for
+	 * a lock instead of a monitor so that virtual threads writing to the application do not pin their carrier
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	/**
+	 * create a new {@link ApplicationConnection} for the given {@link Socket}, starting a thread that reads messages from it
+	 * @param socket the {@link Socket} to create an {@link ApplicationConnection} for
 	 */
 	public ApplicationConnection(HierarchicalLevel parentHierarchicalLevel, ApplicationConnectionActionListener applicationConnectionActionListener, Socket socket) {
 		
-		this.socket = socket;
-		this.parentHierarchicalLevel = parentHierarchicalLevel;
-		this.applicationConnectionActionListener = applicationConnectionActionListener;
+		this(parentHierarchicalLevel, applicationConnectionActionListener, socket, null);
 		
 		InputStream inputStream;
 		OutputStream outputStream;
@@ -118,31 +139,51 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 		}
 		
 		try {
-			outputStream = new BufferedOutputStream(socket.getOutputStream());
+			outputStream = socket.getOutputStream();
 		} catch (IOException e) {
 			Log.exception(this, e);
 			return;
 		}
 		
-		this.streamByteBuf = new StreamByteBuf(inputStream, outputStream);
+		this.streamByteBuf = new BufferedStreamByteBuf(inputStream, outputStream);
+		this.sendByteBuf = streamByteBuf;
 		
-		this.start();
+		ThreadMode.start(String.format("%s receiver", this), new Receiver());
 		
 	}
 	
-	public synchronized void setApplicationAddressKeyPair(KeyPair applicationAddressKeyPair) {
-		
-		this.applicationAddressKeyPair = applicationAddressKeyPair;
-		this.applicationAddress = new Address(applicationAddressKeyPair, new NetworkInstanceCollection());
+	/**
+	 * create a new {@link ApplicationConnection} for the given {@link Socket} that does not read from it,
+	 * messages from the application must be passed to {@link #receiveRevision(Rev35Message)} and {@link #receive(A2SMessage)}
+	 * @param socket the {@link Socket} to create an {@link ApplicationConnection} for, only used for closing
+	 * @param sendByteBuf the {@link ByteBuf} to write messages to the application to
+	 */
+	public ApplicationConnection(HierarchicalLevel parentHierarchicalLevel, ApplicationConnectionActionListener applicationConnectionActionListener, Socket socket, ByteBuf sendByteBuf) {
 		
-		applicationConnectionActionListener.onAddress(applicationAddress);
+		this.socket = socket;
+		this.description = String.format("ApplicationConnection %s:%d", socket.getInetAddress().toString(), socket.getPort());
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+		this.applicationConnectionActionListener = applicationConnectionActionListener;
+		this.sendByteBuf = sendByteBuf;
 		
-		for(NetworkType networkType : networksToJoin) {
-			joinNetwork(networkType);
+	}
+	
+	public void setApplicationAddressKeyPair(KeyPair applicationAddressKeyPair) {
+		lock.lock();
+		try {
+			this.applicationAddressKeyPair = applicationAddressKeyPair;
+			this.applicationAddress = new Address(applicationAddressKeyPair, new NetworkInstanceCollection());
+			
+			applicationConnectionActionListener.onAddress(applicationAddress);
+			
+			for(NetworkType networkType : networksToJoin) {
+				joinNetwork(networkType);
+			}
+			
+			networksToJoin = null;
+		} finally {
+			lock.unlock();
 		}
-		
-		networksToJoin = null;
-		
 	}
 	
 	public Address getApplicationAddress() {
@@ -150,9 +191,9 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 	}
 	
 	private void generateKeyPair() {
-		Log.msg(this, "generating rsa address key pair");
-		setApplicationAddressKeyPair(Crypto.generateAddressRSAKeyPair());
-		Log.msg(this, "generated %d bits rsa address key pair", this.applicationAddressKeyPair.getPublicKey().getNumBits());
+		Log.msg(this, "taking rsa address key pair from pool");
+		setApplicationAddressKeyPair(applicationConnectionActionListener.getKeyPairPool().take());
+		Log.msg(this, "got %d bits rsa address key pair", this.applicationAddressKeyPair.getPublicKey().getNumBits());
 	}
 	
 	private void onForward(NetworkPayload networkPayload, GenericNetworkSlot<? extends NetworkNode> networkSlot, NetworkPacket networkPacket, NetworkInstance networkInstance) {
@@ -179,201 +220,273 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 		
 	}
 	
-	private synchronized void joinNetwork(final NetworkType networkType) {
-		
-		if(applicationAddress == null) {
-			networksToJoin.add(networkType);
-			return;
-		}
-		
-		final NetworkPayload inNetworkPayload = networkType.makeInNetworkPayload(null);
-		
-		ApplicationNetworkInstance applicationNetworkInstance = new ApplicationNetworkInstance(this, networkType, applicationAddress) {
-			@Override
-			public synchronized boolean onForward(NetworkPacket networkPacket, GenericNetworkSlot<? extends NetworkNode> networkSlot) {
-				inNetworkPayload.setReadDataComponent(networkPacket.getDataComponent());
-				ApplicationConnection.this.onForward(inNetworkPayload, networkSlot, networkPacket, this);
-				return true;
+	private void joinNetwork(final NetworkType networkType) {
+		lock.lock();
+		try {
+			if(applicationAddress == null) {
+				networksToJoin.add(networkType);
+				return;
 			}
+			
+			final NetworkPayload inNetworkPayload = networkType.makeInNetworkPayload(null);
+			final ReentrantLock inNetworkPayloadLock = new ReentrantLock();
+			
+			ApplicationNetworkInstance applicationNetworkInstance = new ApplicationNetworkInstance(this, networkType, applicationAddress) {
+				@Override
+				public boolean onForward(NetworkPacket networkPacket, GenericNetworkSlot<? extends NetworkNode> networkSlot) {
+					inNetworkPayloadLock.lock();
+					try {
+						inNetworkPayload.setReadDataComponent(networkPacket.getDataComponent());
+						ApplicationConnection.this.onForward(inNetworkPayload, networkSlot, networkPacket, this);
+						return true;
+					} finally {
+						inNetworkPayloadLock.unlock();
+					}
+				}
 
-			@Override
-			public void neighborRequest(Key senderPublicKey, String actionIdentifier, LLA senderLLA, boolean response, Data ignoreData) {
-				onNeighborRequest(this, senderPublicKey, actionIdentifier, senderLLA, response, ignoreData);
-			}
-		};
-		
-		applicationAddress.getNetworkInstanceCollection().addNetworkInstance(applicationNetworkInstance);
-		
-		applicationConnectionActionListener.onNetworkInstance(applicationNetworkInstance);
-		
-		GenericNetworkSlot<ApplicationNetworkInstance> networkSlot = networkSlotMap.add(networkType);
-		networkSlot.addNetworkNode(applicationNetworkInstance);
-		applicationNetworkInstance.setNetworkSlot(networkSlot);
-		
-		applicationNetworkInstance.setRequestedApplicationChannelTargets(new HashSet<ApplicationChannelTarget>());
-		
-		// TODO make these changeable for the connected application
-		CommonNetworkPayloadProperties commonNetworkPayloadProperties = new CommonNetworkPayloadProperties()
-				.destinedForService(false)
-				.sourceAddress(true);
-		
-		applicationNetworkInstance.setOutNetworkPayload(commonNetworkPayloadProperties);
-		
-		applicationNetworkInstance.setOutCrispPacket();
-		
-		Log.msg(this, "joined network: %s", networkSlot);
-		
-		sendSlotAssignMessage(networkSlot.getSlot(), networkType, applicationNetworkInstance.getScaledAddress());
-		
+				@Override
+				public void neighborRequest(Key senderPublicKey, String actionIdentifier, LLA senderLLA, boolean response, Data ignoreData) {
+					onNeighborRequest(this, senderPublicKey, actionIdentifier, senderLLA, response, ignoreData);
+				}
+			};
+			
+			applicationAddress.getNetworkInstanceCollection().addNetworkInstance(applicationNetworkInstance);
+			
+			applicationConnectionActionListener.onNetworkInstance(applicationNetworkInstance);
+			
+			GenericNetworkSlot<ApplicationNetworkInstance> networkSlot = networkSlotMap.add(networkType);
+			networkSlot.addNetworkNode(applicationNetworkInstance);
+			applicationNetworkInstance.setNetworkSlot(networkSlot);
+			
+			applicationNetworkInstance.setRequestedApplicationChannelTargets(new HashSet<ApplicationChannelTarget>());
+			
+			// TODO make these changeable for the connected application
+			CommonNetworkPayloadProperties commonNetworkPayloadProperties = new CommonNetworkPayloadProperties()
+					.destinedForService(false)
+					.sourceAddress(true);
+			
+			applicationNetworkInstance.setOutNetworkPayload(commonNetworkPayloadProperties);
+			
+			applicationNetworkInstance.setOutCrispPacket();
+			
+			Log.msg(this, "joined network: %s", networkSlot);
+			
+			sendSlotAssignMessage(networkSlot.getSlot(), networkType, applicationNetworkInstance.getScaledAddress());
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	//
 	
-	public synchronized void onNeighborRequest(ApplicationNetworkInstance applicationNetworkInstance, Key senderPublicKey, String fullActionIdentifier, LLA senderLLA, boolean response, Data ignoreData) {
-		
-		if(!fullActionIdentifier.startsWith(DCL.ACTION_IDENTIFIER_APPLICATION_CHANNEL_PREFIX)) {
-			Log.debug(this, "ignoring neighbor request, unknown action identifier: fullActionIdentifier=%s, senderLLA=%s", fullActionIdentifier, senderLLA);
-			return;
-		}
-		
-		String actionIdentifierSuffix = fullActionIdentifier.substring(DCL.ACTION_IDENTIFIER_APPLICATION_CHANNEL_PREFIX.length());
-		Address remoteAddress = new Address<>(KeyPair.fromPublicKey(senderPublicKey));
-		
-		ApplicationChannelSlot applicationChannelSlot = applicationChannelSlotMap.find(new ApplicationChannelTarget(remoteAddress, actionIdentifierSuffix));
-		
-		if(applicationChannelSlot == null) {
-			
-			if(ignoreNeighborRequests || response) {
-				Log.debug(this, "ignoring neighbor request%s: fullActionIdentifier=%s, senderLLA=%s", response ? " (unsolicited respons)" : "", fullActionIdentifier, senderLLA);
+	public void onNeighborRequest(ApplicationNetworkInstance applicationNetworkInstance, Key senderPublicKey, String fullActionIdentifier, LLA senderLLA, boolean response, Data ignoreData) {
+		lock.lock();
+		try {
+			if(!fullActionIdentifier.startsWith(DCL.ACTION_IDENTIFIER_APPLICATION_CHANNEL_PREFIX)) {
+				Log.debug(this, "ignoring neighbor request, unknown action identifier: fullActionIdentifier=%s, senderLLA=%s", fullActionIdentifier, senderLLA);
 				return;
 			}
 			
-			Log.debug(this, "forwarding neighbor request to application: actionIdentifierSuffix=%s, senderLLA=%s", actionIdentifierSuffix, senderLLA);
+			String actionIdentifierSuffix = fullActionIdentifier.substring(DCL.ACTION_IDENTIFIER_APPLICATION_CHANNEL_PREFIX.length());
+			Address remoteAddress = new Address<>(KeyPair.fromPublicKey(senderPublicKey));
 			
-			sendApplicationChannelIncomingRequestMessage(applicationNetworkInstance.getNetworkSlot().getSlot(), actionIdentifierSuffix, remoteAddress.getKeyPair().getPublicKey(), senderLLA, ignoreData);
-			
-		} else {
+			ApplicationChannelSlot applicationChannelSlot = applicationChannelSlotMap.find(new ApplicationChannelTarget(remoteAddress, actionIdentifierSuffix));
 			
-			Log.debug(this, "got neighbor request response: fullActionIdentifier=%s, senderLLA=%s", fullActionIdentifier, senderLLA);
-			
-			if(response) {
+			if(applicationChannelSlot == null) {
+				
+				if(ignoreNeighborRequests || response) {
+					Log.debug(this, "ignoring neighbor request%s: fullActionIdentifier=%s, senderLLA=%s", response ? " (unsolicited respons)" : "", fullActionIdentifier, senderLLA);
+					return;
+				}
+				
+				Log.debug(this, "forwarding neighbor request to application: actionIdentifierSuffix=%s, senderLLA=%s", actionIdentifierSuffix, senderLLA);
 				
-				Log.msg(this, "initiating application channel to %s", senderLLA);
-				applicationConnectionActionListener.initiateApplicationChannel(senderLLA, applicationNetworkInstance, applicationChannelSlot.getApplicationChannel());
+				sendApplicationChannelIncomingRequestMessage(applicationNetworkInstance.getNetworkSlot().getSlot(), actionIdentifierSuffix, remoteAddress.getKeyPair().getPublicKey(), senderLLA, ignoreData);
 				
 			} else {
 				
-				Log.debug(this, "expected response to previously sent neighbor request, got another request instead, responding");
-				respondNeighbor(applicationNetworkInstance, applicationChannelSlot.getApplicationChannel(), senderLLA, ignoreData);
+				Log.debug(this, "got neighbor request response: fullActionIdentifier=%s, senderLLA=%s", fullActionIdentifier, senderLLA);
+				
+				if(response) {
+					
+					Log.msg(this, "initiating application channel to %s", senderLLA);
+					applicationConnectionActionListener.initiateApplicationChannel(senderLLA, applicationNetworkInstance, applicationChannelSlot.getApplicationChannel());
+					
+				} else {
+					
+					Log.debug(this, "expected response to previously sent neighbor request, got another request instead, responding");
+					respondNeighbor(applicationNetworkInstance, applicationChannelSlot.getApplicationChannel(), senderLLA, ignoreData);
+					
+				}
 				
 			}
-			
+		} finally {
+			lock.unlock();
 		}
-		
 	}
 	
-	private synchronized void requestNeighbor(ApplicationNetworkInstance applicationNetworkInstance, Address destinationAddress, String actionIdentifier) {
-		
-		sendNeighborRequest(applicationNetworkInstance, destinationAddress, DCL.ACTION_IDENTIFIER_APPLICATION_CHANNEL_PREFIX + actionIdentifier, false);
-		
+	private void requestNeighbor(ApplicationNetworkInstance applicationNetworkInstance, Address destinationAddress, String actionIdentifier) {
+		lock.lock();
+		try {
+			sendNeighborRequest(applicationNetworkInstance, destinationAddress, DCL.ACTION_IDENTIFIER_APPLICATION_CHANNEL_PREFIX + actionIdentifier, false);
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void respondNeighbor(ApplicationNetworkInstance applicationNetworkInstance, ApplicationChannel applicationChannel, LLA senderLLA, Data ignoreData) {
-		
-		Log.msg(this, "expecting incoming connection from %s", senderLLA);
-		
-		Address remoteAddress = applicationChannel.getApplicationChannelTarget().getRemoteAddress();
-		String actionIdentifier = applicationChannel.getApplicationChannelTarget().getActionIdentifier();
-		
-		applicationConnectionActionListener.prepareForIncomingApplicationChannel(senderLLA, applicationNetworkInstance, applicationChannel, ignoreData);
-		
-		sendNeighborRequest(applicationNetworkInstance, remoteAddress, DCL.ACTION_IDENTIFIER_APPLICATION_CHANNEL_PREFIX + actionIdentifier, true);
-		
+	private void respondNeighbor(ApplicationNetworkInstance applicationNetworkInstance, ApplicationChannel applicationChannel, LLA senderLLA, Data ignoreData) {
+		lock.lock();
+		try {
+			Log.msg(this, "expecting incoming connection from %s", senderLLA);
+			
+			Address remoteAddress = applicationChannel.getApplicationChannelTarget().getRemoteAddress();
+			String actionIdentifier = applicationChannel.getApplicationChannelTarget().getActionIdentifier();
+			
+			applicationConnectionActionListener.prepareForIncomingApplicationChannel(senderLLA, applicationNetworkInstance, applicationChannel, ignoreData);
+			
+			sendNeighborRequest(applicationNetworkInstance, remoteAddress, DCL.ACTION_IDENTIFIER_APPLICATION_CHANNEL_PREFIX + actionIdentifier, true);
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	//
 	
-	@Override
-	public void run() {
-		
-		{
+	/**
+	 * reads messages from the {@link Socket} if this {@link ApplicationConnection} reads them itself
+	 */
+	private class Receiver implements Runnable {
 		
+		@Override
+		public void run() {
+			
 			Rev35Message tempReceiveMessage = new Rev35Message();
 			
+			try {
+				tempReceiveMessage.read(streamByteBuf);
+			} catch (ParseException e) {
+				Log.exception(ApplicationConnection.this, e);
+				close();
+				return;
+			} catch (BufException e) {
+				Log.exception(ApplicationConnection.this, e);
+				close();
+				return;
+			}
+			
+			receiveRevision(tempReceiveMessage);
+			
+			ThreadExecutor<A2SMessage> threadExecutor = new ThreadExecutor<A2SMessage>() {
+				
+				@Override
+				public void exec(ThreadEnvironment<A2SMessage> threadEnvironment, A2SMessage message) {
+					message.callOnReceiveMethod(ApplicationConnection.this);
+				}
+				
+			};
+			
+			// the message to read into while all thread environments are in use
+			A2SMessage reserveMessage = newReceiveMessage();
+			
 			for(;;) {
 				
+				ThreadEnvironment<A2SMessage> threadEnvironment = receiveThreadSwitch.tryGet();
+				A2SMessage receiveMessage = threadEnvironment == null ? reserveMessage : threadEnvironment.getObject();
+				
 				try {
-					tempReceiveMessage.read(streamByteBuf);
+					receiveMessage.read(streamByteBuf);
 				} catch (ParseException e) {
-					Log.exception(this, e);
+					Log.exception(ApplicationConnection.this, e);
 					close();
 					return;
 				} catch (BufException e) {
-					Log.exception(this, e);
+					Log.exception(ApplicationConnection.this, e);
 					close();
 					return;
 				}
 				
-				if(tempReceiveMessage.getType() != Rev35Message.REVISION && tempReceiveMessage.getType() != Rev35Message.REVISION_BINARY) {
-					Log.warning(this, "ignoring application to service message (first message must be revision message): %s", tempReceiveMessage.represent(true));
+				if(receiveMessage.isKeyResponse()) {
+					// handlers may be waiting for this response, so it must not wait for one of them to finish
+					receive(receiveMessage);
+					if(threadEnvironment != null) threadEnvironment.release();
+					continue;
 				}
 				
-				Log.debug(this, "received revision application to service message: %s", tempReceiveMessage.represent(true));
+				if(threadEnvironment == null) {
+					// blocks until a handler finishes, which stops reading from the application until then
+					try {
+						threadEnvironment = receiveThreadSwitch.get();
+					} catch (InterruptedException e) {
+						Log.exception(ApplicationConnection.this, e);
+						close();
+						return;
+					}
+					reserveMessage = threadEnvironment.exchangeObject(receiveMessage);
+					Log.debug(ApplicationConnection.this, "waited for a handler to finish: %s", receiveThreadSwitch);
+				}
 				
-				tempReceiveMessage.callOnReceiveMethod(this);
-				break;
+				Log.debug(ApplicationConnection.this, "received application to service message using %s: %s", threadEnvironment, receiveMessage.represent(true));
+				
+				threadEnvironment.exec(threadExecutor);
 				
 			}
 			
 		}
 		
-		ThreadExecutor<A2SMessage> threadExecutor = new ThreadExecutor<A2SMessage>() {
-
-			@Override
-			public void exec(ThreadEnvironment<A2SMessage> threadEnvironment, A2SMessage message) {
-				message.callOnReceiveMethod(ApplicationConnection.this);
-			}
-			
-		};
+	}
+	
+	/**
+	 * handles the first message received from the application, which must be a revision message
+	 * @param revisionMessage the first message received from the application
+	 */
+	public void receiveRevision(Rev35Message revisionMessage) {
 		
-		for(;;) {
-			
-			ThreadEnvironment<A2SMessage> threadEnvironment = receiveThreadSwitch.get();
-			A2SMessage receiveMessage = threadEnvironment.getObject();
-			
-			Log.debug(this, "using thread: %s", threadEnvironment);
-			
-			try {
-				receiveMessage.read(streamByteBuf);
-			} catch (ParseException e) {
-				Log.exception(this, e);
-				close();
-				return;
-			} catch (BufException e) {
-				Log.exception(this, e);
-				close();
-				return;
-			}
-			
-			Log.debug(this, "received application to service message: %s", receiveMessage.represent(true));
-			
-			threadEnvironment.exec(threadExecutor);
-			
+		if(revisionMessage.getType() != Rev35Message.REVISION && revisionMessage.getType() != Rev35Message.REVISION_BINARY) {
+			Log.warning(this, "ignoring application to service message (first message must be revision message): %s", revisionMessage.represent(true));
 		}
 		
+		Log.debug(this, "received revision application to service message: %s", revisionMessage.represent(true));
+		
+		revisionMessage.callOnReceiveMethod(this);
+		
+	}
+	
+	/**
+	 * handles a message received from the application after the revision message
+	 * @param message the message received from the application, created by {@link #newReceiveMessage()}
+	 */
+	public void receive(A2SMessage message) {
+		Log.debug(this, "received application to service message: %s", message.represent(true));
+		message.callOnReceiveMethod(this);
+	}
+	
+	/**
+	 * @return a new {@link A2SMessage} of the revision in use to read messages from the application into
+	 */
+	public A2SMessage newReceiveMessage() {
+		return revision == 35 ? new Rev35Message() : new Rev0Message();
 	}
 	
-	private void close() {
+	/**
+	 * closes the {@link Socket}, cancelling pending remote key operations
+	 */
+	public void close() {
+		if(receiveThreadSwitch != null) {
+			Log.debug(this, "closing, handlers: %s", receiveThreadSwitch);
+		}
 		try {
 			socket.close();
 		} catch (IOException e) {
 			Log.exception(this, e, "exception while closing Socket");
 		}
+		if(remoteRSAKeyCommunicationListener != null) {
+			remoteRSAKeyCommunicationListener.onClosed();
+		}
 	}
 	
 	private void send() {
 		try {
-			streamByteBuf.write(sendMessage);
+			sendByteBuf.write(sendMessage);
 		} catch (BufException e) {
 			Log.exception(this, e, "error while sending application to service message %s", sendMessage.represent(true));
 			return;
@@ -389,7 +502,9 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 		NetworkPacket networkPacket = networkSlot.getNetworkPacket();
 		NetworkPayload networkPayload = networkNode.getOutNetworkPayload();
 		
-		synchronized(networkNode) {
+		ReentrantLock outLock = networkNode.getOutLock();
+		outLock.lock();
+		try {
 			
 			networkPacket.setDestinationAddressData(addressData);
 			networkPayload.setDestinedForService(false);
@@ -406,6 +521,8 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 			
 			networkNode.forward(networkPacket);
 			
+		} finally {
+			outLock.unlock();
 		}
 		
 	}
@@ -421,19 +538,24 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 		
 		Data destinationAddressData = applicationNetworkInstance.getNetworkType().scaleAddress(destinationAddress);
 		
-		synchronized(applicationNetworkInstance) {
+		if(applicationConnectionActionListener.getLocalLLA(false) == null) {
+			Log.warning(this, "about to get local LLA from service, might block until it is known");
+		}
+		
+		// wait for the local LLA before taking the lock, other sends through this network instance are not held up meanwhile
+		LLA localLLA = applicationConnectionActionListener.getLocalLLA(true);
+		
+		ReentrantLock outLock = applicationNetworkInstance.getOutLock();
+		outLock.lock();
+		try {
 			
 			networkPacket.setDestinationAddressData(destinationAddressData);
 			networkPayload.setDestinedForService(true);
 			
-			if(applicationConnectionActionListener.getLocalLLA(false) == null) {
-				Log.warning(this, "about to get local LLA from service, might block until it is known");
-			}
-			
 			NeighborRequestCrispMessageI neighborRequestCrispMessage = crispPacket.setNeighborRequestCrispMessage();
 			neighborRequestCrispMessage.setKeyPair(applicationNetworkInstance.getAddress().getKeyPair());
 			neighborRequestCrispMessage.setActionIdentifier(actionIdentifier);
-			neighborRequestCrispMessage.setSenderLLA(applicationConnectionActionListener.getLocalLLA(true));
+			neighborRequestCrispMessage.setSenderLLA(localLLA);
 			neighborRequestCrispMessage.setResponse(response);
 			if(!response) {
 				neighborRequestCrispMessage.getIgnoreDataComponent().setData(applicationConnectionActionListener.getServiceIgnoreData());
@@ -453,116 +575,194 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 			
 			applicationNetworkInstance.forward(networkPacket);
 			
+		} finally {
+			outLock.unlock();
 		}
 		
 	}
 	
 	//
 	
-	private synchronized void sendRevisionMessage(int revision) {
-		RevisionMessageI revisionMessage = sendMessage.setRevisionMessage();
-		revisionMessage.setRevision(revision);
-		send();
+	private void sendRevisionMessage(int revision) {
+		lock.lock();
+		try {
+			RevisionMessageI revisionMessage = sendMessage.setRevisionMessage();
+			revisionMessage.setRevision(revision);
+			send();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendDataMessage(int slot, NetworkPayload networkPayload) {
-		DataMessageI dataMessage = sendMessage.setDataMessage();
-		dataMessage.getSlotNumComponent().setNum(slot);
-		dataMessage.getAddressComponent().setAddressData(networkPayload.getSourceAddressData()); // this may be null, doesn't matter though
-		dataMessage.getDataComponent().setData(networkPayload.getPayloadData());
-		send();
+	private void sendDataMessage(int slot, NetworkPayload networkPayload) {
+		lock.lock();
+		try {
+			DataMessageI dataMessage = sendMessage.setDataMessage();
+			dataMessage.getSlotNumComponent().setNum(slot);
+			dataMessage.getAddressComponent().setAddressData(networkPayload.getSourceAddressData()); // this may be null, doesn't matter though
+			dataMessage.getDataComponent().setData(networkPayload.getPayloadData());
+			send();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendSlotAssignMessage(int slot, NetworkType networkType, Data addressData) {
-		SlotAssignMessageI slotAssignMessage = sendMessage.setSlotAssignMessage();
-		slotAssignMessage.setSlot(slot);
-		slotAssignMessage.getNetworkTypeComponent().setNetworkType(networkType);
-		slotAssignMessage.setAddressData(addressData);
-		send();
+	private void sendSlotAssignMessage(int slot, NetworkType networkType, Data addressData) {
+		lock.lock();
+		try {
+			SlotAssignMessageI slotAssignMessage = sendMessage.setSlotAssignMessage();
+			slotAssignMessage.setSlot(slot);
+			slotAssignMessage.getNetworkTypeComponent().setNetworkType(networkType);
+			slotAssignMessage.setAddressData(addressData);
+			send();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private void sendKeyEncryptMessage(Data plainData) {
+		lock.lock();
+		try {
+			sendMessage.setKeyEncryptDataMessage().getPlainDataComponent().setData(plainData);
+			send();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private void sendKeyDecryptMessage(Data cipherData) {
+		lock.lock();
+		try {
+			sendMessage.setKeyDecryptDataMessage().getCipherDataComponent().setData(cipherData);
+			send();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendKeyEncryptMessage(Data plainData) {
-		sendMessage.setKeyEncryptDataMessage().getPlainDataComponent().setData(plainData);
-		send();
+	private void sendKeyEncryptRequestMessage(int requestId, Data plainData) {
+		lock.lock();
+		try {
+			KeyEncryptDataRequestMessageI keyEncryptDataRequestMessage = sendMessage.setKeyEncryptDataRequestMessage();
+			keyEncryptDataRequestMessage.setRequestId(requestId);
+			keyEncryptDataRequestMessage.getPlainDataComponent().setData(plainData);
+			send();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendKeyDecryptMessage(Data cipherData) {
-		sendMessage.setKeyDecryptDataMessage().getCipherDataComponent().setData(cipherData);
-		send();
+	private void sendKeyDecryptRequestMessage(int requestId, Data cipherData) {
+		lock.lock();
+		try {
+			KeyDecryptDataRequestMessageI keyDecryptDataRequestMessage = sendMessage.setKeyDecryptDataRequestMessage();
+			keyDecryptDataRequestMessage.setRequestId(requestId);
+			keyDecryptDataRequestMessage.getCipherDataComponent().setData(cipherData);
+			send();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendKeyMaxEncryptionBlockNumBytesRequestMessage() {
-		sendMessage.setKeyMaxEncryptionBlockNumBytesRequestMessage();
-		send();
+	private void sendKeyMaxEncryptionBlockNumBytesRequestMessage() {
+		lock.lock();
+		try {
+			sendMessage.setKeyMaxEncryptionBlockNumBytesRequestMessage();
+			send();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendApplicationChannelIncomingRequestMessage(int networkSlotId, String actionIdentifierSuffix, Key remotePublicKey, LLA senderLLA, Data ignoreData) {
-		ApplicationChannelIncomingRequestMessageI applicationChannelIncomingRequestMessage = sendMessage.setApplicationChannelIncomingRequestMessage();
-		applicationChannelIncomingRequestMessage.setNetworkSlot(networkSlotId);
-		applicationChannelIncomingRequestMessage.setActionIdentifierSuffix(actionIdentifierSuffix);
-		applicationChannelIncomingRequestMessage.getKeyComponent().setKey(remotePublicKey);
-		applicationChannelIncomingRequestMessage.setSenderLLA(senderLLA);
-		applicationChannelIncomingRequestMessage.getIgnoreDataComponent().setData(ignoreData);
-		send();
+	private void sendApplicationChannelIncomingRequestMessage(int networkSlotId, String actionIdentifierSuffix, Key remotePublicKey, LLA senderLLA, Data ignoreData) {
+		lock.lock();
+		try {
+			ApplicationChannelIncomingRequestMessageI applicationChannelIncomingRequestMessage = sendMessage.setApplicationChannelIncomingRequestMessage();
+			applicationChannelIncomingRequestMessage.setNetworkSlot(networkSlotId);
+			applicationChannelIncomingRequestMessage.setActionIdentifierSuffix(actionIdentifierSuffix);
+			applicationChannelIncomingRequestMessage.getKeyComponent().setKey(remotePublicKey);
+			applicationChannelIncomingRequestMessage.setSenderLLA(senderLLA);
+			applicationChannelIncomingRequestMessage.getIgnoreDataComponent().setData(ignoreData);
+			send();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendApplicationChannelConnectedMessage(int applicationChannelSlotId) {
-		ApplicationChannelConnectedMessageI applicationChannelConnectedMessage = sendMessage.setApplicationChannelConnectedMessage();
-		applicationChannelConnectedMessage.setChannelSlot(applicationChannelSlotId);
-		send();
+	private void sendApplicationChannelConnectedMessage(int applicationChannelSlotId) {
+		lock.lock();
+		try {
+			ApplicationChannelConnectedMessageI applicationChannelConnectedMessage = sendMessage.setApplicationChannelConnectedMessage();
+			applicationChannelConnectedMessage.setChannelSlot(applicationChannelSlotId);
+			send();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendApplicationChannelDataMessage(int channelSlotId, Data data) {
-		ApplicationChannelDataMessageI applicationChannelDataMessage = sendMessage.setApplicationChannelDataMessage();
-		applicationChannelDataMessage.setChannelSlot(channelSlotId);
-		applicationChannelDataMessage.getDataComponent().setData(data);
-		send();
+	private void sendApplicationChannelDataMessage(int channelSlotId, Data data) {
+		lock.lock();
+		try {
+			ApplicationChannelDataMessageI applicationChannelDataMessage = sendMessage.setApplicationChannelDataMessage();
+			applicationChannelDataMessage.setChannelSlot(channelSlotId);
+			applicationChannelDataMessage.getDataComponent().setData(data);
+			send();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	//
 	
-	public synchronized void onReceiveRevisionMessage(int revision) {
-		
-		Log.debug(this, "onReceiveRevisionMessage(%d)", revision);
+	public void onReceiveRevisionMessage(int revision) {
+		lock.lock();
+		try {
+			Log.debug(this, "onReceiveRevisionMessage(%d)", revision);
 
-		this.revision = revision;
-		
-		switch(revision) {
-		case 0: {
-			this.sendMessage = sendRev0Message;
-			this.receiveThreadSwitch = new ThreadSwitch<A2SMessage>(Rev0Message.class);
-			break;
-		}
-		case 35: {
-			this.sendMessage = sendRev35Message;
-			this.receiveThreadSwitch = new ThreadSwitch<A2SMessage>(Rev35Message.class);
-			break;
-		}
-		default: {
-			Log.debug(this, "revision %d is not supported, using revision 0", revision);
-			this.revision = 0;
-		}
+			this.revision = revision;
+			
+			switch(revision) {
+			case 0:
+			case REVISION_BINARY_KEY_REQUEST_IDS: {
+				this.sendMessage = sendRev0Message;
+				this.receiveThreadSwitch = new ThreadSwitch<A2SMessage>(Rev0Message.class, this);
+				break;
+			}
+			case 35: {
+				this.sendMessage = sendRev35Message;
+				this.receiveThreadSwitch = new ThreadSwitch<A2SMessage>(Rev35Message.class, this);
+				break;
+			}
+			default: {
+				Log.debug(this, "revision %d is not supported, using revision 0", revision);
+				this.revision = 0;
+			}
+			}
+			
+			Log.debug(this, "using revision %d, application connection %sready", this.revision, (revision == this.revision) ? "" : "not ");
+			
+			sendRevisionMessage(this.revision);
+		} finally {
+			lock.unlock();
 		}
-		
-		Log.debug(this, "using revision %d, application connection %sready", this.revision, (revision == this.revision) ? "" : "not ");
-		
-		sendRevisionMessage(this.revision);
-		
 	}
 	
-	public synchronized void onReceiveDataMessage(int slot, Data addressData, Data data) {
-		
-		Log.debug(this, "onReceiveDataMessage(%d, %s, %s)", slot, addressData, data);
-		
-		GenericNetworkSlot<? extends NetworkNode> networkSlot = networkSlotMap.get(slot);
-		
-		if(networkSlot == null) {
-			Log.warning(this, "received data message for empty network slot %d", slot);
-			return;
+	public void onReceiveDataMessage(int slot, Data addressData, Data data) {
+		lock.lock();
+		try {
+			Log.debug(this, "onReceiveDataMessage(%d, %s, %s)", slot, addressData, data);
+			
+			GenericNetworkSlot<? extends NetworkNode> networkSlot = networkSlotMap.get(slot);
+			
+			if(networkSlot == null) {
+				Log.warning(this, "received data message for empty network slot %d", slot);
+				return;
+			}
+			
+			sendNetworkPacket(networkSlot, addressData, data);
+		} finally {
+			lock.unlock();
 		}
-		
-		sendNetworkPacket(networkSlot, addressData, data);
-		
 	}
 	
 	public void onReceiveGenerateKeyMessage() {
@@ -647,28 +847,53 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 	}
 	
 	@Override
-	public synchronized void onReceiveApplicationChannelOutgoingRequestMessage(int networkSlotId, int channelSlotId, String actionIdentifierSuffix, AbsKeyComponent keyComponent) {
-		
-		Log.debug(this, "received application channel request for network slot %d and channel slot %d, actionIdentifierSuffix=%s", networkSlotId, channelSlotId, actionIdentifierSuffix);
-		
-		Key remotePublicKey;
+	public void onReceiveKeyEncryptDataRequestMessage(int requestId, Data plainData) {
+		// TODO illegal
+	}
+	
+	@Override
+	public void onReceiveKeyDecryptDataRequestMessage(int requestId, Data cipherData) {
+		// TODO illegal
+	}
+	
+	@Override
+	public void onReceiveKeyCryptoDataResponseMessage(int requestId, Data responseData) {
+		Log.debug(this, "received key crypto response data for request %d: %s", requestId, responseData);
+		if(this.remoteRSAKeyCommunicationListener != null) this.remoteRSAKeyCommunicationListener.onResponseDataMessage(requestId, responseData);
+	}
+	
+	@Override
+	public void onReceiveKeyCryptoErrorResponseMessage(int requestId) {
+		Log.debug(this, "received key crypto error response for request %d", requestId);
+		if(this.remoteRSAKeyCommunicationListener != null) this.remoteRSAKeyCommunicationListener.onErrorResponseMessage(requestId);
+	}
+	
+	@Override
+	public void onReceiveApplicationChannelOutgoingRequestMessage(int networkSlotId, int channelSlotId, String actionIdentifierSuffix, AbsKeyComponent keyComponent) {
+		lock.lock();
 		try {
-			remotePublicKey = keyComponent.getKey();
-		} catch (CryptoException e) {
-			Log.exception(this, e);
-			return;
+			Log.debug(this, "received application channel request for network slot %d and channel slot %d, actionIdentifierSuffix=%s", networkSlotId, channelSlotId, actionIdentifierSuffix);
+			
+			Key remotePublicKey;
+			try {
+				remotePublicKey = keyComponent.getKey();
+			} catch (CryptoException e) {
+				Log.exception(this, e);
+				return;
+			}
+			
+			Address remoteAddress = new Address<>(KeyPair.fromPublicKey(remotePublicKey));
+			
+			GenericNetworkSlot<ApplicationNetworkInstance> networkSlot = networkSlotMap.get(networkSlotId);
+			ApplicationNetworkInstance applicationNetworkInstance = networkSlot.getNetworkNodes().get(0);
+			
+			ApplicationChannel applicationChannel = new ApplicationChannel(new ApplicationChannelTarget(remoteAddress, actionIdentifierSuffix), this, this);
+			ApplicationChannelSlot applicationChannelSlot = applicationChannelSlotMap.put(channelSlotId, applicationChannel);
+			
+			requestNeighbor(applicationNetworkInstance, remoteAddress, actionIdentifierSuffix);
+		} finally {
+			lock.unlock();
 		}
-		
-		Address remoteAddress = new Address<>(KeyPair.fromPublicKey(remotePublicKey));
-		
-		GenericNetworkSlot<ApplicationNetworkInstance> networkSlot = networkSlotMap.get(networkSlotId);
-		ApplicationNetworkInstance applicationNetworkInstance = networkSlot.getNetworkNodes().get(0);
-		
-		ApplicationChannel applicationChannel = new ApplicationChannel(new ApplicationChannelTarget(remoteAddress, actionIdentifierSuffix), this, this);
-		ApplicationChannelSlot applicationChannelSlot = applicationChannelSlotMap.put(channelSlotId, applicationChannel);
-		
-		requestNeighbor(applicationNetworkInstance, remoteAddress, actionIdentifierSuffix);
-		
 	}
 
 	@Override
@@ -677,28 +902,31 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 	}
 
 	@Override
-	public synchronized void onReceiveApplicationChannelAcceptMessage(int networkSlotId, int channelSlotId, String actionIdentifierSuffix, AbsKeyComponent keyComponent, LLA senderLLA, Data ignoreData) {
-		
-		Log.debug(this, "received application channel accept message for network slot %d and channel slot %d, actionIdentifierSuffix=%s, senderLLA=%s", networkSlotId, channelSlotId, actionIdentifierSuffix, senderLLA);
-		
-		Key publicKey;
+	public void onReceiveApplicationChannelAcceptMessage(int networkSlotId, int channelSlotId, String actionIdentifierSuffix, AbsKeyComponent keyComponent, LLA senderLLA, Data ignoreData) {
+		lock.lock();
 		try {
-			publicKey = keyComponent.getKey();
-		} catch (CryptoException e) {
-			Log.exception(this, e);
-			return;
+			Log.debug(this, "received application channel accept message for network slot %d and channel slot %d, actionIdentifierSuffix=%s, senderLLA=%s", networkSlotId, channelSlotId, actionIdentifierSuffix, senderLLA);
+			
+			Key publicKey;
+			try {
+				publicKey = keyComponent.getKey();
+			} catch (CryptoException e) {
+				Log.exception(this, e);
+				return;
+			}
+			
+			GenericNetworkSlot<ApplicationNetworkInstance> networkSlot = networkSlotMap.get(networkSlotId);
+			ApplicationNetworkInstance applicationNetworkInstance = networkSlot.getNetworkNodes().get(0);
+			
+			Address remoteAddress = new Address<>(KeyPair.fromPublicKey(publicKey));
+			
+			ApplicationChannel applicationChannel = new ApplicationChannel(new ApplicationChannelTarget(remoteAddress, actionIdentifierSuffix), this, this);
+			applicationChannelSlotMap.put(channelSlotId, applicationChannel);
+			
+			respondNeighbor(applicationNetworkInstance, applicationChannel, senderLLA, ignoreData);
+		} finally {
+			lock.unlock();
 		}
-		
-		GenericNetworkSlot<ApplicationNetworkInstance> networkSlot = networkSlotMap.get(networkSlotId);
-		ApplicationNetworkInstance applicationNetworkInstance = networkSlot.getNetworkNodes().get(0);
-		
-		Address remoteAddress = new Address<>(KeyPair.fromPublicKey(publicKey));
-		
-		ApplicationChannel applicationChannel = new ApplicationChannel(new ApplicationChannelTarget(remoteAddress, actionIdentifierSuffix), this, this);
-		applicationChannelSlotMap.put(channelSlotId, applicationChannel);
-		
-		respondNeighbor(applicationNetworkInstance, applicationChannel, senderLLA, ignoreData);
-		
 	}
 
 	@Override
@@ -762,11 +990,28 @@ public class ApplicationConnection extends Thread implements A2SMessageReceiver,
 		sendKeyMaxEncryptionBlockNumBytesRequestMessage();
 	}
 	
+	@Override
+	public boolean supportsKeyRequestIds() {
+		return revision == REVISION_BINARY_KEY_REQUEST_IDS;
+	}
+	
+	@Override
+	public void sendEncryptRequestMessage(int requestId, Data plainData) {
+		Log.debug(this, "sending key encrypt data request message %d for plain data: %s", requestId, plainData);
+		sendKeyEncryptRequestMessage(requestId, plainData);
+	}
+	
+	@Override
+	public void sendDecryptRequestMessage(int requestId, Data cipherData) {
+		Log.debug(this, "sending key decrypt data request message %d for cipher data: %s", requestId, cipherData);
+		sendKeyDecryptRequestMessage(requestId, cipherData);
+	}
+	
 	//
 	
 	@Override
 	public String toString() {
-		return String.format("ApplicationConnection %s:%d", socket.getInetAddress().toString(), socket.getPort());
+		return description;
 	}
 
 	@Override
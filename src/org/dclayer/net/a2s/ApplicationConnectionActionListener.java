@@ -2,10 +2,12 @@ package org.dclayer.net.a2s;
 
 import java.net.Socket;
 
+import org.dclayer.crypto.key.KeyPairPool;
 import org.dclayer.listener.net.NetworkInstanceListener;
 import org.dclayer.net.Data;
 import org.dclayer.net.address.Address;
 import org.dclayer.net.applicationchannel.ApplicationChannel;
+import org.dclayer.net.buf.ByteBuf;
 import org.dclayer.net.interservice.InterservicePolicy;
 import org.dclayer.net.lla.LLA;
 import org.dclayer.net.network.ApplicationNetworkInstance;
@@ -14,6 +16,13 @@ import org.dclayer.net.network.component.NetworkPayload;
 
 public interface ApplicationConnectionActionListener extends NetworkInstanceListener {
 	public ApplicationConnection onApplicationConnection(Socket socket);
+	/**
+	 * called for a new connection whose messages are read by the caller and passed to the returned {@link ApplicationConnection}
+	 * @param socket the {@link Socket} of the new connection, only used for closing
+	 * @param sendByteBuf the {@link ByteBuf} to write messages to the application to
+	 * @return the new {@link ApplicationConnection}
+	 */
+	public ApplicationConnection onApplicationConnection(Socket socket, ByteBuf sendByteBuf);
 	public void onAddress(Address asymmetricKeyPairAddress);
 	public void onServiceNetworkPayload(NetworkPayload networkPayload, NetworkInstance networkInstance);
 	
@@ -21,6 +30,11 @@ public interface ApplicationConnectionActionListener extends NetworkInstanceList
 	
 	public Data getServiceIgnoreData();
 	
+	/**
+	 * @return the {@link KeyPairPool} to take application address key pairs from
+	 */
+	public KeyPairPool getKeyPairPool();
+	
 	public void connect(LLA lla, InterservicePolicy interservicePolicy);
 	public void prepareForIncomingApplicationChannel(LLA lla, ApplicationNetworkInstance applicationNetworkInstance, ApplicationChannel applicationChannel, Data ignoreData);
 	
@@ -0,0 +1,12 @@
+package org.dclayer.net.a2s.message;
+
+import org.dclayer.net.componentinterface.DataComponentI;
+
+public interface KeyCryptoDataResponseMessageI {
+	
+	public int getRequestId();
+	public void setRequestId(int requestId);
+	
+	public DataComponentI getResponseDataComponent();
+	
+}
@@ -0,0 +1,8 @@
+package org.dclayer.net.a2s.message;
+
+public interface KeyCryptoErrorResponseMessageI {
+	
+	public int getRequestId();
+	public void setRequestId(int requestId);
+	
+}
@@ -1,8 +1,16 @@
 package org.dclayer.net.a2s.remotekey;
 
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.dclayer.crypto.key.RemoteRSAKeyFuture;
 import org.dclayer.crypto.key.RemoteRSAKeyInterface;
+import org.dclayer.exception.crypto.CryptoException;
 import org.dclayer.net.Data;
 
 public class ApplicationConnectionRemoteRSAKeyInterface implements RemoteRSAKeyCommunicationListener, RemoteRSAKeyInterface {
@@ -15,28 +23,157 @@ public class ApplicationConnectionRemoteRSAKeyInterface implements RemoteRSAKeyC
 	
 	private ReentrantLock actionLock = new ReentrantLock();
 	
+	/**
+	 * guards {@link #responseData}, {@link #responseNum} and {@link #responseReceived}.
+	 * a lock instead of a monitor so that virtual threads waiting for the application do not pin their carrier.
+	 */
+	private ReentrantLock responseLock = new ReentrantLock();
+	private Condition responseCondition = responseLock.newCondition();
+	/**
+	 * true once the response to the current request without request id was received
+	 */
+	private boolean responseReceived = false;
+	
+	/**
+	 * the id of the next request, only used if the application supports request ids
+	 */
+	private AtomicInteger nextRequestId = new AtomicInteger();
+	
+	/**
+	 * the {@link RemoteRSAKeyFuture}s of the requests that were not answered yet, by request id
+	 */
+	private ConcurrentHashMap<Integer, RemoteRSAKeyFuture> pendingRequests = new ConcurrentHashMap<>();
+	
+	private volatile boolean closed = false;
+	
 	public ApplicationConnectionRemoteRSAKeyInterface(int numBits, RemoteRSAKeyCommunicationInterface remoteRSAKeyCommunicationInterface) {
 		this.numBits = numBits;
 		this.remoteRSAKeyCommunicationInterface = remoteRSAKeyCommunicationInterface;
 		
 		remoteRSAKeyCommunicationInterface.setRemoteRSAKeyCommunicationListener(this);
 	}
-
+	
 	@Override
 	public int getNumBits() {
 		return numBits;
 	}
-
+	
+	/**
+	 * registers a new pending request
+	 * @return the id of the new request
+	 */
+	private int addPendingRequest(RemoteRSAKeyFuture remoteRSAKeyFuture) {
+		// request ids are non-negative and wrap around, the application answers long before an id is reused
+		int requestId = nextRequestId.getAndIncrement() & Integer.MAX_VALUE;
+		pendingRequests.put(requestId, remoteRSAKeyFuture);
+		if(closed) {
+			remoteRSAKeyFuture.cancel(false);
+		}
+		return requestId;
+	}
+	
+	/**
+	 * waits for the given {@link RemoteRSAKeyFuture}
+	 * @return the result, or null if the operation failed or the connection was closed
+	 */
+	private Data await(RemoteRSAKeyFuture remoteRSAKeyFuture) {
+		try {
+			return remoteRSAKeyFuture.get();
+		} catch (InterruptedException e) {
+			return null;
+		} catch (ExecutionException e) {
+			return null;
+		} catch (CancellationException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * must be called while holding {@link #actionLock} before sending a request without request id
+	 */
+	private void prepareResponse() {
+		responseLock.lock();
+		try {
+			responseReceived = false;
+		} finally {
+			responseLock.unlock();
+		}
+	}
+	
+	/**
+	 * waits for the response to the request without request id that was sent last
+	 * @return false if the waiting thread was interrupted, true otherwise
+	 */
+	private boolean awaitResponse() {
+		responseLock.lock();
+		try {
+			while(!responseReceived) {
+				responseCondition.await();
+			}
+			return true;
+		} catch (InterruptedException e) {
+			return false;
+		} finally {
+			responseLock.unlock();
+		}
+	}
+	
+	/**
+	 * hands the response to a request without request id to the waiting thread
+	 */
+	private void onResponse(Data responseData, int responseNum) {
+		responseLock.lock();
+		try {
+			this.responseData = responseData;
+			this.responseNum = responseNum;
+			this.responseReceived = true;
+			responseCondition.signal();
+		} finally {
+			responseLock.unlock();
+		}
+	}
+	
+	@Override
+	public RemoteRSAKeyFuture encryptAsync(Data plainData) {
+		
+		if(!remoteRSAKeyCommunicationInterface.supportsKeyRequestIds()) {
+			// the application answers one request at a time
+			return RemoteRSAKeyFuture.completed(encrypt(plainData));
+		}
+		
+		RemoteRSAKeyFuture remoteRSAKeyFuture = new RemoteRSAKeyFuture();
+		remoteRSAKeyCommunicationInterface.sendEncryptRequestMessage(addPendingRequest(remoteRSAKeyFuture), plainData);
+		return remoteRSAKeyFuture;
+		
+	}
+	
+	@Override
+	public RemoteRSAKeyFuture decryptAsync(Data cipherData) {
+		
+		if(!remoteRSAKeyCommunicationInterface.supportsKeyRequestIds()) {
+			// the application answers one request at a time
+			return RemoteRSAKeyFuture.completed(decrypt(cipherData));
+		}
+		
+		RemoteRSAKeyFuture remoteRSAKeyFuture = new RemoteRSAKeyFuture();
+		remoteRSAKeyCommunicationInterface.sendDecryptRequestMessage(addPendingRequest(remoteRSAKeyFuture), cipherData);
+		return remoteRSAKeyFuture;
+		
+	}
+	
 	@Override
 	public Data encrypt(Data plainData) {
 		
+		if(remoteRSAKeyCommunicationInterface.supportsKeyRequestIds()) {
+			return await(encryptAsync(plainData));
+		}
+		
 		actionLock.lock();
 		
-		remoteRSAKeyCommunicationInterface.sendEncryptMessage(plainData);
 		try {
-			synchronized(this) { wait(); }
-		} catch (InterruptedException e) {
-			return null;
+			prepareResponse();
+			remoteRSAKeyCommunicationInterface.sendEncryptMessage(plainData);
+			if(!awaitResponse()) return null;
 		} finally {
 			actionLock.unlock();
 		}
@@ -45,17 +182,20 @@ public class ApplicationConnectionRemoteRSAKeyInterface implements RemoteRSAKeyC
 		return responseData;
 		
 	}
-
+	
 	@Override
 	public Data decrypt(Data cipherData) {
 		
+		if(remoteRSAKeyCommunicationInterface.supportsKeyRequestIds()) {
+			return await(decryptAsync(cipherData));
+		}
+		
 		actionLock.lock();
 		
-		remoteRSAKeyCommunicationInterface.sendDecryptMessage(cipherData);
 		try {
-			synchronized(this) { wait(); }
-		} catch (InterruptedException e) {
-			return null;
+			prepareResponse();
+			remoteRSAKeyCommunicationInterface.sendDecryptMessage(cipherData);
+			if(!awaitResponse()) return null;
 		} finally {
 			actionLock.unlock();
 		}
@@ -64,17 +204,16 @@ public class ApplicationConnectionRemoteRSAKeyInterface implements RemoteRSAKeyC
 		return responseData;
 		
 	}
-
+	
 	@Override
 	public int queryMaxEncryptionBlockNumBytes() {
 		
 		actionLock.lock();
 		
-		remoteRSAKeyCommunicationInterface.sendMaxEncryptionBlockNumBytesRequestMessage();
 		try {
-			synchronized(this) { wait(); }
-		} catch (InterruptedException e) {
-			return 0;
+			prepareResponse();
+			remoteRSAKeyCommunicationInterface.sendMaxEncryptionBlockNumBytesRequestMessage();
+			if(!awaitResponse()) return 0;
 		} finally {
 			actionLock.unlock();
 		}
@@ -82,17 +221,47 @@ public class ApplicationConnectionRemoteRSAKeyInterface implements RemoteRSAKeyC
 		return responseNum;
 		
 	}
-
+	
 	@Override
-	public synchronized void onResponseDataMessage(Data responseData) {
-		this.responseData = responseData;
-		notify();
+	public void onResponseDataMessage(Data responseData) {
+		// the message the response data belongs to is reused for the next message, copy it
+		onResponse(responseData == null ? null : responseData.copy(), 0);
 	}
 	
 	@Override
-	public synchronized void onResponseNumMessage(int responseNum) {
-		this.responseNum = responseNum;
-		notify();
+	public void onResponseNumMessage(int responseNum) {
+		onResponse(null, responseNum);
 	}
-
+	
+	@Override
+	public void onResponseDataMessage(int requestId, Data responseData) {
+		RemoteRSAKeyFuture remoteRSAKeyFuture = pendingRequests.remove(requestId);
+		if(remoteRSAKeyFuture == null) {
+			// unknown request id
+			return;
+		}
+		// the message the response data belongs to is reused for the next message, copy it
+		remoteRSAKeyFuture.complete(responseData == null ? null : responseData.copy());
+	}
+	
+	@Override
+	public void onErrorResponseMessage(int requestId) {
+		RemoteRSAKeyFuture remoteRSAKeyFuture = pendingRequests.remove(requestId);
+		if(remoteRSAKeyFuture == null) {
+			// unknown request id
+			return;
+		}
+		remoteRSAKeyFuture.fail(new CryptoException(String.format("the application failed to process request %d", requestId)));
+	}
+	
+	@Override
+	public void onClosed() {
+		closed = true;
+		Iterator<RemoteRSAKeyFuture> iterator = pendingRequests.values().iterator();
+		while(iterator.hasNext()) {
+			iterator.next().cancel(false);
+			iterator.remove();
+		}
+	}
+	
 }
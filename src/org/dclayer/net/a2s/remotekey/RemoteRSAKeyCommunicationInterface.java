@@ -10,4 +10,12 @@ public interface RemoteRSAKeyCommunicationInterface {
 	public void sendDecryptMessage(Data cipherData);
 	public void sendMaxEncryptionBlockNumBytesRequestMessage();
 	
+	/**
+	 * @return true if the application supports request ids, allowing multiple operations to be in flight at once
+	 */
+	public boolean supportsKeyRequestIds();
+	
+	public void sendEncryptRequestMessage(int requestId, Data plainData);
+	public void sendDecryptRequestMessage(int requestId, Data cipherData);
+	
 }
@@ -6,5 +6,16 @@ public interface RemoteRSAKeyCommunicationListener {
 	
 	public void onResponseDataMessage(Data responseData);
 	public void onResponseNumMessage(int responseNum);
+	public void onResponseDataMessage(int requestId, Data responseData);
+	
+	/**
+	 * called when the application reports that the key operation of the request with the given id failed
+	 */
+	public void onErrorResponseMessage(int requestId);
+	
+	/**
+	 * called when the connection to the application is closed, no more responses will arrive
+	 */
+	public void onClosed();
 
 }
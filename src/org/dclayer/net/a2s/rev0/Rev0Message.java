@@ -18,9 +18,13 @@ import org.dclayer.net.a2s.rev0.message.DataMessage;
 import org.dclayer.net.a2s.rev0.message.GenerateKeyMessage;
 import org.dclayer.net.a2s.rev0.message.JoinDefaultNetworksMessage;
 import org.dclayer.net.a2s.rev0.message.JoinNetworkMessage;
+import org.dclayer.net.a2s.rev0.message.KeyCryptoDataResponseMessage;
+import org.dclayer.net.a2s.rev0.message.KeyCryptoErrorResponseMessage;
 import org.dclayer.net.a2s.rev0.message.KeyCryptoResponseDataMessage;
 import org.dclayer.net.a2s.rev0.message.KeyDecryptDataMessage;
+import org.dclayer.net.a2s.rev0.message.KeyDecryptDataRequestMessage;
 import org.dclayer.net.a2s.rev0.message.KeyEncryptDataMessage;
+import org.dclayer.net.a2s.rev0.message.KeyEncryptDataRequestMessage;
 import org.dclayer.net.a2s.rev0.message.KeyMaxEncryptionBlockNumBytesRequestMessage;
 import org.dclayer.net.a2s.rev0.message.KeyResponseNumMessage;
 import org.dclayer.net.a2s.rev0.message.RevisionMessage;
@@ -49,6 +53,10 @@ public class Rev0Message extends A2SMessage {
 	public static final int APPLICATION_CHANNEL_DATA = 14;
 	public static final int KEY_MAX_ENCRYPTION_BLOCK_NUM_BYTES_REQUEST = 15;
 	public static final int KEY_RESPONSE_NUM = 16;
+	public static final int KEY_ENCRYPT_DATA_REQUEST = 17;
+	public static final int KEY_DECRYPT_DATA_REQUEST = 18;
+	public static final int KEY_CRYPTO_DATA_RESPONSE = 19;
+	public static final int KEY_CRYPTO_ERROR_RESPONSE = 20;
 
 	private A2SRevisionSpecificMessage message;
 	
@@ -68,7 +76,12 @@ public class Rev0Message extends A2SMessage {
 		new ApplicationChannelAcceptMessage(),
 		new ApplicationChannelConnectedMessage(),
 		new ApplicationChannelDataMessage(),
-		new KeyMaxEncryptionBlockNumBytesRequestMessage()
+		new KeyMaxEncryptionBlockNumBytesRequestMessage(),
+		new KeyResponseNumMessage(),
+		new KeyEncryptDataRequestMessage(),
+		new KeyDecryptDataRequestMessage(),
+		new KeyCryptoDataResponseMessage(),
+		new KeyCryptoErrorResponseMessage()
 	};
 
 	@Override
@@ -91,6 +104,19 @@ public class Rev0Message extends A2SMessage {
 	public byte getType() {
 		return message.getType();
 	}
+	
+	@Override
+	public boolean isKeyResponse() {
+		switch(message.getType()) {
+		case KEY_CRYPTO_RESPONSE_DATA:
+		case KEY_RESPONSE_NUM:
+		case KEY_CRYPTO_DATA_RESPONSE:
+		case KEY_CRYPTO_ERROR_RESPONSE:
+			return true;
+		default:
+			return false;
+		}
+	}
 
 	@Override
 	public void read(ByteBuf byteBuf) throws ParseException, BufException {
@@ -203,5 +229,25 @@ public class Rev0Message extends A2SMessage {
 	public KeyResponseNumMessageI setKeyResponseNumMessage() {
 		return (KeyResponseNumMessage)(this.message = messages[KEY_RESPONSE_NUM]);
 	}
+	
+	@Override
+	public KeyEncryptDataRequestMessage setKeyEncryptDataRequestMessage() {
+		return (KeyEncryptDataRequestMessage)(this.message = messages[KEY_ENCRYPT_DATA_REQUEST]);
+	}
+	
+	@Override
+	public KeyDecryptDataRequestMessage setKeyDecryptDataRequestMessage() {
+		return (KeyDecryptDataRequestMessage)(this.message = messages[KEY_DECRYPT_DATA_REQUEST]);
+	}
+	
+	@Override
+	public KeyCryptoDataResponseMessage setKeyCryptoDataResponseMessage() {
+		return (KeyCryptoDataResponseMessage)(this.message = messages[KEY_CRYPTO_DATA_RESPONSE]);
+	}
+	
+	@Override
+	public KeyCryptoErrorResponseMessage setKeyCryptoErrorResponseMessage() {
+		return (KeyCryptoErrorResponseMessage)(this.message = messages[KEY_CRYPTO_ERROR_RESPONSE]);
+	}
 
 }
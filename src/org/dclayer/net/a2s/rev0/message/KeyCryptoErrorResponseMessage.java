@@ -0,0 +1,67 @@
+package org.dclayer.net.a2s.rev0.message;
+
+import org.dclayer.exception.net.buf.BufException;
+import org.dclayer.exception.net.parse.ParseException;
+import org.dclayer.net.PacketComponent;
+import org.dclayer.net.a2s.A2SMessageReceiver;
+import org.dclayer.net.a2s.A2SRevisionSpecificMessage;
+import org.dclayer.net.a2s.message.KeyCryptoErrorResponseMessageI;
+import org.dclayer.net.a2s.rev0.Rev0Message;
+import org.dclayer.net.buf.ByteBuf;
+import org.dclayer.net.component.FlexNum;
+
+public class KeyCryptoErrorResponseMessage extends A2SRevisionSpecificMessage implements KeyCryptoErrorResponseMessageI {
+	
+	private FlexNum requestIdFlexNum = new FlexNum(0, Integer.MAX_VALUE);
+	
+	@Override
+	public void read(ByteBuf byteBuf) throws ParseException, BufException {
+		requestIdFlexNum.read(byteBuf);
+	}
+	
+	@Override
+	public void write(ByteBuf byteBuf) throws BufException {
+		requestIdFlexNum.write(byteBuf);
+	}
+	
+	@Override
+	public int length() {
+		return requestIdFlexNum.length();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("KeyCryptoErrorResponseMessage(requestId=%d)", requestIdFlexNum.getNum());
+	}
+	
+	@Override
+	public PacketComponent[] getChildren() {
+		return null;
+	}
+	
+	@Override
+	public byte getType() {
+		return Rev0Message.KEY_CRYPTO_ERROR_RESPONSE;
+	}
+	
+	@Override
+	public int getRequestId() {
+		return (int) requestIdFlexNum.getNum();
+	}
+	
+	@Override
+	public void setRequestId(int requestId) {
+		requestIdFlexNum.setNum(requestId);
+	}
+
+	@Override
+	public void callOnReceiveMethod(A2SMessageReceiver a2sMessageReceiver) {
+		a2sMessageReceiver.onReceiveKeyCryptoErrorResponseMessage(getRequestId());
+	}
+
+	@Override
+	public int getMessageRevision() {
+		return 0;
+	}
+	
+}
@@ -0,0 +1,76 @@
+package org.dclayer.net.a2s.rev0.message;
+
+import org.dclayer.exception.net.buf.BufException;
+import org.dclayer.exception.net.parse.ParseException;
+import org.dclayer.net.PacketComponent;
+import org.dclayer.net.a2s.A2SMessageReceiver;
+import org.dclayer.net.a2s.A2SRevisionSpecificMessage;
+import org.dclayer.net.a2s.message.KeyDecryptDataRequestMessageI;
+import org.dclayer.net.a2s.rev0.Rev0Message;
+import org.dclayer.net.buf.ByteBuf;
+import org.dclayer.net.component.DataComponent;
+import org.dclayer.net.component.FlexNum;
+
+public class KeyDecryptDataRequestMessage extends A2SRevisionSpecificMessage implements KeyDecryptDataRequestMessageI {
+	
+	private FlexNum requestIdFlexNum = new FlexNum(0, Integer.MAX_VALUE);
+	private DataComponent cipherDataComponent = new DataComponent();
+	
+	@Override
+	public void read(ByteBuf byteBuf) throws ParseException, BufException {
+		requestIdFlexNum.read(byteBuf);
+		cipherDataComponent.read(byteBuf);
+	}
+	
+	@Override
+	public void write(ByteBuf byteBuf) throws BufException {
+		requestIdFlexNum.write(byteBuf);
+		cipherDataComponent.write(byteBuf);
+	}
+	
+	@Override
+	public int length() {
+		return requestIdFlexNum.length() + cipherDataComponent.length();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("KeyDecryptDataRequestMessage(requestId=%d)", requestIdFlexNum.getNum());
+	}
+	
+	@Override
+	public PacketComponent[] getChildren() {
+		return new PacketComponent[] { cipherDataComponent };
+	}
+	
+	@Override
+	public byte getType() {
+		return Rev0Message.KEY_DECRYPT_DATA_REQUEST;
+	}
+	
+	@Override
+	public int getRequestId() {
+		return (int) requestIdFlexNum.getNum();
+	}
+	
+	@Override
+	public void setRequestId(int requestId) {
+		requestIdFlexNum.setNum(requestId);
+	}
+	
+	@Override
+	public DataComponent getCipherDataComponent() {
+		return cipherDataComponent;
+	}
+
+	@Override
+	public void callOnReceiveMethod(A2SMessageReceiver a2sMessageReceiver) {
+		a2sMessageReceiver.onReceiveKeyDecryptDataRequestMessage(getRequestId(), cipherDataComponent.getData());
+	}
+
+	@Override
+	public int getMessageRevision() {
+		return 0;
+	}
+	
+}
@@ -14,9 +14,13 @@ import org.dclayer.net.a2s.message.ApplicationChannelDataMessageI;
 import org.dclayer.net.a2s.message.ApplicationChannelIncomingRequestMessageI;
 import org.dclayer.net.a2s.message.ApplicationChannelOutgoingRequestMessageI;
 import org.dclayer.net.a2s.message.JoinDefaultNetworksMessageI;
+import org.dclayer.net.a2s.message.KeyCryptoDataResponseMessageI;
+import org.dclayer.net.a2s.message.KeyCryptoErrorResponseMessageI;
 import org.dclayer.net.a2s.message.KeyCryptoResponseDataMessageI;
 import org.dclayer.net.a2s.message.KeyDecryptDataMessageI;
+import org.dclayer.net.a2s.message.KeyDecryptDataRequestMessageI;
 import org.dclayer.net.a2s.message.KeyEncryptDataMessageI;
+import org.dclayer.net.a2s.message.KeyEncryptDataRequestMessageI;
 import org.dclayer.net.a2s.message.KeyMaxEncryptionBlockNumBytesRequestMessageI;
 import org.dclayer.net.a2s.message.KeyResponseNumMessageI;
 import org.dclayer.net.a2s.rev0.Rev0Message;
@@ -70,6 +74,12 @@ public class Rev35Message extends A2SMessage {
 	public byte getType() {
 		return message.getType();
 	}
+	
+	@Override
+	public boolean isKeyResponse() {
+		// remote keys are not supported in revision 35
+		return false;
+	}
 
 	@Override
 	public void read(ByteBuf byteBuf) throws ParseException, BufException {
@@ -195,4 +205,28 @@ public class Rev35Message extends A2SMessage {
 		return null;
 	}
 
+	@Override
+	public KeyEncryptDataRequestMessageI setKeyEncryptDataRequestMessage() {
+		// remote key operations are not supported in revision 35
+		return null;
+	}
+
+	@Override
+	public KeyDecryptDataRequestMessageI setKeyDecryptDataRequestMessage() {
+		// remote key operations are not supported in revision 35
+		return null;
+	}
+
+	@Override
+	public KeyCryptoDataResponseMessageI setKeyCryptoDataResponseMessage() {
+		// remote key operations are not supported in revision 35
+		return null;
+	}
+
+	@Override
+	public KeyCryptoErrorResponseMessageI setKeyCryptoErrorResponseMessage() {
+		// remote key operations are not supported in revision 35
+		return null;
+	}
+
 }
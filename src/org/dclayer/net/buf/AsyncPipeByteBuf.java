@@ -1,113 +1,258 @@
 package org.dclayer.net.buf;
+import java.util.concurrent.locks.LockSupport;
+
 import org.dclayer.exception.net.buf.BufException;
 import org.dclayer.exception.net.buf.EndOfBufException;
 import org.dclayer.net.buf.ByteBuf;
 
 /**
- * an implementation of {@link ByteBuf} that can be used to directly read written bytes.
- * calls to any write method never block, while calls to any read method will block until sufficient bytes are available.
+ * an implementation of {@link ByteBuf} that can be used to directly read written bytes.<br />
+ * this is a lock-free ring buffer for one writing and one reading thread at a time.
+ * calls to any read method block until sufficient bytes are available. calls to any write method either block
+ * while the ring buffer is full or, if this {@link AsyncPipeByteBuf} grows and has not reached its maximum capacity yet,
+ * replace it by one of twice the size.
+ * waiting threads are parked and unparked by the other side.
  */
 public class AsyncPipeByteBuf extends ByteBuf {
 	
-	// TODO add faster copying of whole arrays and array-sections, like in SyncPipeByteBuf
-	
 	/**
-	 * stores the bytes that are written but were not yet read
+	 * the ring buffer, its length is a power of two. only replaced by the writing thread, after copying the unread bytes
+	 */
+	private volatile byte[] buf;
+	/**
+	 * the length up to which the ring buffer is replaced by a bigger one instead of blocking the writing thread while it is full
 	 */
-	private byte[] buf;
+	private final int maxCapacity;
+	
 	/**
-	 * next read index
+	 * the total amount of bytes read, only written by the reading thread
 	 */
-	private volatile int read = 0;
+	private volatile long read = 0;
 	/**
-	 * next write index
+	 * the total amount of bytes written, only written by the writing thread
 	 */
-	private volatile int write = 0;
+	private volatile long write = 0;
 	
 	/**
-	 * true if buf is full
+	 * the thread waiting for bytes to read, or null
 	 */
-	private volatile boolean full = false;
+	private volatile Thread waitingReader = null;
 	/**
-	 * true if a thread that called a read method is waiting
+	 * the thread waiting for space to write, or null
 	 */
-	private volatile boolean waiting = false;
+	private volatile Thread waitingWriter = null;
 	
 	private volatile boolean end = false;
 	
 	/**
-	 * creates a new {@link AsyncPipeByteBuf} with a new buffer of the given initial size
-	 * @param bufferSize the initial size for the new buffer
+	 * creates a new {@link AsyncPipeByteBuf} with a ring buffer of the given capacity, writing blocks while it is full
+	 * @param capacity the amount of bytes that can be written without being read, rounded up to a power of two
+	 */
+	public AsyncPipeByteBuf(int capacity) {
+		this(capacity, capacity);
+	}
+	
+	/**
+	 * creates a new {@link AsyncPipeByteBuf} with a ring buffer of the given initial capacity that grows up to the given maximum capacity
+	 * @param capacity the amount of bytes that can be written without being read, rounded up to a power of two
+	 * @param maxCapacity the amount of bytes up to which the ring buffer is doubled in size instead of blocking the writing thread while it is full
+	 */
+	public AsyncPipeByteBuf(int capacity, int maxCapacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.buf = new byte[size];
+		this.maxCapacity = maxCapacity;
+	}
+	
+	/**
+	 * @return the amount of bytes that can be written without being read
 	 */
-	public AsyncPipeByteBuf(int bufferSize) {
-		this.buf = new byte[bufferSize];
+	public int capacity() {
+		return buf.length;
 	}
 	
 	/**
-	 * reads a byte. if buf is empty, this will block until one is available.
-	 * @return a byte from buf
+	 * @return the amount of bytes that can currently be written without blocking or growing
 	 */
-	private byte readByte() throws EndOfBufException {
-		if(read == write && !full) {
-			// buffer is empty, wait
-			waiting = true;
-			try {
-				this.wait();
-			} catch (InterruptedException e) {}
-			waiting = false;
+	public int writable() {
+		return buf.length - (int)(write - read);
+	}
+	
+	/**
+	 * @return the amount of bytes that can currently be read without blocking
+	 */
+	public int available() {
+		return (int)(write - read);
+	}
+	
+	@Override
+	public int remaining() {
+		// more bytes may be written to the pipe at any time, the amount that can still be read is unknown
+		return -1;
+	}
+	
+	/**
+	 * parks the current thread, throwing a {@link BufException} if it is interrupted
+	 */
+	private void park() throws BufException {
+		LockSupport.park(this);
+		if(Thread.interrupted()) {
+			Thread.currentThread().interrupt();
+			throw new BufException(new InterruptedException());
 		}
-		if(end) {
-			throw new EndOfBufException();
+	}
+	
+	/**
+	 * waits until at least one byte can be read
+	 * @return the amount of bytes that can be read
+	 * @throws EndOfBufException if {@link #end()} was called and all bytes were read
+	 */
+	private int awaitReadable() throws BufException {
+		int available = (int)(write - read);
+		while(available <= 0) {
+			if(end) {
+				throw new EndOfBufException();
+			}
+			waitingReader = Thread.currentThread();
+			// check again after announcing, the writer might have written in between
+			available = (int)(write - read);
+			if(available <= 0 && !end) {
+				try {
+					park();
+				} finally {
+					waitingReader = null;
+				}
+			} else {
+				waitingReader = null;
+			}
+			available = (int)(write - read);
 		}
-		byte b = buf[read];
-		read = (read + 1) % buf.length;
-		full = false;
-		return b;
+		return available;
 	}
 	
 	/**
-	 * writes a byte, expanding the buffer if necessary. this will never block.
-	 * @param b the byte to write
+	 * replaces the ring buffer by one of twice the size, called by the writing thread.<br />
+	 * the reading thread may still read from the old ring buffer, which keeps all unread bytes as they are never overwritten
 	 */
-	private void writeByte(byte b) {
-		if(read == write && full) {
-			// buffer is full, expand
-			byte[] newBuf = new byte[buf.length*4];
-			System.arraycopy(buf, read, newBuf, 0, (buf.length - read));
-			System.arraycopy(buf, 0, newBuf, (buf.length - read), read);
-			read = 0;
-			write = buf.length;
-			buf = newBuf;
+	private void growBuf() {
+		byte[] oldBuf = this.buf;
+		byte[] newBuf = new byte[oldBuf.length << 1];
+		int oldMask = oldBuf.length - 1, newMask = newBuf.length - 1;
+		for(long position = read; position < write; position++) {
+			newBuf[(int)position & newMask] = oldBuf[(int)position & oldMask];
 		}
-		buf[write] = b;
-		write = (write + 1) % buf.length;
-		if(read == write) full = true;
-		if(waiting) {
-			this.notify();
+		this.buf = newBuf;
+	}
+	
+	/**
+	 * waits until at least one byte can be written, growing the ring buffer instead if it is below the maximum capacity
+	 * @return the amount of bytes that can be written
+	 * @throws EndOfBufException if {@link #end()} was called
+	 */
+	private int awaitWritable() throws BufException {
+		int free = buf.length - (int)(write - read);
+		if(free <= 0 && buf.length < maxCapacity && !end) {
+			growBuf();
+			free = buf.length - (int)(write - read);
+		}
+		while(free <= 0) {
+			if(end) {
+				throw new EndOfBufException();
+			}
+			waitingWriter = Thread.currentThread();
+			// check again after announcing, the reader might have read in between
+			free = buf.length - (int)(write - read);
+			if(free <= 0 && !end) {
+				try {
+					park();
+				} finally {
+					waitingWriter = null;
+				}
+			} else {
+				waitingWriter = null;
+			}
+			free = buf.length - (int)(write - read);
+		}
+		if(end) {
+			throw new EndOfBufException();
+		}
+		return free;
+	}
+	
+	private void onRead(int length) {
+		read += length;
+		Thread thread = waitingWriter;
+		if(thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+	
+	private void onWritten(int length) {
+		write += length;
+		Thread thread = waitingReader;
+		if(thread != null) {
+			LockSupport.unpark(thread);
 		}
 	}
 	
 	@Override
-	public synchronized byte read() throws BufException {
-		return readByte();
+	public byte read() throws BufException {
+		awaitReadable();
+		byte[] buf = this.buf;
+		byte b = buf[(int)read & (buf.length - 1)];
+		onRead(1);
+		return b;
 	}
-
+	
 	@Override
-	public synchronized void write(byte b) throws BufException {
-		writeByte(b);
+	public void write(byte b) throws BufException {
+		awaitWritable();
+		byte[] buf = this.buf;
+		buf[(int)write & (buf.length - 1)] = b;
+		onWritten(1);
 	}
-
+	
+	/**
+	 * reads at least one and at most <i>length</i> bytes, blocking only until at least one byte is available
+	 * @param buf the byte array to copy the bytes to
+	 * @param offset the position in the given byte array to copy the bytes to
+	 * @param length the maximum amount of bytes to read
+	 * @return the amount of bytes read
+	 * @throws EndOfBufException if {@link #end()} was called and all bytes were read
+	 */
+	public int readAvailable(byte[] buf, int offset, int length) throws BufException {
+		if(length <= 0) return 0;
+		int n = Math.min(awaitReadable(), length);
+		// read the ring buffer after the amount of available bytes, it contains all of them even if it was replaced meanwhile
+		byte[] ring = this.buf;
+		int index = (int)read & (ring.length - 1);
+		int first = Math.min(n, ring.length - index);
+		System.arraycopy(ring, index, buf, offset, first);
+		System.arraycopy(ring, 0, buf, offset + first, n - first);
+		onRead(n);
+		return n;
+	}
+	
 	@Override
-	public synchronized void read(byte[] buf, int offset, int length) throws BufException {
-		for(int i = 0; i < length; i++) {
-			buf[offset + i] = read();
+	public void read(byte[] buf, int offset, int length) throws BufException {
+		while(length > 0) {
+			int n = readAvailable(buf, offset, length);
+			offset += n;
+			length -= n;
 		}
 	}
-
+	
 	@Override
-	public synchronized void write(byte[] buf, int offset, int length) throws BufException {
-		for(int i = 0; i < length; i++) {
-			write(buf[offset + i]);
+	public void write(byte[] buf, int offset, int length) throws BufException {
+		while(length > 0) {
+			int n = Math.min(awaitWritable(), length);
+			byte[] ring = this.buf;
+			int index = (int)write & (ring.length - 1);
+			int first = Math.min(n, ring.length - index);
+			System.arraycopy(buf, offset, ring, index, first);
+			System.arraycopy(buf, offset + first, ring, 0, n - first);
+			onWritten(n);
+			offset += n;
+			length -= n;
 		}
 	}
 	
@@ -116,17 +261,35 @@ public class AsyncPipeByteBuf extends ByteBuf {
 	 * @param byteBuf the {@link ByteBuf} to copy bytes from
 	 * @param length the amount of bytes to copy from the given {@link ByteBuf}
 	 */
-	public synchronized void write(ByteBuf byteBuf, int length) throws BufException {
-		for(int i = 0; i < length; i++) {
-			write(byteBuf.read());
+	public void write(ByteBuf byteBuf, int length) throws BufException {
+		while(length > 0) {
+			int n = Math.min(awaitWritable(), length);
+			byte[] ring = this.buf;
+			int index = (int)write & (ring.length - 1);
+			int first = Math.min(n, ring.length - index);
+			byteBuf.read(ring, index, first);
+			if(n > first) {
+				byteBuf.read(ring, 0, n - first);
+			}
+			onWritten(n);
+			length -= n;
 		}
 	}
 	
-	public synchronized void end() {
+	/**
+	 * ends this {@link AsyncPipeByteBuf}. the reader can still read the bytes that were written before,
+	 * after that, reading throws an {@link EndOfBufException}. writing throws an {@link EndOfBufException} immediately.
+	 */
+	public void end() {
 		end = true;
-		if(waiting) {
-			this.notify();
+		Thread thread = waitingReader;
+		if(thread != null) {
+			LockSupport.unpark(thread);
+		}
+		thread = waitingWriter;
+		if(thread != null) {
+			LockSupport.unpark(thread);
 		}
 	}
-
+	
 }
@@ -0,0 +1,227 @@
+package org.dclayer.net.buf;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import org.dclayer.exception.net.buf.BufNoReadException;
+import org.dclayer.exception.net.buf.EndOfBufException;
+import org.dclayer.exception.net.buf.StreamBufIOException;
+import org.dclayer.net.PacketComponentI;
+
+/**
+ * a {@link StreamByteBuf} that reads ahead into a buffer and coalesces written {@link PacketComponentI}s.<br />
+ * read operations are served from the read-ahead buffer, which is refilled with one read call on the underlying
+ * {@link InputStream} whenever it is empty. written {@link PacketComponentI}s are not flushed individually: the
+ * underlying {@link BufferedOutputStream} is flushed when it is full, or by a shared flusher thread once no
+ * {@link PacketComponentI} was written for {@link #FLUSH_IDLE_NANOS}, but at the latest after {@link #FLUSH_MAX_DELAY_NANOS}.<br />
+ * if a flush by the flusher thread fails, both streams are closed, so that a pending read of the owner fails and the
+ * owner closes the connection, and any later write fails with the exception the flush failed with.
+ */
+public class BufferedStreamByteBuf extends StreamByteBuf {
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	public static final long FLUSH_IDLE_NANOS = 100L * 1000L;
+	public static final long FLUSH_MAX_DELAY_NANOS = 1000L * 1000L;
+
+	/**
+	 * thread flushing all {@link BufferedStreamByteBuf}s once they are idle
+	 */
+	private static class Flusher extends Thread {
+
+		private final LinkedBlockingQueue<BufferedStreamByteBuf> queue = new LinkedBlockingQueue<>();
+
+		public Flusher() {
+			super("BufferedStreamByteBuf flusher");
+			this.setDaemon(true);
+			this.start();
+		}
+
+		public void schedule(BufferedStreamByteBuf bufferedStreamByteBuf) {
+			queue.offer(bufferedStreamByteBuf);
+		}
+
+		@Override
+		public void run() {
+			for(;;) {
+
+				BufferedStreamByteBuf bufferedStreamByteBuf;
+				try {
+					bufferedStreamByteBuf = queue.take();
+				} catch (InterruptedException e) {
+					continue;
+				}
+
+				// buffers are queued in the order they were scheduled, waiting for one delays the next by at most FLUSH_MAX_DELAY_NANOS
+				for(;;) {
+					long now = System.nanoTime();
+					long deadline = Math.min(bufferedStreamByteBuf.lastWriteTime + FLUSH_IDLE_NANOS, bufferedStreamByteBuf.scheduleTime + FLUSH_MAX_DELAY_NANOS);
+					if(deadline - now <= 0) break;
+					LockSupport.parkNanos(this, deadline - now);
+				}
+
+				bufferedStreamByteBuf.flushScheduled();
+
+			}
+		}
+
+	}
+
+	private static Flusher flusher;
+
+	private static synchronized Flusher getFlusher() {
+		if(flusher == null) {
+			flusher = new Flusher();
+		}
+		return flusher;
+	}
+
+	//
+
+	/**
+	 * the read-ahead buffer
+	 */
+	private final byte[] readBuffer;
+	/**
+	 * the position of the next byte to read in {@link #readBuffer}
+	 */
+	private int readPosition = 0;
+	/**
+	 * the amount of valid bytes in {@link #readBuffer}
+	 */
+	private int readLimit = 0;
+
+	/**
+	 * true if this is queued at the {@link Flusher}
+	 */
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	private volatile long scheduleTime;
+	private volatile long lastWriteTime;
+	/**
+	 * the exception the last flush by the {@link Flusher} failed with, null if none failed
+	 */
+	private volatile IOException flushException;
+
+	/**
+	 * creates a new {@link BufferedStreamByteBuf} with buffers of {@link #DEFAULT_BUFFER_SIZE} bytes
+	 * @param inputStream the {@link InputStream} to use
+	 * @param outputStream the {@link OutputStream} to use, which is wrapped in a {@link BufferedOutputStream}
+	 */
+	public BufferedStreamByteBuf(InputStream inputStream, OutputStream outputStream) {
+		this(inputStream, outputStream, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * creates a new {@link BufferedStreamByteBuf}
+	 * @param inputStream the {@link InputStream} to use
+	 * @param outputStream the {@link OutputStream} to use, which is wrapped in a {@link BufferedOutputStream}
+	 * @param bufferSize the size of the read-ahead and the write buffer
+	 */
+	public BufferedStreamByteBuf(InputStream inputStream, OutputStream outputStream, int bufferSize) {
+		super(inputStream, outputStream == null ? null : new BufferedOutputStream(outputStream, bufferSize));
+		this.readBuffer = new byte[bufferSize];
+	}
+
+	/**
+	 * refills the read-ahead buffer, blocking until at least one byte was read
+	 * @throws EndOfBufException if the end of the {@link InputStream} was reached
+	 */
+	private void fill() throws BufNoReadException, StreamBufIOException, EndOfBufException {
+		InputStream inputStream = getInputStream();
+		if(inputStream == null) throw new BufNoReadException();
+		int n;
+		try {
+			n = inputStream.read(readBuffer, 0, readBuffer.length);
+		} catch (IOException e) {
+			throw new StreamBufIOException(e);
+		}
+		if(n < 0) throw new EndOfBufException();
+		readPosition = 0;
+		readLimit = n;
+	}
+
+	@Override
+	public int remaining() {
+		// only the buffered part of the stream is known, more bytes can be read from it
+		return -1;
+	}
+
+	@Override
+	public byte read() throws StreamBufIOException, BufNoReadException, EndOfBufException {
+		while(readPosition >= readLimit) {
+			fill();
+		}
+		return readBuffer[readPosition++];
+	}
+
+	@Override
+	public void read(byte[] buf, int offset, int length) throws BufNoReadException, StreamBufIOException, EndOfBufException {
+		while(length > 0) {
+			int buffered = readLimit - readPosition;
+			if(buffered <= 0) {
+				if(length >= readBuffer.length) {
+					// large reads bypass the read-ahead buffer
+					super.read(buf, offset, length);
+					return;
+				}
+				fill();
+				continue;
+			}
+			int n = Math.min(buffered, length);
+			System.arraycopy(readBuffer, readPosition, buf, offset, n);
+			readPosition += n;
+			offset += n;
+			length -= n;
+		}
+	}
+
+	/**
+	 * schedules flushing at the flusher thread instead of flushing immediately
+	 */
+	@Override
+	protected void onPacketComponentWritten() throws StreamBufIOException {
+		IOException flushException = this.flushException;
+		if(flushException != null) {
+			throw new StreamBufIOException(flushException);
+		}
+		long now = System.nanoTime();
+		lastWriteTime = now;
+		if(scheduled.compareAndSet(false, true)) {
+			scheduleTime = now;
+			getFlusher().schedule(this);
+		}
+	}
+
+	private void flushScheduled() {
+		scheduled.set(false);
+		try {
+			getOutputStream().flush();
+		} catch (IOException e) {
+			// nobody waits for this flush, close the streams so that the owner notices the failure
+			flushException = e;
+			closeStreams();
+		}
+	}
+
+	private void closeStreams() {
+		try {
+			getOutputStream().close();
+		} catch (IOException e) {
+			// closing is best effort, the flush already failed
+		}
+		InputStream inputStream = getInputStream();
+		if(inputStream != null) {
+			try {
+				inputStream.close();
+			} catch (IOException e) {
+				// closing is best effort, the flush already failed
+			}
+		}
+	}
+
+}
@@ -1,8 +1,12 @@
 package org.dclayer.net.buf;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 
 import org.dclayer.exception.net.buf.BufException;
+import org.dclayer.exception.net.buf.EndOfBufException;
 import org.dclayer.net.Data;
 import org.dclayer.net.PacketComponentI;
 
@@ -15,6 +19,27 @@ public abstract class ByteBuf {
 	 * the ASCII charset (used for String writing)
 	 */
 	public final static Charset CHARSET_ASCII = Charset.forName("US-ASCII");
+	
+	/**
+	 * the maximum length of a flexnum, in bytes
+	 */
+	public final static int FLEXNUM_MAX_LENGTH = 9;
+	
+	/**
+	 * scratch arrays for the primitive read and write methods, created on first use.
+	 * reading and writing use separate arrays as they might happen concurrently (e.g. in pipes).
+	 */
+	private byte[] readBytes, writeBytes;
+	
+	private byte[] readBytes() {
+		if(readBytes == null) readBytes = new byte[FLEXNUM_MAX_LENGTH];
+		return readBytes;
+	}
+	
+	private byte[] writeBytes() {
+		if(writeBytes == null) writeBytes = new byte[FLEXNUM_MAX_LENGTH];
+		return writeBytes;
+	}
 
 	/**
 	 * reads one byte
@@ -44,16 +69,71 @@ public abstract class ByteBuf {
 	 * @throws BufException if this operation fails
 	 */
 	public abstract void write(byte[] buf, int offset, int length) throws BufException;
+	
+	/**
+	 * returns the amount of bytes that can be read without blocking or reaching the end of this {@link ByteBuf}
+	 * @return the amount of bytes that can be read, or -1 if it is unknown
+	 */
+	public int remaining() {
+		return -1;
+	}
+	
+	/**
+	 * checks that the given amount of bytes can be read, allowing parsers to check the bounds of a whole
+	 * structure once. does nothing if {@link #remaining()} is unknown.
+	 * @param numBytes the amount of bytes that need to be readable
+	 * @throws EndOfBufException if less than the given amount of bytes can be read
+	 */
+	public final void ensure(int numBytes) throws EndOfBufException {
+		int remaining = remaining();
+		if(remaining >= 0 && remaining < numBytes) {
+			throw new EndOfBufException(remaining);
+		}
+	}
+	
+	/**
+	 * big-endian views of byte arrays, reading or writing a whole integer with one bounds check
+	 */
+	private static final VarHandle INT_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+	private static final VarHandle SHORT_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+	
+	/**
+	 * decodes a big-endian unsigned 4-byte integer
+	 */
+	protected static long decode32(byte[] bytes, int index) {
+		return ((int) INT_BIG_ENDIAN.get(bytes, index)) & 0xFFFFFFFFL;
+	}
+	
+	/**
+	 * encodes a big-endian 4-byte integer
+	 */
+	protected static void encode32(byte[] bytes, int index, int i) {
+		INT_BIG_ENDIAN.set(bytes, index, i);
+	}
+	
+	/**
+	 * decodes a big-endian unsigned 2-byte integer
+	 */
+	protected static int decode16(byte[] bytes, int index) {
+		return ((short) SHORT_BIG_ENDIAN.get(bytes, index)) & 0xFFFF;
+	}
+	
+	/**
+	 * encodes a big-endian 2-byte integer
+	 */
+	protected static void encode16(byte[] bytes, int index, int i) {
+		SHORT_BIG_ENDIAN.set(bytes, index, (short) i);
+	}
 
 	/**
 	 * reads an unsigned 4-byte integer
 	 * @return the unsigned 4-byte integer read, as long
 	 * @throws BufException if this operation fails
 	 */
-	public final long read32() throws BufException {
-		return (((long) (read() & 0xFF)) << 24)
-				| (((long) (read() & 0xFF)) << 16)
-				| (((long) (read() & 0xFF)) << 8) | (long) (read() & 0xFF);
+	public long read32() throws BufException {
+		byte[] bytes = readBytes();
+		read(bytes, 0, 4);
+		return decode32(bytes, 0);
 	}
 	
 	/**
@@ -61,11 +141,10 @@ public abstract class ByteBuf {
 	 * @param i the 4-byte integer to write
 	 * @throws BufException if this operation fails
 	 */
-	public final void write32(int i) throws BufException {
-		write((byte) (i >> 24));
-		write((byte) (i >> 16));
-		write((byte) (i >> 8));
-		write((byte) (i & 0xFF));
+	public void write32(int i) throws BufException {
+		byte[] bytes = writeBytes();
+		encode32(bytes, 0, i);
+		write(bytes, 0, 4);
 	}
 
 	/**
@@ -73,8 +152,10 @@ public abstract class ByteBuf {
 	 * @return the unsigned 2-byte integer read
 	 * @throws BufException if this operation fails
 	 */
-	public final int read16() throws BufException {
-		return ((read() & 0xFF) << 8) | (read() & 0xFF);
+	public int read16() throws BufException {
+		byte[] bytes = readBytes();
+		read(bytes, 0, 2);
+		return decode16(bytes, 0);
 	}
 
 	/**
@@ -82,9 +163,10 @@ public abstract class ByteBuf {
 	 * @param i the 2-byte integer to write
 	 * @throws BufException if this operation fails
 	 */
-	public final void write16(int i) throws BufException {
-		write((byte) (i >> 8));
-		write((byte) (i & 0xFF));
+	public void write16(int i) throws BufException {
+		byte[] bytes = writeBytes();
+		encode16(bytes, 0, i);
+		write(bytes, 0, 2);
 	}
 	
 	/**
@@ -116,39 +198,39 @@ public abstract class ByteBuf {
 	}
 	
 	/**
-	 * reads a flexnum
-	 * @return the flexnum read
-	 * @throws BufException if this operation fails
+	 * returns the amount of bytes following the first byte of a flexnum
+	 * @param iByte the first byte of the flexnum
+	 * @return the amount of additional bytes
 	 */
-	public final long readFlexNum() throws BufException {
-		byte iByte = read();
-		int additionalBytes = 8;
-		long num = 0;
-		long offset = 0;
-		
-		for(int i = 0; i < 8; i++) {
-			if((iByte & (0x80 >> i)) == 0) {
-				additionalBytes = i;
-				break;
-			}
-		}
-		
-		num |= (iByte & ((0x100>>additionalBytes)-1));
+	protected static int getFlexNumAdditionalBytes(byte iByte) {
+		return Math.min(8, Integer.numberOfLeadingZeros(~iByte << 24));
+	}
+	
+	/**
+	 * decodes a flexnum whose first byte was already read
+	 * @param iByte the first byte of the flexnum
+	 * @param bytes the byte array containing the additional bytes
+	 * @param index the index of the first additional byte in the given byte array
+	 * @return the flexnum
+	 */
+	protected static long decodeFlexNum(byte iByte, byte[] bytes, int index) {
+		int additionalBytes = getFlexNumAdditionalBytes(iByte);
+		long num = (iByte & ((0x100>>additionalBytes)-1));
 		for(int i = 0; i < additionalBytes; i++) {
 			num <<= 8;
-			num |= (read() & 0xFF);
-			offset += (0x80L << 7*i);
+			num |= (bytes[index + i] & 0xFF);
 		}
-		
-		return num + offset;
+		return num + (additionalBytes > 0 ? flexNumOffsets[additionalBytes-1] : 0);
 	}
 	
 	/**
-	 * writes a flexnum
-	 * @param num the flexnum to write
-	 * @throws BufException if this operation fails
+	 * encodes a flexnum
+	 * @param bytes the byte array to encode the flexnum into
+	 * @param index the index in the given byte array to start at
+	 * @param originalNum the value to encode
+	 * @return the length of the flexnum, in bytes
 	 */
-	public final void writeFlexNum(long originalNum) throws BufException {
+	protected static int encodeFlexNum(byte[] bytes, int index, long originalNum) {
 		int additionalBytes = 8;
 		long num = originalNum - flexNumOffsets[flexNumOffsets.length - 1];
 		
@@ -167,11 +249,38 @@ public abstract class ByteBuf {
 		byte valueBitMaskInFirstByte = (byte) ((1 << Math.max(7-additionalBytes, 0)) - 1);
 		iByte |= ((num >> 8*additionalBytes) & valueBitMaskInFirstByte);
 		
-		write(iByte);
+		bytes[index] = iByte;
 		
 		for(int i = (additionalBytes-1); i >= 0; i--) {
-			write((byte) (num >> 8*i));
+			bytes[++index] = (byte) (num >> 8*i);
+		}
+		
+		return 1 + additionalBytes;
+	}
+	
+	/**
+	 * reads a flexnum
+	 * @return the flexnum read
+	 * @throws BufException if this operation fails
+	 */
+	public long readFlexNum() throws BufException {
+		byte iByte = read();
+		int additionalBytes = getFlexNumAdditionalBytes(iByte);
+		byte[] bytes = readBytes();
+		if(additionalBytes > 0) {
+			read(bytes, 0, additionalBytes);
 		}
+		return decodeFlexNum(iByte, bytes, 0);
+	}
+	
+	/**
+	 * writes a flexnum
+	 * @param num the flexnum to write
+	 * @throws BufException if this operation fails
+	 */
+	public void writeFlexNum(long num) throws BufException {
+		byte[] bytes = writeBytes();
+		write(bytes, 0, encodeFlexNum(bytes, 0, num));
 	}
 
 	/**
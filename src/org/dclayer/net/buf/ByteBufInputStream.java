@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.dclayer.exception.net.buf.BufException;
+import org.dclayer.exception.net.buf.EndOfBufException;
 
 public class ByteBufInputStream extends InputStream {
 	
@@ -25,5 +26,27 @@ public class ByteBufInputStream extends InputStream {
 			throw new IOException(e);
 		}
 	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(!(byteBuf instanceof AsyncPipeByteBuf)) {
+			return super.read(b, off, len);
+		}
+		try {
+			return ((AsyncPipeByteBuf) byteBuf).readAvailable(b, off, len);
+		} catch (EndOfBufException e) {
+			return -1;
+		} catch (BufException e) {
+			throw new IOException(e);
+		}
+	}
+	
+	@Override
+	public int available() throws IOException {
+		if(byteBuf instanceof AsyncPipeByteBuf) {
+			return ((AsyncPipeByteBuf) byteBuf).available();
+		}
+		return 0;
+	}
 
 }
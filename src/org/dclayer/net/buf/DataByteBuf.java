@@ -1,6 +1,7 @@
 package org.dclayer.net.buf;
 
 
+import org.dclayer.exception.net.buf.BufException;
 import org.dclayer.exception.net.buf.EndOfBufException;
 import org.dclayer.net.Data;
 import org.dclayer.net.buf.ByteBuf;
@@ -155,6 +156,82 @@ public class DataByteBuf extends ByteBuf {
 		return position;
 	}
 
+	@Override
+	public int remaining() {
+		return data == null ? 0 : data.length() - position;
+	}
+	
+	/**
+	 * returns the index in the underlying byte array of the current position if the given amount of bytes
+	 * fits into the underlying {@link Data} at the current position
+	 * @param numBytes the amount of bytes
+	 * @return the index in the underlying byte array, or -1 if the bytes do not fit
+	 */
+	private int index(int numBytes) {
+		if(data == null || position < 0 || numBytes > data.length() - position) return -1;
+		return data.offset() + position;
+	}
+	
+	@Override
+	public long read32() throws BufException {
+		int index = index(4);
+		if(index < 0) return super.read32();
+		position += 4;
+		return decode32(data.getData(), index);
+	}
+	
+	@Override
+	public void write32(int i) throws BufException {
+		int index = index(4);
+		if(index < 0) {
+			super.write32(i);
+			return;
+		}
+		position += 4;
+		encode32(data.getData(), index, i);
+	}
+	
+	@Override
+	public int read16() throws BufException {
+		int index = index(2);
+		if(index < 0) return super.read16();
+		position += 2;
+		return decode16(data.getData(), index);
+	}
+	
+	@Override
+	public void write16(int i) throws BufException {
+		int index = index(2);
+		if(index < 0) {
+			super.write16(i);
+			return;
+		}
+		position += 2;
+		encode16(data.getData(), index, i);
+	}
+	
+	@Override
+	public long readFlexNum() throws BufException {
+		int index = index(1);
+		if(index < 0) return super.readFlexNum();
+		byte[] bytes = data.getData();
+		int additionalBytes = getFlexNumAdditionalBytes(bytes[index]);
+		if(index(1 + additionalBytes) < 0) return super.readFlexNum();
+		position += 1 + additionalBytes;
+		return decodeFlexNum(bytes[index], bytes, index + 1);
+	}
+	
+	@Override
+	public void writeFlexNum(long num) throws BufException {
+		int index = index(FLEXNUM_MAX_LENGTH);
+		if(index < 0) {
+			// the flexnum might still fit, but its length is unknown until it is encoded
+			super.writeFlexNum(num);
+			return;
+		}
+		position += encodeFlexNum(data.getData(), index, num);
+	}
+	
 	public byte read() throws EndOfBufException {
 		byte b;
 		try {
@@ -83,10 +83,15 @@ public class StreamByteBuf extends ByteBuf {
 	}
 
 	@Override
-	public void read(byte[] buf, int offset, int length) throws BufNoReadException, StreamBufIOException {
+	public void read(byte[] buf, int offset, int length) throws BufNoReadException, StreamBufIOException, EndOfBufException {
 		if(inputStream == null) throw new BufNoReadException();
 		try {
-			inputStream.read(buf, offset, length);
+			while(length > 0) {
+				int n = inputStream.read(buf, offset, length);
+				if(n < 0) throw new EndOfBufException();
+				offset += n;
+				length -= n;
+			}
 		} catch (IOException e) {
 			throw new StreamBufIOException(e);
 		}
@@ -105,13 +110,21 @@ public class StreamByteBuf extends ByteBuf {
 	/**
 	 * calls {@link PacketComponentI#write(ByteBuf)} on the given {@link PacketComponentI},
 	 * writing its contents to this {@link ByteBuf}.
-	 * Flushes the underlying {@link OutputStream} afterwards.
+	 * Calls {@link #onPacketComponentWritten()} afterwards.
 	 * @param packetComponent the {@link PacketComponentI} to write
 	 * @throws BufException if this operation fails
 	 */
 	@Override
 	public void write(PacketComponentI packetComponent) throws BufException {
 		super.write(packetComponent);
+		onPacketComponentWritten();
+	}
+	
+	/**
+	 * called after a {@link PacketComponentI} was written, flushes the underlying {@link OutputStream}
+	 * @throws StreamBufIOException if flushing fails
+	 */
+	protected void onPacketComponentWritten() throws StreamBufIOException {
 		try {
 			outputStream.flush();
 		} catch (IOException e) {
@@ -49,6 +49,12 @@ public class SubByteBuf extends ByteBuf {
 		this.count = 0;
 	}
 
+	@Override
+	public int remaining() {
+		int remaining = byteBuf.remaining();
+		return remaining < 0 ? (length - count) : Math.min(length - count, remaining);
+	}
+
 	@Override
 	public byte read() throws BufException {
 		count++;
@@ -1,5 +1,6 @@
 package org.dclayer.net.component;
 
+import org.dclayer.crypto.SignatureVerificationCache;
 import org.dclayer.crypto.hash.Hash;
 import org.dclayer.crypto.hash.HashAlgorithm;
 import org.dclayer.crypto.key.Key;
@@ -15,6 +16,13 @@ import org.dclayer.net.buf.ByteBuf;
 
 public abstract class SHA1KeySignedPacketComponent extends CryptoPacketComponent {
 	
+	/**
+	 * the {@link SignatureVerificationCache} shared by all instances
+	 */
+	private static final SignatureVerificationCache SIGNATURE_VERIFICATION_CACHE = new SignatureVerificationCache();
+	
+	//
+	
 	private final Hash hash = HashAlgorithm.SHA1.getInstance();
 	
 	//
@@ -50,19 +58,28 @@ public abstract class SHA1KeySignedPacketComponent extends CryptoPacketComponent
 		cipherHashData.prepare(numBytes);
 		byteBuf.read(cipherHashData);
 		
-		try {
-			plainHashData = publicKey.decrypt(cipherHashData);
-		} catch (CryptoException e) {
-			throw new CryptoParseException(e);
-		}
-		
 		// 3: data
 		dataComponent.read(byteBuf);
 		
 		hash.update(dataComponent.getData());
 		hash.finish(ownHashData);
-		if(!plainHashData.equals(ownHashData)) {
-			throw new InvalidHashParseException(plainHashData, ownHashData);
+		
+		// the same packet is often received several times (e.g. via multiple neighbors), skip the decryption if it was verified before
+		Data verificationDigestData = SignatureVerificationCache.digest(publicKey.toData(), cipherHashData, ownHashData);
+		if(!SIGNATURE_VERIFICATION_CACHE.contains(verificationDigestData)) {
+			
+			try {
+				plainHashData = publicKey.decrypt(cipherHashData);
+			} catch (CryptoException e) {
+				throw new CryptoParseException(e);
+			}
+			
+			if(!plainHashData.equals(ownHashData)) {
+				throw new InvalidHashParseException(plainHashData, ownHashData);
+			}
+			
+			SIGNATURE_VERIFICATION_CACHE.put(verificationDigestData);
+			
 		}
 		
 		dataComponent.getData(plainPacketComponent);
@@ -2,6 +2,9 @@ package org.dclayer.net.interservice;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.dclayer.DCLService;
 import org.dclayer.crypto.challenge.CryptoChallenge;
@@ -9,6 +12,7 @@ import org.dclayer.crypto.challenge.Fixed128ByteCryptoChallenge;
 import org.dclayer.crypto.key.Key;
 import org.dclayer.crypto.key.KeyPair;
 import org.dclayer.crypto.key.RSAKey;
+import org.dclayer.crypto.key.RemoteRSAKeyFuture;
 import org.dclayer.exception.crypto.CryptoException;
 import org.dclayer.exception.net.buf.BufException;
 import org.dclayer.exception.net.buf.EndOfBufException;
@@ -50,6 +54,7 @@ import org.dclayer.net.network.slot.AddressSlotMap;
 import org.dclayer.net.network.slot.GenericNetworkSlot;
 import org.dclayer.net.network.slot.NetworkSlot;
 import org.dclayer.net.network.slot.NetworkSlotMap;
+import org.dclayer.threadswitch.ThreadMode;
 
 public class InterserviceChannel extends ThreadDataChannel implements ServiceSideApplicationChannelActionListener, NetworkPacketProvider {
 	
@@ -85,11 +90,12 @@ public class InterserviceChannel extends ThreadDataChannel implements ServiceSid
 	private ApplicationChannelSlotMap localApplicationChannelSlotMap = new ApplicationChannelSlotMap(false);
 	private ApplicationChannelSlotMap remoteApplicationChannelSlotMap = new ApplicationChannelSlotMap(true);
 	
-	private Thread llaRequestThread = new Thread(new Runnable() {
-		public void run() {
-			runLLARequestLoop();
-		}
-	});
+	private Thread llaRequestThread;
+	
+	/**
+	 * a lock instead of a monitor so that virtual threads sending on this channel do not pin their carrier
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
 
 	public InterserviceChannel(DCLService dclService, InterserviceChannelActionListener interserviceChannelActionListener, CachedLLA cachedLLA, long channelId, String channelName) {
 		super(cachedLLA.getLink(), channelId, channelName);
@@ -108,30 +114,38 @@ public class InterserviceChannel extends ThreadDataChannel implements ServiceSid
 	}
 	
 	@Override
-	public synchronized void onOpenChannel(boolean initiator) {
-		this.initiator = initiator;
-		Log.msg(this, "opening channel, initiator=%s, interservice policy: %s", initiator, interservicePolicy);
-		if(initiator) {
-			this.version = VERSION;
-			sendVersion(this.version);
+	public void onOpenChannel(boolean initiator) {
+		lock.lock();
+		try {
+			this.initiator = initiator;
+			Log.msg(this, "opening channel, initiator=%s, interservice policy: %s", initiator, interservicePolicy);
+			if(initiator) {
+				this.version = VERSION;
+				sendVersion(this.version);
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
 	@Override
-	public synchronized void onCloseChannel() {
-		
-		Log.msg(this, "channel closed");
-		
-		this.alive = false;
-		
-		for(NetworkSlot remoteNetworkSlot : remoteNetworkSlotMap) {
-			for(NetworkNode remoteNetworkNode : remoteNetworkSlot.getNetworkNodes()) {
-				interserviceChannelActionListener.onRemoveRemoteNetworkNode(this, remoteNetworkNode);
+	public void onCloseChannel() {
+		lock.lock();
+		try {
+			Log.msg(this, "channel closed");
+			
+			this.alive = false;
+			
+			for(NetworkSlot remoteNetworkSlot : remoteNetworkSlotMap) {
+				for(NetworkNode remoteNetworkNode : remoteNetworkSlot.getNetworkNodes()) {
+					interserviceChannelActionListener.onRemoveRemoteNetworkNode(this, remoteNetworkNode);
+				}
 			}
+			
+			interserviceChannelActionListener.onInterserviceChannelClosed(this);
+		} finally {
+			lock.unlock();
 		}
-		
-		interserviceChannelActionListener.onInterserviceChannelClosed(this);
-		
 	}
 	
 	private void removeRemoteAddressSlot(AddressSlot remoteAddressSlot) {
@@ -209,33 +223,36 @@ public class InterserviceChannel extends ThreadDataChannel implements ServiceSid
 		addressSlot.setInCryptoChallenge(null);
 	}
 	
-	private synchronized void finishTrustedSwitch(AddressSlot remoteAddressSlot, boolean success) {
-		
-		if(success) {
-			
-			Log.msg(this, "remote successfully completed crypto challenge for address slot: %s", remoteAddressSlot);
-			
-			remoteAddressSlot.setTrustedSwitchOutCryptoChallenge(null);
-			remoteAddressSlot.setConnectionBase(CONNECTIONBASE_TRUSTED);
-			
-			List<ApplicationChannel> requestApplicationChannels = interservicePolicy.getRequestApplicationChannelsForRemoteAddress(remoteAddressSlot.getAddress());
-			
-			if(requestApplicationChannels != null) {
-				for(ApplicationChannel applicationChannel : requestApplicationChannels) {
-					AddressSlot localAddressSlot = localAddressSlotMap.find(applicationChannel.getLocalAddress());
-					if(localAddressSlot != null && localAddressSlot.getConnectionBase() >= CONNECTIONBASE_TRUSTED) {
-						requestApplicationChannel(localAddressSlot, remoteAddressSlot, applicationChannel);
+	private void finishTrustedSwitch(AddressSlot remoteAddressSlot, boolean success) {
+		lock.lock();
+		try {
+			if(success) {
+				
+				Log.msg(this, "remote successfully completed crypto challenge for address slot: %s", remoteAddressSlot);
+				
+				remoteAddressSlot.setTrustedSwitchOutCryptoChallenge(null);
+				remoteAddressSlot.setConnectionBase(CONNECTIONBASE_TRUSTED);
+				
+				List<ApplicationChannel> requestApplicationChannels = interservicePolicy.getRequestApplicationChannelsForRemoteAddress(remoteAddressSlot.getAddress());
+				
+				if(requestApplicationChannels != null) {
+					for(ApplicationChannel applicationChannel : requestApplicationChannels) {
+						AddressSlot localAddressSlot = localAddressSlotMap.find(applicationChannel.getLocalAddress());
+						if(localAddressSlot != null && localAddressSlot.getConnectionBase() >= CONNECTIONBASE_TRUSTED) {
+							requestApplicationChannel(localAddressSlot, remoteAddressSlot, applicationChannel);
+						}
 					}
 				}
+				
+			} else {
+				
+				Log.msg(this, "remote failed crypto challenge for address slot, removing: %s", remoteAddressSlot);
+				removeRemoteAddressSlot(remoteAddressSlot);
+				
 			}
-			
-		} else {
-			
-			Log.msg(this, "remote failed crypto challenge for address slot, removing: %s", remoteAddressSlot);
-			removeRemoteAddressSlot(remoteAddressSlot);
-			
+		} finally {
+			lock.unlock();
 		}
-		
 	}
 	
 	private void setVersion(long version) {
@@ -243,194 +260,235 @@ public class InterserviceChannel extends ThreadDataChannel implements ServiceSid
 		this.version = version;
 	}
 	
-	private synchronized void setReady() {
-		
-		Log.msg(this, "InterserviceChannel ready%s, version %d", this.ready ? " (was ready before)" : "", this.version);
-		if(this.ready) return;
-		
-		this.ready = true;
-		this.interserviceChannelActionListener.onReadyChange(this, ready);
-		
-		// TODO: make sure all required addresses for application channels we need to open are acknowledged by the remote
-		
-		for(AddressSlot addressSlot : localAddressSlotMap) {
-			startTrustedSwitch(addressSlot);
+	private void setReady() {
+		lock.lock();
+		try {
+			Log.msg(this, "InterserviceChannel ready%s, version %d", this.ready ? " (was ready before)" : "", this.version);
+			if(this.ready) return;
+			
+			this.ready = true;
+			this.interserviceChannelActionListener.onReadyChange(this, ready);
+			
+			// TODO: make sure all required addresses for application channels we need to open are acknowledged by the remote
+			
+			for(AddressSlot addressSlot : localAddressSlotMap) {
+				startTrustedSwitch(addressSlot);
+			}
+			
+			this.llaRequestThread = ThreadMode.start(String.format("%s lla request", this), new Runnable() {
+				public void run() {
+					runLLARequestLoop();
+				}
+			});
+		} finally {
+			lock.unlock();
 		}
-		
-		this.llaRequestThread.start();
-		
 	}
 	
 	public boolean isReady() {
 		return ready;
 	}
 	
-	public synchronized void openApplicationChannel(ApplicationChannel applicationChannel) {
-		
-		Log.msg(this, "opening application channel %s", applicationChannel);
-		
-		AddressSlot localAddressSlot = localAddressSlotMap.find(applicationChannel.getLocalAddress());
-		AddressSlot remoteAddressSlot = remoteAddressSlotMap.find(applicationChannel.getRemoteAddress());
-		
-		if(localAddressSlot != null && remoteAddressSlot != null && localAddressSlot.getConnectionBase() >= CONNECTIONBASE_TRUSTED && remoteAddressSlot.getConnectionBase() >= CONNECTIONBASE_TRUSTED) {
-			
-			Log.msg(this, "both local and remote address slots exist and are on trusted connection base, requesting application channel immediately");
-			requestApplicationChannel(localAddressSlot, remoteAddressSlot, applicationChannel);
-			
-		} else {
+	public void openApplicationChannel(ApplicationChannel applicationChannel) {
+		lock.lock();
+		try {
+			Log.msg(this, "opening application channel %s", applicationChannel);
 			
-			Log.msg(this, "local and remote address slots not both ready, adding application channel to interservice policy");
-			interserviceChannelActionListener.addDefaultOutgoingApplicationChannelInterservicePolicyRules(interservicePolicy, applicationChannel);
+			AddressSlot localAddressSlot = localAddressSlotMap.find(applicationChannel.getLocalAddress());
+			AddressSlot remoteAddressSlot = remoteAddressSlotMap.find(applicationChannel.getRemoteAddress());
 			
+			if(localAddressSlot != null && remoteAddressSlot != null && localAddressSlot.getConnectionBase() >= CONNECTIONBASE_TRUSTED && remoteAddressSlot.getConnectionBase() >= CONNECTIONBASE_TRUSTED) {
+				
+				Log.msg(this, "both local and remote address slots exist and are on trusted connection base, requesting application channel immediately");
+				requestApplicationChannel(localAddressSlot, remoteAddressSlot, applicationChannel);
+				
+			} else {
+				
+				Log.msg(this, "local and remote address slots not both ready, adding application channel to interservice policy");
+				interserviceChannelActionListener.addDefaultOutgoingApplicationChannelInterservicePolicyRules(interservicePolicy, applicationChannel);
+				
+			}
+		} finally {
+			lock.unlock();
 		}
-		
 	}
 	
 	/**
 	 * called when the remote notifies us of its incoming connection base
 	 * @param connectionBase the incoming connection base of the remote
 	 */
-	private synchronized void setOutConnectionBase(AddressSlot localAddressSlot, byte outConnectionBase) {
-		byte oldOutConnectionBase = localAddressSlot.getConnectionBase();
-		localAddressSlot.setOutConnectionBase(outConnectionBase);
-		
-		if(oldOutConnectionBase < CONNECTIONBASE_TRUSTED && localAddressSlot.getConnectionBase() >= CONNECTIONBASE_TRUSTED) {
-			
-			joinNetworks(localAddressSlot);
-			
-			List<ApplicationChannel> requestApplicationChannels = interservicePolicy.getRequestApplicationChannelsForLocalAddress(localAddressSlot.getAddress());
+	private void setOutConnectionBase(AddressSlot localAddressSlot, byte outConnectionBase) {
+		lock.lock();
+		try {
+			byte oldOutConnectionBase = localAddressSlot.getConnectionBase();
+			localAddressSlot.setOutConnectionBase(outConnectionBase);
 			
-			if(requestApplicationChannels != null) {
-				for(ApplicationChannel applicationChannel : requestApplicationChannels) {
-					AddressSlot remoteAddressSlot = remoteAddressSlotMap.find(applicationChannel.getRemoteAddress());
-					if(remoteAddressSlot != null && remoteAddressSlot.getConnectionBase() >= CONNECTIONBASE_TRUSTED) {
-						requestApplicationChannel(localAddressSlot, remoteAddressSlot, applicationChannel);
+			if(oldOutConnectionBase < CONNECTIONBASE_TRUSTED && localAddressSlot.getConnectionBase() >= CONNECTIONBASE_TRUSTED) {
+				
+				joinNetworks(localAddressSlot);
+				
+				List<ApplicationChannel> requestApplicationChannels = interservicePolicy.getRequestApplicationChannelsForLocalAddress(localAddressSlot.getAddress());
+				
+				if(requestApplicationChannels != null) {
+					for(ApplicationChannel applicationChannel : requestApplicationChannels) {
+						AddressSlot remoteAddressSlot = remoteAddressSlotMap.find(applicationChannel.getRemoteAddress());
+						if(remoteAddressSlot != null && remoteAddressSlot.getConnectionBase() >= CONNECTIONBASE_TRUSTED) {
+							requestApplicationChannel(localAddressSlot, remoteAddressSlot, applicationChannel);
+						}
 					}
 				}
+				
 			}
-			
+		} finally {
+			lock.unlock();
 		}
 	}
 	
-	private synchronized void joinNetworks(AddressSlot addressSlot) {
-		List<NetworkNode> networkNodes = addressSlot.popNetworkNodesToJoin();
-		Log.msg(this, "initially joining %d networks for address slot: %s", networkNodes.size(), addressSlot);
-		for(NetworkNode networkNode : networkNodes) {
-			joinNetwork(addressSlot, networkNode);
+	private void joinNetworks(AddressSlot addressSlot) {
+		lock.lock();
+		try {
+			List<NetworkNode> networkNodes = addressSlot.popNetworkNodesToJoin();
+			Log.msg(this, "initially joining %d networks for address slot: %s", networkNodes.size(), addressSlot);
+			for(NetworkNode networkNode : networkNodes) {
+				joinNetwork(addressSlot, networkNode);
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
-	public synchronized void joinNetwork(NetworkNode networkNode) {
-		
-		AddressSlot localAddressSlot = localAddressSlotMap.find(networkNode.getAddress());
-		
-		if(localAddressSlot == null) {
-			
-			Address localAddress = networkNode.getAddress();
-			localAddressSlot = localAddressSlotMap.add(localAddress);
+	public void joinNetwork(NetworkNode networkNode) {
+		lock.lock();
+		try {
+			AddressSlot localAddressSlot = localAddressSlotMap.find(networkNode.getAddress());
 			
-			if(isReady()) {
-				startTrustedSwitch(localAddressSlot);
+			if(localAddressSlot == null) {
+				
+				Address localAddress = networkNode.getAddress();
+				localAddressSlot = localAddressSlotMap.add(localAddress);
+				
+				if(isReady()) {
+					startTrustedSwitch(localAddressSlot);
+				}
+				
 			}
 			
+			joinNetwork(localAddressSlot, networkNode);
+		} finally {
+			lock.unlock();
 		}
-		
-		joinNetwork(localAddressSlot, networkNode);
-		
 	}
 	
-	private synchronized void joinNetwork(AddressSlot addressSlot, NetworkNode networkNode) {
-		
-		if(addressSlot.getConnectionBase() < CONNECTIONBASE_TRUSTED) {
-			
-			Log.debug(this, "saving network node %s for later joining with address slot: %s", networkNode, addressSlot);
-			addressSlot.addNetworkNodeToJoin(networkNode);
-			return;
+	private void joinNetwork(AddressSlot addressSlot, NetworkNode networkNode) {
+		lock.lock();
+		try {
+			if(addressSlot.getConnectionBase() < CONNECTIONBASE_TRUSTED) {
+				
+				Log.debug(this, "saving network node %s for later joining with address slot: %s", networkNode, addressSlot);
+				addressSlot.addNetworkNodeToJoin(networkNode);
+				return;
+				
+			}
 			
-		}
-		
-		NetworkSlot networkSlot = localNetworkSlotMap.find(networkNode.getNetworkType());
-		
-		boolean newSlot = (networkSlot == null);
-		
-		if(newSlot) {
+			NetworkSlot networkSlot = localNetworkSlotMap.find(networkNode.getNetworkType());
 			
-			networkSlot = localNetworkSlotMap.add(networkNode.getNetworkType());
+			boolean newSlot = (networkSlot == null);
 			
-			NetworkSlot remoteNetworkSlot = remoteNetworkSlotMap.find(networkNode.getNetworkType());
-			networkSlot.setRemoteEquivalent(remoteNetworkSlot);
-			if(remoteNetworkSlot != null) {
-				remoteNetworkSlot.setRemoteEquivalent(networkSlot);
+			if(newSlot) {
 				
-				for(NetworkNode remoteNetworkNode : remoteNetworkSlot.getNetworkNodes()) {
-					interserviceChannelActionListener.onNewRemoteNetworkNode(this, remoteNetworkNode, networkSlot);
+				networkSlot = localNetworkSlotMap.add(networkNode.getNetworkType());
+				
+				NetworkSlot remoteNetworkSlot = remoteNetworkSlotMap.find(networkNode.getNetworkType());
+				networkSlot.setRemoteEquivalent(remoteNetworkSlot);
+				if(remoteNetworkSlot != null) {
+					remoteNetworkSlot.setRemoteEquivalent(networkSlot);
+					
+					for(NetworkNode remoteNetworkNode : remoteNetworkSlot.getNetworkNodes()) {
+						interserviceChannelActionListener.onNewRemoteNetworkNode(this, remoteNetworkNode, networkSlot);
+					}
 				}
+				
 			}
 			
+			networkSlot.addNetworkNode(networkNode);
+			
+			Log.debug(this, "joining %s network slot %s: %s", newSlot ? "new" : "existing", networkSlot, addressSlot);
+			
+			sendNetworkJoinNotice(addressSlot.getSlot(), newSlot ? networkSlot.getNetworkType() : null, networkSlot.getSlot());
+		} finally {
+			lock.unlock();
 		}
-		
-		networkSlot.addNetworkNode(networkNode);
-		
-		Log.debug(this, "joining %s network slot %s: %s", newSlot ? "new" : "existing", networkSlot, addressSlot);
-		
-		sendNetworkJoinNotice(addressSlot.getSlot(), newSlot ? networkSlot.getNetworkType() : null, networkSlot.getSlot());
-		
 	}
 	
-	private synchronized void requestApplicationChannel(AddressSlot localAddressSlot, AddressSlot remoteAddressSlot, ApplicationChannel applicationChannel) {
-		
-		Log.debug(this, "requesting application channel: %s", applicationChannel);
-		
-		ApplicationChannelSlot localApplicationChannelSlot = localApplicationChannelSlotMap.add(applicationChannel);
-		sendApplicationChannelSlotAssign(localApplicationChannelSlot, localAddressSlot, remoteAddressSlot);
-		
+	private void requestApplicationChannel(AddressSlot localAddressSlot, AddressSlot remoteAddressSlot, ApplicationChannel applicationChannel) {
+		lock.lock();
+		try {
+			Log.debug(this, "requesting application channel: %s", applicationChannel);
+			
+			ApplicationChannelSlot localApplicationChannelSlot = localApplicationChannelSlotMap.add(applicationChannel);
+			sendApplicationChannelSlotAssign(localApplicationChannelSlot, localAddressSlot, remoteAddressSlot);
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void acceptIncomingApplicationChannelRequest(ApplicationChannel applicationChannel, AddressSlot localAddressSlot, AddressSlot remoteAddressSlot, int remoteApplicationChannelSlotId) {
-		
-		Log.msg(this, "accepting request for application channel: %s", applicationChannel);
-		
-		ApplicationChannelSlot remoteApplicationChannelSlot = remoteApplicationChannelSlotMap.put(remoteApplicationChannelSlotId, applicationChannel);
-		ApplicationChannelSlot localApplicationChannelSlot = localApplicationChannelSlotMap.add(applicationChannel);
-		
-		localApplicationChannelSlot.setRemoteEquivalent(remoteApplicationChannelSlot);
-		remoteApplicationChannelSlot.setRemoteEquivalent(localApplicationChannelSlot);
-		
-		sendApplicationChannelSlotAssign(localApplicationChannelSlot, localAddressSlot, remoteAddressSlot);
-		
-		connectApplicationChannel(applicationChannel);
-		
+	private void acceptIncomingApplicationChannelRequest(ApplicationChannel applicationChannel, AddressSlot localAddressSlot, AddressSlot remoteAddressSlot, int remoteApplicationChannelSlotId) {
+		lock.lock();
+		try {
+			Log.msg(this, "accepting request for application channel: %s", applicationChannel);
+			
+			ApplicationChannelSlot remoteApplicationChannelSlot = remoteApplicationChannelSlotMap.put(remoteApplicationChannelSlotId, applicationChannel);
+			ApplicationChannelSlot localApplicationChannelSlot = localApplicationChannelSlotMap.add(applicationChannel);
+			
+			localApplicationChannelSlot.setRemoteEquivalent(remoteApplicationChannelSlot);
+			remoteApplicationChannelSlot.setRemoteEquivalent(localApplicationChannelSlot);
+			
+			sendApplicationChannelSlotAssign(localApplicationChannelSlot, localAddressSlot, remoteAddressSlot);
+			
+			connectApplicationChannel(applicationChannel);
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void finishOutgoingApplicationChannelRequest(ApplicationChannelSlot localApplicationChannelSlot, int remoteApplicationChannelSlotId) {
-		
-		ApplicationChannel applicationChannel = localApplicationChannelSlot.getApplicationChannel();
-		
-		Log.debug(this, "finishing request for application channel: %s", applicationChannel);
-		
-		ApplicationChannelSlot remoteApplicationChannelSlot = remoteApplicationChannelSlotMap.put(remoteApplicationChannelSlotId, applicationChannel);
-		
-		localApplicationChannelSlot.setRemoteEquivalent(remoteApplicationChannelSlot);
-		remoteApplicationChannelSlot.setRemoteEquivalent(localApplicationChannelSlot);
-		
-		connectApplicationChannel(applicationChannel);
-		
+	private void finishOutgoingApplicationChannelRequest(ApplicationChannelSlot localApplicationChannelSlot, int remoteApplicationChannelSlotId) {
+		lock.lock();
+		try {
+			ApplicationChannel applicationChannel = localApplicationChannelSlot.getApplicationChannel();
+			
+			Log.debug(this, "finishing request for application channel: %s", applicationChannel);
+			
+			ApplicationChannelSlot remoteApplicationChannelSlot = remoteApplicationChannelSlotMap.put(remoteApplicationChannelSlotId, applicationChannel);
+			
+			localApplicationChannelSlot.setRemoteEquivalent(remoteApplicationChannelSlot);
+			remoteApplicationChannelSlot.setRemoteEquivalent(localApplicationChannelSlot);
+			
+			connectApplicationChannel(applicationChannel);
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void connectApplicationChannel(ApplicationChannel applicationChannel) {
-		
-		applicationChannel.setServiceSideApplicationChannelActionListener(this);
-		applicationChannel.getApplicationSideApplicationChannelActionListener().onConnected(applicationChannel);
-		
+	private void connectApplicationChannel(ApplicationChannel applicationChannel) {
+		lock.lock();
+		try {
+			applicationChannel.setServiceSideApplicationChannelActionListener(this);
+			applicationChannel.getApplicationSideApplicationChannelActionListener().onConnected(applicationChannel);
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	private void runLLARequestLoop() {
 		for(;;) {
 			
-			synchronized(this) {
+			lock.lock();
+			try {
 				if(!alive) break;
 				sendLLARequest(10); // TODO
 				sendLocalLLARequest(); // TODO maybe not every 10 seconds
+			} finally {
+				lock.unlock();
 			}
 			
 			try {
@@ -484,111 +542,181 @@ public class InterserviceChannel extends ThreadDataChannel implements ServiceSid
 	
 	// send methods
 	
-	private synchronized void sendVersion(long version) {
-		Log.debug(this, "sending version: %d", version);
-		outInterservicePacket.setVersionInterserviceMessage().setVersion(version);
-		sendOutInterservicePacket();
+	private void sendVersion(long version) {
+		lock.lock();
+		try {
+			Log.debug(this, "sending version: %d", version);
+			outInterservicePacket.setVersionInterserviceMessage().setVersion(version);
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendLLARequest(int limit) {
-		Log.debug(this, "sending LLA request for %d LLAs", limit);
-		outInterservicePacket
-		.setLLARequestInterserviceMessage()
-		.setLimit(limit);
-		sendOutInterservicePacket();
+	private void sendLLARequest(int limit) {
+		lock.lock();
+		try {
+			Log.debug(this, "sending LLA request for %d LLAs", limit);
+			outInterservicePacket
+			.setLLARequestInterserviceMessage()
+			.setLimit(limit);
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendLLAReply(List<LLA> llas) {
-		Log.debug(this, "sending LLA reply with %d LLAs: %s", llas.size(), Arrays.toString(llas.toArray()));
-		outInterservicePacket
-		.setLLAReplyInterserviceMessage()
-		.getLowerLevelAddressListComponent()
-		.setAddresses(llas);
-		sendOutInterservicePacket();
+	private void sendLLAReply(List<LLA> llas) {
+		lock.lock();
+		try {
+			Log.debug(this, "sending LLA reply with %d LLAs: %s", llas.size(), Arrays.toString(llas.toArray()));
+			outInterservicePacket
+			.setLLAReplyInterserviceMessage()
+			.getLowerLevelAddressListComponent()
+			.setAddresses(llas);
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendTrustedSwitch(AddressSlot addressSlot, RSAKey rsaKey) {
-		Log.debug(this, "sending trusted switch message for address slot: %s", addressSlot);
-		TrustedSwitchInterserviceMessage trustedSwitchInterserviceMessage = outInterservicePacket.setTrustedSwitchInterserviceMessage();
-		trustedSwitchInterserviceMessage.getKeyComponent().setRSAKeyComponent().setKey(rsaKey);
-		trustedSwitchInterserviceMessage.setAddressSlot(addressSlot.getSlot());
-		sendOutInterservicePacket();
+	private void sendTrustedSwitch(AddressSlot addressSlot, RSAKey rsaKey) {
+		lock.lock();
+		try {
+			Log.debug(this, "sending trusted switch message for address slot: %s", addressSlot);
+			TrustedSwitchInterserviceMessage trustedSwitchInterserviceMessage = outInterservicePacket.setTrustedSwitchInterserviceMessage();
+			trustedSwitchInterserviceMessage.getKeyComponent().setRSAKeyComponent().setKey(rsaKey);
+			trustedSwitchInterserviceMessage.setAddressSlot(addressSlot.getSlot());
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendCryptoChallengeRequest(AddressSlot addressSlot, Data plainData) {
-		Log.debug(this, "sending crypto challenge request");
-		CryptoChallengeRequestInterserviceMessage cryptoChallengeRequestInterserviceMessage = outInterservicePacket.setCryptoChallengeRequestInterserviceMessage();
-		cryptoChallengeRequestInterserviceMessage.setAddressSlot(addressSlot.getSlot());
-		cryptoChallengeRequestInterserviceMessage.getDataComponent().setData(plainData);
-		sendOutInterservicePacket();
+	private void sendCryptoChallengeRequest(AddressSlot addressSlot, Data plainData) {
+		lock.lock();
+		try {
+			Log.debug(this, "sending crypto challenge request");
+			CryptoChallengeRequestInterserviceMessage cryptoChallengeRequestInterserviceMessage = outInterservicePacket.setCryptoChallengeRequestInterserviceMessage();
+			cryptoChallengeRequestInterserviceMessage.setAddressSlot(addressSlot.getSlot());
+			cryptoChallengeRequestInterserviceMessage.getDataComponent().setData(plainData);
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendCryptoChallengeReply(AddressSlot addressSlot, Data cipherData) {
-		Log.debug(this, "sending crypto challenge reply");
-		CryptoChallengeReplyInterserviceMessage cryptoChallengeReplyInterserviceMessage = outInterservicePacket.setCryptoChallengeReplyInterserviceMessage();
-		cryptoChallengeReplyInterserviceMessage.setAddressSlot(addressSlot.getSlot());
-		cryptoChallengeReplyInterserviceMessage.getDataComponent().setData(cipherData);
-		sendOutInterservicePacket();
+	private void sendCryptoChallengeReply(AddressSlot addressSlot, Data cipherData) {
+		lock.lock();
+		try {
+			Log.debug(this, "sending crypto challenge reply");
+			CryptoChallengeReplyInterserviceMessage cryptoChallengeReplyInterserviceMessage = outInterservicePacket.setCryptoChallengeReplyInterserviceMessage();
+			cryptoChallengeReplyInterserviceMessage.setAddressSlot(addressSlot.getSlot());
+			cryptoChallengeReplyInterserviceMessage.getDataComponent().setData(cipherData);
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendConnectionbaseNotice(AddressSlot addressSlot) {
-		Log.debug(this, "sending connection base notice for connection base %d on address slot: %s", addressSlot.getConnectionBase(), addressSlot);
-		ConnectionbaseNoticeInterserviceMessage connectionbaseNoticeInterserviceMessage = outInterservicePacket.setConnectionbaseNoticeInterserviceMessage();
-		connectionbaseNoticeInterserviceMessage.setAddressSlot(addressSlot.getSlot());
-		connectionbaseNoticeInterserviceMessage.setConnectionBase(addressSlot.getConnectionBase());
-		sendOutInterservicePacket();
+	private void sendConnectionbaseNotice(AddressSlot addressSlot) {
+		lock.lock();
+		try {
+			Log.debug(this, "sending connection base notice for connection base %d on address slot: %s", addressSlot.getConnectionBase(), addressSlot);
+			ConnectionbaseNoticeInterserviceMessage connectionbaseNoticeInterserviceMessage = outInterservicePacket.setConnectionbaseNoticeInterserviceMessage();
+			connectionbaseNoticeInterserviceMessage.setAddressSlot(addressSlot.getSlot());
+			connectionbaseNoticeInterserviceMessage.setConnectionBase(addressSlot.getConnectionBase());
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendNetworkJoinNotice(int addressSlotId, NetworkType networkType, int networkSlotId) {
-		Log.debug(this, "sending network join notice for address slot id %d, network slot id %d and network type %s", addressSlotId, networkSlotId, networkType);
-		NetworkJoinNoticeInterserviceMessage networkJoinNoticeInterserviceMessage = outInterservicePacket.setNetworkJoinNoticeInterserviceMessage();
-		networkJoinNoticeInterserviceMessage.setAddressSlot(addressSlotId);
-		networkJoinNoticeInterserviceMessage.setNetworkSlot(networkSlotId);
-		networkJoinNoticeInterserviceMessage.getNetworkTypeComponent().setNetworkType(networkType);
-		sendOutInterservicePacket();
+	private void sendNetworkJoinNotice(int addressSlotId, NetworkType networkType, int networkSlotId) {
+		lock.lock();
+		try {
+			Log.debug(this, "sending network join notice for address slot id %d, network slot id %d and network type %s", addressSlotId, networkSlotId, networkType);
+			NetworkJoinNoticeInterserviceMessage networkJoinNoticeInterserviceMessage = outInterservicePacket.setNetworkJoinNoticeInterserviceMessage();
+			networkJoinNoticeInterserviceMessage.setAddressSlot(addressSlotId);
+			networkJoinNoticeInterserviceMessage.setNetworkSlot(networkSlotId);
+			networkJoinNoticeInterserviceMessage.getNetworkTypeComponent().setNetworkType(networkType);
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendNetworkLeaveNotice(int slot) {
-		Log.debug(this, "sending network leave notice for slot %d", slot);
-		outInterservicePacket
-		.setNetworkLeaveNoticeInterserviceMessage()
-		.setNetworkSlot(slot);
-		sendOutInterservicePacket();
+	private void sendNetworkLeaveNotice(int slot) {
+		lock.lock();
+		try {
+			Log.debug(this, "sending network leave notice for slot %d", slot);
+			outInterservicePacket
+			.setNetworkLeaveNoticeInterserviceMessage()
+			.setNetworkSlot(slot);
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendNetworkPacket(NetworkPacket networkPacket, int slot) {
-		Log.debug(this, "sending network packet on slot %d: %s", slot, networkPacket);
-		NetworkPacketInterserviceMessage networkPacketInterserviceMessage = outInterservicePacket.setNetworkPacketInterserviceMessage();
-		networkPacketInterserviceMessage.setSlot(slot);
-		networkPacketInterserviceMessage.setNetworkPacket(networkPacket);
-		sendOutInterservicePacket();
+	private void sendNetworkPacket(NetworkPacket networkPacket, int slot) {
+		lock.lock();
+		try {
+			Log.debug(this, "sending network packet on slot %d: %s", slot, networkPacket);
+			NetworkPacketInterserviceMessage networkPacketInterserviceMessage = outInterservicePacket.setNetworkPacketInterserviceMessage();
+			networkPacketInterserviceMessage.setSlot(slot);
+			networkPacketInterserviceMessage.setNetworkPacket(networkPacket);
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendApplicationChannelSlotAssign(ApplicationChannelSlot localApplicationChannelSlot, AddressSlot localAddressSlot, AddressSlot remoteAddressSlot) {
-		ApplicationChannelSlotAssignInterserviceMessage applicationChannelSlotAssignInterserviceMessage = outInterservicePacket.setApplicationChannelSlotAssignInterserviceMessage();
-		applicationChannelSlotAssignInterserviceMessage.setApplicationChannelSlot(localApplicationChannelSlot.getSlot());
-		applicationChannelSlotAssignInterserviceMessage.setSenderAddressSlot(localAddressSlot.getSlot());
-		applicationChannelSlotAssignInterserviceMessage.setReceiverAddressSlot(remoteAddressSlot.getSlot());
-		applicationChannelSlotAssignInterserviceMessage.setActionIdentifier(localApplicationChannelSlot.getApplicationChannel().getActionIdentifier());
-		sendOutInterservicePacket();
+	private void sendApplicationChannelSlotAssign(ApplicationChannelSlot localApplicationChannelSlot, AddressSlot localAddressSlot, AddressSlot remoteAddressSlot) {
+		lock.lock();
+		try {
+			ApplicationChannelSlotAssignInterserviceMessage applicationChannelSlotAssignInterserviceMessage = outInterservicePacket.setApplicationChannelSlotAssignInterserviceMessage();
+			applicationChannelSlotAssignInterserviceMessage.setApplicationChannelSlot(localApplicationChannelSlot.getSlot());
+			applicationChannelSlotAssignInterserviceMessage.setSenderAddressSlot(localAddressSlot.getSlot());
+			applicationChannelSlotAssignInterserviceMessage.setReceiverAddressSlot(remoteAddressSlot.getSlot());
+			applicationChannelSlotAssignInterserviceMessage.setActionIdentifier(localApplicationChannelSlot.getApplicationChannel().getActionIdentifier());
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendApplicationChannelDataInterserviceMessage(ApplicationChannelSlot applicationChannelSlot, Data data) {
-		ApplicationChannelDataInterserviceMessage applicationChannelDataInterserviceMessage = outInterservicePacket.setApplicationChannelDataInterserviceMessage();
-		applicationChannelDataInterserviceMessage.setApplicationChannelSlot(applicationChannelSlot.getSlot());
-		applicationChannelDataInterserviceMessage.getDataComponent().setData(data);
-		sendOutInterservicePacket();
+	private void sendApplicationChannelDataInterserviceMessage(ApplicationChannelSlot applicationChannelSlot, Data data) {
+		lock.lock();
+		try {
+			ApplicationChannelDataInterserviceMessage applicationChannelDataInterserviceMessage = outInterservicePacket.setApplicationChannelDataInterserviceMessage();
+			applicationChannelDataInterserviceMessage.setApplicationChannelSlot(applicationChannelSlot.getSlot());
+			applicationChannelDataInterserviceMessage.getDataComponent().setData(data);
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendLocalLLARequest() {
-		outInterservicePacket.setLocalLLARequestInterserviceMessage();
-		sendOutInterservicePacket();
+	private void sendLocalLLARequest() {
+		lock.lock();
+		try {
+			outInterservicePacket.setLocalLLARequestInterserviceMessage();
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void sendLocalLLAReplyInterserviceMessage(LLA localLLA) {
-		LocalLLAReplyInterserviceMessage localLLAReplyInterserviceMessage = outInterservicePacket.setLocalLLAReplyInterserviceMessage();
-		localLLAReplyInterserviceMessage.setLocalLLA(localLLA);
-		sendOutInterservicePacket();
+	private void sendLocalLLAReplyInterserviceMessage(LLA localLLA) {
+		lock.lock();
+		try {
+			LocalLLAReplyInterserviceMessage localLLAReplyInterserviceMessage = outInterservicePacket.setLocalLLAReplyInterserviceMessage();
+			localLLAReplyInterserviceMessage.setLocalLLA(localLLA);
+			sendOutInterservicePacket();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	//
@@ -697,34 +825,38 @@ public class InterserviceChannel extends ThreadDataChannel implements ServiceSid
 	
 	// onReceive methods
 	
-	public synchronized void onReceiveVersionInterserviceMessage(VersionInterserviceMessage versionInterserviceMessage) {
-		
-		// TODO probably don't let the remote change version during normal operation
-		long version = versionInterserviceMessage.getVersion();
-		Log.debug(this, "received version: %d", version);
-		
-		if(version == this.version) {
-			
-			Log.debug(this, "versions match, not replying");
-			setReady();
-			
-		} else {
+	public void onReceiveVersionInterserviceMessage(VersionInterserviceMessage versionInterserviceMessage) {
+		lock.lock();
+		try {
+			// TODO probably don't let the remote change version during normal operation
+			long version = versionInterserviceMessage.getVersion();
+			Log.debug(this, "received version: %d", version);
 			
-			if(isReady()) {
+			if(version == this.version) {
 				
-				Log.debug(this, "ignoring version message");
+				Log.debug(this, "versions match, not replying");
+				setReady();
 				
 			} else {
 				
-				setVersion(Math.min(VERSION, version));
-				sendVersion(this.version);
-				if(this.version == version) {
-					// agreeing with remote's proposal
-					setReady();
+				if(isReady()) {
+					
+					Log.debug(this, "ignoring version message");
+					
+				} else {
+					
+					setVersion(Math.min(VERSION, version));
+					sendVersion(this.version);
+					if(this.version == version) {
+						// agreeing with remote's proposal
+						setReady();
+					}
+					
 				}
 				
 			}
-			
+		} finally {
+			lock.unlock();
 		}
 	}
 	
@@ -743,292 +875,384 @@ public class InterserviceChannel extends ThreadDataChannel implements ServiceSid
 		dclService.storeLLAs(llas, this.cachedLLA);
 	}
 	
-	public synchronized void onReceiveTrustedSwitchInterserviceMessage(TrustedSwitchInterserviceMessage trustedSwitchInterserviceMessage) {
-		
-		int addressSlotId = trustedSwitchInterserviceMessage.getAddressSlot();
-		
-		Key key;
+	public void onReceiveTrustedSwitchInterserviceMessage(TrustedSwitchInterserviceMessage trustedSwitchInterserviceMessage) {
+		lock.lock();
 		try {
-			key = trustedSwitchInterserviceMessage.getKeyComponent().getKeyComponent().getKey();
-		} catch (CryptoException e) {
-			Log.exception(this, e, "could not parse trusted switch message for address slot %d, crypto exception while parsing key", addressSlotId);
-			// TODO notify remote of failure
-			return;
-		}
-		
-		Address remoteAddress = new Address<>(KeyPair.fromPublicKey(key));
-		
-		AddressSlot addressSlot = remoteAddressSlotMap.get(addressSlotId);
-		
-		if(addressSlot != null) {
-			if(addressSlot.getAddress().equals(remoteAddress)) {
-				Log.msg(this, "ignoring trusted switch message for address slot (slot already exists with same address): %s", addressSlot);
+			int addressSlotId = trustedSwitchInterserviceMessage.getAddressSlot();
+			
+			Key key;
+			try {
+				key = trustedSwitchInterserviceMessage.getKeyComponent().getKeyComponent().getKey();
+			} catch (CryptoException e) {
+				Log.exception(this, e, "could not parse trusted switch message for address slot %d, crypto exception while parsing key", addressSlotId);
+				// TODO notify remote of failure
 				return;
-			} else {
-				Log.msg(this, "received trusted switch message for existing slot with different key, overwriting slot: %s", addressSlot);
-				removeRemoteAddressSlot(addressSlot);
 			}
-		}
-		
-		Log.debug(this, "received trusted switch message for address slot id %d with address: %s", addressSlotId, remoteAddress);
-		
-		addressSlot = remoteAddressSlotMap.put(addressSlotId, remoteAddress);
-		
-		CryptoChallenge trustedSwitchOutCryptoChallenge = new Fixed128ByteCryptoChallenge(key);
+			
+			Address remoteAddress = new Address<>(KeyPair.fromPublicKey(key));
+			
+			AddressSlot addressSlot = remoteAddressSlotMap.get(addressSlotId);
+			
+			if(addressSlot != null) {
+				if(addressSlot.getAddress().equals(remoteAddress)) {
+					Log.msg(this, "ignoring trusted switch message for address slot (slot already exists with same address): %s", addressSlot);
+					return;
+				} else {
+					Log.msg(this, "received trusted switch message for existing slot with different key, overwriting slot: %s", addressSlot);
+					removeRemoteAddressSlot(addressSlot);
+				}
+			}
+			
+			Log.debug(this, "received trusted switch message for address slot id %d with address: %s", addressSlotId, remoteAddress);
+			
+			addressSlot = remoteAddressSlotMap.put(addressSlotId, remoteAddress);
+			
+			CryptoChallenge trustedSwitchOutCryptoChallenge = new Fixed128ByteCryptoChallenge(key);
 
-		Data plainData = trustedSwitchOutCryptoChallenge.makeChallengeData();
-		
-		addressSlot.setTrustedSwitchOutCryptoChallenge(trustedSwitchOutCryptoChallenge);
-		sendCryptoChallengeRequest(addressSlot, plainData);
-		
+			Data plainData = trustedSwitchOutCryptoChallenge.makeChallengeData();
+			
+			addressSlot.setTrustedSwitchOutCryptoChallenge(trustedSwitchOutCryptoChallenge);
+			sendCryptoChallengeRequest(addressSlot, plainData);
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	public synchronized void onReceiveCryptoChallengeRequestInterserviceMessage(CryptoChallengeRequestInterserviceMessage cryptoChallengeRequestInterserviceMessage) {
-		
-		int addressSlotId = cryptoChallengeRequestInterserviceMessage.getAddressSlot();
-		AddressSlot addressSlot = localAddressSlotMap.get(addressSlotId);
-		
-		if(addressSlot == null) {
-			Log.msg(this, "received crypto challenge request for empty address slot %d, ignoring", addressSlotId);
-			return;
-		}
-		
-		CryptoChallenge inCryptoChallenge = addressSlot.getInCryptoChallenge();
-		
-		if(inCryptoChallenge == null) {
-			Log.msg(this, "ignoring crypto challenge request for address slot (not performing trusted switch): %s", addressSlot);
-			return;
-		}
-		
-		addressSlot.setInCryptoChallenge(null);
-		
-		Log.debug(this, "received crypto challenge request for address slot: %s", addressSlot);
-		
-		Data plainData = cryptoChallengeRequestInterserviceMessage.getDataComponent().getData();
-		
-		Data cipherData;
+	public void onReceiveCryptoChallengeRequestInterserviceMessage(CryptoChallengeRequestInterserviceMessage cryptoChallengeRequestInterserviceMessage) {
+		lock.lock();
 		try {
-			cipherData = inCryptoChallenge.solveChallengeData(plainData);
-		} catch (CryptoException e) {
-			Log.exception(this, e, "could not solve crypto challenge for address slot: %s", addressSlot);
-			cancelTrustedSwitch(addressSlot);
-			// TODO notify remote of failure
-			return;
+			int addressSlotId = cryptoChallengeRequestInterserviceMessage.getAddressSlot();
+			AddressSlot addressSlot = localAddressSlotMap.get(addressSlotId);
+			
+			if(addressSlot == null) {
+				Log.msg(this, "received crypto challenge request for empty address slot %d, ignoring", addressSlotId);
+				return;
+			}
+			
+			CryptoChallenge inCryptoChallenge = addressSlot.getInCryptoChallenge();
+			
+			if(inCryptoChallenge == null) {
+				Log.msg(this, "ignoring crypto challenge request for address slot (not performing trusted switch): %s", addressSlot);
+				return;
+			}
+			
+			addressSlot.setInCryptoChallenge(null);
+			
+			Log.debug(this, "received crypto challenge request for address slot: %s", addressSlot);
+			
+			Data plainData = cryptoChallengeRequestInterserviceMessage.getDataComponent().getData();
+			
+			// the private key usually belongs to an application, do not hold this channel while waiting for it
+			final AddressSlot solvingAddressSlot = addressSlot;
+			final RemoteRSAKeyFuture remoteRSAKeyFuture = inCryptoChallenge.solveChallengeDataAsync(plainData);
+			
+			if(remoteRSAKeyFuture.isDone()) {
+				onCryptoChallengeSolved(solvingAddressSlot, remoteRSAKeyFuture);
+				return;
+			}
+			
+			remoteRSAKeyFuture.onDone(new Runnable() {
+				@Override
+				public void run() {
+					// this runs on the thread receiving the application's response, which must not wait for this channel
+					ThreadMode.start(String.format("%s crypto challenge reply", InterserviceChannel.this), new Runnable() {
+						@Override
+						public void run() {
+							onCryptoChallengeSolved(solvingAddressSlot, remoteRSAKeyFuture);
+						}
+					});
+				}
+			});
+		} finally {
+			lock.unlock();
 		}
-		
-		sendCryptoChallengeReply(addressSlot, cipherData);
-		
 	}
 	
-	public synchronized void onReceiveCryptoChallengeReplyInterserviceMessage(CryptoChallengeReplyInterserviceMessage cryptoChallengeReplyInterserviceMessage) {
-		
-		int addressSlotId = cryptoChallengeReplyInterserviceMessage.getAddressSlot();
-		AddressSlot addressSlot = remoteAddressSlotMap.get(addressSlotId);
-		
-		if(addressSlot == null) {
-			Log.msg(this, "received crypto challenge reply for empty address slot %d, ignoring", addressSlotId);
-			return;
-		}
-		
-		CryptoChallenge trustedSwitchOutCryptoChallenge = addressSlot.getTrustedSwitchOutCryptoChallenge();
-		
-		if(trustedSwitchOutCryptoChallenge == null) {
-			Log.msg(this, "ignoring crypto challenge reply for address slot (didn't challenge the remote): %s", addressSlot);
-			return;
+	/**
+	 * sends the solved crypto challenge for the given local address slot, or cancels the trusted switch if solving it failed
+	 * @param addressSlot the local address slot the crypto challenge was solved for
+	 * @param remoteRSAKeyFuture the done {@link RemoteRSAKeyFuture} returned by {@link CryptoChallenge#solveChallengeDataAsync(Data)}
+	 */
+	private void onCryptoChallengeSolved(AddressSlot addressSlot, RemoteRSAKeyFuture remoteRSAKeyFuture) {
+		lock.lock();
+		try {
+			if(localAddressSlotMap.get(addressSlot.getSlot()) != addressSlot) {
+				Log.msg(this, "dropping solved crypto challenge for address slot (slot was removed meanwhile): %s", addressSlot);
+				return;
+			}
+			
+			Data cipherData;
+			try {
+				cipherData = remoteRSAKeyFuture.get();
+			} catch (ExecutionException e) {
+				Log.exception(this, e, "could not solve crypto challenge for address slot: %s", addressSlot);
+				cipherData = null;
+			} catch (CancellationException e) {
+				Log.msg(this, "solving crypto challenge for address slot was cancelled: %s", addressSlot);
+				cipherData = null;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				cipherData = null;
+			}
+			
+			if(cipherData == null) {
+				cancelTrustedSwitch(addressSlot);
+				// TODO notify remote of failure
+				return;
+			}
+			
+			sendCryptoChallengeReply(addressSlot, cipherData);
+		} finally {
+			lock.unlock();
 		}
-		
-		Log.debug(this, "received crypto challenge reply for address slot: %s", addressSlot);
-		
-		Data cipherData = cryptoChallengeReplyInterserviceMessage.getDataComponent().getData();
-		
-		boolean success;
+	}
+	
+	public void onReceiveCryptoChallengeReplyInterserviceMessage(CryptoChallengeReplyInterserviceMessage cryptoChallengeReplyInterserviceMessage) {
+		lock.lock();
 		try {
-			success = trustedSwitchOutCryptoChallenge.verifySolvedData(cipherData);
-		} catch (CryptoException e) {
-			Log.exception(this, e, "could not verify crypto challenge reply for address slot: %s", addressSlot);
-			// TODO notify remote of failure
-			return;
+			int addressSlotId = cryptoChallengeReplyInterserviceMessage.getAddressSlot();
+			AddressSlot addressSlot = remoteAddressSlotMap.get(addressSlotId);
+			
+			if(addressSlot == null) {
+				Log.msg(this, "received crypto challenge reply for empty address slot %d, ignoring", addressSlotId);
+				return;
+			}
+			
+			CryptoChallenge trustedSwitchOutCryptoChallenge = addressSlot.getTrustedSwitchOutCryptoChallenge();
+			
+			if(trustedSwitchOutCryptoChallenge == null) {
+				Log.msg(this, "ignoring crypto challenge reply for address slot (didn't challenge the remote): %s", addressSlot);
+				return;
+			}
+			
+			Log.debug(this, "received crypto challenge reply for address slot: %s", addressSlot);
+			
+			Data cipherData = cryptoChallengeReplyInterserviceMessage.getDataComponent().getData();
+			
+			boolean success;
+			try {
+				success = trustedSwitchOutCryptoChallenge.verifySolvedData(cipherData);
+			} catch (CryptoException e) {
+				Log.exception(this, e, "could not verify crypto challenge reply for address slot: %s", addressSlot);
+				// TODO notify remote of failure
+				return;
+			}
+			
+			finishTrustedSwitch(addressSlot, success);
+			
+			sendConnectionbaseNotice(addressSlot);
+		} finally {
+			lock.unlock();
 		}
-		
-		finishTrustedSwitch(addressSlot, success);
-		
-		sendConnectionbaseNotice(addressSlot);
-		
 	}
 	
-	public synchronized void onReceiveConnectionbaseNoticeInterserviceMessage(ConnectionbaseNoticeInterserviceMessage connectionbaseNoticeInterserviceMessage) {
-
-		byte outConnectionBase = connectionbaseNoticeInterserviceMessage.getConnectionBase();
-		
-		int addressSlotId = connectionbaseNoticeInterserviceMessage.getAddressSlot();
-		AddressSlot addressSlot = localAddressSlotMap.get(addressSlotId);
-		
-		if(addressSlot == null) {
-			Log.msg(this, "ignoring connection base notice message for empty address slot %d (connection base %d)", addressSlotId, outConnectionBase);
-			return;
+	public void onReceiveConnectionbaseNoticeInterserviceMessage(ConnectionbaseNoticeInterserviceMessage connectionbaseNoticeInterserviceMessage) {
+		lock.lock();
+		try {
+			byte outConnectionBase = connectionbaseNoticeInterserviceMessage.getConnectionBase();
+			
+			int addressSlotId = connectionbaseNoticeInterserviceMessage.getAddressSlot();
+			AddressSlot addressSlot = localAddressSlotMap.get(addressSlotId);
+			
+			if(addressSlot == null) {
+				Log.msg(this, "ignoring connection base notice message for empty address slot %d (connection base %d)", addressSlotId, outConnectionBase);
+				return;
+			}
+			
+			Log.debug(this, "received connection base notice message from remote, connection base %d for address slot: %s", outConnectionBase, addressSlot);
+			setOutConnectionBase(addressSlot, outConnectionBase);
+		} finally {
+			lock.unlock();
 		}
-		
-		Log.debug(this, "received connection base notice message from remote, connection base %d for address slot: %s", outConnectionBase, addressSlot);
-		setOutConnectionBase(addressSlot, outConnectionBase);
-		
 	}
 	
-	public synchronized void onReceiveNetworkJoinNoticeInterserviceMessage(NetworkJoinNoticeInterserviceMessage networkJoinNoticeInterserviceMessage) {
+	public void onReceiveNetworkJoinNoticeInterserviceMessage(NetworkJoinNoticeInterserviceMessage networkJoinNoticeInterserviceMessage) {
+		lock.lock();
+		try {
+			int addressSlotId = networkJoinNoticeInterserviceMessage.getAddressSlot();
+			int networkSlotId = networkJoinNoticeInterserviceMessage.getNetworkSlot();
+			NetworkType networkType = networkJoinNoticeInterserviceMessage.getNetworkTypeComponent().getNetworkType();
+			
+			AddressSlot addressSlot = remoteAddressSlotMap.get(addressSlotId);
+			
+			if(addressSlot == null) {
+				Log.msg(this, "ignoring network join notice for empty address slot id %d, network slot id is %d, network type is: %s", addressSlotId, networkSlotId, networkType);
+				return;
+			}
+			
+			if(addressSlot.getConnectionBase() < CONNECTIONBASE_TRUSTED) {
+				Log.msg(this, "ignoring network join notice for network slot id %d, network type %s and address slot (incoming connection base insufficient): %s", networkSlotId, networkType, addressSlot);
+				return;
+			}
+			
+			Log.debug(this, "received network join notice for network type %s and network slot id %d on address slot: %s", networkType, networkSlotId, addressSlot);
 
-		int addressSlotId = networkJoinNoticeInterserviceMessage.getAddressSlot();
-		int networkSlotId = networkJoinNoticeInterserviceMessage.getNetworkSlot();
-		NetworkType networkType = networkJoinNoticeInterserviceMessage.getNetworkTypeComponent().getNetworkType();
-		
-		AddressSlot addressSlot = remoteAddressSlotMap.get(addressSlotId);
-		
-		if(addressSlot == null) {
-			Log.msg(this, "ignoring network join notice for empty address slot id %d, network slot id is %d, network type is: %s", addressSlotId, networkSlotId, networkType);
-			return;
-		}
-		
-		if(addressSlot.getConnectionBase() < CONNECTIONBASE_TRUSTED) {
-			Log.msg(this, "ignoring network join notice for network slot id %d, network type %s and address slot (incoming connection base insufficient): %s", networkSlotId, networkType, addressSlot);
-			return;
+			onNetworkJoinNotice(addressSlot, networkSlotId, networkType);
+		} finally {
+			lock.unlock();
 		}
-		
-		Log.debug(this, "received network join notice for network type %s and network slot id %d on address slot: %s", networkType, networkSlotId, addressSlot);
-
-		onNetworkJoinNotice(addressSlot, networkSlotId, networkType);
-		
 	}
 	
-	public synchronized void onReceiveNetworkLeaveNoticeInterserviceMessage(NetworkLeaveNoticeInterserviceMessage networkLeaveNoticeInterserviceMessage) {
-		
-		int addressSlotId = networkLeaveNoticeInterserviceMessage.getAddressSlot();
-		int networkSlotId = networkLeaveNoticeInterserviceMessage.getNetworkSlot();
-		
-		AddressSlot addressSlot = remoteAddressSlotMap.get(addressSlotId);
-		
-		if(addressSlot == null) {
-			Log.msg(this, "ignoring network leave notice for empty address slot id %d, network slot id is %d", addressSlotId, networkSlotId);
-			return;
-		}
-		
-		if(addressSlot.getConnectionBase() < CONNECTIONBASE_TRUSTED) {
-			Log.msg(this, "ignoring network leave notice for address slot (incoming connection base insufficient): %s", addressSlot);
-			return;
+	public void onReceiveNetworkLeaveNoticeInterserviceMessage(NetworkLeaveNoticeInterserviceMessage networkLeaveNoticeInterserviceMessage) {
+		lock.lock();
+		try {
+			int addressSlotId = networkLeaveNoticeInterserviceMessage.getAddressSlot();
+			int networkSlotId = networkLeaveNoticeInterserviceMessage.getNetworkSlot();
+			
+			AddressSlot addressSlot = remoteAddressSlotMap.get(addressSlotId);
+			
+			if(addressSlot == null) {
+				Log.msg(this, "ignoring network leave notice for empty address slot id %d, network slot id is %d", addressSlotId, networkSlotId);
+				return;
+			}
+			
+			if(addressSlot.getConnectionBase() < CONNECTIONBASE_TRUSTED) {
+				Log.msg(this, "ignoring network leave notice for address slot (incoming connection base insufficient): %s", addressSlot);
+				return;
+			}
+			
+			Log.debug(this, "received network leave notice for address slot %s, network slot id %d", addressSlot, networkSlotId);
+			
+			onNetworkLeaveNotice(addressSlot, networkSlotId);
+		} finally {
+			lock.unlock();
 		}
-		
-		Log.debug(this, "received network leave notice for address slot %s, network slot id %d", addressSlot, networkSlotId);
-		
-		onNetworkLeaveNotice(addressSlot, networkSlotId);
-		
 	}
 	
-	public synchronized void onReceiveIntegrationRequestInterserviceMessage(IntegrationRequestInterserviceMessage integrationRequestInterserviceMessage) {
-		
+	public void onReceiveIntegrationRequestInterserviceMessage(IntegrationRequestInterserviceMessage integrationRequestInterserviceMessage) {
+		lock.lock();
+		try {
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	public synchronized void onReceiveIntegrationConnectRequestInterserviceMessage(IntegrationConnectRequestInterserviceMessage integrationConnectRequestInterserviceMessage) {
-		
+	public void onReceiveIntegrationConnectRequestInterserviceMessage(IntegrationConnectRequestInterserviceMessage integrationConnectRequestInterserviceMessage) {
+		lock.lock();
+		try {
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	public synchronized void onReceiveLocalLLARequestInterserviceMessage(LocalLLARequestInterserviceMessage localLLARequestInterserviceMessage) {
-		Log.debug(this, "received local lla request, replying with LLA %s", this.cachedLLA.getLLA());
-		sendLocalLLAReplyInterserviceMessage(this.cachedLLA.getLLA());
+	public void onReceiveLocalLLARequestInterserviceMessage(LocalLLARequestInterserviceMessage localLLARequestInterserviceMessage) {
+		lock.lock();
+		try {
+			Log.debug(this, "received local lla request, replying with LLA %s", this.cachedLLA.getLLA());
+			sendLocalLLAReplyInterserviceMessage(this.cachedLLA.getLLA());
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	public synchronized void onReceiveLocalLLAReplyInterserviceMessage(LocalLLAReplyInterserviceMessage localLLAReplyInterserviceMessage) {
-		
-		LLA reportedLocalLLA = localLLAReplyInterserviceMessage.getLocalLLA();
-		LLA oldReportedLocalLLA = this.reportedLocalLLA;
-		
-		this.reportedLocalLLA = reportedLocalLLA;
-		
-		Log.debug(this, "received local lla reply: %s (old: %s)", reportedLocalLLA, oldReportedLocalLLA);
-		
-		if(oldReportedLocalLLA == null || !oldReportedLocalLLA.equals(reportedLocalLLA)) {
-			interserviceChannelActionListener.onLocalLLAReport(this, oldReportedLocalLLA, reportedLocalLLA);
+	public void onReceiveLocalLLAReplyInterserviceMessage(LocalLLAReplyInterserviceMessage localLLAReplyInterserviceMessage) {
+		lock.lock();
+		try {
+			LLA reportedLocalLLA = localLLAReplyInterserviceMessage.getLocalLLA();
+			LLA oldReportedLocalLLA = this.reportedLocalLLA;
+			
+			this.reportedLocalLLA = reportedLocalLLA;
+			
+			Log.debug(this, "received local lla reply: %s (old: %s)", reportedLocalLLA, oldReportedLocalLLA);
+			
+			if(oldReportedLocalLLA == null || !oldReportedLocalLLA.equals(reportedLocalLLA)) {
+				interserviceChannelActionListener.onLocalLLAReport(this, oldReportedLocalLLA, reportedLocalLLA);
+			}
+		} finally {
+			lock.unlock();
 		}
-		
 	}
 	
-	public synchronized void onReceiveNetworkPacketInterserviceMessage(NetworkPacketInterserviceMessage networkPacketInterserviceMessage) {
-
-		NetworkPacket networkPacket = networkPacketInterserviceMessage.getNetworkPacket();
-		
-		if(networkPacket.getNetworkSlot().getNetworkNodes().size() <= 0) {
-			Log.msg(this, "ignoring network packet, no network nodes on network slot %s", networkPacket.getNetworkSlot());
-			return;
+	public void onReceiveNetworkPacketInterserviceMessage(NetworkPacketInterserviceMessage networkPacketInterserviceMessage) {
+		lock.lock();
+		try {
+			NetworkPacket networkPacket = networkPacketInterserviceMessage.getNetworkPacket();
+			
+			if(networkPacket.getNetworkSlot().getNetworkNodes().size() <= 0) {
+				Log.msg(this, "ignoring network packet, no network nodes on network slot %s", networkPacket.getNetworkSlot());
+				return;
+			}
+			
+			Log.debug(this, "received network packet on slot %s: %s", networkPacket.getNetworkSlot(), networkPacket);
+			onReceiveNetworkPacket(networkPacket);
+		} finally {
+			lock.unlock();
 		}
-		
-		Log.debug(this, "received network packet on slot %s: %s", networkPacket.getNetworkSlot(), networkPacket);
-		onReceiveNetworkPacket(networkPacket);
-		
 	}
 	
-	public synchronized void onReceiveApplicationChannelSlotAssignInterserviceMessage(ApplicationChannelSlotAssignInterserviceMessage applicationChannelSlotAssignInterserviceMessage) {
-		
-		int localAddressSlotId = applicationChannelSlotAssignInterserviceMessage.getReceiverAddressSlot();
-		int remoteAddressSlotId = applicationChannelSlotAssignInterserviceMessage.getSenderAddressSlot();
-		
-		int remoteApplicationChannelSlotId = applicationChannelSlotAssignInterserviceMessage.getApplicationChannelSlot();
-		
-		String actionIdentifier = applicationChannelSlotAssignInterserviceMessage.getActionIdentifier();
-		
-		AddressSlot remoteAddressSlot = remoteAddressSlotMap.get(remoteAddressSlotId);
-		
-		if(remoteAddressSlot == null) {
-			Log.msg(this, "ignoring application channel slot assign message for empty remote address slot id %d", remoteAddressSlotId);
-			return;
-		}
-		
-		if(remoteAddressSlot.getConnectionBase() < CONNECTIONBASE_TRUSTED) {
-			Log.msg(this, "ignoring application channel slot assign message for remote address slot (incoming connection base insufficient): %s", remoteAddressSlot);
-			return;
-		}
-		
-		AddressSlot localAddressSlot = localAddressSlotMap.get(localAddressSlotId);
-		
-		if(localAddressSlot == null) {
-			Log.msg(this, "ignoring application channel slot assign message for empty locla address slot id %d", localAddressSlotId);
-			return;
-		}
-		
-		Log.debug(this, "received application channel slot assign message for local address slot %s, remote address slot %s, application channel slot id %d and action identifier %s", localAddressSlot, remoteAddressSlot, remoteApplicationChannelSlotId, actionIdentifier);
-		
-		ApplicationChannelTarget applicationChannelTarget = new ApplicationChannelTarget(remoteAddressSlot.getAddress(), actionIdentifier);
-		
-		ApplicationChannelSlot localApplicationChannelSlot = localApplicationChannelSlotMap.find(applicationChannelTarget);
-		
-		if(localApplicationChannelSlot == null) {
+	public void onReceiveApplicationChannelSlotAssignInterserviceMessage(ApplicationChannelSlotAssignInterserviceMessage applicationChannelSlotAssignInterserviceMessage) {
+		lock.lock();
+		try {
+			int localAddressSlotId = applicationChannelSlotAssignInterserviceMessage.getReceiverAddressSlot();
+			int remoteAddressSlotId = applicationChannelSlotAssignInterserviceMessage.getSenderAddressSlot();
 			
-			ApplicationChannel applicationChannel = interservicePolicy.checkIncomingApplicationChannel(applicationChannelTarget);
-			if(applicationChannel == null) {
-				Log.msg(this, "ignoring application channel slot assign message, not accepting application channel request");
-			} else {
-				acceptIncomingApplicationChannelRequest(applicationChannel, localAddressSlot, remoteAddressSlot, remoteApplicationChannelSlotId);
+			int remoteApplicationChannelSlotId = applicationChannelSlotAssignInterserviceMessage.getApplicationChannelSlot();
+			
+			String actionIdentifier = applicationChannelSlotAssignInterserviceMessage.getActionIdentifier();
+			
+			AddressSlot remoteAddressSlot = remoteAddressSlotMap.get(remoteAddressSlotId);
+			
+			if(remoteAddressSlot == null) {
+				Log.msg(this, "ignoring application channel slot assign message for empty remote address slot id %d", remoteAddressSlotId);
+				return;
 			}
 			
-		} else {
+			if(remoteAddressSlot.getConnectionBase() < CONNECTIONBASE_TRUSTED) {
+				Log.msg(this, "ignoring application channel slot assign message for remote address slot (incoming connection base insufficient): %s", remoteAddressSlot);
+				return;
+			}
+			
+			AddressSlot localAddressSlot = localAddressSlotMap.get(localAddressSlotId);
+			
+			if(localAddressSlot == null) {
+				Log.msg(this, "ignoring application channel slot assign message for empty locla address slot id %d", localAddressSlotId);
+				return;
+			}
+			
+			Log.debug(this, "received application channel slot assign message for local address slot %s, remote address slot %s, application channel slot id %d and action identifier %s", localAddressSlot, remoteAddressSlot, remoteApplicationChannelSlotId, actionIdentifier);
+			
+			ApplicationChannelTarget applicationChannelTarget = new ApplicationChannelTarget(remoteAddressSlot.getAddress(), actionIdentifier);
 			
-			finishOutgoingApplicationChannelRequest(localApplicationChannelSlot, remoteApplicationChannelSlotId);
+			ApplicationChannelSlot localApplicationChannelSlot = localApplicationChannelSlotMap.find(applicationChannelTarget);
 			
+			if(localApplicationChannelSlot == null) {
+				
+				ApplicationChannel applicationChannel = interservicePolicy.checkIncomingApplicationChannel(applicationChannelTarget);
+				if(applicationChannel == null) {
+					Log.msg(this, "ignoring application channel slot assign message, not accepting application channel request");
+				} else {
+					acceptIncomingApplicationChannelRequest(applicationChannel, localAddressSlot, remoteAddressSlot, remoteApplicationChannelSlotId);
+				}
+				
+			} else {
+				
+				finishOutgoingApplicationChannelRequest(localApplicationChannelSlot, remoteApplicationChannelSlotId);
+				
+			}
+		} finally {
+			lock.unlock();
 		}
-		
 	}
 	
-	public synchronized void onReceiveApplicationChannelDataInterserviceMessage(ApplicationChannelDataInterserviceMessage applicationChannelDataInterserviceMessage) {
-		
-		int applicationChannelSlotId = applicationChannelDataInterserviceMessage.getApplicationChannelSlot();
-		ApplicationChannelSlot applicationChannelSlot = localApplicationChannelSlotMap.get(applicationChannelSlotId);
-		
-		if(applicationChannelSlot == null) {
-			Log.msg(this, "ignoring application channel data message for empty local application channel slot id %d", applicationChannelSlotId);
-			return;
+	public void onReceiveApplicationChannelDataInterserviceMessage(ApplicationChannelDataInterserviceMessage applicationChannelDataInterserviceMessage) {
+		lock.lock();
+		try {
+			int applicationChannelSlotId = applicationChannelDataInterserviceMessage.getApplicationChannelSlot();
+			ApplicationChannelSlot applicationChannelSlot = localApplicationChannelSlotMap.get(applicationChannelSlotId);
+			
+			if(applicationChannelSlot == null) {
+				Log.msg(this, "ignoring application channel data message for empty local application channel slot id %d", applicationChannelSlotId);
+				return;
+			}
+			
+			Data data = applicationChannelDataInterserviceMessage.getDataComponent().getData();
+			Log.msg(this, "forwarding data from application channel slot %s to application connection: %s", applicationChannelSlot, data);
+			
+			ApplicationChannel applicationChannel = applicationChannelSlot.getApplicationChannel();
+			applicationChannel.getApplicationSideApplicationChannelActionListener().onData(applicationChannel, data);
+		} finally {
+			lock.unlock();
 		}
-		
-		Data data = applicationChannelDataInterserviceMessage.getDataComponent().getData();
-		Log.msg(this, "forwarding data from application channel slot %s to application connection: %s", applicationChannelSlot, data);
-		
-		ApplicationChannel applicationChannel = applicationChannelSlot.getApplicationChannel();
-		applicationChannel.getApplicationSideApplicationChannelActionListener().onData(applicationChannel, data);
-		
 	}
 	
 	//
@@ -1042,13 +1266,16 @@ public class InterserviceChannel extends ThreadDataChannel implements ServiceSid
 	//
 
 	@Override
-	public synchronized void onData(ApplicationChannel applicationChannel, Data data) {
-		
-		ApplicationChannelSlot applicationChannelSlot = applicationChannel.getInterserviceChannelApplicationChannelSlot();
-		
-		Log.msg(this, "sending data on application channel slot %s: %s", applicationChannelSlot, data);
-		sendApplicationChannelDataInterserviceMessage(applicationChannelSlot, data);
-		
+	public void onData(ApplicationChannel applicationChannel, Data data) {
+		lock.lock();
+		try {
+			ApplicationChannelSlot applicationChannelSlot = applicationChannel.getInterserviceChannelApplicationChannelSlot();
+			
+			Log.msg(this, "sending data on application channel slot %s: %s", applicationChannelSlot, data);
+			sendApplicationChannelDataInterserviceMessage(applicationChannelSlot, data);
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 }
@@ -1,8 +1,10 @@
 package org.dclayer.net.link;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.dclayer.crypto.key.KeyPair;
 import org.dclayer.exception.crypto.CryptoException;
 import org.dclayer.exception.net.buf.BufException;
@@ -10,19 +12,29 @@ import org.dclayer.exception.net.parse.ParseException;
 import org.dclayer.meta.HierarchicalLevel;
 import org.dclayer.meta.Log;
 import org.dclayer.net.Data;
+import org.dclayer.net.DataPool;
 import org.dclayer.net.PacketComponentI;
+import org.dclayer.net.PooledData;
 import org.dclayer.net.buf.ByteBuf;
 import org.dclayer.net.buf.DataByteBuf;
 import org.dclayer.net.link.bmcp.BMCPManagementChannel;
 import org.dclayer.net.link.bmcp.crypto.PacketCipher;
 import org.dclayer.net.link.bmcp.crypto.PlainPacketCipher;
+import org.dclayer.net.link.bmcp.crypto.init.resume.CryptoSessionCache;
+import org.dclayer.net.link.bmcp.crypto.init.x25519ed25519.Ed25519KeyPins;
 import org.dclayer.net.link.channel.Channel;
 import org.dclayer.net.link.channel.ChannelCollection;
 import org.dclayer.net.link.channel.data.ApplicationDataChannel;
 import org.dclayer.net.link.channel.data.DataChannel;
 import org.dclayer.net.link.channel.management.ManagementChannel;
 import org.dclayer.net.link.component.LinkPacketHeader;
+import org.dclayer.net.link.control.CryptoPipeline;
+import org.dclayer.net.link.control.CryptoPipelineJob;
+import org.dclayer.net.link.control.CryptoPipelineStage;
 import org.dclayer.net.link.control.FlowControl;
+import org.dclayer.net.link.control.FlowControlScheduler;
+import org.dclayer.net.link.control.ResendTimerWheel;
+import org.dclayer.net.link.control.RttEstimator;
 import org.dclayer.net.link.control.discontinuousblock.DiscontinuousBlockCollection;
 import org.dclayer.net.link.control.packetbackup.PacketBackup;
 
@@ -31,6 +43,11 @@ import org.dclayer.net.link.control.packetbackup.PacketBackup;
  */
 public class Link<T> implements HierarchicalLevel {
 	
+	/**
+	 * the maximum amount of received packets waiting for decryption on the {@link CryptoPipeline}
+	 */
+	public static final int MAX_PENDING_RECEIVED_PACKETS = 1024;
+	
 	public static enum Status {
 		None,
 		ConnectingActive(Status.CONNECTING),
@@ -95,6 +112,150 @@ public class Link<T> implements HierarchicalLevel {
 		return String.format("Link@%x", System.identityHashCode(this));
 	}
 	
+	/**
+	 * {@link CryptoPipelineJob} decrypting a received link packet
+	 */
+	private class ReceiveJob extends CryptoPipelineJob {
+		
+		private Data ownEncryptedData = DataPool.getDefault().newData();
+		private Data decryptedData = DataPool.getDefault().newData();
+		
+		/**
+		 * the encrypted packet, either {@link #ownEncryptedData} or {@link #receivedData}
+		 */
+		private Data encryptedData;
+		/**
+		 * the {@link PooledData} the packet was received in, retained until this job is delivered, or null if it was copied
+		 */
+		private PooledData receivedData;
+		
+		/**
+		 * the inbound {@link PacketCipher} that was applied when this packet was received,
+		 * replaced by the current one on delivery if the cipher was switched in between
+		 */
+		private PacketCipher packetCipher;
+		private Data resultData;
+		private CryptoException cryptoException;
+		
+		@Override
+		protected void process() {
+			try {
+				resultData = packetCipher.decryptParallel(encryptedData, decryptedData);
+			} catch (CryptoException e) {
+				cryptoException = e;
+			}
+		}
+		
+		@Override
+		protected void deliver() {
+			
+			try {
+				
+				receiveLock.lock();
+				
+				if(packetCipher != inPacketCipher) {
+					// a packet delivered before this one switched the cipher, decrypt this one like a packet received afterwards
+					Log.debug(Link.this, "inbound packet cipher was switched since this packet was received, decrypting again");
+					packetCipher = inPacketCipher;
+					resultData = null;
+					cryptoException = null;
+				}
+				
+				if(cryptoException != null) {
+					throw cryptoException;
+				}
+				
+				if(resultData == null) {
+					// the packet cipher does not support parallel processing or was switched, decrypt now
+					resultData = packetCipher.decrypt(encryptedData, decryptedData);
+				}
+				
+				receiveDecryptedLinkPacket(resultData);
+				
+			} catch(ParseException e) {
+				Log.exception(Link.this, e);
+			} catch(BufException e) {
+				Log.exception(Link.this, e);
+			} catch(CryptoException e) {
+				Log.exception(Link.this, e);
+			} finally {
+				if(receiveLock.isHeldByCurrentThread()) {
+					receiveLock.unlock();
+				}
+			}
+			
+			recycle();
+			
+		}
+		
+		/**
+		 * releases the received packet and makes this job available for the next one
+		 */
+		void recycle() {
+			
+			if(receivedData != null) {
+				receivedData.release();
+				receivedData = null;
+			}
+			
+			packetCipher = null;
+			encryptedData = null;
+			resultData = null;
+			cryptoException = null;
+			receiveJobs.offer(this);
+			
+		}
+		
+	}
+	
+	/**
+	 * {@link CryptoPipelineJob} encrypting a link packet and queueing it for transmission
+	 */
+	private class SendJob extends CryptoPipelineJob {
+		
+		private LinkPacketHeader linkPacketHeader = new LinkPacketHeader();
+		private Data payloadData = DataPool.getDefault().newData();
+		
+		private PacketCipher packetCipher;
+		private PacketBackup packetBackup;
+		private Exception exception;
+		
+		@Override
+		protected void process() {
+			
+			Log.debug(Link.this, "sending: %s", linkPacketHeader.represent(true));
+			
+			try {
+				packetCipher.encryptParallel(packetBackup.getPacketProperties().data, null, linkPacketHeader, payloadData);
+			} catch (CryptoException e) {
+				exception = e;
+			}
+			
+		}
+		
+		@Override
+		protected void deliver() {
+			
+			if(exception != null) {
+				Log.exception(Link.this, exception);
+				packetBackup.getPacketProperties().releaseInFlightWindow();
+			} else {
+				packetBackup.getPacketProperties().ready = true;
+				// the InFlightWindow provides backpressure, don't wait until this packet is actually sent
+				send(packetBackup, false);
+			}
+			
+			packetCipher = null;
+			packetBackup = null;
+			exception = null;
+			sendJobs.offer(this);
+			
+		}
+		
+	}
+	
+	//
+	
 	private HierarchicalLevel parentHierarchicalLevel;
 	
 	/**
@@ -136,6 +297,16 @@ public class Link<T> implements HierarchicalLevel {
 	 */
 	private FlowControl flowControl;
 	
+	/**
+	 * the {@link ResendTimerWheel} timing the resends of this link's management packets
+	 */
+	private ResendTimerWheel resendTimerWheel;
+	
+	/**
+	 * the {@link RttEstimator} measuring the round trip time of this {@link Link}
+	 */
+	private RttEstimator rttEstimator = new RttEstimator();
+	
 	/**
 	 * the total amount of bytes received on this {@link Link} so far
 	 */
@@ -150,6 +321,27 @@ public class Link<T> implements HierarchicalLevel {
 	 */
 	private Status status = Status.None;
 	
+	/**
+	 * the {@link CryptoPipeline} packets are encrypted and decrypted on, or null if they are encrypted and decrypted by the sending and receiving threads
+	 */
+	private CryptoPipeline cryptoPipeline;
+	/**
+	 * {@link CryptoPipelineStage} delivering decrypted packets in the order they were received in
+	 */
+	private CryptoPipelineStage receiveCryptoPipelineStage;
+	/**
+	 * {@link CryptoPipelineStage} queueing encrypted packets for transmission in the order they were written in
+	 */
+	private CryptoPipelineStage sendCryptoPipelineStage;
+	/**
+	 * idle {@link ReceiveJob}s
+	 */
+	private ConcurrentLinkedQueue<ReceiveJob> receiveJobs = new ConcurrentLinkedQueue<>();
+	/**
+	 * idle {@link SendJob}s
+	 */
+	private ConcurrentLinkedQueue<SendJob> sendJobs = new ConcurrentLinkedQueue<>();
+	
 	/**
 	 * {@link ReentrantLock} locked while receiving
 	 */
@@ -170,13 +362,25 @@ public class Link<T> implements HierarchicalLevel {
 	 * creates a new {@link Link}
 	 * @param linkSendInterface the {@link LinkSendInterface} to use
 	 * @param onOpenChannelRequestListener the {@link OnLinkActionListener} to use
+	 * @param flowControlScheduler the {@link FlowControlScheduler} pacing this link's packets
+	 * @param resendTimerWheel the {@link ResendTimerWheel} timing the resends of this link's management packets
 	 */
-	public Link(LinkSendInterface<T> linkSendInterface, OnLinkActionListener<T> onOpenChannelRequestListener, T referenceObject, HierarchicalLevel parentHierarchicalLevel) {
+	public Link(LinkSendInterface<T> linkSendInterface, OnLinkActionListener<T> onOpenChannelRequestListener, FlowControlScheduler flowControlScheduler, ResendTimerWheel resendTimerWheel, T referenceObject, HierarchicalLevel parentHierarchicalLevel) {
 		this.linkSendInterface = linkSendInterface;
-		this.flowControl = new FlowControl(this);
+		this.resendTimerWheel = resendTimerWheel;
+		this.flowControl = new FlowControl(this, flowControlScheduler, onOpenChannelRequestListener.getCongestionControlAlgorithm().make());
 		this.onLinkActionListener = onOpenChannelRequestListener;
 		this.referenceObject = referenceObject;
 		this.parentHierarchicalLevel = parentHierarchicalLevel;
+		this.cryptoPipeline = onOpenChannelRequestListener.getCryptoPipeline();
+		if(cryptoPipeline != null) {
+			// received packets are submitted by the socket threads only, block them if decryption can't keep up.
+			// packets to send are limited by the channels' InFlightWindows and may be submitted while delivering received packets
+			// received packets are delivered on the CryptoPipeline's shared delivery executor, as the channels might block while receiving.
+			// encrypted packets are only queued for transmission, which the worker threads can do
+			this.receiveCryptoPipelineStage = new CryptoPipelineStage(cryptoPipeline, MAX_PENDING_RECEIVED_PACKETS, true, "receive", this);
+			this.sendCryptoPipelineStage = new CryptoPipelineStage(cryptoPipeline, 0, false, "send", this);
+		}
 	}
 
 	@Override
@@ -188,6 +392,34 @@ public class Link<T> implements HierarchicalLevel {
 		return onLinkActionListener.getLinkCryptoInitializationKeyPair();
 	}
 	
+	/**
+	 * @return the Ed25519 key pair used to sign ephemeral keys during crypto initialization
+	 */
+	public AsymmetricCipherKeyPair getLinkCryptoInitializationEd25519KeyPair() {
+		return onLinkActionListener.getLinkCryptoInitializationEd25519KeyPair();
+	}
+	
+	/**
+	 * @return the {@link Ed25519KeyPins} binding the Ed25519 public keys of remotes to those remotes
+	 */
+	public Ed25519KeyPins getEd25519KeyPins() {
+		return onLinkActionListener.getEd25519KeyPins();
+	}
+	
+	/**
+	 * @return the {@link CryptoSessionCache} storing the tickets for resuming crypto sessions, or null if resumption is disabled
+	 */
+	public CryptoSessionCache getCryptoSessionCache() {
+		return onLinkActionListener.getCryptoSessionCache();
+	}
+	
+	/**
+	 * @return the reference object identifying the remote of this {@link Link}
+	 */
+	public T getReferenceObject() {
+		return referenceObject;
+	}
+	
 	public boolean isInitiator() {
 		return initiator;
 	}
@@ -285,6 +517,11 @@ public class Link<T> implements HierarchicalLevel {
 			startedReceiving = System.nanoTime();
 		}
 		
+		if(receiveCryptoPipelineStage != null) {
+			submitLinkPacket(data);
+			return true;
+		}
+		
 		try {
 			
 			receiveLinkPacket(data);
@@ -317,6 +554,54 @@ public class Link<T> implements HierarchicalLevel {
 		receiveLock.lock();
 		
 		Data decryptedPacketData = inPacketCipher.decrypt(data, this.decryptedPacketData);
+		
+		receiveDecryptedLinkPacket(decryptedPacketData);
+		
+	}
+	
+	/**
+	 * submits the received link packet to the {@link CryptoPipeline} for decryption,
+	 * it is parsed once it and all packets received before it are decrypted.<br />
+	 * if the link packet is contained in a {@link PooledData}, it is retained instead of copied
+	 * @param data the {@link Data} containing the link packet data
+	 */
+	// locks receiveLock
+	private void submitLinkPacket(Data data) {
+		
+		ReceiveJob receiveJob = receiveJobs.poll();
+		if(receiveJob == null) {
+			receiveJob = new ReceiveJob();
+		}
+		
+		if(data instanceof PooledData) {
+			receiveJob.receivedData = ((PooledData) data).retain();
+			receiveJob.encryptedData = data;
+		} else {
+			receiveJob.ownEncryptedData.prepare(data.length());
+			receiveJob.ownEncryptedData.setBytes(0, data);
+			receiveJob.encryptedData = receiveJob.ownEncryptedData;
+		}
+		
+		receiveLock.lock();
+		receiveJob.packetCipher = inPacketCipher;
+		receiveLock.unlock();
+		
+		if(!receiveCryptoPipelineStage.submit(receiveJob, receiveJob.packetCipher.supportsParallelProcessing())) {
+			Log.debug(this, "could not submit received link packet, dropping");
+			receiveJob.recycle();
+		}
+		
+	}
+	
+	/**
+	 * parses the decrypted link packet and passes its body to the {@link Channel} it belongs to
+	 * @param decryptedPacketData the {@link Data} containing the decrypted link packet
+	 * @throws ParseException
+	 * @throws BufException
+	 */
+	// receiveLock must be locked when calling this, is unlocked before passing the body to the channel
+	private void receiveDecryptedLinkPacket(Data decryptedPacketData) throws ParseException, BufException {
+		
 		readDataByteBuf.setData(decryptedPacketData);
 		
 		inLinkPacketHeader.read(readDataByteBuf);
@@ -370,6 +655,79 @@ public class Link<T> implements HierarchicalLevel {
 		this.managementChannel.onGapReceive();
 	}
 	
+	/**
+	 * reports to the management channel that one of this {@link Link}'s data channels received data in order
+	 */
+	public void onDataReceive() {
+		this.managementChannel.onDataReceive();
+	}
+	
+	/**
+	 * reports to the management channel that one of this {@link Link}'s data channels dropped a received packet because it could not be read yet
+	 */
+	public void onDataDrop() {
+		this.managementChannel.onDataDrop();
+	}
+	
+	/**
+	 * reports to the management channel that one of this {@link Link}'s data channels can not send until acknowledgements arrive
+	 */
+	public void onSendBlocked() {
+		this.managementChannel.onSendBlocked();
+	}
+	
+	/**
+	 * adds a round trip time measurement of a packet that was sent exactly once to this link's {@link RttEstimator}
+	 * @param rttNanos the measured round trip time in nanoseconds
+	 */
+	public void onRttSample(long rttNanos) {
+		rttEstimator.addSample(rttNanos);
+	}
+	
+	/**
+	 * @return the {@link ResendTimerWheel} timing the resends of this link's management packets
+	 */
+	public ResendTimerWheel getResendTimerWheel() {
+		return resendTimerWheel;
+	}
+	
+	/**
+	 * @return the {@link RttEstimator} measuring the round trip time of this {@link Link}
+	 */
+	public RttEstimator getRttEstimator() {
+		return rttEstimator;
+	}
+	
+	/**
+	 * @return the smoothed round trip time of this {@link Link} in nanoseconds, or -1 if it was not measured yet
+	 */
+	public long getSmoothedRttNanos() {
+		return rttEstimator.getSmoothedRttNanos();
+	}
+	
+	/**
+	 * @return the current retransmission timeout of this {@link Link} in nanoseconds
+	 */
+	public long getRtoNanos() {
+		return rttEstimator.getRtoNanos();
+	}
+	
+	/**
+	 * reports that the remote acknowledged the given {@link PacketBackup} to the {@link FlowControl}
+	 * @param packetBackup the acknowledged {@link PacketBackup}
+	 */
+	public void onPacketAcknowledged(PacketBackup packetBackup) {
+		flowControl.onAcknowledged(packetBackup);
+	}
+	
+	/**
+	 * reports that the given {@link PacketBackup} was lost and is about to be resent to the {@link FlowControl}
+	 * @param packetBackup the lost {@link PacketBackup}
+	 */
+	public void onPacketLost(PacketBackup packetBackup) {
+		flowControl.onLost(packetBackup);
+	}
+	
 	/**
 	 * sets and applies a new outbound {@link PacketCipher}
 	 * @param outPacketCipher the new outbound packet cipher to apply
@@ -446,6 +804,52 @@ public class Link<T> implements HierarchicalLevel {
 	
 	}
 	
+	/**
+	 * submits the given payload to the {@link CryptoPipeline} to be encrypted into the given {@link PacketBackup}, which is then queued
+	 * for transmission after all packets submitted before it. does nothing if there is no {@link CryptoPipeline} or if the current
+	 * outbound {@link PacketCipher} does not support parallel processing, {@link #writePacket(long, long, PacketComponentI, Data)} must be used then.
+	 * @param dataId the data id for this packet
+	 * @param channelId the channel id of the channel this packet belongs to
+	 * @param payloadData the payload data, copied before this returns
+	 * @param packetBackup the {@link PacketBackup} to write the packet to and to queue for transmission
+	 * @return true if the packet was submitted, false otherwise
+	 */
+	// locks sendLock
+	public boolean writePacketParallel(long dataId, long channelId, Data payloadData, PacketBackup packetBackup) {
+		
+		if(sendCryptoPipelineStage == null) {
+			return false;
+		}
+		
+		PacketCipher packetCipher;
+		
+		sendLock.lock();
+		packetCipher = (packetPrefixData == null && outPacketCipher.supportsParallelProcessing()) ? outPacketCipher : null;
+		sendLock.unlock();
+		
+		if(packetCipher == null) {
+			return false;
+		}
+		
+		SendJob sendJob = sendJobs.poll();
+		if(sendJob == null) {
+			sendJob = new SendJob();
+		}
+		
+		sendJob.linkPacketHeader.setDataId(dataId);
+		sendJob.linkPacketHeader.setChannelId(channelId);
+		sendJob.linkPacketHeader.setChannelDataLength(payloadData.length());
+		sendJob.payloadData.prepare(payloadData.length());
+		sendJob.payloadData.setBytes(0, payloadData);
+		sendJob.packetCipher = packetCipher;
+		sendJob.packetBackup = packetBackup;
+		
+		sendCryptoPipelineStage.submit(sendJob, true);
+		
+		return true;
+		
+	}
+	
 	/**
 	 * Queues the given {@link PacketBackup} for transmission
 	 * @param packetBackup the {@link PacketBackup} to queue for transmission
@@ -494,6 +898,7 @@ public class Link<T> implements HierarchicalLevel {
 		setStatus(Status.Disconnected);
 		
 		closeChannels();
+		closeCryptoPipelineStages();
 		
 	}
 	
@@ -503,9 +908,19 @@ public class Link<T> implements HierarchicalLevel {
 		setStatus(Status.Disconnected);
 		
 		closeChannels();
+		closeCryptoPipelineStages();
 		
 	}
 	
+	/**
+	 * closes the {@link CryptoPipelineStage} delivering received packets
+	 */
+	private void closeCryptoPipelineStages() {
+		if(receiveCryptoPipelineStage != null) {
+			receiveCryptoPipelineStage.close();
+		}
+	}
+	
 	private void closeChannels() {
 		synchronized(channelCollection) {
 			for(Channel channel : channelCollection.getChannels()) {
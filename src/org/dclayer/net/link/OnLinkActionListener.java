@@ -1,7 +1,12 @@
 package org.dclayer.net.link;
 
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.dclayer.crypto.key.KeyPair;
+import org.dclayer.net.link.bmcp.crypto.init.resume.CryptoSessionCache;
+import org.dclayer.net.link.bmcp.crypto.init.x25519ed25519.Ed25519KeyPins;
 import org.dclayer.net.link.channel.data.DataChannel;
+import org.dclayer.net.link.control.CryptoPipeline;
+import org.dclayer.net.link.control.congestion.CongestionControlAlgorithm;
 
 /**
  * interface used by {@link Link} instances to call specific methods upon events
@@ -19,4 +24,30 @@ public interface OnLinkActionListener<T> {
 	public void onLinkStatusChange(T referenceObject, Link.Status oldStatus, Link.Status newStatus);
 	
 	public KeyPair getLinkCryptoInitializationKeyPair();
+	
+	/**
+	 * @return the Ed25519 key pair used to sign ephemeral keys during crypto initialization
+	 */
+	public AsymmetricCipherKeyPair getLinkCryptoInitializationEd25519KeyPair();
+	
+	/**
+	 * @return the {@link Ed25519KeyPins} binding the Ed25519 public keys of remotes to those remotes
+	 */
+	public Ed25519KeyPins getEd25519KeyPins();
+	
+	/**
+	 * @return the {@link CryptoSessionCache} storing the tickets for resuming crypto sessions, or null if resumption is disabled
+	 */
+	public CryptoSessionCache getCryptoSessionCache();
+	
+	/**
+	 * @return the {@link CongestionControlAlgorithm} to use for new {@link Link}s
+	 */
+	public CongestionControlAlgorithm getCongestionControlAlgorithm();
+	
+	/**
+	 * @return the {@link CryptoPipeline} new {@link Link}s should encrypt and decrypt their packets on,
+	 * or null if packets should be encrypted and decrypted by the sending and receiving threads
+	 */
+	public CryptoPipeline getCryptoPipeline();
 }
@@ -2,6 +2,7 @@ package org.dclayer.net.link.bmcp;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.dclayer.exception.net.buf.BufException;
@@ -40,6 +41,7 @@ import org.dclayer.net.link.control.idcollection.IdCollection;
 import org.dclayer.net.link.control.packetbackup.PacketBackup;
 import org.dclayer.net.link.control.packetbackup.PacketBackupCollection;
 import org.dclayer.net.packetcomponent.OnReceive;
+import org.dclayer.threadswitch.ThreadMode;
 
 /**
  * a {@link ManagementChannel} implementation using
@@ -126,6 +128,21 @@ public class BMCPManagementChannel extends ManagementChannel {
 	private long lastThrottleReceived = 0;
 	private long lastNumBytesSent = 0;
 	
+	/**
+	 * the {@link System#nanoTime()} value at the point in time the last unsolicited channel block status report was sent
+	 */
+	private long lastSelectiveAckSent = 0;
+	/**
+	 * the minimum time in nanoseconds to wait after sending an unsolicited channel block status report upon a gap before sending the next one
+	 */
+	private long selectiveAckSendDelayNanos = 20000000L;
+	/**
+	 * the minimum time in nanoseconds that needs to have passed since a packet was last sent before it is resent
+	 * upon an unsolicited channel block status report (preventing resends of packets that were just resent already).<br />
+	 * the smoothed round trip time of the {@link Link} is used instead if it is bigger
+	 */
+	private long fastResendDelayNanos = 50000000L;
+	
 	/**
 	 * if set to true, will disconnect as soon as connected.
 	 * (used if disconnect() is called during connection initiation)
@@ -133,24 +150,93 @@ public class BMCPManagementChannel extends ManagementChannel {
 	private boolean disconnect = false;
 	
 	/**
-	 * a Thread for periodically requesting the channel block status from the peer
+	 * the time in nanoseconds between two channel block status requests
+	 */
+	private long blockStatusRequestIntervalNanos = 3000000000L;
+	/**
+	 * the time in nanoseconds to wait after receiving data in order before acknowledging it with an unsolicited
+	 * channel block status report, data received meanwhile is acknowledged by the same report
+	 */
+	private long ackDelayNanos = 10000000L;
+	
+	/**
+	 * {@link ReentrantLock} guarding the scheduling of the {@link #blockStatusThread}
 	 */
-	private Thread blockStatusThread = new Thread() {
+	private final ReentrantLock blockStatusLock = new ReentrantLock();
+	/**
+	 * signalled when the {@link #blockStatusThread} has to send something earlier or exit
+	 */
+	private final Condition blockStatusCondition = blockStatusLock.newCondition();
+	/**
+	 * true if received data needs to be acknowledged at {@link #ackDueTime}
+	 */
+	private boolean ackDue = false;
+	/**
+	 * the {@link System#nanoTime()} value at which received data is acknowledged
+	 */
+	private long ackDueTime;
+	/**
+	 * the {@link System#nanoTime()} value at which the next channel block status request is sent
+	 */
+	private long requestDueTime;
+	
+	/**
+	 * a Thread for requesting the channel block status from the peer periodically and acknowledging received data,
+	 * created using the default {@link ThreadMode}
+	 */
+	private Thread blockStatusThread;
+	
+	private Runnable blockStatusRunnable = new Runnable() {
 		@Override
 		public void run() {
-			for(;;) {
-				try {
-					Thread.sleep(3000);
-				} catch (InterruptedException e) {
-					Log.exception(BMCPManagementChannel.this, e, "exception in BlockStatusThread");
-				}
-				Log.debug(BMCPManagementChannel.this, "BlockStatusThread: ChannelCollection: %s", getLink().getChannelCollection().represent(true));
-				if(getLink().getStatus() == Link.Status.Connected && channelBlockStatusRequestDataId == -1) {
-					requestChannelBlockStatus();
-				} else if(getLink().getStatus() == Link.Status.Disconnected) {
-					Log.debug(BMCPManagementChannel.this, "BlockStatusThread: exiting");
-					return;
+			blockStatusLock.lock();
+			try {
+				requestDueTime = System.nanoTime() + blockStatusRequestIntervalNanos;
+				for(;;) {
+					
+					if(getLink().getStatus() == Link.Status.Disconnected) {
+						Log.debug(BMCPManagementChannel.this, "BlockStatusThread: exiting");
+						return;
+					}
+					
+					long now = System.nanoTime();
+					boolean sendAck = ackDue && now - ackDueTime >= 0;
+					boolean sendRequest = now - requestDueTime >= 0;
+					
+					if(!sendAck && !sendRequest) {
+						long waitNanos = requestDueTime - now;
+						if(ackDue) waitNanos = Math.min(waitNanos, ackDueTime - now);
+						try {
+							blockStatusCondition.awaitNanos(waitNanos);
+						} catch (InterruptedException e) {
+							Log.exception(BMCPManagementChannel.this, e, "exception in BlockStatusThread");
+							return;
+						}
+						continue;
+					}
+					
+					if(sendAck) ackDue = false;
+					if(sendRequest) requestDueTime = now + blockStatusRequestIntervalNanos;
+					
+					blockStatusLock.unlock();
+					try {
+						if(sendAck && getLink().getStatus() == Link.Status.Connected) {
+							Log.debug(BMCPManagementChannel.this, "BlockStatusThread: acknowledging received data");
+							sendChannelBlockStatusReport(true);
+						}
+						if(sendRequest) {
+							Log.debug(BMCPManagementChannel.this, "BlockStatusThread: ChannelCollection: %s", getLink().getChannelCollection().represent(true));
+							if(getLink().getStatus() == Link.Status.Connected && channelBlockStatusRequestDataId == -1) {
+								requestChannelBlockStatus();
+							}
+						}
+					} finally {
+						blockStatusLock.lock();
+					}
+					
 				}
+			} finally {
+				blockStatusLock.unlock();
 			}
 		}
 	};
@@ -167,7 +253,7 @@ public class BMCPManagementChannel extends ManagementChannel {
 	
 	@Override
 	public void onOpenChannel(boolean initiator) {
-		blockStatusThread.start();
+		blockStatusThread = ThreadMode.start(String.format("%s block status", this), blockStatusRunnable);
 		if(initiator) connect();
 	}
 	
@@ -197,10 +283,65 @@ public class BMCPManagementChannel extends ManagementChannel {
 		
 	}
 	
+	/**
+	 * makes the {@link #blockStatusThread} send an unsolicited channel block status report after the given delay,
+	 * unless one is due earlier already
+	 * @param delayNanos the delay in nanoseconds
+	 */
+	private void scheduleAck(long delayNanos) {
+		blockStatusLock.lock();
+		try {
+			long dueTime = System.nanoTime() + delayNanos;
+			if(!ackDue || dueTime - ackDueTime < 0) {
+				ackDue = true;
+				ackDueTime = dueTime;
+				blockStatusCondition.signal();
+			}
+		} finally {
+			blockStatusLock.unlock();
+		}
+	}
+	
+	@Override
+	public void onDataReceive() {
+		// acknowledge soon instead of waiting for the next channel block status request, so that the remote can send more
+		scheduleAck(ackDelayNanos);
+	}
+	
+	@Override
+	public void onDataDrop() {
+		// the remote resends packets missing at the end of a report once they were sent a retransmission timeout ago,
+		// report after that time in case no other data arrives meanwhile
+		scheduleAck(getLink().getRtoNanos());
+	}
+	
+	@Override
+	public void onSendBlocked() {
+		blockStatusLock.lock();
+		try {
+			// in case the unsolicited reports acknowledging the last packets were lost, request the channel block status after one retransmission timeout
+			long dueTime = System.nanoTime() + getLink().getRtoNanos();
+			if(dueTime - requestDueTime < 0) {
+				requestDueTime = dueTime;
+				blockStatusCondition.signal();
+			}
+		} finally {
+			blockStatusLock.unlock();
+		}
+	}
+	
 	@Override
 	public void onGapReceive() {
 		
 		long now = System.nanoTime();
+		
+		if(getLink().getStatus() == Link.Status.Connected && (lastSelectiveAckSent == 0 || (now - lastSelectiveAckSent) > selectiveAckSendDelayNanos)) {
+			// report the gap right away, so that the remote can resend the missing packets without waiting for the next channel block status request
+			Log.debug(this, "gap received, sending unsolicited channel block status report");
+			lastSelectiveAckSent = now;
+			sendChannelBlockStatusReport(true);
+		}
+		
 		long relativeNanos = now - lastThrottleSent;
 		
 		if(lastThrottleSent == 0 || relativeNanos > throttleSendDelayNanos) {
@@ -327,7 +468,8 @@ public class BMCPManagementChannel extends ManagementChannel {
 		
 		for(CryptoInitializerIdentifierComponent cryptoInitializerIdentifierComponent : connectRequestMessage.cryptoInitializerIdentifierComponents) {
 			if(cryptoInitializerIdentifierComponent.getCryptoInitializationMethod() != null
-					&& cryptoInitializerIdentifierComponent.getCryptoInitializationMethod().publiclyUsable()) {
+					&& cryptoInitializerIdentifierComponent.getCryptoInitializationMethod().publiclyUsable()
+					&& cryptoInitializerIdentifierComponent.getCryptoInitializationMethod().usableFor(getLink())) {
 				cryptoInitializationMethod = cryptoInitializerIdentifierComponent.getCryptoInitializationMethod();
 				break;
 			}
@@ -460,7 +602,7 @@ public class BMCPManagementChannel extends ManagementChannel {
 		
 		// TODO reply with reports for the channels requested only, instead of all channels
 		
-		sendChannelBlockStatusReport();
+		sendChannelBlockStatusReport(false);
 		
 	}
 	
@@ -473,7 +615,14 @@ public class BMCPManagementChannel extends ManagementChannel {
 			return;
 		}
 
-		if(channelBlockStatusRequestDataId != -1) {
+		// reports sent upon a gap are sent unreliably and are not a reply to our request
+		final boolean selectiveAck = discontinuousBlock == null;
+		final long now = System.nanoTime();
+		// packets after the peer's highest received id might still be in flight when the report was sent unsolicited,
+		// only resend them if they are overdue
+		final long tailResendDelayNanos = selectiveAck ? getLink().getRtoNanos() : 0;
+
+		if(!selectiveAck && channelBlockStatusRequestDataId != -1) {
 			clear(channelBlockStatusRequestDataId, 0);
 			channelBlockStatusRequestDataId = -1;
 		}
@@ -514,17 +663,13 @@ public class BMCPManagementChannel extends ManagementChannel {
 					clear = false; // we can not clear anything since peer is missing ids at the very beginning
 					do {
 						lowestDataId--;
-						if((packetBackup = packetBackupCollection.get(lowestDataId)) != null) {
-							channel.resend(packetBackup);
-						}
+						resend(channel, packetBackupCollection.get(lowestDataId), fastResendDelayNanos(selectiveAck), now);
 					} while(lowestDataId > realLowestDataId);
 				}
 
 				while(highestDataId < realHighestDataId && highestDataId >= realLowestDataId) {
 					highestDataId++;
-					if((packetBackup = packetBackupCollection.get(highestDataId)) != null) {
-						channel.resend(packetBackup);
-					}
+					resend(channel, packetBackupCollection.get(highestDataId), tailResendDelayNanos, now);
 				}
 
 			} else if(numDataIds < idCollection.getNumIds()) {
@@ -533,8 +678,7 @@ public class BMCPManagementChannel extends ManagementChannel {
 
 				for(IdBoundary idBoundary : idCollection) {
 					for(long curDataId = idBoundary.boundaryStart; curDataId < idBoundary.boundaryPostEnd; curDataId++) {
-						packetBackup = packetBackupCollection.get(curDataId);
-						channel.resend(packetBackup);
+						resend(channel, packetBackupCollection.get(curDataId), tailResendDelayNanos, now);
 					}
 				}
 
@@ -547,7 +691,7 @@ public class BMCPManagementChannel extends ManagementChannel {
 				final long missingDataId = singleId.getNum();
 				if(missingDataId >= realLowestDataId && missingDataId <= realHighestDataId && (packetBackup = packetBackupCollection.get(missingDataId)) != null) {
 					if(missingDataId <= clearUpTo) clearUpTo = (missingDataId-1); // can not clear beyond this id
-					channel.resend(packetBackup);
+					resend(channel, packetBackup, fastResendDelayNanos(selectiveAck), now);
 				}
 			}
 
@@ -559,8 +703,7 @@ public class BMCPManagementChannel extends ManagementChannel {
 				if(missingDataId >= realLowestDataId && maxDataId <= realHighestDataId) {
 					if(missingDataId <= clearUpTo) clearUpTo = (missingDataId-1); // can not clear beyond this id
 					while(missingDataId <= maxDataId) {
-						packetBackup = packetBackupCollection.get(missingDataId);
-						channel.resend(packetBackup);
+						resend(channel, packetBackupCollection.get(missingDataId), fastResendDelayNanos(selectiveAck), now);
 						missingDataId++;
 					}
 				}
@@ -572,10 +715,37 @@ public class BMCPManagementChannel extends ManagementChannel {
 				packetBackupCollection.clearUpTo(clearUpTo);
 			}
 
+			channel.onReceiveWindow(channelReport.receiveWindow.getNum());
+
 		}
 
 	}
 	
+	/**
+	 * @param selectiveAck true if the report was sent unsolicited
+	 * @return the minimum time in nanoseconds that needs to have passed since a packet the report lists as missing was last sent before it is resent
+	 */
+	private long fastResendDelayNanos(boolean selectiveAck) {
+		return selectiveAck ? Math.max(fastResendDelayNanos, getLink().getSmoothedRttNanos()) : 0;
+	}
+	
+	/**
+	 * resends the given {@link PacketBackup} on the given {@link Channel} as requested by a channel block status report
+	 * @param channel the {@link Channel} to resend the {@link PacketBackup} on
+	 * @param packetBackup the {@link PacketBackup} to resend, may be null
+	 * @param delayNanos the minimum time in nanoseconds that needs to have passed since the {@link PacketBackup} was last sent,
+	 * packets that were just sent are not resent upon unsolicited reports
+	 * @param now the current value of {@link System#nanoTime()}
+	 */
+	private void resend(Channel channel, PacketBackup packetBackup, long delayNanos, long now) {
+		if(packetBackup == null) return;
+		if(delayNanos > 0 && (now - packetBackup.getFlowControlProperties().lastSentTime) < delayNanos) {
+			Log.debug(this, "not resending %s, it was sent less than %d nanoseconds ago", packetBackup, delayNanos);
+			return;
+		}
+		channel.resend(packetBackup);
+	}
+	
 	@OnReceive
 	// no synchronization needed, this is called from process() which is already synchronized
 	public void onReceiveOpenChannelRequest(OpenChannelRequestMessage openChannelRequestMessage) {
@@ -715,7 +885,7 @@ public class BMCPManagementChannel extends ManagementChannel {
 	}
 	
 	// locks sendLock
-	private void sendChannelBlockStatusReport() {
+	private void sendChannelBlockStatusReport(boolean unreliable) {
 		
 		sendLock.lock();
 		
@@ -746,6 +916,7 @@ public class BMCPManagementChannel extends ManagementChannel {
 			ChannelReportComponent report = reportIterator.next();
 			
 			report.channelId.setNum(channel.getChannelId());
+			report.receiveWindow.setNum(channel.getReceiveWindow());
 			
 			ArrayPacketComponent<FlexNum> missingSingleIds = report.missingSingleIds;
 			ArrayPacketComponent<IdBlock> missingIdBlocks = report.missingIdBlocks;
@@ -830,7 +1001,11 @@ public class BMCPManagementChannel extends ManagementChannel {
 		getLink().unlockReceive();
 		Log.debug(this, "sendChannelBlockStatusReport: unlocked Link's receiveLock.");
 		
-		send(outBMCPMessage, discontinuousBlock);
+		if(unreliable) {
+			sendUnreliable(outBMCPMessage);
+		} else {
+			send(outBMCPMessage, discontinuousBlock);
+		}
 		
 		sendLock.unlock();
 		
@@ -909,7 +1084,30 @@ public class BMCPManagementChannel extends ManagementChannel {
 	 */
 	private void connect() {
 		
-		sendConnectRequest(cryptoInitializationMethods);
+		sendConnectRequest(getUsableCryptoInitializationMethods());
+		
+	}
+	
+	/**
+	 * @return the publicly usable {@link CryptoInitializationMethod}s that can currently be used for this channel's {@link Link}
+	 */
+	private CryptoInitializationMethod[] getUsableCryptoInitializationMethods() {
+		
+		int n = 0;
+		for(CryptoInitializationMethod cryptoInitializationMethod : cryptoInitializationMethods) {
+			if(cryptoInitializationMethod.usableFor(getLink())) n++;
+		}
+		
+		CryptoInitializationMethod[] usableCryptoInitializationMethods = new CryptoInitializationMethod[n];
+		
+		int i = 0;
+		for(CryptoInitializationMethod cryptoInitializationMethod : cryptoInitializationMethods) {
+			if(cryptoInitializationMethod.usableFor(getLink())) {
+				usableCryptoInitializationMethods[i++] = cryptoInitializationMethod;
+			}
+		}
+		
+		return usableCryptoInitializationMethods;
 		
 	}
 	
@@ -950,7 +1148,7 @@ public class BMCPManagementChannel extends ManagementChannel {
 	}
 	
 	private void onExit() {
-		exitResendThread();
+		stopResending();
 	}
 	
 	private void onDisconnected() {
@@ -1033,8 +1231,13 @@ public class BMCPManagementChannel extends ManagementChannel {
 
 	@Override
 	public void onClose() {
-		// TODO Auto-generated method stub
-		
+		// wake up the block status thread so that it exits
+		blockStatusLock.lock();
+		try {
+			blockStatusCondition.signal();
+		} finally {
+			blockStatusLock.unlock();
+		}
 	}
 	
 }
@@ -28,14 +28,20 @@ public class ChannelReportComponent extends ParentPacketComponent {
 		}
 	};
 	
+	/**
+	 * the amount of bytes the channel can currently receive, 0 for channels that do not limit it
+	 */
+	@Child(index = 6) public FlexNum receiveWindow = new FlexNum();
+	
 	public String toString() {
-		return String.format("ChannelReportComponent(channelId=%d, lowestDataId=%d, highestDataId=%d, numDataIds=%d, numMissingSingleIds=%d, numMissingIdBlocks=%d)",
+		return String.format("ChannelReportComponent(channelId=%d, lowestDataId=%d, highestDataId=%d, numDataIds=%d, numMissingSingleIds=%d, numMissingIdBlocks=%d, receiveWindow=%d)",
 				channelId.getNum(),
 				lowestDataId.getNum(),
 				highestDataId.getNum(),
 				numDataIds.getNum(),
 				missingSingleIds.getNumElements(),
-				missingIdBlocks.getNumElements());
+				missingIdBlocks.getNumElements(),
+				receiveWindow.getNum());
 	}
 
 }
@@ -0,0 +1,127 @@
+package org.dclayer.net.link.bmcp.crypto;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.dclayer.crypto.cipher.AesGcmCipher;
+import org.dclayer.exception.crypto.CryptoException;
+import org.dclayer.net.Data;
+import org.dclayer.net.buf.ByteBuf;
+
+/**
+ * AES-GCM {@link PacketCipher} using deterministic 12-byte nonces, consisting of a 4-byte salt
+ * derived from the key and an 8-byte packet counter. only the counter is transmitted.
+ */
+public class AesGcmCounterPacketCipher extends PacketCipher<ByteBuf> {
+
+	public static final int SALT_NUMBYTES = 4;
+	public static final int COUNTER_NUMBYTES = 8;
+	public static final int NONCE_NUMBYTES = SALT_NUMBYTES + COUNTER_NUMBYTES;
+
+	//
+
+	private final boolean forEncryption;
+	private final byte[] key;
+
+	private final AesGcmCipher cipher;
+
+	/**
+	 * the nonce, the salt occupies the first {@link #SALT_NUMBYTES} bytes and stays constant
+	 */
+	private final byte[] nonce = new byte[NONCE_NUMBYTES];
+
+	/**
+	 * {@link Data} wrapping the counter part of {@link #nonce}, prepended to the encrypted data
+	 */
+	private final Data counterData = new Data(nonce, SALT_NUMBYTES, COUNTER_NUMBYTES);
+
+	/**
+	 * the counter value used for the next encrypted packet, shared with all parallel copies of this cipher
+	 */
+	private final AtomicLong counter;
+
+	public AesGcmCounterPacketCipher(boolean forEncryption, byte[] key) throws CryptoException {
+		this(forEncryption, key, new AtomicLong());
+	}
+
+	private AesGcmCounterPacketCipher(boolean forEncryption, byte[] key, AtomicLong counter) throws CryptoException {
+
+		this.forEncryption = forEncryption;
+		this.key = key;
+		this.counter = counter;
+		cipher = AesGcmCipher.make(forEncryption, key);
+
+		// derive the salt from the key so that both sides agree on it without sending it
+		SHA256Digest digest = new SHA256Digest();
+		byte[] hash = new byte[digest.getDigestSize()];
+		digest.update(key, 0, key.length);
+		digest.doFinal(hash, 0);
+		System.arraycopy(hash, 0, nonce, 0, SALT_NUMBYTES);
+
+	}
+
+	//
+
+	@Override
+	public boolean supportsParallelProcessing() {
+		return true;
+	}
+
+	@Override
+	protected PacketCipher<ByteBuf> makeParallelPacketCipher() throws CryptoException {
+		return new AesGcmCounterPacketCipher(forEncryption, key, counter);
+	}
+
+	@Override
+	protected Data finishEncryption() throws CryptoException {
+		return cipher.finish();
+	}
+
+	@Override
+	protected void initEncryption(Data outData, Data prefixData, int inDataLength) throws CryptoException {
+
+		long n = counter.getAndIncrement();
+		if(n < 0) {
+			throw new CryptoException("nonce counter exhausted");
+		}
+
+		// write the counter into the nonce
+		for(int i = NONCE_NUMBYTES - 1; i >= SALT_NUMBYTES; i--) {
+			nonce[i] = (byte) n;
+			n >>>= 8;
+		}
+
+		// start encrypting the data, prepend the counter and prefixData to the encrypted data
+		cipher.reset(nonce, outData, prefixData, counterData);
+
+	}
+
+	@Override
+	protected void process(byte[] buf, int offset, int length) {
+		cipher.process(buf, offset, length);
+	}
+
+	@Override
+	protected void process(byte b) {
+		cipher.process(b);
+	}
+
+	@Override
+	public Data decrypt(Data encryptedData, Data outData) throws CryptoException {
+
+		if(encryptedData.length() < COUNTER_NUMBYTES) {
+			throw new CryptoException(String.format("encrypted data too short: %d bytes", encryptedData.length()));
+		}
+
+		// read the counter into the nonce
+		encryptedData.getBytes(0, COUNTER_NUMBYTES, nonce, SALT_NUMBYTES);
+
+		// read the encrypted bytes
+		cipher.reset(nonce, outData);
+		cipher.process(encryptedData.getData(), encryptedData.offset() + COUNTER_NUMBYTES, encryptedData.length() - COUNTER_NUMBYTES);
+
+		return cipher.finish();
+
+	}
+
+}
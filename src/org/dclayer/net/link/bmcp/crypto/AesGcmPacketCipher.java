@@ -15,13 +15,18 @@ public class AesGcmPacketCipher extends PacketCipher<ByteBuf> {
 	
 	private SecureRandom secureRandom = new SecureRandom();
 	
+	private final boolean forEncryption;
+	private final byte[] key;
+	
 	private final AesGcmCipher cipher;
 	
 	private final Data ivData;
 	
-	public AesGcmPacketCipher(boolean forEncryption, byte[] key) {
+	public AesGcmPacketCipher(boolean forEncryption, byte[] key) throws CryptoException {
 		
-		cipher = new AesGcmCipher(forEncryption, key);
+		this.forEncryption = forEncryption;
+		this.key = key;
+		cipher = AesGcmCipher.make(forEncryption, key);
 		this.ivData = new Data(IV_NUMBYTES);
 		
 	}
@@ -32,6 +37,16 @@ public class AesGcmPacketCipher extends PacketCipher<ByteBuf> {
 		return ivData;
 	}
 
+	@Override
+	public boolean supportsParallelProcessing() {
+		return true;
+	}
+	
+	@Override
+	protected PacketCipher<ByteBuf> makeParallelPacketCipher() throws CryptoException {
+		return new AesGcmPacketCipher(forEncryption, key);
+	}
+
 	@Override
 	protected Data finishEncryption() throws CryptoException {
 		return cipher.finish();
@@ -1,5 +1,7 @@
 package org.dclayer.net.link.bmcp.crypto;
 
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 import org.dclayer.exception.crypto.CryptoException;
 import org.dclayer.exception.net.buf.BufException;
 import org.dclayer.exception.net.buf.BufNoReadException;
@@ -42,6 +44,11 @@ public abstract class PacketCipher<T extends ByteBuf> {
 		
 	}
 	
+	/**
+	 * idle copies of this {@link PacketCipher} used by {@link #encryptParallel(Data, Data, PacketComponentI...)} and {@link #decryptParallel(Data, Data)}
+	 */
+	private final ConcurrentLinkedQueue<PacketCipher<T>> parallelPacketCiphers = new ConcurrentLinkedQueue<>();
+	
 	//
 	
 	/**
@@ -88,8 +95,57 @@ public abstract class PacketCipher<T extends ByteBuf> {
 	 */
 	public abstract Data decrypt(Data encryptedData, Data outData) throws CryptoException;
 	
+	/**
+	 * @return true if {@link #makeParallelPacketCipher()} is supported, i.e. if packets can be encrypted and decrypted
+	 * concurrently using {@link #encryptParallel(Data, Data, PacketComponentI...)} and {@link #decryptParallel(Data, Data)}
+	 */
+	public boolean supportsParallelProcessing() {
+		return false;
+	}
+	
+	/**
+	 * like {@link #encrypt(Data, Data, PacketComponentI...)}, but safe to be called concurrently if {@link #supportsParallelProcessing()} returns true
+	 */
+	public final Data encryptParallel(Data outData, Data prefixData, PacketComponentI... packetComponents) throws CryptoException {
+		PacketCipher<T> packetCipher = acquireParallelPacketCipher();
+		try {
+			return packetCipher.encrypt(outData, prefixData, packetComponents);
+		} finally {
+			parallelPacketCiphers.offer(packetCipher);
+		}
+	}
+	
+	/**
+	 * like {@link #decrypt(Data, Data)}, but safe to be called concurrently if {@link #supportsParallelProcessing()} returns true
+	 */
+	public final Data decryptParallel(Data encryptedData, Data outData) throws CryptoException {
+		PacketCipher<T> packetCipher = acquireParallelPacketCipher();
+		try {
+			return packetCipher.decrypt(encryptedData, outData);
+		} finally {
+			parallelPacketCiphers.offer(packetCipher);
+		}
+	}
+	
+	private PacketCipher<T> acquireParallelPacketCipher() throws CryptoException {
+		PacketCipher<T> packetCipher = parallelPacketCiphers.poll();
+		if(packetCipher == null) {
+			packetCipher = makeParallelPacketCipher();
+		}
+		return packetCipher;
+	}
+	
 	//
 	
+	/**
+	 * creates a new {@link PacketCipher} using the same key as this one that can be used concurrently to this one.
+	 * must be overridden if {@link #supportsParallelProcessing()} returns true.
+	 * @return a new {@link PacketCipher} producing packets compatible to this one's
+	 */
+	protected PacketCipher<T> makeParallelPacketCipher() throws CryptoException {
+		throw new CryptoException(String.format("%s does not support parallel processing", getClass().getSimpleName()));
+	}
+	
 	/**
 	 * prepares for encryption
 	 * @param outData the {@link Data} the encrypted bytes should be stored in
@@ -2,7 +2,10 @@ package org.dclayer.net.link.bmcp.crypto.init;
 
 import org.dclayer.net.link.Link;
 import org.dclayer.net.link.bmcp.crypto.init.plain.PlainCryptoInitializer;
+import org.dclayer.net.link.bmcp.crypto.init.resume.CryptoSessionCache;
+import org.dclayer.net.link.bmcp.crypto.init.resume.ResumeCryptoInitializer;
 import org.dclayer.net.link.bmcp.crypto.init.rsaaesgcm.RsaAesGcmCryptoInitializer;
+import org.dclayer.net.link.bmcp.crypto.init.x25519ed25519.X25519Ed25519CryptoInitializer;
 
 public enum CryptoInitializationMethod {
 	
@@ -15,27 +18,70 @@ public enum CryptoInitializationMethod {
 	CRYPTO_INIT_RSA_AES128_GCM(CryptoInitializationMethod.PUBLIC) {
 		@Override
 		public CryptoInitializer make(Link link) {
-			return new RsaAesGcmCryptoInitializer(link);
+			return new RsaAesGcmCryptoInitializer(link, this);
+		}
+	},
+	CRYPTO_INIT_RSA_AES128_GCM_COUNTER(CryptoInitializationMethod.PUBLIC) {
+		@Override
+		public CryptoInitializer make(Link link) {
+			return new RsaAesGcmCryptoInitializer(link, this);
+		}
+	},
+	CRYPTO_INIT_RESUME_AES128_GCM_COUNTER(CryptoInitializationMethod.PUBLIC | CryptoInitializationMethod.RESUMPTION) {
+		@Override
+		public CryptoInitializer make(Link link) {
+			return new ResumeCryptoInitializer(link);
+		}
+		@Override
+		public boolean usableFor(Link link) {
+			// only usable if there is a ticket from a previous session with this remote
+			CryptoSessionCache cryptoSessionCache = link.getCryptoSessionCache();
+			return cryptoSessionCache != null && cryptoSessionCache.contains(link.getReferenceObject());
+		}
+	},
+	CRYPTO_INIT_X25519_ED25519_AES128_GCM_COUNTER(CryptoInitializationMethod.PUBLIC) {
+		@Override
+		public CryptoInitializer make(Link link) {
+			return new X25519Ed25519CryptoInitializer(link);
+		}
+		@Override
+		public boolean usableFor(Link link) {
+			// fall back to the other methods while the remote's key does not match the key pinned for it
+			return !link.getEd25519KeyPins().isMismatched(link.getReferenceObject());
 		}
 	};
 	
 	private static final int PUBLIC = (1 << 0);
+	private static final int RESUMPTION = (1 << 1);
 	
 	private static final CryptoInitializationMethod[] PUBLIC_CRYPTO_INIT_METHODS = getAllWithFlags(PUBLIC);
 	
+	/**
+	 * returns all methods having the given flags, newest first.<br />
+	 * the remote picks the first method it knows of, so newer methods are preferred while older remotes
+	 * (which do not know about them) fall back to the older ones. methods resuming a previous session
+	 * are put in front of all others, as they are the cheapest whenever they are usable.
+	 */
 	private static CryptoInitializationMethod[] getAllWithFlags(int flags) {
 		
+		CryptoInitializationMethod[] values = values();
+		
 		int n = 0;
-		for(CryptoInitializationMethod cryptoInitializationMethod : values()) {
+		for(CryptoInitializationMethod cryptoInitializationMethod : values) {
 			if(cryptoInitializationMethod.hasFlags(flags)) n++;
 		}
 		
 		CryptoInitializationMethod[] methods = new CryptoInitializationMethod[n];
 		
 		int i = 0;
-		for(CryptoInitializationMethod cryptoInitializationMethod : values()) {
-			if(cryptoInitializationMethod.hasFlags(flags)) {
-				methods[i++] = cryptoInitializationMethod;
+		for(int j = values.length - 1; j >= 0; j--) {
+			if(values[j].hasFlags(flags) && values[j].hasFlags(RESUMPTION)) {
+				methods[i++] = values[j];
+			}
+		}
+		for(int j = values.length - 1; j >= 0; j--) {
+			if(values[j].hasFlags(flags) && !values[j].hasFlags(RESUMPTION)) {
+				methods[i++] = values[j];
 			}
 		}
 		
@@ -74,6 +120,14 @@ public enum CryptoInitializationMethod {
 		return hasFlags(PUBLIC);
 	}
 	
+	/**
+	 * @param link the {@link Link} to initialize
+	 * @return true if this method can currently be used to initialize the given {@link Link}
+	 */
+	public boolean usableFor(Link link) {
+		return true;
+	}
+	
 	public abstract CryptoInitializer make(Link link);
 	
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package org.dclayer.net.link.bmcp.crypto.init.resume;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * caches one {@link CryptoSessionTicket} per remote, identified by the reference object of the remote's {@link org.dclayer.net.link.Link}
+ */
+public class CryptoSessionCache {
+	
+	/**
+	 * the maximum amount of cached tickets, the least recently stored ones are dropped first
+	 */
+	public static final int MAX_TICKETS = 4096;
+	
+	private LinkedHashMap<Object, CryptoSessionTicket> tickets = new LinkedHashMap<Object, CryptoSessionTicket>(16, 0.75f, false) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, CryptoSessionTicket> eldest) {
+			return size() > MAX_TICKETS;
+		}
+	};
+	
+	/**
+	 * @param referenceObject the reference object of the remote
+	 * @return true if there is an unexpired {@link CryptoSessionTicket} for the given remote
+	 */
+	public synchronized boolean contains(Object referenceObject) {
+		CryptoSessionTicket cryptoSessionTicket = tickets.get(referenceObject);
+		if(cryptoSessionTicket == null) return false;
+		if(cryptoSessionTicket.isExpired(System.nanoTime())) {
+			tickets.remove(referenceObject);
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * removes and returns the {@link CryptoSessionTicket} for the given remote
+	 * @param referenceObject the reference object of the remote
+	 * @return the unexpired {@link CryptoSessionTicket} for the given remote or null if there is none
+	 */
+	public synchronized CryptoSessionTicket take(Object referenceObject) {
+		CryptoSessionTicket cryptoSessionTicket = tickets.remove(referenceObject);
+		if(cryptoSessionTicket == null || cryptoSessionTicket.isExpired(System.nanoTime())) return null;
+		return cryptoSessionTicket;
+	}
+	
+	/**
+	 * stores the given {@link CryptoSessionTicket} for the given remote, replacing any previous one
+	 * @param referenceObject the reference object of the remote
+	 * @param cryptoSessionTicket the {@link CryptoSessionTicket} to store
+	 */
+	public synchronized void put(Object referenceObject, CryptoSessionTicket cryptoSessionTicket) {
+		tickets.remove(referenceObject);
+		tickets.put(referenceObject, cryptoSessionTicket);
+	}
+	
+}
@@ -0,0 +1,106 @@
+package org.dclayer.net.link.bmcp.crypto.init.resume;
+
+import java.nio.charset.StandardCharsets;
+
+import org.dclayer.crypto.Crypto;
+import org.dclayer.net.Data;
+
+/**
+ * a secret shared with a remote after a full crypto initialization, allowing to derive fresh keys for the next
+ * {@link org.dclayer.net.link.Link} to the same remote without asymmetric cryptography.<br />
+ * each ticket is used only once, both sides replace it by {@link #next()} after a successful resumption.
+ */
+public class CryptoSessionTicket {
+	
+	/**
+	 * the lifetime of a ticket
+	 */
+	public static final long LIFETIME_NANOS = 10L * 60L * 1000000000L;
+	
+	public static final int TICKET_ID_NUMBYTES = 16;
+	public static final int KEY_NUMBYTES = 16;
+	
+	private static final Data LABEL_SECRET = label("dcl resume secret");
+	private static final Data LABEL_TICKET_ID = label("dcl resume ticket id");
+	private static final Data LABEL_NEXT = label("dcl resume next");
+	private static final Data LABEL_INITIATOR = label("dcl resume initiator");
+	private static final Data LABEL_RESPONDER = label("dcl resume responder");
+	
+	private static Data label(String label) {
+		return new Data(label.getBytes(StandardCharsets.US_ASCII));
+	}
+	
+	/**
+	 * creates a new {@link CryptoSessionTicket} from the keys exchanged during a full crypto initialization
+	 * @param localKeyFingerprint the fingerprint of the local crypto initialization public key used
+	 * @param remoteKeyFingerprint the fingerprint of the remote's crypto initialization public key
+	 * @param initiatorKeyData the key the initiator of the link decrypts with
+	 * @param responderKeyData the key the responder of the link decrypts with
+	 * @return the new {@link CryptoSessionTicket}
+	 */
+	public static CryptoSessionTicket fromKeys(Data localKeyFingerprint, Data remoteKeyFingerprint, Data initiatorKeyData, Data responderKeyData) {
+		return new CryptoSessionTicket(localKeyFingerprint, remoteKeyFingerprint, Crypto.sha256(LABEL_SECRET, initiatorKeyData, responderKeyData));
+	}
+	
+	//
+	
+	private Data localKeyFingerprint;
+	private Data remoteKeyFingerprint;
+	private Data secret;
+	private Data ticketId;
+	private long expiresAt;
+	
+	private CryptoSessionTicket(Data localKeyFingerprint, Data remoteKeyFingerprint, Data secret) {
+		this.localKeyFingerprint = localKeyFingerprint;
+		this.remoteKeyFingerprint = remoteKeyFingerprint;
+		this.secret = secret;
+		this.ticketId = Crypto.sha256(secret, LABEL_TICKET_ID);
+		this.ticketId.resize(TICKET_ID_NUMBYTES);
+		this.expiresAt = System.nanoTime() + LIFETIME_NANOS;
+	}
+	
+	/**
+	 * @return the fingerprint of the local crypto initialization public key used when this ticket was created
+	 */
+	public Data getLocalKeyFingerprint() {
+		return localKeyFingerprint;
+	}
+	
+	/**
+	 * @return the fingerprint of the remote's crypto initialization public key
+	 */
+	public Data getRemoteKeyFingerprint() {
+		return remoteKeyFingerprint;
+	}
+	
+	/**
+	 * @return the id identifying this ticket to the remote, derived from the secret
+	 */
+	public Data getTicketId() {
+		return ticketId;
+	}
+	
+	public boolean isExpired(long now) {
+		return now - expiresAt > 0;
+	}
+	
+	/**
+	 * derives the key the given side of the link decrypts with
+	 * @param nonceData the random nonce the given side sent
+	 * @param initiator true if the key for the initiator of the link should be derived, false for the responder
+	 * @return the derived key
+	 */
+	public Data deriveKey(Data nonceData, boolean initiator) {
+		Data keyData = Crypto.sha256(secret, nonceData, initiator ? LABEL_INITIATOR : LABEL_RESPONDER);
+		keyData.resize(KEY_NUMBYTES);
+		return keyData;
+	}
+	
+	/**
+	 * @return the ticket replacing this one after it was used
+	 */
+	public CryptoSessionTicket next() {
+		return new CryptoSessionTicket(localKeyFingerprint, remoteKeyFingerprint, Crypto.sha256(secret, LABEL_NEXT));
+	}
+	
+}
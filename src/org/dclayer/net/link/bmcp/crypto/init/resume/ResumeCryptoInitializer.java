@@ -0,0 +1,171 @@
+package org.dclayer.net.link.bmcp.crypto.init.resume;
+
+import java.security.SecureRandom;
+
+import org.dclayer.exception.crypto.CryptoException;
+import org.dclayer.net.Data;
+import org.dclayer.net.link.Link;
+import org.dclayer.net.link.bmcp.crypto.AesGcmCounterPacketCipher;
+import org.dclayer.net.link.bmcp.crypto.init.CryptoInitPacketComponentI;
+import org.dclayer.net.link.bmcp.crypto.init.CryptoInitializationMethod;
+import org.dclayer.net.link.bmcp.crypto.init.CryptoInitializer;
+import org.dclayer.net.link.bmcp.crypto.init.resume.component.ResumeInitializationMessage;
+
+/**
+ * {@link CryptoInitializer} resuming a previous session with the remote using a {@link CryptoSessionTicket}.<br />
+ * both sides send a random nonce and derive the key they decrypt with from the ticket's secret and their own nonce,
+ * thus no asymmetric cryptography is needed.
+ */
+public class ResumeCryptoInitializer implements CryptoInitializer {
+
+	public static final int NONCE_NUMBYTES = 16;
+
+	//
+
+	private Link link;
+
+	private ResumeInitializationMessage receiveMessage = new ResumeInitializationMessage();
+	private ResumeInitializationMessage sendMessage = new ResumeInitializationMessage();
+
+	/**
+	 * the {@link CryptoSessionTicket} used, taken from the {@link CryptoSessionCache}
+	 */
+	private CryptoSessionTicket cryptoSessionTicket;
+
+	private Data nonceData;
+
+	private boolean sentHello = false;
+	private boolean receivedHello = false;
+
+	private Runnable helloAckCallbackRunnable;
+
+	public ResumeCryptoInitializer(Link link) {
+
+		this.link = link;
+		this.nonceData = new Data(NONCE_NUMBYTES);
+		new SecureRandom().nextBytes(nonceData.getData());
+
+	}
+
+	@Override
+	public CryptoInitializationMethod getCryptoInitializationMethod() {
+		return CryptoInitializationMethod.CRYPTO_INIT_RESUME_AES128_GCM_COUNTER;
+	}
+
+	@Override
+	public CryptoInitPacketComponentI getReceivePacketComponent() {
+		return receiveMessage;
+	}
+
+	private void abort(CryptoException e) {
+		link.abortCryptoInitialization(e);
+	}
+
+	/**
+	 * takes this remote's {@link CryptoSessionTicket} from the {@link CryptoSessionCache} if not done yet
+	 * @return true if there is a {@link CryptoSessionTicket}, false otherwise
+	 */
+	private boolean takeCryptoSessionTicket() {
+		if(cryptoSessionTicket == null) {
+			CryptoSessionCache cryptoSessionCache = link.getCryptoSessionCache();
+			if(cryptoSessionCache != null) {
+				cryptoSessionTicket = cryptoSessionCache.take(link.getReferenceObject());
+			}
+		}
+		return cryptoSessionTicket != null;
+	}
+
+	/**
+	 * stores the successor of the used {@link CryptoSessionTicket} once both sides sent their nonces
+	 */
+	private void storeNextCryptoSessionTicket() {
+		if(sentHello && receivedHello) {
+			link.getCryptoSessionCache().put(link.getReferenceObject(), cryptoSessionTicket.next());
+		}
+	}
+
+	@Override
+	public CryptoInitPacketComponentI getSendPacketComponent(Runnable ackCallbackRunnable) {
+
+		if(sentHello) {
+			return null;
+		}
+
+		if(!takeCryptoSessionTicket()) {
+			abort(new CryptoException("no crypto session ticket for remote"));
+			return null;
+		}
+
+		// the remote derives the same key from our nonce and starts encrypting with it once it received this message
+		Data inKeyData = cryptoSessionTicket.deriveKey(nonceData, link.isInitiator());
+		try {
+			link.applyNewInPacketCipher(new AesGcmCounterPacketCipher(false, inKeyData.copyToByteArray()));
+		} catch (CryptoException e) {
+			abort(e);
+			return null;
+		}
+
+		sendMessage.keyFingerprint.setData(cryptoSessionTicket.getLocalKeyFingerprint());
+		sendMessage.ticketId.setData(cryptoSessionTicket.getTicketId());
+		sendMessage.nonce.setData(nonceData);
+
+		sentHello = true;
+		helloAckCallbackRunnable = ackCallbackRunnable;
+
+		storeNextCryptoSessionTicket();
+
+		return sendMessage;
+
+	}
+
+	@Override
+	public boolean processPacketComponent() {
+
+		if(receivedHello) {
+			// duplicate, acknowledge again
+			return true;
+		}
+
+		if(!takeCryptoSessionTicket()) {
+			abort(new CryptoException("no crypto session ticket for remote"));
+			return false;
+		}
+
+		if(!cryptoSessionTicket.getRemoteKeyFingerprint().equals(receiveMessage.keyFingerprint.getData())
+				|| !cryptoSessionTicket.getTicketId().equals(receiveMessage.ticketId.getData())) {
+			abort(new CryptoException("crypto session ticket mismatch"));
+			return false;
+		}
+
+		if(receiveMessage.nonce.getData().length() != NONCE_NUMBYTES) {
+			abort(new CryptoException(String.format("invalid nonce length: %d", receiveMessage.nonce.getData().length())));
+			return false;
+		}
+
+		Data outKeyData = cryptoSessionTicket.deriveKey(receiveMessage.nonce.getData(), !link.isInitiator());
+		try {
+			link.applyNewOutPacketCipher(new AesGcmCounterPacketCipher(true, outKeyData.copyToByteArray()));
+		} catch (CryptoException e) {
+			abort(e);
+			return false;
+		}
+
+		receivedHello = true;
+
+		if(helloAckCallbackRunnable != null) {
+			helloAckCallbackRunnable.run();
+			helloAckCallbackRunnable = null;
+		}
+
+		storeNextCryptoSessionTicket();
+
+		return true;
+
+	}
+
+	@Override
+	public boolean completedSuccessfully() {
+		return sentHello && receivedHello;
+	}
+
+}
@@ -0,0 +1,20 @@
+package org.dclayer.net.link.bmcp.crypto.init.resume.component;
+
+import org.dclayer.net.component.DataComponent;
+import org.dclayer.net.link.bmcp.crypto.init.CryptoInitPacketComponentI;
+import org.dclayer.net.link.bmcp.crypto.init.CryptoInitializationMethod;
+import org.dclayer.net.packetcomponent.Child;
+import org.dclayer.net.packetcomponent.ParentPacketComponent;
+
+public class ResumeInitializationMessage extends ParentPacketComponent implements CryptoInitPacketComponentI {
+	
+	@Child(index = 0) public DataComponent keyFingerprint;
+	@Child(index = 1) public DataComponent ticketId;
+	@Child(index = 2) public DataComponent nonce;
+	
+	@Override
+	public CryptoInitializationMethod getCryptoInitializationMethod() {
+		return CryptoInitializationMethod.CRYPTO_INIT_RESUME_AES128_GCM_COUNTER;
+	}
+	
+}
@@ -2,16 +2,20 @@ package org.dclayer.net.link.bmcp.crypto.init.rsaaesgcm;
 
 import java.security.SecureRandom;
 
+import org.dclayer.crypto.Crypto;
 import org.dclayer.crypto.key.Key;
 import org.dclayer.crypto.key.KeyPair;
 import org.dclayer.exception.crypto.CryptoException;
 import org.dclayer.net.Data;
 import org.dclayer.net.link.Link;
+import org.dclayer.net.link.bmcp.crypto.AesGcmCounterPacketCipher;
 import org.dclayer.net.link.bmcp.crypto.AesGcmPacketCipher;
 import org.dclayer.net.link.bmcp.crypto.PacketCipher;
 import org.dclayer.net.link.bmcp.crypto.init.CryptoInitPacketComponentI;
 import org.dclayer.net.link.bmcp.crypto.init.CryptoInitializationMethod;
 import org.dclayer.net.link.bmcp.crypto.init.CryptoInitializer;
+import org.dclayer.net.link.bmcp.crypto.init.resume.CryptoSessionCache;
+import org.dclayer.net.link.bmcp.crypto.init.resume.CryptoSessionTicket;
 import org.dclayer.net.link.bmcp.crypto.init.rsaaesgcm.component.RsaAesGcmAeskeyMessage;
 import org.dclayer.net.link.bmcp.crypto.init.rsaaesgcm.component.RsaAesGcmInitializationMessage;
 import org.dclayer.net.link.bmcp.crypto.init.rsaaesgcm.component.RsaAesGcmPubkeyMessage;
@@ -25,8 +29,13 @@ public class RsaAesGcmCryptoInitializer implements CryptoInitializer {
 	
 	private Link link;
 	
-	private RsaAesGcmInitializationMessage receiveMessage = new RsaAesGcmInitializationMessage(this);
-	private RsaAesGcmInitializationMessage sendMessage = new RsaAesGcmInitializationMessage();
+	/**
+	 * the {@link CryptoInitializationMethod} this initializer is used for, determines the nonce mode of the packet ciphers
+	 */
+	private CryptoInitializationMethod cryptoInitializationMethod;
+	
+	private RsaAesGcmInitializationMessage receiveMessage;
+	private RsaAesGcmInitializationMessage sendMessage;
 	
 	private KeyPair rsaKeyPair;
 	private Key remotePubkey;
@@ -34,8 +43,6 @@ public class RsaAesGcmCryptoInitializer implements CryptoInitializer {
 	private Data inAeskeyData;
 	private Data encryptedInAeskeyData;
 	
-	private PacketCipher inPacketCipher;
-	
 	private boolean receivedAeskey = false;
 	private boolean sentAeskey = false;
 	
@@ -46,20 +53,32 @@ public class RsaAesGcmCryptoInitializer implements CryptoInitializer {
 	
 	private boolean ack = false;
 	
-	public RsaAesGcmCryptoInitializer(Link link) {
+	public RsaAesGcmCryptoInitializer(Link link, CryptoInitializationMethod cryptoInitializationMethod) {
 		
 		this.link = link;
+		this.cryptoInitializationMethod = cryptoInitializationMethod;
+		this.receiveMessage = new RsaAesGcmInitializationMessage(cryptoInitializationMethod, this);
+		this.sendMessage = new RsaAesGcmInitializationMessage(cryptoInitializationMethod);
 		this.rsaKeyPair = link.getLinkCryptoInitializationKeyPair();
 		this.inAeskeyData = new Data(KEY_BYTES);
 		new SecureRandom().nextBytes(inAeskeyData.getData());
 		
-		this.inPacketCipher = new AesGcmPacketCipher(false, inAeskeyData.getData());
-		
+	}
+	
+	/**
+	 * creates the {@link PacketCipher} matching this initializer's {@link CryptoInitializationMethod}
+	 */
+	private PacketCipher makePacketCipher(boolean forEncryption, byte[] key) throws CryptoException {
+		if(cryptoInitializationMethod == CryptoInitializationMethod.CRYPTO_INIT_RSA_AES128_GCM_COUNTER) {
+			return new AesGcmCounterPacketCipher(forEncryption, key);
+		} else {
+			return new AesGcmPacketCipher(forEncryption, key);
+		}
 	}
 	
 	@Override
 	public CryptoInitializationMethod getCryptoInitializationMethod() {
-		return CryptoInitializationMethod.CRYPTO_INIT_RSA_AES128_GCM;
+		return cryptoInitializationMethod;
 	}
 
 	@Override
@@ -79,7 +98,12 @@ public class RsaAesGcmCryptoInitializer implements CryptoInitializer {
 		if(receivedPubkey && !sentAeskey) {
 			
 			sendAeskey();
-			applyInCipher();
+			try {
+				applyInCipher();
+			} catch (CryptoException e) {
+				abort(e);
+				return null;
+			}
 			sentAeskey = true;
 			
 		} else if(!sentPubkey) {
@@ -110,12 +134,30 @@ public class RsaAesGcmCryptoInitializer implements CryptoInitializer {
 		sendMessage.set(sendMessage.aeskeyMessage).encryptedAesKey.setData(encryptedInAeskeyData);
 	}
 	
-	private void applyInCipher() {
-		link.applyNewInPacketCipher(inPacketCipher);
+	private void applyInCipher() throws CryptoException {
+		link.applyNewInPacketCipher(makePacketCipher(false, inAeskeyData.getData()));
 	}
 	
 	private void applyOutCipher(Data aeskeyData) throws CryptoException {
-		link.applyNewOutPacketCipher(new AesGcmPacketCipher(true, aeskeyData.copyToByteArray()));
+		link.applyNewOutPacketCipher(makePacketCipher(true, aeskeyData.copyToByteArray()));
+	}
+	
+	/**
+	 * stores a {@link CryptoSessionTicket} derived from both keys, so that the next link to this remote can skip the RSA key exchange
+	 * @param outAeskeyData the key received from the remote
+	 */
+	private void storeCryptoSessionTicket(Data outAeskeyData) {
+		
+		CryptoSessionCache cryptoSessionCache = link.getCryptoSessionCache();
+		if(cryptoSessionCache == null || remotePubkey == null) {
+			return;
+		}
+		
+		Data initiatorAeskeyData = link.isInitiator() ? inAeskeyData : outAeskeyData;
+		Data responderAeskeyData = link.isInitiator() ? outAeskeyData : inAeskeyData;
+		
+		cryptoSessionCache.put(link.getReferenceObject(), CryptoSessionTicket.fromKeys(Crypto.sha1(rsaKeyPair.getPublicKey().toData()), Crypto.sha1(remotePubkey.toData()), initiatorAeskeyData, responderAeskeyData));
+		
 	}
 	
 	@OnReceive(index = RsaAesGcmInitializationMessage.PUBKEY)
@@ -153,6 +195,8 @@ public class RsaAesGcmCryptoInitializer implements CryptoInitializer {
 			return;
 		}
 		
+		storeCryptoSessionTicket(aesKey);
+		
 		if(pubkeyAckCallbackRunnable != null) {
 			pubkeyAckCallbackRunnable.run();
 			pubkeyAckCallbackRunnable = null;
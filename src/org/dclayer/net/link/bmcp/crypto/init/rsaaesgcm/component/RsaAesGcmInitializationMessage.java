@@ -18,17 +18,20 @@ public class RsaAesGcmInitializationMessage extends SwitchPacketComponent<Packet
 	
 	//
 	
-	public RsaAesGcmInitializationMessage() {
-		
+	private CryptoInitializationMethod cryptoInitializationMethod;
+	
+	public RsaAesGcmInitializationMessage(CryptoInitializationMethod cryptoInitializationMethod) {
+		this.cryptoInitializationMethod = cryptoInitializationMethod;
 	}
 	
-	public RsaAesGcmInitializationMessage(Object onReceiveObject) {
+	public RsaAesGcmInitializationMessage(CryptoInitializationMethod cryptoInitializationMethod, Object onReceiveObject) {
 		super(onReceiveObject);
+		this.cryptoInitializationMethod = cryptoInitializationMethod;
 	}
 	
 	@Override
 	public CryptoInitializationMethod getCryptoInitializationMethod() {
-		return CryptoInitializationMethod.CRYPTO_INIT_RSA_AES128_GCM;
+		return cryptoInitializationMethod;
 	}
 
 }
@@ -0,0 +1,125 @@
+package org.dclayer.net.link.bmcp.crypto.init.x25519ed25519;
+
+import java.util.HashMap;
+
+import org.dclayer.net.Data;
+
+/**
+ * binds the Ed25519 public key of each remote, identified by the reference object of the remote's {@link org.dclayer.net.link.Link},
+ * to that remote.<br />
+ * keys can be pinned in advance if they are known, otherwise the first key a remote authenticates with is pinned (trust on first use).
+ * a remote presenting a different key afterwards is rejected, so that a man in the middle can not replace the key sent in the key message.
+ * links to such a remote fall back to another crypto initialization method until the pin expires, which happens once the pinned key
+ * was not presented for the pin lifetime. a remote that legitimately changed its key is then pinned to its new key.
+ */
+public class Ed25519KeyPins {
+
+	/**
+	 * the default amount of milliseconds a pin is kept after the pinned key was last presented
+	 */
+	public static final long DEFAULT_PIN_LIFETIME_MILLIS = 7L*24*60*60*1000;
+
+	/**
+	 * the pinned key of a remote
+	 */
+	private static class Pin {
+
+		/**
+		 * the sha1 fingerprint of the pinned Ed25519 public key
+		 */
+		Data fingerprint;
+		/**
+		 * the value of {@link System#currentTimeMillis()} when the pinned key was pinned or last presented, {@link Long#MAX_VALUE} if it never expires
+		 */
+		long confirmedTime;
+		/**
+		 * true if the remote presented a different key since the pinned key was last presented
+		 */
+		boolean mismatch;
+
+		Pin(Data fingerprint, long confirmedTime) {
+			this.fingerprint = fingerprint.copy();
+			this.confirmedTime = confirmedTime;
+		}
+
+	}
+
+	private final long pinLifetimeMillis;
+
+	private HashMap<Object, Pin> pins = new HashMap<>();
+
+	public Ed25519KeyPins() {
+		this(DEFAULT_PIN_LIFETIME_MILLIS);
+	}
+
+	/**
+	 * @param pinLifetimeMillis the amount of milliseconds a pin is kept after the pinned key was last presented
+	 */
+	public Ed25519KeyPins(long pinLifetimeMillis) {
+		this.pinLifetimeMillis = pinLifetimeMillis;
+	}
+
+	/**
+	 * @return the pin of the given remote, or null if there is none or it expired
+	 */
+	private Pin getPin(Object referenceObject, long now) {
+		Pin pin = pins.get(referenceObject);
+		if(pin != null && pin.confirmedTime != Long.MAX_VALUE && now - pin.confirmedTime > pinLifetimeMillis) {
+			pins.remove(referenceObject);
+			return null;
+		}
+		return pin;
+	}
+
+	/**
+	 * pins the given fingerprint for the given remote, replacing any previous one. pins set this way do not expire
+	 * @param referenceObject the reference object of the remote
+	 * @param fingerprint the sha1 fingerprint of the remote's Ed25519 public key
+	 */
+	public synchronized void pin(Object referenceObject, Data fingerprint) {
+		pins.put(referenceObject, new Pin(fingerprint, Long.MAX_VALUE));
+	}
+
+	/**
+	 * removes the pinned fingerprint of the given remote, e.g. after the remote legitimately changed its key
+	 * @param referenceObject the reference object of the remote
+	 */
+	public synchronized void unpin(Object referenceObject) {
+		pins.remove(referenceObject);
+	}
+
+	/**
+	 * checks the given fingerprint against the one pinned for the given remote, pinning it if there is none yet
+	 * @param referenceObject the reference object of the remote
+	 * @param fingerprint the sha1 fingerprint of the Ed25519 public key the remote authenticated with
+	 * @return true if the fingerprint matches the pinned one or was pinned now, false if a different one is pinned
+	 */
+	public synchronized boolean verify(Object referenceObject, Data fingerprint) {
+		long now = System.currentTimeMillis();
+		Pin pin = getPin(referenceObject, now);
+		if(pin == null) {
+			pins.put(referenceObject, new Pin(fingerprint, now));
+			return true;
+		}
+		if(!pin.fingerprint.equals(fingerprint)) {
+			pin.mismatch = true;
+			return false;
+		}
+		if(pin.confirmedTime != Long.MAX_VALUE) {
+			pin.confirmedTime = now;
+		}
+		pin.mismatch = false;
+		return true;
+	}
+
+	/**
+	 * @param referenceObject the reference object of the remote
+	 * @return true if the remote presented a key different from its pinned key, links to it should not be initialized using
+	 * the pinned key until the pin expires
+	 */
+	public synchronized boolean isMismatched(Object referenceObject) {
+		Pin pin = getPin(referenceObject, System.currentTimeMillis());
+		return pin != null && pin.mismatch;
+	}
+
+}
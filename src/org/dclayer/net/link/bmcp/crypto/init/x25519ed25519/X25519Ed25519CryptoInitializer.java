@@ -0,0 +1,275 @@
+package org.dclayer.net.link.bmcp.crypto.init.x25519ed25519;
+
+import java.nio.charset.StandardCharsets;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.bouncycastle.crypto.params.X25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.X25519PublicKeyParameters;
+import org.dclayer.crypto.Crypto;
+import org.dclayer.exception.crypto.CryptoException;
+import org.dclayer.net.Data;
+import org.dclayer.net.link.Link;
+import org.dclayer.net.link.bmcp.crypto.AesGcmCounterPacketCipher;
+import org.dclayer.net.link.bmcp.crypto.init.CryptoInitPacketComponentI;
+import org.dclayer.net.link.bmcp.crypto.init.CryptoInitializationMethod;
+import org.dclayer.net.link.bmcp.crypto.init.CryptoInitializer;
+import org.dclayer.net.link.bmcp.crypto.init.resume.CryptoSessionCache;
+import org.dclayer.net.link.bmcp.crypto.init.resume.CryptoSessionTicket;
+import org.dclayer.net.link.bmcp.crypto.init.x25519ed25519.component.X25519Ed25519InitializationMessage;
+import org.dclayer.net.link.bmcp.crypto.init.x25519ed25519.component.X25519Ed25519KeyMessage;
+import org.dclayer.net.link.bmcp.crypto.init.x25519ed25519.component.X25519Ed25519PubkeyMessage;
+import org.dclayer.net.packetcomponent.OnReceive;
+
+/**
+ * {@link CryptoInitializer} using an ephemeral X25519 key agreement, authenticated by Ed25519 signatures.<br />
+ * both sides first send their ephemeral public key. once a side received the remote's ephemeral public key, it sends
+ * a key message containing its ephemeral public key again, its Ed25519 public key and a signature over both ephemeral
+ * public keys, and starts decrypting with the key derived for its role. the key message can be processed on its own,
+ * so it does not matter which message arrives first.<br />
+ * as the Ed25519 public key is sent in the message it signs, it is checked against the key pinned for the remote in the
+ * {@link Ed25519KeyPins}, otherwise a man in the middle could simply sign with its own key. on a mismatch, the link is aborted
+ * and this method is not used for the remote until its pin expires.
+ */
+public class X25519Ed25519CryptoInitializer implements CryptoInitializer {
+
+	public static final int KEY_NUMBYTES = 16;
+
+	private static final Data LABEL_SIGNATURE_INITIATOR = label("dcl x25519 signature initiator");
+	private static final Data LABEL_SIGNATURE_RESPONDER = label("dcl x25519 signature responder");
+	private static final Data LABEL_KEY_INITIATOR = label("dcl x25519 key initiator");
+	private static final Data LABEL_KEY_RESPONDER = label("dcl x25519 key responder");
+
+	private static Data label(String label) {
+		return new Data(label.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	//
+
+	private Link link;
+
+	private X25519Ed25519InitializationMessage receiveMessage = new X25519Ed25519InitializationMessage(this);
+	private X25519Ed25519InitializationMessage sendMessage = new X25519Ed25519InitializationMessage();
+
+	private AsymmetricCipherKeyPair signingKeyPair;
+	private Data signingPubkeyData;
+
+	private X25519PrivateKeyParameters ephemeralPrivateKey;
+	private Data ephemeralPubkeyData;
+
+	private Data remoteEphemeralPubkeyData;
+
+	private boolean receivedKey = false;
+	private boolean sentKey = false;
+
+	private boolean receivedPubkey = false;
+	private boolean sentPubkey = false;
+
+	private Runnable pubkeyAckCallbackRunnable;
+
+	private boolean ack = false;
+
+	public X25519Ed25519CryptoInitializer(Link link) {
+
+		this.link = link;
+		this.signingKeyPair = link.getLinkCryptoInitializationEd25519KeyPair();
+		this.signingPubkeyData = Crypto.toData((Ed25519PublicKeyParameters) signingKeyPair.getPublic());
+
+		AsymmetricCipherKeyPair ephemeralKeyPair = Crypto.generateX25519KeyPair();
+		this.ephemeralPrivateKey = (X25519PrivateKeyParameters) ephemeralKeyPair.getPrivate();
+		this.ephemeralPubkeyData = Crypto.toData((X25519PublicKeyParameters) ephemeralKeyPair.getPublic());
+
+	}
+
+	@Override
+	public CryptoInitializationMethod getCryptoInitializationMethod() {
+		return CryptoInitializationMethod.CRYPTO_INIT_X25519_ED25519_AES128_GCM_COUNTER;
+	}
+
+	@Override
+	public CryptoInitPacketComponentI getReceivePacketComponent() {
+		return receiveMessage;
+	}
+
+	@Override
+	public boolean processPacketComponent() {
+		receiveMessage.callOnReceive();
+		return ack;
+	}
+
+	@Override
+	public CryptoInitPacketComponentI getSendPacketComponent(Runnable ackCallbackRunnable) {
+
+		if(receivedPubkey && !sentKey) {
+
+			try {
+				sendKey();
+			} catch (CryptoException e) {
+				abort(e);
+				return null;
+			}
+			sentKey = true;
+
+		} else if(!sentPubkey) {
+
+			sendPubkey();
+			sentPubkey = true;
+			pubkeyAckCallbackRunnable = ackCallbackRunnable;
+
+		} else {
+
+			return null;
+
+		}
+
+		return sendMessage;
+
+	}
+
+	private void abort(CryptoException e) {
+		link.abortCryptoInitialization(e);
+	}
+
+	private static Data signatureLabel(boolean initiator) {
+		return initiator ? LABEL_SIGNATURE_INITIATOR : LABEL_SIGNATURE_RESPONDER;
+	}
+
+	/**
+	 * derives the key the given side of the link decrypts with
+	 * @param sharedData the X25519 shared secret
+	 * @param initiator true if the key for the initiator of the link should be derived, false for the responder
+	 * @param remoteEphemeralPubkeyData the remote's ephemeral public key
+	 * @return the derived key
+	 */
+	private Data deriveKey(Data sharedData, boolean initiator, Data remoteEphemeralPubkeyData) {
+		Data initiatorEphemeralPubkeyData = link.isInitiator() ? ephemeralPubkeyData : remoteEphemeralPubkeyData;
+		Data responderEphemeralPubkeyData = link.isInitiator() ? remoteEphemeralPubkeyData : ephemeralPubkeyData;
+		Data keyData = Crypto.sha256(initiator ? LABEL_KEY_INITIATOR : LABEL_KEY_RESPONDER, sharedData, initiatorEphemeralPubkeyData, responderEphemeralPubkeyData);
+		keyData.resize(KEY_NUMBYTES);
+		return keyData;
+	}
+
+	private void sendPubkey() {
+		sendMessage.set(sendMessage.pubkeyMessage).ephemeralPubkey.setData(ephemeralPubkeyData);
+	}
+
+	/**
+	 * sends the key message and starts decrypting with the key derived for our role
+	 */
+	private void sendKey() throws CryptoException {
+
+		Data sharedData = Crypto.x25519(ephemeralPrivateKey, remoteEphemeralPubkeyData);
+		Data inKeyData = deriveKey(sharedData, link.isInitiator(), remoteEphemeralPubkeyData);
+
+		// sign both ephemeral public keys, including the remote's prevents replaying this message to other links
+		Data signatureData = Crypto.ed25519Sign((Ed25519PrivateKeyParameters) signingKeyPair.getPrivate(), signatureLabel(link.isInitiator()), ephemeralPubkeyData, remoteEphemeralPubkeyData);
+
+		X25519Ed25519KeyMessage keyMessage = sendMessage.set(sendMessage.keyMessage);
+		keyMessage.signingPubkey.setData(signingPubkeyData);
+		keyMessage.ephemeralPubkey.setData(ephemeralPubkeyData);
+		keyMessage.signature.setData(signatureData);
+
+		link.applyNewInPacketCipher(new AesGcmCounterPacketCipher(false, inKeyData.copyToByteArray()));
+
+	}
+
+	/**
+	 * stores a {@link CryptoSessionTicket} derived from both keys, so that the next link to this remote can skip the key agreement
+	 */
+	private void storeCryptoSessionTicket(Data remoteSigningPubkeyData, Data sharedData, Data remoteEphemeralPubkeyData) {
+
+		CryptoSessionCache cryptoSessionCache = link.getCryptoSessionCache();
+		if(cryptoSessionCache == null) {
+			return;
+		}
+
+		cryptoSessionCache.put(link.getReferenceObject(), CryptoSessionTicket.fromKeys(
+				Crypto.sha1(signingPubkeyData),
+				Crypto.sha1(remoteSigningPubkeyData),
+				deriveKey(sharedData, true, remoteEphemeralPubkeyData),
+				deriveKey(sharedData, false, remoteEphemeralPubkeyData)));
+
+	}
+
+	@OnReceive(index = X25519Ed25519InitializationMessage.PUBKEY)
+	public void onReceivePubkeyMessage(X25519Ed25519PubkeyMessage pubkeyMessage) {
+
+		if(!receivedPubkey) {
+			Data pubkeyData = pubkeyMessage.ephemeralPubkey.getData();
+			if(pubkeyData.length() != Crypto.X25519_KEY_NUMBYTES) {
+				abort(new CryptoException(String.format("invalid X25519 public key length: %d", pubkeyData.length())));
+				return;
+			}
+			if(remoteEphemeralPubkeyData == null) {
+				this.remoteEphemeralPubkeyData = pubkeyData.copy();
+			} else if(!remoteEphemeralPubkeyData.equals(pubkeyData)) {
+				abort(new CryptoException("ephemeral public key does not match the one received in the key message"));
+				return;
+			}
+		}
+
+		receivedPubkey = true;
+		ack = false;
+
+	}
+
+	@OnReceive(index = X25519Ed25519InitializationMessage.KEY)
+	public void onReceiveKeyMessage(X25519Ed25519KeyMessage keyMessage) {
+
+		if(receivedKey) {
+			// duplicate, do not apply the out cipher again as that would reuse nonces
+			ack = true;
+			return;
+		}
+
+		Data remoteSigningPubkeyData = keyMessage.signingPubkey.getData();
+		Data keyEphemeralPubkeyData = keyMessage.ephemeralPubkey.getData();
+
+		if(remoteEphemeralPubkeyData != null && !remoteEphemeralPubkeyData.equals(keyEphemeralPubkeyData)) {
+			abort(new CryptoException("ephemeral public key in key message does not match the one received before"));
+			return;
+		}
+
+		if(!Crypto.ed25519Verify(remoteSigningPubkeyData, keyMessage.signature.getData(), signatureLabel(!link.isInitiator()), keyEphemeralPubkeyData, ephemeralPubkeyData)) {
+			abort(new CryptoException("invalid key message signature"));
+			return;
+		}
+
+		Data remoteSigningPubkeyFingerprint = Crypto.sha1(remoteSigningPubkeyData);
+		if(!link.getEd25519KeyPins().verify(link.getReferenceObject(), remoteSigningPubkeyFingerprint)) {
+			abort(new CryptoException(String.format("Ed25519 public key %s does not match the key pinned for this remote, falling back to other crypto initialization methods until the pin expires", remoteSigningPubkeyFingerprint)));
+			return;
+		}
+
+		Data sharedData;
+		try {
+			sharedData = Crypto.x25519(ephemeralPrivateKey, keyEphemeralPubkeyData);
+			link.applyNewOutPacketCipher(new AesGcmCounterPacketCipher(true, deriveKey(sharedData, !link.isInitiator(), keyEphemeralPubkeyData).copyToByteArray()));
+		} catch (CryptoException e) {
+			abort(e);
+			return;
+		}
+
+		if(remoteEphemeralPubkeyData == null) {
+			remoteEphemeralPubkeyData = keyEphemeralPubkeyData.copy();
+		}
+
+		storeCryptoSessionTicket(remoteSigningPubkeyData.copy(), sharedData, remoteEphemeralPubkeyData);
+
+		if(pubkeyAckCallbackRunnable != null) {
+			pubkeyAckCallbackRunnable.run();
+			pubkeyAckCallbackRunnable = null;
+		}
+
+		receivedKey = true;
+		ack = true;
+
+	}
+
+	@Override
+	public boolean completedSuccessfully() {
+		return sentKey && receivedKey;
+	}
+
+}
@@ -0,0 +1,34 @@
+package org.dclayer.net.link.bmcp.crypto.init.x25519ed25519.component;
+
+import org.dclayer.net.PacketComponentI;
+import org.dclayer.net.link.bmcp.crypto.init.CryptoInitPacketComponentI;
+import org.dclayer.net.link.bmcp.crypto.init.CryptoInitializationMethod;
+import org.dclayer.net.packetcomponent.Child;
+import org.dclayer.net.packetcomponent.SwitchPacketComponent;
+
+public class X25519Ed25519InitializationMessage extends SwitchPacketComponent<PacketComponentI> implements CryptoInitPacketComponentI {
+	
+	public static final int PUBKEY = 0;
+	public static final int KEY = 1;
+	
+	//
+	
+	@Child(index = PUBKEY) public X25519Ed25519PubkeyMessage pubkeyMessage;
+	@Child(index = KEY) public X25519Ed25519KeyMessage keyMessage;
+	
+	//
+	
+	public X25519Ed25519InitializationMessage() {
+		
+	}
+	
+	public X25519Ed25519InitializationMessage(Object onReceiveObject) {
+		super(onReceiveObject);
+	}
+	
+	@Override
+	public CryptoInitializationMethod getCryptoInitializationMethod() {
+		return CryptoInitializationMethod.CRYPTO_INIT_X25519_ED25519_AES128_GCM_COUNTER;
+	}
+
+}
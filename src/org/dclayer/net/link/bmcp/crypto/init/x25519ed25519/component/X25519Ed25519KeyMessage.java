@@ -0,0 +1,13 @@
+package org.dclayer.net.link.bmcp.crypto.init.x25519ed25519.component;
+
+import org.dclayer.net.component.DataComponent;
+import org.dclayer.net.packetcomponent.Child;
+import org.dclayer.net.packetcomponent.ParentPacketComponent;
+
+public class X25519Ed25519KeyMessage extends ParentPacketComponent {
+	
+	@Child(index = 0) public DataComponent signingPubkey;
+	@Child(index = 1) public DataComponent ephemeralPubkey;
+	@Child(index = 2) public DataComponent signature;
+	
+}
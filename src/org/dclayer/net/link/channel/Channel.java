@@ -93,9 +93,34 @@ public abstract class Channel implements HierarchicalLevel {
 			if(FlowControl.PRIO_RESEND < flowControlProperties.priority) flowControlProperties.priority = FlowControl.PRIO_RESEND; // set resend priority
 		}
 		Log.debug(this, "resending %s", packetBackup);
+		getLink().onPacketLost(packetBackup);
 		getLink().send(packetBackup);
 	}
 	
+	/**
+	 * called when the remote acknowledged a sent {@link PacketBackup} of this channel
+	 * @param packetBackup the acknowledged {@link PacketBackup}
+	 */
+	public void onPacketAcknowledged(PacketBackup packetBackup) {
+		getLink().onPacketAcknowledged(packetBackup);
+	}
+	
+	/**
+	 * @return the amount of bytes this channel can currently receive, reported to the remote in channel block status reports.
+	 * 0 if this channel does not limit it
+	 */
+	public long getReceiveWindow() {
+		return 0;
+	}
+	
+	/**
+	 * called when the remote reported the amount of bytes it can currently receive on this channel
+	 * @param receiveWindow the amount of bytes the remote can currently receive on this channel
+	 */
+	public void onReceiveWindow(long receiveWindow) {
+		
+	}
+	
 	/**
 	 * called when this channel is actually opened (either requested by the
 	 * remote and accepted or requested locally and confirmed by the remote)
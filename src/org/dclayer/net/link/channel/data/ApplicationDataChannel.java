@@ -66,7 +66,7 @@ public class ApplicationDataChannel extends ThreadDataChannel {
 	}
 	
 	@Override
-	public void send(Data data) {
+	public void send(Data data) throws BufException {
 		super.send(data);
 		flush();
 	}
@@ -3,6 +3,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.dclayer.exception.crypto.CryptoException;
 import org.dclayer.exception.net.buf.BufException;
+import org.dclayer.exception.net.buf.EndOfBufException;
 import org.dclayer.meta.Log;
 import org.dclayer.net.Data;
 import org.dclayer.net.buf.AsyncPipeByteBuf;
@@ -15,6 +16,8 @@ import org.dclayer.net.link.channel.Channel;
 import org.dclayer.net.link.channel.component.ChannelDataComponent;
 import org.dclayer.net.link.channel.management.ManagementChannel;
 import org.dclayer.net.link.control.FlowControl;
+import org.dclayer.net.link.control.InFlightWindow;
+import org.dclayer.net.link.control.discontinuousblock.DiscontinuousBlock;
 import org.dclayer.net.link.control.discontinuousblock.DiscontinuousBlockCollection;
 import org.dclayer.net.link.control.idcollection.IdCollection;
 import org.dclayer.net.link.control.packetbackup.PacketBackup;
@@ -26,12 +29,19 @@ import org.dclayer.net.link.control.packetbackup.PacketBackupCollection;
  */
 public abstract class DataChannel extends Channel implements ListenerByteBufInterface {
 	
+	/**
+	 * the capacity of the {@link #asyncPipeByteBuf}, a power of two
+	 */
+	public static final int RECEIVE_PIPE_CAPACITY = 256 * 1024;
+	
 	/**
 	 * the {@link AsyncPipeByteBuf} that is used to pipe received data from the {@link DataChannel#read(ByteBuf, int)} method
 	 * (which is invoked on the {@link Link} thread) to the {@link DataChannel#readConstantly(ByteBuf)} method
-	 * (which is invoked on this {@link DataChannel}'s Thread {@link DataChannel#thread}). 
+	 * (which is invoked on this {@link DataChannel}'s Thread {@link DataChannel#thread}).
+	 * receiving never blocks on it, packets that do not fit are dropped and resent by the remote.
+	 * its free space is reported to the remote as receive window, which limits the remote's {@link InFlightWindow}.
 	 */
-	private AsyncPipeByteBuf asyncPipeByteBuf = new AsyncPipeByteBuf(1024);
+	private AsyncPipeByteBuf asyncPipeByteBuf = new AsyncPipeByteBuf(RECEIVE_PIPE_CAPACITY);
 	
 	private int sendDataByteBufSize = 256; // TODO
 	private DataByteBuf sendDataByteBuf = new DataByteBuf(sendDataByteBufSize);
@@ -60,6 +70,12 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 	 */
 	private DiscontinuousBlockCollection receivedDiscontinuousBlockCollection = new DiscontinuousBlockCollection(this, 1024);
 	
+	/**
+	 * {@link InFlightWindow} limiting the amount of sent packets not acknowledged yet,
+	 * the remote's receive window is assumed to be its whole receive pipe until it reports it
+	 */
+	private InFlightWindow inFlightWindow = new InFlightWindow(InFlightWindow.DEFAULT_MAX_PACKETS, InFlightWindow.DEFAULT_MAX_BYTES, RECEIVE_PIPE_CAPACITY);
+	
 	/**
 	 * {@link ReentrantLock} locked while receiving
 	 */
@@ -68,6 +84,10 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 	 * {@link ReentrantLock} locked while sending
 	 */
 	private ReentrantLock sendLock = new ReentrantLock();
+	/**
+	 * {@link ReentrantLock} locked while writing to the send buffer, instead of a monitor so that virtual threads do not pin their carrier
+	 */
+	private ReentrantLock writeLock = new ReentrantLock();
 	
 	public DataChannel(Link link, long channelId, String channelName) {
 		super(link, channelId, channelName);
@@ -88,6 +108,27 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 		return receivedDataIdCollection;
 	}
 	
+	/**
+	 * @return the {@link InFlightWindow} limiting the amount of sent packets not acknowledged yet
+	 */
+	public InFlightWindow getInFlightWindow() {
+		return inFlightWindow;
+	}
+	
+	/**
+	 * @return the free space of the {@link #asyncPipeByteBuf}. bytes buffered out of order are not subtracted,
+	 * the remote still counts them as in flight
+	 */
+	@Override
+	public long getReceiveWindow() {
+		return asyncPipeByteBuf.writable();
+	}
+	
+	@Override
+	public void onReceiveWindow(long receiveWindow) {
+		inFlightWindow.setReceiveWindow(receiveWindow);
+	}
+	
 	// locks receiveLock
 	@Override
 	public void receiveLinkPacketBody(long dataId, long channelId, ByteBuf byteBuf, int length) throws BufException {
@@ -100,6 +141,12 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 
 			Log.debug(this, "received a dataId (%d) below this channel's dataIdOffset (%d), ignoring", dataId, dataIdOffset);
 
+		} else if(asyncPipeByteBuf.writable() - receivedDiscontinuousBlockCollection.getNumBytes() < length) {
+			
+			// the reader is behind, don't block the link's receiving thread. the packet is not acknowledged, so the remote resends it
+			Log.debug(this, "dropping dataId %d (length %d), only %d bytes can be read without blocking", dataId, length, asyncPipeByteBuf.writable() - receivedDiscontinuousBlockCollection.getNumBytes());
+			getLink().onDataDrop();
+			
 		} else {
 
 			receivedDataIdCollection.add(dataId);
@@ -109,6 +156,7 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 				// the received block is in order, read directly & set dataIdOffset+1
 				read(byteBuf, length);
 				receivedDiscontinuousBlockCollection.setDataIdOffset(dataId + 1);
+				getLink().onDataReceive();
 
 			} else {
 
@@ -118,10 +166,13 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 					// put() returned true, there is no gap anymore after the last successfully read block -> read
 					do {
 
-						Data data = receivedDiscontinuousBlockCollection.clearFirst().getData();
-						read(data);
+						DiscontinuousBlock discontinuousBlock = receivedDiscontinuousBlockCollection.clearFirst();
+						read(discontinuousBlock.getData());
+						// the data was copied into the pipe, return the buffer so that only out-of-order blocks hold one
+						discontinuousBlock.free();
 
 					} while(receivedDiscontinuousBlockCollection.available());
+					getLink().onDataReceive();
 					
 				} else {
 					
@@ -139,7 +190,7 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 	}
 	
 	/**
-	 * processes the decrypted packet body data, passing it on to {@link DataChannel#syncPipeByteBuf}
+	 * processes the decrypted packet body data, passing it on to {@link DataChannel#asyncPipeByteBuf}, which has space for it
 	 * @param data the {@link Data} holding the decrypted packet body data
 	 */
 	private void read(Data data) {
@@ -153,7 +204,7 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 	}
 	
 	/**
-	 * processes the decrypted packet body data, passing it on to {@link DataChannel#syncPipeByteBuf}
+	 * processes the decrypted packet body data, passing it on to {@link DataChannel#asyncPipeByteBuf}, which has space for it
 	 * @param byteBuf the {@link ByteBuf} holding the decrypted packet body data
 	 * @param length the length of the decrypted packet body data
 	 */
@@ -168,11 +219,35 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 	}
 	
 	/**
-	 * sends the given {@link ChannelDataComponent}
+	 * sends the given {@link ChannelDataComponent}, blocking only while the {@link InFlightWindow} is full
+	 * @param channelData the {@link Data} to send
+	 * @throws EndOfBufException if this {@link DataChannel} was closed
+	 * @throws BufException if the calling thread was interrupted while waiting for space in the {@link InFlightWindow}
+	 */
+	protected void send(Data channelData) throws BufException {
+		if(!inFlightWindow.tryAcquire(channelData.length())) {
+			// nothing is sent until acknowledgements arrive, make sure the remote is asked for them
+			getLink().onSendBlocked();
+			boolean acquired;
+			try {
+				acquired = inFlightWindow.acquire(channelData.length());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new BufException(e);
+			}
+			if(!acquired) {
+				throw new EndOfBufException();
+			}
+		}
+		queue(channelData);
+	}
+	
+	/**
+	 * queues the given {@link ChannelDataComponent} for transmission, space in the {@link InFlightWindow} must be acquired before
 	 * @param channelData the {@link Data} to send
 	 */
 	// locks sendLock
-	protected void send(Data channelData) {
+	private void queue(Data channelData) {
 		
 		sendLock.lock();
 
@@ -184,19 +259,30 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 		sentDataIdCollection.add(dataId);
 
 		PacketBackup packetBackup = sentPacketBackupCollection.put(dataId, getChannelId(), FlowControl.PRIO_DATA);
+		packetBackup.getPacketProperties().payloadLength = channelData.length();
+		// released once the backup is cleared, i.e. when the remote acknowledged it
+		packetBackup.getPacketProperties().setInFlightWindow(inFlightWindow);
 		Data data = packetBackup.getPacketProperties().data;
 
 		Log.debug(this, "sending %d bytes", channelData.length());
 		
+		if(getLink().writePacketParallel(dataId, getChannelId(), channelData, packetBackup)) {
+			// the link queues the packet for transmission once it is encrypted
+			sendLock.unlock();
+			return;
+		}
+		
 		try {
 			getLink().writePacket(dataId, getChannelId(), channelData, data);
 		} catch (BufException e) {
 			Log.exception(this, e);
 			sendLock.unlock();
+			packetBackup.getPacketProperties().releaseInFlightWindow();
 			return;
 		} catch (CryptoException e) {
 			Log.exception(this, e);
 			sendLock.unlock();
+			packetBackup.getPacketProperties().releaseInFlightWindow();
 			return;
 		}
 		
@@ -204,22 +290,35 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 
 		sendLock.unlock();
 
-		getLink().send(packetBackup, true);
+		// the InFlightWindow provides backpressure, don't wait until this packet is actually sent
+		getLink().send(packetBackup, false);
 
 	}
 	
-	public synchronized void flush() {
-		Data data = sendDataByteBuf.getData();
-		data.reset(0, sendDataByteBuf.getPosition());
-		send(data);
-		sendDataByteBuf.prepare(sendDataByteBufSize);
+	// locks writeLock
+	public void flush() throws BufException {
+		writeLock.lock();
+		try {
+			Data data = sendDataByteBuf.getData();
+			data.reset(0, sendDataByteBuf.getPosition());
+			send(data);
+			sendDataByteBuf.prepare(sendDataByteBufSize);
+		} finally {
+			writeLock.unlock();
+		}
 	}
 	
+	// locks writeLock
 	@Override
-	public synchronized void onWrite(byte b) throws BufException {
-		sendDataByteBuf.write(b);
-		if(sendDataByteBuf.getPosition() >= sendDataByteBufSize) {
-			flush();
+	public void onWrite(byte b) throws BufException {
+		writeLock.lock();
+		try {
+			sendDataByteBuf.write(b);
+			if(sendDataByteBuf.getPosition() >= sendDataByteBufSize) {
+				flush();
+			}
+		} finally {
+			writeLock.unlock();
 		}
 	}
 	
@@ -232,6 +331,13 @@ public abstract class DataChannel extends Channel implements ListenerByteBufInte
 		asyncPipeByteBuf.end();
 	}
 	
+	/**
+	 * closes the {@link InFlightWindow}, threads waiting to send fail with an {@link EndOfBufException}
+	 */
+	public void endWriteByteBuf() {
+		inFlightWindow.close();
+	}
+	
 	public ByteBuf getReadByteBuf() {
 		return asyncPipeByteBuf;
 	}
@@ -2,13 +2,14 @@ package org.dclayer.net.link.channel.data;
 
 import org.dclayer.net.buf.ByteBuf;
 import org.dclayer.net.link.Link;
+import org.dclayer.threadswitch.ThreadMode;
 
 public abstract class ThreadDataChannel extends DataChannel implements Runnable {
 
 	/**
-	 * Thread that is calling the abstract {@link DataChannel#readConstantly(ByteBuf)} function
+	 * Thread that is calling the abstract {@link DataChannel#readConstantly(ByteBuf)} function, created using the default {@link ThreadMode}
 	 */
-	private Thread thread = new Thread(this);
+	private Thread thread;
 
 	public ThreadDataChannel(Link link, long channelId, String channelName) {
 		super(link, channelId, channelName);
@@ -16,7 +17,7 @@ public abstract class ThreadDataChannel extends DataChannel implements Runnable
 	
 	@Override
 	public void onOpen(boolean initiator) {
-		thread.start();
+		thread = ThreadMode.start(String.format("%s reader", this), this);
 		onOpenChannel(initiator);
 	}
 	
@@ -31,6 +32,7 @@ public abstract class ThreadDataChannel extends DataChannel implements Runnable
 	@Override
 	public final void onClose() {
 		endReadByteBuf();
+		endWriteByteBuf();
 		onCloseChannel();
 	}
 	
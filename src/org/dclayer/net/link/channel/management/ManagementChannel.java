@@ -15,15 +15,27 @@ import org.dclayer.net.link.control.ResendPacketQueue;
 import org.dclayer.net.link.control.discontinuousblock.DiscontinuousBlock;
 import org.dclayer.net.link.control.discontinuousblock.DiscontinuousBlockCollection;
 import org.dclayer.net.link.control.idcollection.IdCollection;
+import org.dclayer.net.link.control.packetbackup.FlowControlProperties;
 import org.dclayer.net.link.control.packetbackup.PacketBackup;
 import org.dclayer.net.link.control.packetbackup.PacketBackupCollection;
 import org.dclayer.net.link.control.packetbackup.UnreliablePacketBackupCollection;
+import org.dclayer.threadswitch.ThreadMode;
 
 /**
  * an abstract base class for management channel implementations
  */
 public abstract class ManagementChannel extends Channel {
 	
+	/**
+	 * the factor the resend delay (initially the {@link Link}'s retransmission timeout) is multiplied with for each resend
+	 */
+	public static final double RESEND_DELAY_FACTOR = 2;
+	/**
+	 * the maximum amount of times a packet is resent. with {@link #RESEND_DELAY_FACTOR}, a packet is given up on
+	 * 127 retransmission timeouts after it was sent, i.e. after 12.7 seconds at the minimum retransmission timeout
+	 */
+	public static final int RESEND_MAX_ATTEMPTS = 6;
+	
 	/**
 	 * {@link IdCollection} of all sent data ids
 	 */
@@ -66,46 +78,65 @@ public abstract class ManagementChannel extends Channel {
 	 */
 	private long unreliableChannelId;
 	
-	private boolean exitResendThread = false;
-	
 	/**
-	 * {@link ResendPacketQueue} for automatically resending lost packets
+	 * true if packets should not be resent anymore
 	 */
-	private ResendPacketQueue resendPacketQueue = new ResendPacketQueue(this);
+	private boolean stopResending = false;
+	
 	/**
-	 * Thread that resends queued packet from the {@link ResendPacketQueue}
+	 * {@link ResendPacketQueue} for automatically resending lost packets
 	 */
-	private Thread resendThread = new Thread() {
-		@Override
-		public void run() {
-			for(;;) {
-				// wait until the next PacketBackup is due for resend
-				PacketBackup packetBackup = resendPacketQueue.waitAndPopNext();
-				boolean resend = packetBackup.getResendPacketQueueProperties().resend(ManagementChannel.this);
-				Log.debug(ManagementChannel.this, "%s, resend=%s", packetBackup, resend);
-				if(!resend && resendPacketQueue.timeout()) {
-					// timeout
-					timeout();
-					return;
-				} else if(exitResendThread) {
-					Log.debug(ManagementChannel.this, "resend thread: exiting");
-					return;
-				} else {
-					// resend this packet
-					resend(packetBackup);
-					resendPacketQueue.queue(packetBackup); // requeue the packet
-				}
-			}
-		}
-	};
+	private ResendPacketQueue resendPacketQueue;
 	
 	public ManagementChannel(Link link, long channelId, long unreliableChannelId, String channelName) {
 		super(link, channelId, channelName);
 		this.unreliableChannelId = unreliableChannelId;
+		this.resendPacketQueue = new ResendPacketQueue(this, link.getResendTimerWheel());
 	}
 	
-	public void exitResendThread() {
-		exitResendThread = true;
+	/**
+	 * stops resending packets that were not acknowledged
+	 */
+	public void stopResending() {
+		stopResending = true;
+	}
+	
+	/**
+	 * called by the {@link ResendPacketQueue} when the given {@link PacketBackup} is due for resend
+	 * @param packetBackup the {@link PacketBackup} that is due for resend
+	 */
+	public void onResendDue(PacketBackup packetBackup) {
+		boolean stopResending, resend, timeout;
+		// the PacketBackupCollection clears acknowledged packets while holding its lock, the remote might have acknowledged this one since it became due
+		synchronized(sentPacketBackupCollection) {
+			if(!packetBackup.getUsed()) {
+				Log.debug(this, "not resending, acknowledged since it became due: %s", packetBackup);
+				return;
+			}
+			stopResending = this.stopResending;
+			resend = packetBackup.getResendPacketQueueProperties().resend(this);
+			timeout = !resend && resendPacketQueue.timeout();
+			if(!stopResending && !timeout) {
+				// requeue the packet before resending it, an acknowledgement arriving in between removes it again
+				resendPacketQueue.queue(packetBackup);
+			}
+		}
+		Log.debug(this, "%s, resend=%s", packetBackup, resend);
+		if(stopResending) {
+			Log.debug(this, "not resending, resending was stopped");
+		} else if(timeout) {
+			// timeout. the ResendTimerWheel's thread is shared by all links, kill this one on a thread of its own
+			this.stopResending = true;
+			ThreadMode.start(String.format("%s timeout", this), new Runnable() {
+				@Override
+				public void run() {
+					timeout();
+				}
+			});
+		} else {
+			// resend this packet
+			resend(packetBackup);
+		}
 	}
 	
 	@Override
@@ -256,7 +287,8 @@ public abstract class ManagementChannel extends Channel {
 		sendLock.unlock();
 		
 		if(discontinuousBlock == null) {
-			packetBackup.getResendPacketQueueProperties().setResend(System.nanoTime()/1000000L, 1000, 1.0, 8, resendPacketQueue);
+			long rtoMillis = getLink().getRtoNanos()/1000000L;
+			packetBackup.getResendPacketQueueProperties().setResend(System.nanoTime()/1000000L, rtoMillis, RESEND_DELAY_FACTOR, RESEND_MAX_ATTEMPTS, resendPacketQueue);
 		} else {
 			discontinuousBlock.setReplyPacketBackup(packetBackup);
 		}
@@ -301,6 +333,17 @@ public abstract class ManagementChannel extends Channel {
 		
 	}
 	
+	@Override
+	public void onPacketAcknowledged(PacketBackup packetBackup) {
+		// management messages are acknowledged or replied to right away, measure the round trip time using them.
+		// (Karn's algorithm: only use packets that were sent once, the acknowledgement is ambiguous otherwise)
+		FlowControlProperties flowControlProperties = packetBackup.getFlowControlProperties();
+		if(flowControlProperties.numSent == 1) {
+			getLink().onRttSample(System.nanoTime() - flowControlProperties.lastSentTime);
+		}
+		super.onPacketAcknowledged(packetBackup);
+	}
+	
 	/**
 	 * clears the specified {@link PacketBackup}s from this channel's {@link PacketBackupCollection}
 	 * @param startDataId
@@ -331,7 +374,6 @@ public abstract class ManagementChannel extends Channel {
 	
 	@Override
 	public final void onOpen(boolean initiator) {
-		resendThread.start();
 		onOpenChannel(initiator);
 	}
 	
@@ -369,6 +411,21 @@ public abstract class ManagementChannel extends Channel {
 	 */
 	public abstract void onGapReceive();
 	
+	/**
+	 * reports that one of the data channels received data in order, which should be acknowledged soon
+	 */
+	public abstract void onDataReceive();
+	
+	/**
+	 * reports that one of the data channels dropped a received packet, which the remote has to resend
+	 */
+	public abstract void onDataDrop();
+	
+	/**
+	 * reports that one of the data channels can not send until the remote acknowledges data it sent before
+	 */
+	public abstract void onSendBlocked();
+	
 	public abstract void onTimeout();
 	
 }
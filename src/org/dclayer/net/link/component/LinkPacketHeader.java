@@ -45,6 +45,8 @@ public class LinkPacketHeader extends PacketComponent {
 	
 	@Override
 	public void read(ByteBuf byteBuf) throws ParseException, BufException {
+		// each of the three flexnums is at least one byte long, fail early on truncated packets
+		byteBuf.ensure(3);
 		(dataId = ownDataId).read(byteBuf);
 		(channelId = ownChannelId).read(byteBuf);
 		(channelDataLength = ownChannelDataLength).read(byteBuf);
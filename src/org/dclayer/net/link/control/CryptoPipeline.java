@@ -0,0 +1,183 @@
+package org.dclayer.net.link.control;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.meta.Log;
+import org.dclayer.net.link.Link;
+import org.dclayer.threadswitch.ThreadMode;
+
+/**
+ * a pool of worker threads encrypting and decrypting the packets of all {@link Link}s of a service in parallel.<br />
+ * jobs are submitted through a {@link CryptoPipelineStage}, which delivers them in submission order once processed.
+ * after {@link #shutdown()}, the worker threads exit and jobs are processed on the submitting thread.<br />
+ * jobs whose delivery may block are delivered by a shared delivery executor, which only holds a thread per {@link CryptoPipelineStage}
+ * while that stage has jobs to deliver, so that idle links do not keep a thread each.
+ */
+public class CryptoPipeline implements HierarchicalLevel {
+	
+	/**
+	 * a worker thread processing {@link CryptoPipelineJob}s
+	 */
+	private class Worker extends Thread {
+		
+		private int index;
+		
+		public Worker(int index) {
+			this.index = index;
+			this.start();
+		}
+		
+		@Override
+		public void run() {
+			for(;;) {
+				
+				CryptoPipelineJob cryptoPipelineJob;
+				try {
+					cryptoPipelineJob = jobs.take();
+				} catch (InterruptedException e) {
+					if(shutdown) {
+						Log.debug(CryptoPipeline.this, "%s exiting", this);
+						return;
+					}
+					Log.exception(CryptoPipeline.this, e, "%s interrupted", this);
+					continue;
+				}
+				
+				execute(cryptoPipelineJob);
+				
+			}
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("CryptoPipeline worker %d", index);
+		}
+		
+	}
+	
+	//
+	
+	/**
+	 * the jobs waiting to be processed
+	 */
+	private LinkedBlockingQueue<CryptoPipelineJob> jobs = new LinkedBlockingQueue<>();
+	
+	private Worker[] workers;
+	
+	/**
+	 * the amount of seconds an idle delivery thread is kept before it exits
+	 */
+	private static final long DELIVERY_THREAD_KEEP_ALIVE_SECONDS = 60;
+	
+	/**
+	 * delivers the jobs of {@link CryptoPipelineStage}s whose delivery may block, starting threads using the default {@link ThreadMode}
+	 * when all idle ones are busy
+	 */
+	private ThreadPoolExecutor deliveryExecutor;
+	
+	/**
+	 * true once {@link #shutdown()} was called
+	 */
+	private volatile boolean shutdown = false;
+	
+	private HierarchicalLevel parentHierarchicalLevel;
+	
+	/**
+	 * creates a new {@link CryptoPipeline} and starts its worker threads
+	 * @param numThreads the amount of worker threads to start
+	 */
+	public CryptoPipeline(int numThreads, HierarchicalLevel parentHierarchicalLevel) {
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+		this.workers = new Worker[numThreads];
+		for(int i = 0; i < numThreads; i++) {
+			workers[i] = new Worker(i);
+		}
+		final AtomicInteger numDeliveryThreads = new AtomicInteger();
+		this.deliveryExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, DELIVERY_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				return ThreadMode.getDefault().newThread(String.format("CryptoPipeline delivery %d", numDeliveryThreads.getAndIncrement()), runnable);
+			}
+		});
+	}
+	
+	/**
+	 * @return the {@link Executor} delivering the jobs of {@link CryptoPipelineStage}s whose delivery may block
+	 */
+	Executor getDeliveryExecutor() {
+		return deliveryExecutor;
+	}
+	
+	/**
+	 * queues the given {@link CryptoPipelineJob} for processing by one of the worker threads
+	 * @param cryptoPipelineJob the {@link CryptoPipelineJob} to process
+	 */
+	void process(CryptoPipelineJob cryptoPipelineJob) {
+		if(shutdown) {
+			execute(cryptoPipelineJob);
+			return;
+		}
+		jobs.add(cryptoPipelineJob);
+		// shutdown() might have drained the queue in between, process the job now unless it did
+		if(shutdown && jobs.remove(cryptoPipelineJob)) {
+			execute(cryptoPipelineJob);
+		}
+	}
+	
+	/**
+	 * processes the given {@link CryptoPipelineJob} and passes it on to its {@link CryptoPipelineStage}
+	 * @param cryptoPipelineJob the {@link CryptoPipelineJob} to process
+	 */
+	private void execute(CryptoPipelineJob cryptoPipelineJob) {
+		
+		try {
+			cryptoPipelineJob.process();
+		} catch(RuntimeException e) {
+			Log.exception(this, e);
+		}
+		
+		cryptoPipelineJob.getCryptoPipelineStage().onProcessed(cryptoPipelineJob);
+		
+	}
+	
+	/**
+	 * interrupts the worker threads, which exit. jobs still queued are processed on the calling thread, jobs submitted afterwards
+	 * are processed and delivered on the submitting thread
+	 */
+	public void shutdown() {
+		shutdown = true;
+		deliveryExecutor.shutdown();
+		for(Worker worker : workers) {
+			worker.interrupt();
+		}
+		CryptoPipelineJob cryptoPipelineJob;
+		while((cryptoPipelineJob = jobs.poll()) != null) {
+			execute(cryptoPipelineJob);
+		}
+	}
+	
+	/**
+	 * @return the amount of worker threads
+	 */
+	public int getNumThreads() {
+		return workers.length;
+	}
+	
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return parentHierarchicalLevel;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("CryptoPipeline(%d threads)", workers.length);
+	}
+	
+}
@@ -0,0 +1,37 @@
+package org.dclayer.net.link.control;
+
+/**
+ * a unit of work processed by a {@link CryptoPipeline}, e.g. the encryption or decryption of a single packet
+ */
+public abstract class CryptoPipelineJob {
+	
+	/**
+	 * the {@link CryptoPipelineStage} this job was submitted to
+	 */
+	private CryptoPipelineStage cryptoPipelineStage;
+	
+	/**
+	 * true once {@link #process()} was called or if processing was skipped; guarded by the {@link CryptoPipelineStage}
+	 */
+	boolean processed;
+	
+	void setCryptoPipelineStage(CryptoPipelineStage cryptoPipelineStage) {
+		this.cryptoPipelineStage = cryptoPipelineStage;
+	}
+	
+	CryptoPipelineStage getCryptoPipelineStage() {
+		return cryptoPipelineStage;
+	}
+	
+	/**
+	 * called by one of the {@link CryptoPipeline}'s worker threads, possibly concurrently to other jobs of the same {@link CryptoPipelineStage}
+	 */
+	protected abstract void process();
+	
+	/**
+	 * called after this and all jobs submitted before it to the same {@link CryptoPipelineStage} were processed, in submission order.
+	 * never called concurrently to another job's {@link #deliver()} method of the same {@link CryptoPipelineStage}.
+	 */
+	protected abstract void deliver();
+	
+}
@@ -0,0 +1,217 @@
+package org.dclayer.net.link.control;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.meta.Log;
+
+/**
+ * a sequence of {@link CryptoPipelineJob}s that are processed in parallel by a {@link CryptoPipeline}
+ * but delivered in the order they were submitted in.<br />
+ * delivery happens either on a thread of the {@link CryptoPipeline}'s shared delivery executor or
+ * on the thread that completes the oldest outstanding job.
+ */
+public class CryptoPipelineStage implements HierarchicalLevel {
+	
+	private CryptoPipeline cryptoPipeline;
+	
+	/**
+	 * the maximum amount of submitted jobs not delivered yet, 0 if unlimited
+	 */
+	private int maxPendingJobs;
+	
+	/**
+	 * the submitted jobs that were not delivered yet, in submission order
+	 */
+	private ArrayDeque<CryptoPipelineJob> jobs = new ArrayDeque<>();
+	
+	/**
+	 * true while a thread is delivering jobs or a delivery was handed to the {@link #deliveryExecutor}
+	 */
+	private boolean delivering = false;
+	/**
+	 * true once {@link #close()} was called, jobs can not be submitted anymore
+	 */
+	private boolean closed = false;
+	
+	private final ReentrantLock lock = new ReentrantLock();
+	/**
+	 * signalled when a job was delivered or this {@link CryptoPipelineStage} was closed
+	 */
+	private final Condition spaceCondition = lock.newCondition();
+	
+	/**
+	 * the {@link Executor} delivering the jobs, shared by all {@link CryptoPipelineStage}s of the {@link CryptoPipeline}.
+	 * null if jobs are delivered by the thread that completes the oldest outstanding job
+	 */
+	private Executor deliveryExecutor;
+	
+	/**
+	 * delivers the jobs that are ready for delivery, executed by the {@link #deliveryExecutor}
+	 */
+	private final Runnable deliveryRunnable = new Runnable() {
+		@Override
+		public void run() {
+			deliverProcessed();
+		}
+	};
+	
+	private String name;
+	private HierarchicalLevel parentHierarchicalLevel;
+	
+	/**
+	 * @param maxPendingJobs the maximum amount of submitted jobs not delivered yet, {@link #submit(CryptoPipelineJob, boolean)} blocks
+	 * while this is reached. 0 if unlimited, which must be used if jobs are submitted from within {@link CryptoPipelineJob#deliver()}
+	 * @param deliverOnExecutor true if jobs should be delivered on the {@link CryptoPipeline}'s shared delivery executor, which is required if
+	 * {@link CryptoPipelineJob#deliver()} may block, as the worker threads of the {@link CryptoPipeline} are shared. the executor only holds
+	 * a thread while this {@link CryptoPipelineStage} has jobs to deliver
+	 */
+	public CryptoPipelineStage(CryptoPipeline cryptoPipeline, int maxPendingJobs, boolean deliverOnExecutor, String name, HierarchicalLevel parentHierarchicalLevel) {
+		this.cryptoPipeline = cryptoPipeline;
+		this.maxPendingJobs = maxPendingJobs;
+		this.name = name;
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+		if(deliverOnExecutor) {
+			this.deliveryExecutor = cryptoPipeline.getDeliveryExecutor();
+		}
+	}
+	
+	/**
+	 * submits the given {@link CryptoPipelineJob}
+	 * @param cryptoPipelineJob the {@link CryptoPipelineJob} to submit
+	 * @param parallel true if the job should be processed by the {@link CryptoPipeline}, false if its processing should be skipped,
+	 * i.e. if it should just be delivered after all jobs submitted before it
+	 * @return true if the job was submitted, false if this {@link CryptoPipelineStage} was closed or the calling thread was
+	 * interrupted while waiting, in which case the interrupt flag is set again
+	 */
+	// locks lock
+	public boolean submit(CryptoPipelineJob cryptoPipelineJob, boolean parallel) {
+		
+		cryptoPipelineJob.setCryptoPipelineStage(this);
+		
+		lock.lock();
+		try {
+			while(!closed && maxPendingJobs > 0 && jobs.size() >= maxPendingJobs) {
+				spaceCondition.await();
+			}
+			if(closed) {
+				return false;
+			}
+			cryptoPipelineJob.processed = false;
+			jobs.addLast(cryptoPipelineJob);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			lock.unlock();
+		}
+		
+		if(parallel) {
+			cryptoPipeline.process(cryptoPipelineJob);
+		} else {
+			onProcessed(cryptoPipelineJob);
+		}
+		
+		return true;
+		
+	}
+	
+	/**
+	 * marks the given {@link CryptoPipelineJob} as processed and delivers all jobs that are ready for delivery,
+	 * unless another thread is delivering already
+	 * @param cryptoPipelineJob the {@link CryptoPipelineJob} that was processed
+	 */
+	// locks lock
+	void onProcessed(CryptoPipelineJob cryptoPipelineJob) {
+		
+		lock.lock();
+		try {
+			cryptoPipelineJob.processed = true;
+			if(delivering || !jobs.peekFirst().processed) {
+				// the delivering thread will pick this job up, or the oldest job will once it is processed
+				return;
+			}
+			delivering = true;
+		} finally {
+			lock.unlock();
+		}
+		
+		if(deliveryExecutor != null) {
+			try {
+				deliveryExecutor.execute(deliveryRunnable);
+				return;
+			} catch(RejectedExecutionException e) {
+				// the CryptoPipeline was shut down, deliver on this thread
+			}
+		}
+		
+		deliverProcessed();
+		
+	}
+	
+	/**
+	 * delivers the jobs in submission order until the oldest job is not processed yet, {@link #delivering} must be set
+	 */
+	// locks lock
+	private void deliverProcessed() {
+		
+		for(;;) {
+			
+			CryptoPipelineJob nextCryptoPipelineJob;
+			
+			lock.lock();
+			try {
+				nextCryptoPipelineJob = jobs.peekFirst();
+				if(nextCryptoPipelineJob == null || !nextCryptoPipelineJob.processed) {
+					delivering = false;
+					return;
+				}
+				jobs.pollFirst();
+				spaceCondition.signal();
+			} finally {
+				lock.unlock();
+			}
+			
+			deliver(nextCryptoPipelineJob);
+			
+		}
+		
+	}
+	
+	private void deliver(CryptoPipelineJob cryptoPipelineJob) {
+		try {
+			cryptoPipelineJob.deliver();
+		} catch(RuntimeException e) {
+			Log.exception(this, e);
+		}
+	}
+	
+	/**
+	 * closes this {@link CryptoPipelineStage}. jobs submitted before are still delivered, submitting fails afterwards
+	 */
+	// locks lock
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			spaceCondition.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return parentHierarchicalLevel;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("CryptoPipelineStage(%s)", name);
+	}
+	
+}
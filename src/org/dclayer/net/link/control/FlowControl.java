@@ -2,11 +2,11 @@ package org.dclayer.net.link.control;
 
 import org.dclayer.meta.HierarchicalLevel;
 import org.dclayer.meta.Log;
-import org.dclayer.net.Data;
+import org.dclayer.net.PooledData;
 import org.dclayer.net.link.Link;
-import org.dclayer.net.link.LinkSendInterface;
 import org.dclayer.net.link.channel.data.DataChannel;
 import org.dclayer.net.link.channel.management.ManagementChannel;
+import org.dclayer.net.link.control.congestion.CongestionControl;
 import org.dclayer.net.link.control.packetbackup.FlowControlProperties;
 import org.dclayer.net.link.control.packetbackup.PacketBackup;
 
@@ -15,7 +15,7 @@ import org.dclayer.net.link.control.packetbackup.PacketBackup;
  * @author Martin Exner
  *
  */
-public class FlowControl extends Thread implements HierarchicalLevel {
+public class FlowControl implements HierarchicalLevel {
 	
 	/**
 	 * Priority for {@link ManagementChannel} packets
@@ -36,9 +36,14 @@ public class FlowControl extends Thread implements HierarchicalLevel {
 	private static final int NUMPRIO = 3;
 	
 	/**
-	 * The current rate at which data is sent over the {@link Link}
+	 * The maximum amount of time (in nanoseconds) the next send time may lag behind, limiting bursts after the {@link FlowControlScheduler} was busy
 	 */
-	private long currentBytesPerSecond = 0;
+	private static final long MAX_BURST_NANOS = 1000000L;
+	
+	/**
+	 * The {@link CongestionControl} determining the rate at which data is sent over the {@link Link}
+	 */
+	private CongestionControl congestionControl;
 	
 	/**
 	 * the total amount of bytes sent so far
@@ -60,6 +65,21 @@ public class FlowControl extends Thread implements HierarchicalLevel {
 	 */
 	private Link link;
 	
+	/**
+	 * The {@link FlowControlScheduler} serving this {@link FlowControl} instance
+	 */
+	private FlowControlScheduler flowControlScheduler;
+	
+	/**
+	 * true if this {@link FlowControl} instance is currently scheduled at the {@link FlowControlScheduler}
+	 */
+	private boolean scheduled = false;
+	
+	/**
+	 * The value of {@link System#nanoTime()} at which the next packet may be sent
+	 */
+	private long nextSendTime = System.nanoTime();
+	
 	@Override
 	public String toString() {
 		return "FlowControl";
@@ -71,27 +91,55 @@ public class FlowControl extends Thread implements HierarchicalLevel {
 	}
 	
 	/**
-	 * Creates a new {@link FlowControl} instance, sending {@link PacketBackup}s over the given {@link LinkSendInterface}
-	 * @param linkSendInterface the {@link LinkSendInterface} for sending {@link PacketBackup}s
+	 * Creates a new {@link FlowControl} instance, sending {@link PacketBackup}s over the given {@link Link}
+	 * @param link the {@link Link} for sending {@link PacketBackup}s
+	 * @param flowControlScheduler the {@link FlowControlScheduler} that sends this instance's {@link PacketBackup}s when they are due
+	 * @param congestionControl the {@link CongestionControl} determining the rate at which data is sent
 	 */
-	public FlowControl(Link link) {
+	public FlowControl(Link link, FlowControlScheduler flowControlScheduler, CongestionControl congestionControl) {
 		this.link = link;
-		this.start();
+		this.flowControlScheduler = flowControlScheduler;
+		this.congestionControl = congestionControl;
 	}
 	
 	/**
-	 * Sets the rate at which data is sent over the {@link Link}
+	 * Passes the maximum rate requested by the remote to the {@link CongestionControl}
 	 * @param bytesPerSecond the rate at which data is sent over the {@link Link}
 	 */
 	public void setBytesPerSecond(long bytesPerSecond) {
-		this.currentBytesPerSecond = bytesPerSecond;
+		congestionControl.onThrottle(System.nanoTime(), bytesPerSecond);
 	}
 	
 	/**
 	 * @return the current maximum rate at which data can be sent over the {@link Link}
 	 */
 	public long getBytesPerSecond() {
-		return currentBytesPerSecond;
+		return congestionControl.getBytesPerSecond();
+	}
+	
+	/**
+	 * called when the remote acknowledged the given {@link PacketBackup}
+	 * @param packetBackup the acknowledged {@link PacketBackup}
+	 */
+	public void onAcknowledged(PacketBackup packetBackup) {
+		long now = System.nanoTime();
+		FlowControlProperties flowControlProperties = packetBackup.getFlowControlProperties();
+		RttEstimator rttEstimator = link.getRttEstimator();
+		if(now - flowControlProperties.lastSentTime > rttEstimator.getRtoNanos()) {
+			// acknowledged by a channel block status report requested long after the remote received the packet,
+			// this says nothing about the path's current capacity
+			return;
+		}
+		// data packets are acknowledged with a delay, use the round trip time measured with the immediately acknowledged management packets
+		congestionControl.onPacketAcknowledged(now, packetBackup.getPacketProperties().getDataLength(), rttEstimator.getLatestRttNanos());
+	}
+	
+	/**
+	 * called when the given {@link PacketBackup} was lost and is about to be resent
+	 * @param packetBackup the lost {@link PacketBackup}
+	 */
+	public void onLost(PacketBackup packetBackup) {
+		congestionControl.onPacketLost(System.nanoTime(), packetBackup.getPacketProperties().getDataLength());
 	}
 	
 	/**
@@ -101,48 +149,83 @@ public class FlowControl extends Thread implements HierarchicalLevel {
 		return numBytesSent;
 	}
 	
-	@Override
-	public void run() {
-		for(;;) {
-			PacketBackup packetBackup = null;
+	/**
+	 * @return the value of {@link System#nanoTime()} at which the next packet may be sent
+	 */
+	public long getNextSendTime() {
+		return nextSendTime;
+	}
+	
+	/**
+	 * called by the {@link FlowControlScheduler} when the next packet is due, sends the next queued {@link PacketBackup}
+	 * @param now the current value of {@link System#nanoTime()}
+	 * @return true if there are more {@link PacketBackup}s queued and this instance needs to be scheduled again, false otherwise
+	 */
+	public boolean sendNext(long now) {
+		
+		PacketBackup packetBackup = pollNext();
+		
+		if(packetBackup != null) {
 			
-			synchronized(this) {
-				
-				for(int i = 0; i < firstPacketBackup.length; i++) {
-					packetBackup = firstPacketBackup[i];
-					if(packetBackup != null) {
-						firstPacketBackup[i] = packetBackup.getFlowControlProperties().next;
-						if(firstPacketBackup[i] == null) lastPacketBackup[i] = null;
-						break;
-					}
-				}
-				
-				if(packetBackup == null) {
-					try {
-						this.wait();
-					} catch (InterruptedException e) {}
-					continue;
-				}
-				
+			int length = 0;
+			try {
+				length = sendPacketBackup(packetBackup);
+			} catch(RuntimeException e) {
+				Log.exception(this, e);
 			}
 			
-			int length = sendPacketBackup(packetBackup);
-			
 			numBytesSent += length;
 			
-			if(currentBytesPerSecond > 0) {
+			congestionControl.onPacketSent(now, length);
+			long bytesPerSecond = congestionControl.getBytesPerSecond();
+			
+			if(bytesPerSecond > 0) {
 				
-				// let transmission rate increase slowly (here: approx. 100KB/s per second when transmitting at 1MB/s)
-				currentBytesPerSecond += Math.max(1, length/10);
-					
-				long nanos = (1000000000L * length) / currentBytesPerSecond;
-				try {
-					Thread.sleep(nanos/1000000, (int)(nanos%1000000));
-				} catch (InterruptedException e) {}
+				long nanos = (1000000000L * length) / bytesPerSecond;
+				nextSendTime = Math.max(nextSendTime, now - MAX_BURST_NANOS) + nanos;
+				
+			} else {
+				
+				nextSendTime = now;
 				
 			}
 			
 		}
+		
+		synchronized(this) {
+			if(hasQueued()) {
+				return true;
+			}
+			scheduled = false;
+			return false;
+		}
+		
+	}
+	
+	/**
+	 * removes and returns the next {@link PacketBackup} to send, in order of priority
+	 * @return the next {@link PacketBackup} to send or null if there is none
+	 */
+	private synchronized PacketBackup pollNext() {
+		for(int i = 0; i < firstPacketBackup.length; i++) {
+			PacketBackup packetBackup = firstPacketBackup[i];
+			if(packetBackup != null) {
+				firstPacketBackup[i] = packetBackup.getFlowControlProperties().next;
+				if(firstPacketBackup[i] == null) lastPacketBackup[i] = null;
+				return packetBackup;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @return true if there are {@link PacketBackup}s queued, false otherwise
+	 */
+	private synchronized boolean hasQueued() {
+		for(int i = 0; i < firstPacketBackup.length; i++) {
+			if(firstPacketBackup[i] != null) return true;
+		}
+		return false;
 	}
 	
 	/**
@@ -151,14 +234,28 @@ public class FlowControl extends Thread implements HierarchicalLevel {
 	 * @return
 	 */
 	private int sendPacketBackup(PacketBackup packetBackup) {
-		Data data = packetBackup.getPacketProperties().data;
-		link.transmitNow(data);
+		// counted as sent before it is transmitted, the acknowledgement may arrive before transmitNow() returns
+		synchronized(packetBackup.getFlowControlProperties()) {
+			packetBackup.getFlowControlProperties().lastSentTime = System.nanoTime();
+			packetBackup.getFlowControlProperties().numSent++;
+		}
+		// the packet may be acknowledged and its data released while it is being sent
+		PooledData data = packetBackup.getPacketProperties().retainData();
+		int length = 0;
+		if(data != null) {
+			try {
+				link.transmitNow(data);
+				length = data.length();
+			} finally {
+				data.release();
+			}
+		}
 		packetBackup.onSent();
 		synchronized(packetBackup.getFlowControlProperties()) {
 			packetBackup.getFlowControlProperties().queued = false;
 			packetBackup.getFlowControlProperties().notify();
 		}
-		return data.length();
+		return length;
 	}
 	
 	/**
@@ -184,17 +281,26 @@ public class FlowControl extends Thread implements HierarchicalLevel {
 				return;
 			}
 			flowControlProperties.queued = true;
+			boolean schedule = false;
 			synchronized(this) {
 				Log.debug(this, "queueing PacketBackup: %s", packetBackup.toString());
 				flowControlProperties.next = null;
 				PacketBackup last = this.lastPacketBackup[priority];
 				if(last == null) {
 					firstPacketBackup[priority] = lastPacketBackup[priority] = packetBackup;
-					this.notify();
 				} else {
 					lastPacketBackup[priority].getFlowControlProperties().next = packetBackup;
 					lastPacketBackup[priority] = packetBackup;
 				}
+				if(!scheduled) {
+					scheduled = schedule = true;
+					// don't let the time of an idle link lag behind, this would allow a burst
+					long now = System.nanoTime();
+					if(nextSendTime - now < 0) nextSendTime = now;
+				}
+			}
+			if(schedule) {
+				flowControlScheduler.schedule(this);
 			}
 			if(waitTilSent) {
 				try {
@@ -0,0 +1,112 @@
+package org.dclayer.net.link.control;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.net.link.Link;
+
+/**
+ * A single thread serving the {@link FlowControl} instances of all {@link Link}s of a service.<br />
+ * each {@link FlowControl} with queued packets is kept in a queue sorted by the time at which its
+ * next packet may be sent, so that the number of threads does not grow with the number of {@link Link}s.
+ */
+public class FlowControlScheduler extends Thread implements HierarchicalLevel {
+	
+	/**
+	 * the {@link FlowControl} instances that have packets queued, sorted by the time their next packet is due
+	 */
+	private PriorityQueue<FlowControl> dueFlowControls = new PriorityQueue<FlowControl>(16, new Comparator<FlowControl>() {
+		@Override
+		public int compare(FlowControl a, FlowControl b) {
+			// compare the difference to be safe against System.nanoTime() overflows
+			return Long.signum(a.getNextSendTime() - b.getNextSendTime());
+		}
+	});
+	
+	/**
+	 * {@link ReentrantLock} locked while accessing dueFlowControls
+	 */
+	private ReentrantLock lock = new ReentrantLock();
+	/**
+	 * {@link Condition} signalled when a {@link FlowControl} is scheduled
+	 */
+	private Condition scheduled = lock.newCondition();
+	
+	private HierarchicalLevel parentHierarchicalLevel;
+	
+	public FlowControlScheduler(HierarchicalLevel parentHierarchicalLevel) {
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+		this.start();
+	}
+	
+	@Override
+	public String toString() {
+		return "FlowControlScheduler";
+	}
+	
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return parentHierarchicalLevel;
+	}
+	
+	/**
+	 * schedules the given {@link FlowControl}, which will be served once its next packet is due
+	 * @param flowControl the {@link FlowControl} to schedule
+	 */
+	// locks lock
+	public void schedule(FlowControl flowControl) {
+		lock.lock();
+		try {
+			dueFlowControls.add(flowControl);
+			if(dueFlowControls.peek() == flowControl) {
+				// the new FlowControl is due before all others, wake up the scheduler thread
+				scheduled.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public void run() {
+		for(;;) {
+			
+			FlowControl flowControl;
+			long now;
+			
+			lock.lock();
+			try {
+				
+				flowControl = dueFlowControls.peek();
+				
+				if(flowControl == null) {
+					scheduled.awaitUninterruptibly();
+					continue;
+				}
+				
+				now = System.nanoTime();
+				long delay = flowControl.getNextSendTime() - now;
+				if(delay > 0) {
+					try {
+						scheduled.awaitNanos(delay);
+					} catch (InterruptedException e) {}
+					continue;
+				}
+				
+				dueFlowControls.poll();
+				
+			} finally {
+				lock.unlock();
+			}
+			
+			if(flowControl.sendNext(now)) {
+				schedule(flowControl);
+			}
+			
+		}
+	}
+	
+}
@@ -0,0 +1,194 @@
+package org.dclayer.net.link.control;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.dclayer.net.link.channel.data.DataChannel;
+
+/**
+ * limits the amount of packets and bytes a {@link DataChannel} has sent but the remote did not acknowledge yet.<br />
+ * the bytes are limited to the smaller of a fixed maximum and the receive window the remote last reported,
+ * i.e. the amount of bytes it can buffer until they are read. one packet is always allowed in flight, regardless of its size,
+ * which also makes the remote report again after its receive window was full.
+ */
+public class InFlightWindow {
+	
+	/**
+	 * the default maximum amount of packets in flight
+	 */
+	public static final int DEFAULT_MAX_PACKETS = 1024;
+	/**
+	 * the default maximum amount of bytes in flight
+	 */
+	public static final long DEFAULT_MAX_BYTES = 4*1024*1024;
+	
+	private final int maxPackets;
+	private final long maxBytes;
+	/**
+	 * the amount of bytes the remote can currently receive, as last reported by it
+	 */
+	private long receiveWindow;
+	
+	/**
+	 * the amount of packets currently in flight
+	 */
+	private int numPackets = 0;
+	/**
+	 * the amount of bytes currently in flight
+	 */
+	private long numBytes = 0;
+	
+	/**
+	 * true once the {@link DataChannel} was closed, nothing can be acquired anymore
+	 */
+	private boolean closed = false;
+	
+	/**
+	 * a lock instead of a monitor so that virtual threads waiting for space do not pin their carrier
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition spaceCondition = lock.newCondition();
+	
+	public InFlightWindow() {
+		this(DEFAULT_MAX_PACKETS, DEFAULT_MAX_BYTES);
+	}
+	
+	public InFlightWindow(int maxPackets, long maxBytes) {
+		this(maxPackets, maxBytes, maxBytes);
+	}
+	
+	/**
+	 * @param maxPackets the maximum amount of packets in flight
+	 * @param maxBytes the maximum amount of bytes in flight
+	 * @param receiveWindow the amount of bytes the remote is assumed to be able to receive until it reports its receive window
+	 */
+	public InFlightWindow(int maxPackets, long maxBytes, long receiveWindow) {
+		this.maxPackets = maxPackets;
+		this.maxBytes = maxBytes;
+		this.receiveWindow = receiveWindow;
+	}
+	
+	/**
+	 * @param numBytes the amount of bytes of the packet to send
+	 * @return true if a packet of the given size fits into the window
+	 */
+	private boolean fits(int numBytes) {
+		return numPackets <= 0 || (numPackets < maxPackets && this.numBytes + numBytes <= Math.min(maxBytes, receiveWindow));
+	}
+	
+	/**
+	 * reserves space for a packet of the given size if it fits into the window without waiting
+	 * @param numBytes the amount of bytes of the packet to send
+	 * @return true if the space was reserved, false if the window is full or closed
+	 */
+	public boolean tryAcquire(int numBytes) {
+		lock.lock();
+		try {
+			if(closed || !fits(numBytes)) {
+				return false;
+			}
+			numPackets++;
+			this.numBytes += numBytes;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * reserves space for a packet of the given size, blocking until it fits into the window
+	 * @param numBytes the amount of bytes of the packet to send
+	 * @return true if the space was reserved, false if the window was closed
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public boolean acquire(int numBytes) throws InterruptedException {
+		lock.lock();
+		try {
+			while(!closed && !fits(numBytes)) {
+				spaceCondition.await();
+			}
+			if(closed) {
+				return false;
+			}
+			numPackets++;
+			this.numBytes += numBytes;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * releases the space of an acknowledged packet of the given size
+	 * @param numBytes the amount of bytes of the acknowledged packet
+	 */
+	public void release(int numBytes) {
+		lock.lock();
+		try {
+			numPackets--;
+			this.numBytes -= numBytes;
+			spaceCondition.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * sets the amount of bytes the remote reported it can currently receive, waking up threads waiting for space if it grew
+	 * @param receiveWindow the amount of bytes the remote can currently receive
+	 */
+	public void setReceiveWindow(long receiveWindow) {
+		lock.lock();
+		try {
+			long oldReceiveWindow = this.receiveWindow;
+			this.receiveWindow = receiveWindow;
+			if(receiveWindow > oldReceiveWindow) {
+				spaceCondition.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * closes this window, waking up all threads waiting for space. nothing can be acquired afterwards
+	 */
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			spaceCondition.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public int getNumPackets() {
+		lock.lock();
+		try {
+			return numPackets;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public long getNumBytes() {
+		lock.lock();
+		try {
+			return numBytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		lock.lock();
+		try {
+			return String.format("InFlightWindow(%d/%d packets, %d/%d bytes, receive window %d bytes%s)", numPackets, maxPackets, numBytes, maxBytes, receiveWindow, closed ? ", closed" : "");
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+}
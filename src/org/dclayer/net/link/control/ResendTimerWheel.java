@@ -0,0 +1,175 @@
+package org.dclayer.net.link.control;
+
+import java.util.ArrayList;
+
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.net.link.Link;
+import org.dclayer.net.link.control.packetbackup.PacketBackup;
+import org.dclayer.net.link.control.packetbackup.ResendPacketQueueProperties;
+
+/**
+ * a hashed timer wheel timing the resends of the {@link ResendPacketQueue}s of all {@link Link}s of a service.<br />
+ * {@link PacketBackup}s are added to and removed from the wheel in constant time, a single thread advances
+ * the wheel every {@link #TICK_MILLIS} milliseconds and hands the {@link PacketBackup}s that are due
+ * to their {@link ResendPacketQueue}s.
+ */
+public class ResendTimerWheel extends Thread implements HierarchicalLevel {
+	
+	/**
+	 * the duration of one tick in milliseconds
+	 */
+	public static final long TICK_MILLIS = 10;
+	/**
+	 * the number of buckets, {@link PacketBackup}s that are due more than one rotation in the future stay in their bucket for more than one rotation
+	 */
+	public static final int NUM_BUCKETS = 512;
+	/**
+	 * the {@link ResendPacketQueueProperties#wheelIndex} of {@link ResendPacketQueueProperties} that were taken out of the wheel
+	 * because they are due, but were not handed to their {@link ResendPacketQueue} yet
+	 */
+	public static final int DUE = -2;
+	
+	/**
+	 * the first {@link ResendPacketQueueProperties} in each bucket, linked using {@link ResendPacketQueueProperties#next} and {@link ResendPacketQueueProperties#prior}
+	 */
+	private ResendPacketQueueProperties[] buckets = new ResendPacketQueueProperties[NUM_BUCKETS];
+	
+	/**
+	 * the {@link System#nanoTime()} value in milliseconds at tick 0
+	 */
+	private final long startMillis = System.nanoTime()/1000000L;
+	/**
+	 * the next tick to process
+	 */
+	private long currentTick = 0;
+	
+	/**
+	 * the {@link PacketBackup}s that are due in the ticks being processed, only used by this thread
+	 */
+	private ArrayList<PacketBackup> duePacketBackups = new ArrayList<>();
+	
+	private HierarchicalLevel parentHierarchicalLevel;
+	
+	public ResendTimerWheel(HierarchicalLevel parentHierarchicalLevel) {
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+		this.start();
+	}
+	
+	@Override
+	public String toString() {
+		return "ResendTimerWheel";
+	}
+	
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return parentHierarchicalLevel;
+	}
+	
+	/**
+	 * adds the given {@link ResendPacketQueueProperties} to the wheel, to be due at its next resend time.
+	 * if it is in the wheel already, it is moved.
+	 * @param properties the {@link ResendPacketQueueProperties} to add
+	 */
+	public synchronized void add(ResendPacketQueueProperties properties) {
+		
+		if(properties.wheelIndex >= 0) {
+			unlink(properties);
+		}
+		
+		long deadlineTick = (properties.getNextResendTime() - startMillis + TICK_MILLIS - 1) / TICK_MILLIS;
+		if(deadlineTick < currentTick) deadlineTick = currentTick;
+		
+		int index = (int)(deadlineTick % NUM_BUCKETS);
+		
+		properties.remainingRounds = (deadlineTick - currentTick) / NUM_BUCKETS;
+		properties.wheelIndex = index;
+		properties.prior = null;
+		properties.next = buckets[index];
+		if(properties.next != null) properties.next.prior = properties;
+		buckets[index] = properties;
+		
+	}
+	
+	/**
+	 * removes the given {@link ResendPacketQueueProperties} from the wheel, doing nothing if it is not in the wheel
+	 * @param properties the {@link ResendPacketQueueProperties} to remove
+	 */
+	public synchronized void remove(ResendPacketQueueProperties properties) {
+		if(properties.wheelIndex == DUE) {
+			// it is not handed to its ResendPacketQueue anymore
+			properties.wheelIndex = -1;
+			return;
+		}
+		if(properties.wheelIndex < 0) return;
+		unlink(properties);
+	}
+	
+	/**
+	 * removes the given {@link ResendPacketQueueProperties} from its bucket
+	 * @param properties the {@link ResendPacketQueueProperties} to remove
+	 */
+	private void unlink(ResendPacketQueueProperties properties) {
+		if(properties.prior != null) properties.prior.next = properties.next;
+		else buckets[properties.wheelIndex] = properties.next;
+		if(properties.next != null) properties.next.prior = properties.prior;
+		properties.prior = properties.next = null;
+		properties.wheelIndex = -1;
+	}
+	
+	/**
+	 * processes all ticks up to the given tick, moving the {@link PacketBackup}s that are due to duePacketBackups
+	 * @param nowTick the current tick
+	 */
+	private synchronized void advance(long nowTick) {
+		for(; currentTick <= nowTick; currentTick++) {
+			ResendPacketQueueProperties properties = buckets[(int)(currentTick % NUM_BUCKETS)];
+			while(properties != null) {
+				ResendPacketQueueProperties next = properties.next;
+				if(properties.remainingRounds > 0) {
+					properties.remainingRounds--;
+				} else {
+					unlink(properties);
+					properties.wheelIndex = DUE;
+					duePacketBackups.add(properties.getPacketBackup());
+				}
+				properties = next;
+			}
+		}
+	}
+	
+	@Override
+	public void run() {
+		for(;;) {
+			
+			long nowTick = (System.nanoTime()/1000000L - startMillis) / TICK_MILLIS;
+			
+			advance(nowTick);
+			
+			for(PacketBackup packetBackup : duePacketBackups) {
+				ResendPacketQueueProperties properties = packetBackup.getResendPacketQueueProperties();
+				ResendPacketQueue resendPacketQueue;
+				synchronized(this) {
+					if(properties.wheelIndex != DUE) {
+						// removed or added again since it became due
+						continue;
+					}
+					properties.wheelIndex = -1;
+					resendPacketQueue = properties.getResendPacketQueue();
+				}
+				if(resendPacketQueue != null) {
+					resendPacketQueue.onDue(packetBackup);
+				}
+			}
+			duePacketBackups.clear();
+			
+			long sleepMillis = startMillis + currentTick*TICK_MILLIS - System.nanoTime()/1000000L;
+			if(sleepMillis > 0) {
+				try {
+					Thread.sleep(sleepMillis);
+				} catch (InterruptedException e) {}
+			}
+			
+		}
+	}
+	
+}
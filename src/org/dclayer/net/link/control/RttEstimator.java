@@ -0,0 +1,100 @@
+package org.dclayer.net.link.control;
+
+import org.dclayer.net.link.Link;
+
+/**
+ * estimates the round trip time of a {@link Link} and derives the retransmission timeout from it (as specified in RFC 6298).<br />
+ * only round trip times of packets that were sent exactly once should be passed (Karn's algorithm).
+ */
+public class RttEstimator {
+	
+	/**
+	 * the retransmission timeout to use as long as no round trip time was measured
+	 */
+	public static final long INITIAL_RTO_NANOS = 1000000000L;
+	/**
+	 * the minimum retransmission timeout
+	 */
+	public static final long MIN_RTO_NANOS = 100000000L;
+	/**
+	 * the maximum retransmission timeout
+	 */
+	public static final long MAX_RTO_NANOS = 60000000000L;
+	/**
+	 * the clock granularity
+	 */
+	private static final long GRANULARITY_NANOS = 1000000L;
+	
+	/**
+	 * the smoothed round trip time, -1 if no round trip time was measured yet
+	 */
+	private long smoothedRttNanos = -1;
+	/**
+	 * the round trip time variation
+	 */
+	private long rttVarNanos = 0;
+	/**
+	 * the current retransmission timeout
+	 */
+	private long rtoNanos = INITIAL_RTO_NANOS;
+	/**
+	 * the latest round trip time measurement, -1 if no round trip time was measured yet
+	 */
+	private long latestRttNanos = -1;
+	
+	/**
+	 * adds a round trip time measurement
+	 * @param rttNanos the measured round trip time in nanoseconds
+	 */
+	public synchronized void addSample(long rttNanos) {
+		
+		if(rttNanos < 0) return;
+		
+		latestRttNanos = rttNanos;
+		
+		if(smoothedRttNanos < 0) {
+			smoothedRttNanos = rttNanos;
+			rttVarNanos = rttNanos/2;
+		} else {
+			rttVarNanos = (3*rttVarNanos + Math.abs(smoothedRttNanos - rttNanos))/4;
+			smoothedRttNanos = (7*smoothedRttNanos + rttNanos)/8;
+		}
+		
+		rtoNanos = Math.min(MAX_RTO_NANOS, Math.max(MIN_RTO_NANOS, smoothedRttNanos + Math.max(GRANULARITY_NANOS, 4*rttVarNanos)));
+		
+	}
+	
+	/**
+	 * @return the smoothed round trip time in nanoseconds, or -1 if no round trip time was measured yet
+	 */
+	public synchronized long getSmoothedRttNanos() {
+		return smoothedRttNanos;
+	}
+	
+	/**
+	 * @return the latest round trip time measurement in nanoseconds, or -1 if no round trip time was measured yet
+	 */
+	public synchronized long getLatestRttNanos() {
+		return latestRttNanos;
+	}
+	
+	/**
+	 * @return the round trip time variation in nanoseconds
+	 */
+	public synchronized long getRttVarNanos() {
+		return rttVarNanos;
+	}
+	
+	/**
+	 * @return the current retransmission timeout in nanoseconds
+	 */
+	public synchronized long getRtoNanos() {
+		return rtoNanos;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return String.format("RttEstimator(smoothedRttNanos=%d, rttVarNanos=%d, rtoNanos=%d)", smoothedRttNanos, rttVarNanos, rtoNanos);
+	}
+	
+}
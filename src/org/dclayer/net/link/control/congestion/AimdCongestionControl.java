@@ -0,0 +1,117 @@
+package org.dclayer.net.link.control.congestion;
+
+/**
+ * loss-based {@link CongestionControl} using additive increase and multiplicative decrease.<br />
+ * starts by doubling the transmission rate once per round trip (slow start) until the first loss,
+ * then increases the transmission rate by one packet per round trip and multiplies it with {@link #BETA} upon loss
+ * (at most once per round trip).
+ */
+public class AimdCongestionControl implements CongestionControl {
+	
+	/**
+	 * the transmission rate to start with
+	 */
+	public static final long INITIAL_BYTES_PER_SECOND = 128*1024;
+	/**
+	 * the minimum transmission rate
+	 */
+	public static final long MIN_BYTES_PER_SECOND = 8*1024;
+	/**
+	 * the amount of bytes the transmission rate is increased by per round trip in congestion avoidance
+	 */
+	public static final long PACKET_SIZE = 1400;
+	/**
+	 * the factor the transmission rate is multiplied with upon loss
+	 */
+	public static final double BETA = 0.7;
+	/**
+	 * the round trip time to assume as long as no round trip time was measured
+	 */
+	public static final long DEFAULT_RTT_NANOS = 100000000L;
+	
+	/**
+	 * the current transmission rate
+	 */
+	private double bytesPerSecond = INITIAL_BYTES_PER_SECOND;
+	/**
+	 * the smoothed round trip time in nanoseconds
+	 */
+	private long smoothedRttNanos = -1;
+	/**
+	 * true while in slow start
+	 */
+	private boolean slowStart = true;
+	/**
+	 * the time of the last decrease of the transmission rate
+	 */
+	private long lastDecrease = System.nanoTime();
+	
+	@Override
+	public void onPacketSent(long now, int numBytes) {
+		
+	}
+	
+	@Override
+	public synchronized void onPacketAcknowledged(long now, int numBytes, long rttNanos) {
+		
+		if(rttNanos > 0) {
+			smoothedRttNanos = smoothedRttNanos < 0 ? rttNanos : (7*smoothedRttNanos + rttNanos)/8;
+		}
+		
+		double rttSeconds = getRttNanos() / 1000000000d;
+		
+		if(slowStart) {
+			// the amount of bytes acknowledged per round trip equals the transmission rate, which is therefore doubled per round trip
+			bytesPerSecond += numBytes / rttSeconds;
+		} else {
+			// increase by PACKET_SIZE per round trip, distributed over all bytes acknowledged within one round trip
+			double bytesPerRtt = Math.max(bytesPerSecond * rttSeconds, PACKET_SIZE);
+			bytesPerSecond += (PACKET_SIZE / rttSeconds) * (numBytes / bytesPerRtt);
+		}
+		
+	}
+	
+	@Override
+	public synchronized void onPacketLost(long now, int numBytes) {
+		if(now - lastDecrease < getRttNanos()) {
+			// packets sent before the last decrease are still being reported lost
+			return;
+		}
+		decrease(now, bytesPerSecond * BETA);
+	}
+	
+	@Override
+	public synchronized void onThrottle(long now, long bytesPerSecond) {
+		if(bytesPerSecond <= 0 || bytesPerSecond >= this.bytesPerSecond) return;
+		decrease(now, bytesPerSecond);
+	}
+	
+	/**
+	 * decreases the transmission rate to the given value and leaves slow start
+	 * @param now the current time
+	 * @param bytesPerSecond the new transmission rate
+	 */
+	private void decrease(long now, double bytesPerSecond) {
+		this.bytesPerSecond = Math.max(MIN_BYTES_PER_SECOND, bytesPerSecond);
+		this.slowStart = false;
+		this.lastDecrease = now;
+	}
+	
+	/**
+	 * @return the smoothed round trip time or {@link #DEFAULT_RTT_NANOS} if none was measured yet
+	 */
+	private long getRttNanos() {
+		return smoothedRttNanos > 0 ? smoothedRttNanos : DEFAULT_RTT_NANOS;
+	}
+	
+	@Override
+	public synchronized long getBytesPerSecond() {
+		return (long) bytesPerSecond;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("AimdCongestionControl(bytesPerSecond=%d, slowStart=%s, smoothedRttNanos=%d)", (long) bytesPerSecond, slowStart, smoothedRttNanos);
+	}
+	
+}
@@ -0,0 +1,46 @@
+package org.dclayer.net.link.control.congestion;
+
+import org.dclayer.net.link.Link;
+import org.dclayer.net.link.control.FlowControl;
+
+/**
+ * interface for congestion control algorithms determining the rate at which a {@link FlowControl} sends packets over a {@link Link}.<br />
+ * all times are values of {@link System#nanoTime()}.
+ */
+public interface CongestionControl {
+	
+	/**
+	 * called after a packet was sent
+	 * @param now the current time
+	 * @param numBytes the amount of bytes sent
+	 */
+	public void onPacketSent(long now, int numBytes);
+	
+	/**
+	 * called when a sent packet was acknowledged by the remote
+	 * @param now the current time
+	 * @param numBytes the amount of bytes acknowledged
+	 * @param rttNanos the round trip time measured using this packet, or -1 if the packet was sent more than once
+	 */
+	public void onPacketAcknowledged(long now, int numBytes, long rttNanos);
+	
+	/**
+	 * called when a sent packet was lost and needs to be resent
+	 * @param now the current time
+	 * @param numBytes the amount of bytes lost
+	 */
+	public void onPacketLost(long now, int numBytes);
+	
+	/**
+	 * called when the remote requests a maximum transmission rate
+	 * @param now the current time
+	 * @param bytesPerSecond the transmission rate requested by the remote, 0 if the remote does not limit the transmission rate
+	 */
+	public void onThrottle(long now, long bytesPerSecond);
+	
+	/**
+	 * @return the rate at which packets should currently be sent, or 0 if the transmission rate is not limited
+	 */
+	public long getBytesPerSecond();
+	
+}
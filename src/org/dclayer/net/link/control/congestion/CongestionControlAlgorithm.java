@@ -0,0 +1,57 @@
+package org.dclayer.net.link.control.congestion;
+
+/**
+ * the available {@link CongestionControl} implementations
+ */
+public enum CongestionControlAlgorithm {
+	
+	LINEAR("linear") {
+		@Override
+		public CongestionControl make() {
+			return new LinearCongestionControl();
+		}
+	},
+	AIMD("aimd") {
+		@Override
+		public CongestionControl make() {
+			return new AimdCongestionControl();
+		}
+	},
+	DELAY("delay") {
+		@Override
+		public CongestionControl make() {
+			return new DelayBasedCongestionControl();
+		}
+	};
+	
+	/**
+	 * returns the {@link CongestionControlAlgorithm} with the given name
+	 * @param name the name of the {@link CongestionControlAlgorithm}
+	 * @return the {@link CongestionControlAlgorithm} with the given name or null if there is none
+	 */
+	public static CongestionControlAlgorithm get(String name) {
+		for(CongestionControlAlgorithm congestionControlAlgorithm : values()) {
+			if(congestionControlAlgorithm.name.equals(name)) return congestionControlAlgorithm;
+		}
+		return null;
+	}
+	
+	//
+	
+	private String name;
+	
+	private CongestionControlAlgorithm(String name) {
+		this.name = name;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * creates a new instance of this {@link CongestionControlAlgorithm}
+	 * @return a new {@link CongestionControl} instance
+	 */
+	public abstract CongestionControl make();
+	
+}
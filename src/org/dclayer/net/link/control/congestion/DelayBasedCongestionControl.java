@@ -0,0 +1,185 @@
+package org.dclayer.net.link.control.congestion;
+
+/**
+ * delay-based {@link CongestionControl} modeled after BBR.<br />
+ * estimates the bottleneck bandwidth as the maximum delivery rate measured over the last {@link #NUM_BANDWIDTH_SAMPLES} rounds
+ * and the propagation delay as the minimum round trip time measured over the last {@link #MIN_RTT_WINDOW_NANOS} nanoseconds,
+ * and paces at the bottleneck bandwidth multiplied with a gain that periodically probes for more bandwidth.
+ * does not react to single losses.
+ */
+public class DelayBasedCongestionControl implements CongestionControl {
+	
+	/**
+	 * the transmission rate to use until the bottleneck bandwidth is estimated
+	 */
+	public static final long INITIAL_BYTES_PER_SECOND = 128*1024;
+	/**
+	 * the minimum transmission rate
+	 */
+	public static final long MIN_BYTES_PER_SECOND = 8*1024;
+	/**
+	 * the amount of delivery rate samples the bottleneck bandwidth is the maximum of
+	 */
+	public static final int NUM_BANDWIDTH_SAMPLES = 10;
+	/**
+	 * the time after which the minimum round trip time expires
+	 */
+	public static final long MIN_RTT_WINDOW_NANOS = 10000000000L;
+	/**
+	 * the round trip time to assume as long as no round trip time was measured
+	 */
+	public static final long DEFAULT_RTT_NANOS = 100000000L;
+	
+	/**
+	 * the pacing gain used during startup
+	 */
+	private static final double STARTUP_GAIN = 2.89;
+	/**
+	 * the pacing gains cycled through after startup, one per round
+	 */
+	private static final double[] PROBE_GAINS = { 1.25, 0.75, 1, 1, 1, 1, 1, 1 };
+	
+	private static final int STATE_STARTUP = 0;
+	private static final int STATE_DRAIN = 1;
+	private static final int STATE_PROBE = 2;
+	
+	private int state = STATE_STARTUP;
+	
+	/**
+	 * the delivery rates measured in the last rounds
+	 */
+	private long[] bandwidthSamples = new long[NUM_BANDWIDTH_SAMPLES];
+	private int bandwidthSampleIndex = 0;
+	/**
+	 * the current bottleneck bandwidth estimate
+	 */
+	private long bottleneckBytesPerSecond = 0;
+	
+	private long minRttNanos = -1;
+	private long minRttTime;
+	
+	private long roundStart = System.nanoTime();
+	private long roundBytesAcknowledged = 0;
+	
+	/**
+	 * the bottleneck bandwidth at the last round in which it grew significantly during startup
+	 */
+	private long startupBytesPerSecond = 0;
+	private int numStartupRoundsWithoutGrowth = 0;
+	
+	private int probeGainIndex = 0;
+	
+	@Override
+	public void onPacketSent(long now, int numBytes) {
+		
+	}
+	
+	@Override
+	public synchronized void onPacketAcknowledged(long now, int numBytes, long rttNanos) {
+		
+		if(rttNanos > 0 && (minRttNanos < 0 || rttNanos <= minRttNanos || now - minRttTime > MIN_RTT_WINDOW_NANOS)) {
+			minRttNanos = rttNanos;
+			minRttTime = now;
+		}
+		
+		roundBytesAcknowledged += numBytes;
+		
+		long elapsed = now - roundStart;
+		if(elapsed < (minRttNanos > 0 ? minRttNanos : DEFAULT_RTT_NANOS)) {
+			return;
+		}
+		
+		// a round is over, take a delivery rate sample
+		long deliveryBytesPerSecond = (1000000000L * roundBytesAcknowledged) / elapsed;
+		bandwidthSamples[bandwidthSampleIndex] = deliveryBytesPerSecond;
+		bandwidthSampleIndex = (bandwidthSampleIndex + 1) % bandwidthSamples.length;
+		updateBottleneckBandwidth();
+		
+		roundStart = now;
+		roundBytesAcknowledged = 0;
+		
+		onRoundEnd();
+		
+	}
+	
+	/**
+	 * sets the bottleneck bandwidth to the maximum of the delivery rate samples
+	 */
+	private void updateBottleneckBandwidth() {
+		long max = 0;
+		for(long sample : bandwidthSamples) {
+			if(sample > max) max = sample;
+		}
+		bottleneckBytesPerSecond = max;
+	}
+	
+	/**
+	 * advances the state machine at the end of each round
+	 */
+	private void onRoundEnd() {
+		switch(state) {
+		case STATE_STARTUP: {
+			if(bottleneckBytesPerSecond >= startupBytesPerSecond + startupBytesPerSecond/4) {
+				startupBytesPerSecond = bottleneckBytesPerSecond;
+				numStartupRoundsWithoutGrowth = 0;
+			} else if(++numStartupRoundsWithoutGrowth >= 3) {
+				// the bottleneck bandwidth did not grow by 25% for three rounds, drain the queue built up during startup
+				state = STATE_DRAIN;
+			}
+			break;
+		}
+		case STATE_DRAIN: {
+			state = STATE_PROBE;
+			probeGainIndex = 0;
+			break;
+		}
+		case STATE_PROBE: {
+			probeGainIndex = (probeGainIndex + 1) % PROBE_GAINS.length;
+			break;
+		}
+		}
+	}
+	
+	/**
+	 * @return the current pacing gain
+	 */
+	private double getPacingGain() {
+		switch(state) {
+		case STATE_STARTUP: return STARTUP_GAIN;
+		case STATE_DRAIN: return 1/STARTUP_GAIN;
+		default: return PROBE_GAINS[probeGainIndex];
+		}
+	}
+	
+	@Override
+	public void onPacketLost(long now, int numBytes) {
+		
+	}
+	
+	@Override
+	public synchronized void onThrottle(long now, long bytesPerSecond) {
+		if(bytesPerSecond <= 0 || bytesPerSecond >= bottleneckBytesPerSecond) return;
+		// the remote is receiving less than we estimated, replace all samples
+		for(int i = 0; i < bandwidthSamples.length; i++) {
+			bandwidthSamples[i] = bytesPerSecond;
+		}
+		updateBottleneckBandwidth();
+		if(state == STATE_STARTUP) {
+			state = STATE_DRAIN;
+		}
+	}
+	
+	@Override
+	public synchronized long getBytesPerSecond() {
+		if(bottleneckBytesPerSecond <= 0) {
+			return INITIAL_BYTES_PER_SECOND;
+		}
+		return Math.max(MIN_BYTES_PER_SECOND, (long)(getPacingGain() * bottleneckBytesPerSecond));
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("DelayBasedCongestionControl(state=%d, bottleneckBytesPerSecond=%d, minRttNanos=%d)", state, bottleneckBytesPerSecond, minRttNanos);
+	}
+	
+}
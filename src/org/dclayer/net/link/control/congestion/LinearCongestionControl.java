@@ -0,0 +1,48 @@
+package org.dclayer.net.link.control.congestion;
+
+/**
+ * {@link CongestionControl} that does not limit the transmission rate until the remote requests a maximum rate
+ * and lets the transmission rate increase linearly with every packet sent afterwards.<br />
+ * reacts to throttle messages only, ignoring acknowledgements and losses.
+ */
+public class LinearCongestionControl implements CongestionControl {
+	
+	/**
+	 * the current transmission rate, 0 if unlimited
+	 */
+	private long currentBytesPerSecond = 0;
+	
+	@Override
+	public synchronized void onPacketSent(long now, int numBytes) {
+		if(currentBytesPerSecond > 0) {
+			// let transmission rate increase slowly (here: approx. 100KB/s per second when transmitting at 1MB/s)
+			currentBytesPerSecond += Math.max(1, numBytes/10);
+		}
+	}
+	
+	@Override
+	public void onPacketAcknowledged(long now, int numBytes, long rttNanos) {
+		
+	}
+	
+	@Override
+	public void onPacketLost(long now, int numBytes) {
+		
+	}
+	
+	@Override
+	public synchronized void onThrottle(long now, long bytesPerSecond) {
+		currentBytesPerSecond = bytesPerSecond;
+	}
+	
+	@Override
+	public synchronized long getBytesPerSecond() {
+		return currentBytesPerSecond;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("LinearCongestionControl(bytesPerSecond=%d)", currentBytesPerSecond);
+	}
+	
+}
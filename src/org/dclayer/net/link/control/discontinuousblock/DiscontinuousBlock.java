@@ -1,6 +1,8 @@
 package org.dclayer.net.link.control.discontinuousblock;
 import org.dclayer.exception.net.buf.BufException;
 import org.dclayer.net.Data;
+import org.dclayer.net.DataPool;
+import org.dclayer.net.PooledData;
 import org.dclayer.net.buf.ByteBuf;
 import org.dclayer.net.link.control.packetbackup.PacketBackup;
 
@@ -20,9 +22,9 @@ public class DiscontinuousBlock {
 	 */
 	private long dataId;
 	/**
-	 * the packet data
+	 * the packet data, taken from the default {@link DataPool}
 	 */
-	private Data data;
+	private PooledData data;
 	
 	/**
 	 * a {@link PacketBackup} that was sent as reply to this
@@ -38,7 +40,7 @@ public class DiscontinuousBlock {
 	 */
 	public void store(long dataId, ByteBuf byteBuf, int length) throws BufException {
 		this.dataId = dataId;
-		if(data == null) data = new Data(length);
+		if(data == null) data = DataPool.getDefault().take(length);
 		else data.prepare(length);
 		byteBuf.read(data);
 	}
@@ -52,11 +54,11 @@ public class DiscontinuousBlock {
 	public void store(long dataId, Data data) throws BufException {
 		this.dataId = dataId;
 		if(this.data == null) {
-			this.data = data.copy();
+			this.data = DataPool.getDefault().take(data.length());
 		} else {
 			this.data.prepare(data.length());
-			this.data.setBytes(0, data);
 		}
+		this.data.setBytes(0, data);
 	}
 	
 	/**
@@ -66,6 +68,16 @@ public class DiscontinuousBlock {
 		return data;
 	}
 	
+	/**
+	 * returns the packet data to the {@link DataPool}. the data returned by {@link #getData()} must not be used afterwards.
+	 */
+	public void free() {
+		if(data != null) {
+			data.release();
+			data = null;
+		}
+	}
+	
 	/**
 	 * sets the {@link PacketBackup} that was sent in response to this {@link DiscontinuousBlock}
 	 * @param replyPacketBackup the {@link PacketBackup} that was sent in response to this {@link DiscontinuousBlock}
@@ -34,6 +34,10 @@ public class DiscontinuousBlockCollection implements HierarchicalLevel {
 	 * the amount of currently occupied {@link DiscontinuousBlock}s in this {@link DiscontinuousBlockCollection}
 	 */
 	private int numUsed = 0;
+	/**
+	 * the amount of bytes stored in the occupied {@link DiscontinuousBlock}s
+	 */
+	private long numBytes = 0;
 	
 	public DiscontinuousBlockCollection(HierarchicalLevel parentHierarchicalLevel, int size) {
 		this.parentHierarchicalLevel = parentHierarchicalLevel;
@@ -48,6 +52,7 @@ public class DiscontinuousBlockCollection implements HierarchicalLevel {
 		dataIdOffset = -1;
 		dataIdRead = -1;
 		numUsed = 0;
+		numBytes = 0;
 		for(DiscontinuousBlock block : blocks) {
 			if(block != null) block.used = false;
 		}
@@ -128,8 +133,10 @@ public class DiscontinuousBlockCollection implements HierarchicalLevel {
 		if(block == null) {
 			block = blocks[index] = new DiscontinuousBlock();
 		}
+		if(block.used && block.getData() != null) numBytes -= block.getData().length();
 		setUsed(block, true);
 		block.store(dataId, byteBuf, length);
+		numBytes += length;
 		return dataId == dataIdRead; // -> read!
 	}
 	
@@ -146,8 +153,10 @@ public class DiscontinuousBlockCollection implements HierarchicalLevel {
 		if(block == null) {
 			block = blocks[index] = new DiscontinuousBlock();
 		}
+		if(block.used && block.getData() != null) numBytes -= block.getData().length();
 		setUsed(block, true);
 		block.store(dataId, data);
+		numBytes += data.length();
 		return dataId == dataIdRead; // -> read!
 	}
 	
@@ -187,6 +196,7 @@ public class DiscontinuousBlockCollection implements HierarchicalLevel {
 		int index = getIndex(dataIdRead, false);
 		DiscontinuousBlock block = blocks[index];
 		if(remove) {
+			if(block.getData() != null) numBytes -= block.getData().length();
 			setUsed(block, false);
 			dataIdOffset++;
 			if(numUsed <= 0) {
@@ -209,6 +219,13 @@ public class DiscontinuousBlockCollection implements HierarchicalLevel {
 		return (blocks[index] != null && blocks[index].used);
 	}
 	
+	/**
+	 * @return the amount of bytes stored in the occupied {@link DiscontinuousBlock}s
+	 */
+	public synchronized long getNumBytes() {
+		return numBytes;
+	}
+	
 	/**
 	 * @return true if there are no occupied {@link DiscontinuousBlock} objects stored in this {@link DiscontinuousBlockCollection}
 	 */
@@ -7,6 +7,14 @@ public class FlowControlProperties {
 	public PacketBackup next;
 	public int priority;
 	public boolean queued;
+	/**
+	 * the value of {@link System#nanoTime()} at the point in time this {@link PacketBackup} was last sent
+	 */
+	public long lastSentTime;
+	/**
+	 * the number of times this {@link PacketBackup} was sent
+	 */
+	public int numSent;
 	
 	/**
 	 * used by {@link FlowControl} to get the priority of this {@link PacketBackup}
@@ -51,6 +51,10 @@ public class PacketBackup {
 	
 	public void setUsed(boolean used) {
 		resendPacketQueueProperties.onUsedChange(used);
+		if(this.used && !used) {
+			packetProperties.releaseData();
+			packetProperties.releaseInFlightWindow();
+		}
 		this.used = used;
 	}
 	
@@ -70,6 +74,7 @@ public class PacketBackup {
 		resendPacketQueueProperties.reset();
 		packetProperties.reset(dataId, channelId);
 		flowControlProperties.priority = priority;
+		flowControlProperties.numSent = 0;
 		packetBackupCollectionProperties.reset();
 		
 	}
@@ -88,7 +93,7 @@ public class PacketBackup {
 				packetProperties.dataId,
 				packetProperties.channelId,
 				flowControlProperties.priority,
-				packetProperties.data.length());
+				packetProperties.getDataLength());
 	}
 	
 }
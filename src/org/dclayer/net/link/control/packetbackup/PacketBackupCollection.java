@@ -146,7 +146,17 @@ public class PacketBackupCollection implements HierarchicalLevel {
 	 * @param used what to set the given backup's used value to
 	 */
 	private void setUsed(PacketBackup backup, boolean used) {
-		if(backup.getUsed() != used) numUsed += (used ? 1 : -1);
+		if(backup.getUsed() != used) {
+			numUsed += (used ? 1 : -1);
+			boolean sent;
+			synchronized(backup.getFlowControlProperties()) {
+				sent = backup.getFlowControlProperties().numSent > 0;
+			}
+			if(!used && sent) {
+				// backups are only cleared once the remote acknowledged them
+				channel.onPacketAcknowledged(backup);
+			}
+		}
 		backup.setUsed(used);
 	}
 	
@@ -1,14 +1,19 @@
 package org.dclayer.net.link.control.packetbackup;
 
-import org.dclayer.net.Data;
+import org.dclayer.net.DataPool;
+import org.dclayer.net.PooledData;
+import org.dclayer.net.link.control.InFlightWindow;
 
 public class PacketProperties {
 	
 	// used by both PacketBackupCollection and ResendPacketQueue
 	/**
-	 * the data of the packet this stores
+	 * the data of the packet this stores, or null once the packet is not used anymore.<br />
+	 * a new {@link PooledData} is taken for every packet and released once the packet is not used anymore. threads
+	 * sending it retain it using {@link #retainData()}, the packet might still be in the process of being sent after
+	 * it was acknowledged.
 	 */
-	public Data data = new Data();
+	public PooledData data;
 	/**
 	 * the data id of the packet this stores
 	 */
@@ -21,6 +26,14 @@ public class PacketProperties {
 	 * true if the packet is ready for transmission, false otherwise
 	 */
 	public boolean ready;
+	/**
+	 * the length of the unencrypted payload of the stored packet
+	 */
+	public int payloadLength;
+	/**
+	 * the {@link InFlightWindow} the {@link #payloadLength} was acquired from, null if none or once it was released
+	 */
+	private InFlightWindow inFlightWindow;
 	
 	/**
 	 * resets the packet properties to the supplied values
@@ -28,9 +41,62 @@ public class PacketProperties {
 	 * @param channelId the channel id to use
 	 */
 	public void reset(long dataId, long channelId) {
+		releaseInFlightWindow();
 		this.dataId = dataId;
 		this.channelId = channelId;
 		this.ready = false;
+		synchronized(this) {
+			if(data != null) data.release();
+			data = DataPool.getDefault().take(0);
+		}
+	}
+	
+	/**
+	 * releases the data of the packet this stores, called once the packet is not used anymore
+	 */
+	public synchronized void releaseData() {
+		if(data != null) {
+			data.release();
+			data = null;
+		}
+	}
+	
+	/**
+	 * records that the {@link #payloadLength} was acquired from the given {@link InFlightWindow},
+	 * it is released once the packet is not used anymore or by {@link #releaseInFlightWindow()}
+	 * @param inFlightWindow the {@link InFlightWindow} the {@link #payloadLength} was acquired from
+	 */
+	public synchronized void setInFlightWindow(InFlightWindow inFlightWindow) {
+		this.inFlightWindow = inFlightWindow;
+	}
+	
+	/**
+	 * releases the {@link #payloadLength} from the {@link InFlightWindow} it was acquired from, unless it was released already
+	 */
+	public void releaseInFlightWindow() {
+		InFlightWindow inFlightWindow;
+		synchronized(this) {
+			inFlightWindow = this.inFlightWindow;
+			this.inFlightWindow = null;
+		}
+		if(inFlightWindow != null) {
+			inFlightWindow.release(payloadLength);
+		}
+	}
+	
+	/**
+	 * @return the length of the data of the packet this stores, 0 if the packet is not used anymore
+	 */
+	public synchronized int getDataLength() {
+		return data == null ? 0 : data.length();
+	}
+	
+	/**
+	 * retains the data of the packet this stores, the caller must release it once it does not use it anymore
+	 * @return the retained data, or null if the packet is not used anymore
+	 */
+	public synchronized PooledData retainData() {
+		return data == null ? null : data.retain();
 	}
 	
 }
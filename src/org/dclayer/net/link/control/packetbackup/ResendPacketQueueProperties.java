@@ -3,6 +3,7 @@ package org.dclayer.net.link.control.packetbackup;
 import org.dclayer.meta.Log;
 import org.dclayer.net.link.channel.Channel;
 import org.dclayer.net.link.control.ResendPacketQueue;
+import org.dclayer.net.link.control.ResendTimerWheel;
 
 public class ResendPacketQueueProperties extends Properties {
 	
@@ -12,15 +13,24 @@ public class ResendPacketQueueProperties extends Properties {
 	 */
 	private ResendPacketQueue resendPacketQueue = null;
 
-	// set by ResendPacketQueue
+	// set by ResendTimerWheel
 	/**
-	 * used by {@link ResendPacketQueue}: the next {@link ResendPacketQueueProperties} object to time out after this one
+	 * used by {@link ResendTimerWheel}: the previous {@link ResendPacketQueueProperties} object in the same bucket
 	 */
 	public ResendPacketQueueProperties prior = null;
 	/**
-	 * used by {@link ResendPacketQueue}: the {@link ResendPacketQueueProperties} object to time out before this one
+	 * used by {@link ResendTimerWheel}: the next {@link ResendPacketQueueProperties} object in the same bucket
 	 */
 	public ResendPacketQueueProperties next = null;
+	/**
+	 * used by {@link ResendTimerWheel}: the index of the bucket this is in, -1 if this is not in the wheel,
+	 * {@link ResendTimerWheel#DUE} if it is due and about to be handed to its {@link ResendPacketQueue}
+	 */
+	public int wheelIndex = -1;
+	/**
+	 * used by {@link ResendTimerWheel}: the number of rotations of the wheel left until this is due
+	 */
+	public long remainingRounds = 0;
 
 	// used by ResendPacketQueue
 	/**
@@ -103,6 +113,13 @@ public class ResendPacketQueueProperties extends Properties {
 		}
 	}
 	
+	/**
+	 * @return the {@link ResendPacketQueue} this {@link PacketBackup} is queued in or will be queued in when sent, or null
+	 */
+	public ResendPacketQueue getResendPacketQueue() {
+		return resendPacketQueue;
+	}
+	
 	public void removeFromResendPacketQueueOnUnUsed(ResendPacketQueue resendPacketQueue) {
 //		System.out.println(String.format("PacketBackup(%s).removeFromResendPacketQueueOnUnUsed(resendPacketQueue=%s)", this.getPacketBackup(), resendPacketQueue));
 		this.resendPacketQueue = resendPacketQueue;
@@ -26,9 +26,14 @@ public class LLACache {
 	private ParentTreeNode<CachedLLA> addressTree = new ParentTreeNode<>(0);
 	
 	/**
-	 * {@link Data} used to write address into for usage as key inside the tree
+	 * per-thread {@link Data} used to write address into for usage as key inside the tree
 	 */
-	private Data addressBufData = new Data();
+	private ThreadLocal<Data> addressBufData = new ThreadLocal<Data>() {
+		@Override
+		protected Data initialValue() {
+			return new Data();
+		}
+	};
 	
 	private CachedLLAStatusListener cachedLLAStatusListener;
 	
@@ -40,43 +45,52 @@ public class LLACache {
 		return addresses.size();
 	}
 	
-	// synchronization not needed
+	// locks addressTree
 	public CachedLLA getCachedLLA(LLA lla, boolean create) {
 		
 		Data addressData = lla.getData();
 		
-		CachedLLA cachedLLA = addressTree.get(addressData);
+		synchronized(addressTree) {
 		
-		if(cachedLLA == null && create) {
-			cachedLLA = new CachedLLA(lla, cachedLLAStatusListener);
-			addressTree.put(addressData, cachedLLA);
-			synchronized (addresses) {
-				addresses.add(cachedLLA);
+			CachedLLA cachedLLA = addressTree.get(addressData);
+			
+			if(cachedLLA == null && create) {
+				cachedLLA = new CachedLLA(lla, cachedLLAStatusListener);
+				addressTree.put(addressData, cachedLLA);
+				synchronized (addresses) {
+					addresses.add(cachedLLA);
+				}
 			}
-		}
+			
+			return cachedLLA;
 		
-		return cachedLLA;
+		}
 		
 	}
 	
-	// synchronization not needed as long as this method is only called once at a time (because of addressBufData)
-	// (calling getCachedLLA() at the same time as this is no problem though)
+	// locks addressTree
+	// safe to be called by multiple receive threads at once, each thread serializes into its own addressBufData
 	public CachedLLA getIPPortCachedLLA(InetAddress inetAddress, int port, boolean create) {
 		
+		Data addressBufData = this.addressBufData.get();
 		InetSocketLLA.serialize(inetAddress, port, addressBufData);
 		
-		CachedLLA cachedLLA = addressTree.get(addressBufData);
+		synchronized(addressTree) {
 		
-		if(cachedLLA == null && create) {
-			LLA lla = new InetSocketLLA(inetAddress, port);
-			cachedLLA = new CachedLLA(lla, cachedLLAStatusListener);
-			addressTree.put(addressBufData, cachedLLA);
-			synchronized (addresses) {
-				addresses.add(cachedLLA);
+			CachedLLA cachedLLA = addressTree.get(addressBufData);
+			
+			if(cachedLLA == null && create) {
+				LLA lla = new InetSocketLLA(inetAddress, port);
+				cachedLLA = new CachedLLA(lla, cachedLLAStatusListener);
+				addressTree.put(addressBufData, cachedLLA);
+				synchronized (addresses) {
+					addresses.add(cachedLLA);
+				}
 			}
-		}
+			
+			return cachedLLA;
 		
-		return cachedLLA;
+		}
 		
 	}
 	
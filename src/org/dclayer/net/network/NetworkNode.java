@@ -1,6 +1,7 @@
 package org.dclayer.net.network;
 
 import java.util.LinkedList;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.dclayer.net.Data;
 import org.dclayer.net.address.Address;
@@ -27,6 +28,11 @@ public abstract class NetworkNode<T> implements ForwardDestination<T> {
 	
 	private CrispPacket outCrispPacket;
 	
+	/**
+	 * lock held while the out {@link NetworkPayload} and out {@link CrispPacket} of this node are filled and forwarded
+	 */
+	private final ReentrantLock outLock = new ReentrantLock();
+	
 	private boolean endpoint = false;
 	
 	public NetworkNode(NetworkType networkType, Address address, T identifierObject, boolean endpoint) {
@@ -72,6 +78,13 @@ public abstract class NetworkNode<T> implements ForwardDestination<T> {
 		return outCrispPacket;
 	}
 	
+	/**
+	 * @return the lock to hold while using the out {@link NetworkPayload} and out {@link CrispPacket} of this node
+	 */
+	public ReentrantLock getOutLock() {
+		return outLock;
+	}
+	
 	public RoutingTable getRoutingTable() {
 		return null;
 	}
@@ -1,99 +1,190 @@
 package org.dclayer.net.packetcomponent;
 
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.util.LinkedList;
 
 import org.dclayer.net.PacketComponent;
 import org.dclayer.net.PacketComponentI;
 
+/**
+ * a {@link PacketComponent} whose children are the fields annotated with {@link Child}.<br />
+ * the fields of each class are looked up once and cached together with {@link MethodHandle}s to create, assign and read
+ * their {@link PacketComponentI}s, constructing an instance does not scan its class again.
+ */
 public abstract class AutoPacketComponent<T extends PacketComponentI, U extends AutoPacketComponentChildInfo<T>> extends ChildPacketComponent {
 	
-	private static class ChildField {
+	/**
+	 * a field annotated with {@link Child} and the {@link MethodHandle}s to access it
+	 */
+	static class ChildField {
 		
-		Child child;
-		Field field;
+		final Child child;
+		final Field field;
 		
-		public ChildField(Child child, Field field) {
+		/**
+		 * creates an instance of the field's type, null if {@link Child#create()} is false
+		 */
+		final MethodHandle constructor;
+		final MethodHandle setter;
+		final MethodHandle getter;
+		
+		public ChildField(Child child, Field field, MethodHandle constructor, MethodHandle setter, MethodHandle getter) {
 			this.child = child;
 			this.field = field;
+			this.constructor = constructor;
+			this.setter = setter;
+			this.getter = getter;
 		}
 		
 	}
 	
+	/**
+	 * the {@link ChildField}s of each {@link AutoPacketComponent} class, ordered by index
+	 */
+	private static final ClassValue<ChildField[]> CHILD_FIELDS = new ClassValue<ChildField[]>() {
+		@Override
+		protected ChildField[] computeValue(Class<?> type) {
+			return collectChildFields(type);
+		}
+	};
+	
+	/**
+	 * the no-argument constructors of the {@link AutoPacketComponentChildInfo} classes
+	 */
+	private static final ClassValue<MethodHandle> CHILD_INFO_CONSTRUCTORS = new ClassValue<MethodHandle>() {
+		@Override
+		protected MethodHandle computeValue(Class<?> type) {
+			try {
+				return findConstructor(type);
+			} catch (InstantiationException e) {
+				throw new InstantiationError(String.format("Could not instantiate child info type %s (InstantiationException)", type.getName()));
+			} catch (IllegalAccessException e) {
+				throw new InstantiationError(String.format("Could not instantiate child info type %s (IllegalAccessException)", type.getName()));
+			}
+		}
+	};
+	
+	/**
+	 * returns a {@link MethodHandle} of type ()Object calling the no-argument constructor of the given class
+	 */
+	private static MethodHandle findConstructor(Class<?> type) throws InstantiationException, IllegalAccessException {
+		Constructor<?> constructor;
+		try {
+			constructor = type.getDeclaredConstructor();
+		} catch (NoSuchMethodException e) {
+			throw new InstantiationException(type.getName());
+		}
+		constructor.setAccessible(true);
+		return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+	}
+	
+	private static ChildField[] collectChildFields(Class<?> type) {
+		
+		LinkedList<Field> fields = new LinkedList<>();
+		
+		for(Field field : type.getDeclaredFields()) {
+			if(field.getAnnotation(Child.class) != null) {
+				fields.add(field);
+			}
+		}
+		
+		ChildField[] childFields = new ChildField[fields.size()];
+		
+		for(Field field : fields) {
+			
+			Child child = field.getAnnotation(Child.class);
+			
+			if(child.index() < 0 || child.index() >= childFields.length) {
+				throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Index %d out of range", type.getName(), field.getName(), child.index()));
+			}
+			
+			if(childFields[child.index()] != null) {
+				throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Duplicate index %d", type.getName(), field.getName(), child.index()));
+			}
+			
+			MethodHandle constructor = null;
+			if(child.create()) {
+				try {
+					constructor = findConstructor(field.getType());
+				} catch (InstantiationException e) {
+					throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Could not instantiate type %s", type.getName(), field.getName(), field.getType().getName()));
+				} catch (IllegalAccessException e) {
+					throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Could not access type %s", type.getName(), field.getName(), field.getType().getName()));
+				}
+			}
+			
+			MethodHandle setter, getter;
+			try {
+				field.setAccessible(true);
+				setter = MethodHandles.lookup().unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+				getter = MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+			} catch (IllegalAccessException e) {
+				throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Could not access", type.getName(), field.getName()));
+			}
+			
+			childFields[child.index()] = new ChildField(child, field, constructor, setter, getter);
+			
+		}
+		
+		return childFields;
+		
+	}
+	
+	/**
+	 * rethrows the given {@link Throwable} thrown by a {@link MethodHandle}, wrapping checked exceptions into a {@link RuntimeException}
+	 */
+	static RuntimeException rethrow(Throwable t) {
+		if(t instanceof RuntimeException) throw (RuntimeException) t;
+		if(t instanceof Error) throw (Error) t;
+		throw new RuntimeException(t);
+	}
+	
 	//
 	
 	protected final U[] children;
 	
 	protected AutoPacketComponent(Class<?> packetComponentType, Class<?> childInfoType) {
 		
-		this.children = collectChildren(packetComponentType, childInfoType);
+		this.children = createChildren(packetComponentType, childInfoType);
 		
 	}
 	
 	//
 	
-	private U[] collectChildren(Class<?> packetComponentType, Class<?> childInfoType) {
+	private U[] createChildren(Class<?> packetComponentType, Class<?> childInfoType) {
 		
-		LinkedList<ChildField> fields = new LinkedList<>();
+		ChildField[] childFields = CHILD_FIELDS.get(this.getClass());
+		MethodHandle childInfoConstructor = CHILD_INFO_CONSTRUCTORS.get(childInfoType);
 		
-		for(Field field : this.getClass().getDeclaredFields()) {
-			Child childAnnotation = field.getAnnotation(Child.class);
-			if(childAnnotation != null) {
-				fields.add(new ChildField(childAnnotation, field));
-			}
-		}
-		
-		U[] children = (U[]) Array.newInstance(childInfoType, fields.size());
+		U[] children = (U[]) Array.newInstance(childInfoType, childFields.length);
 		
-		for(ChildField childField : fields) {
+		for(ChildField childField : childFields) {
 			
 			if(!packetComponentType.isAssignableFrom(childField.field.getType())) {
 				throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Field type %s is not a sub-class of %s", this.getClass().getName(), childField.field.getName(), childField.field.getType().getName(), packetComponentType.getName()));
 			}
 			
-			if(children[childField.child.index()] != null) {
-				throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Duplicate index %d", this.getClass().getName(), childField.field.getName(), childField.child.index()));
-			}
+			U childInfo;
 			
-			if(childField.child.create()) {
-				
-				T packetComponent;
+			try {
 				
-				try {
-					packetComponent = (T) childField.field.getType().newInstance();
-				} catch (InstantiationException e) {
-					throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Could not instantiate type %s", this.getClass().getName(), childField.field.getName(), childField.field.getType().getName()));
-				} catch (IllegalAccessException e) {
-					throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Could not access type %s", this.getClass().getName(), childField.field.getName(), childField.field.getType().getName()));
+				if(childField.constructor != null) {
+					childField.setter.invokeExact((Object) this, (Object) childField.constructor.invokeExact());
 				}
 				
-				try {
-					
-					childField.field.setAccessible(true);
-					childField.field.set(this, packetComponent);
-					childField.field.setAccessible(false);
-					
-				} catch (IllegalArgumentException e) {
-					throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Could not assign instance of type %s", this.getClass().getName(), childField.field.getName(), childField.field.getType().getName()));
-				} catch (IllegalAccessException e) {
-					throw new InstantiationError(String.format("AutoPacketComponent %s: Field '%s': Could not access", this.getClass().getName(), childField.field.getName()));
-				}
+				childInfo = (U) (Object) childInfoConstructor.invokeExact();
 				
+			} catch (Throwable t) {
+				throw rethrow(t);
 			}
 			
-			U childInfo;
-			try {
-				childInfo = (U) childInfoType.newInstance();
-			} catch (InstantiationException e) {
-				throw new InstantiationError(String.format("AutoPacketComponent %s: Could not instantiate child info type %s (InstantiationException)", this.getClass().getName(), childInfoType.getName()));
-			} catch (IllegalAccessException e) {
-				throw new InstantiationError(String.format("AutoPacketComponent %s: Could not instantiate child info type %s (IllegalAccessException)", this.getClass().getName(), childInfoType.getName()));
-			}
-			
-			childInfo.setField(childField.field, this);
-			childInfo.setIndex(childField.child.index());
+			childInfo.setChildField(childField, this);
 			
 			children[childField.child.index()] = childInfo;
 			
@@ -6,24 +6,21 @@ import org.dclayer.net.PacketComponentI;
 
 public class AutoPacketComponentChildInfo<T extends PacketComponentI> {
 	
-	private Field field;
+	private AutoPacketComponent.ChildField childField;
 	private Object object;
 	
 	private int index;
 	
 	private T packetComponent = null;
 	
-	public void setField(Field field, Object object) {
-		this.field = field;
+	void setChildField(AutoPacketComponent.ChildField childField, Object object) {
+		this.childField = childField;
 		this.object = object;
+		this.index = childField.child.index();
 	}
 	
 	public Field getField() {
-		return field;
-	}
-	
-	public void setIndex(int index) {
-		this.index = index;
+		return childField.field;
 	}
 	
 	public T getPacketComponent() {
@@ -31,11 +28,9 @@ public class AutoPacketComponentChildInfo<T extends PacketComponentI> {
 		if(packetComponent == null) {
 			
 			try {
-				packetComponent = (T) field.get(object);
-			} catch (IllegalArgumentException e) {
-				throw new RuntimeException(String.format("AutoPacketComponent %s: Field '%s': Could not access", field.getName(), object), e);
-			} catch (IllegalAccessException e) {
-				throw new RuntimeException(String.format("AutoPacketComponent %s: Field '%s': Could not access", field.getName(), object), e);
+				packetComponent = (T) (Object) childField.getter.invokeExact(object);
+			} catch (Throwable t) {
+				throw AutoPacketComponent.rethrow(t);
 			}
 			
 			if(packetComponent instanceof ChildPacketComponent) {
@@ -1,8 +1,11 @@
 package org.dclayer.net.packetcomponent;
 
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.dclayer.exception.net.buf.BufException;
 import org.dclayer.exception.net.parse.ParseException;
@@ -21,7 +24,7 @@ public abstract class SwitchPacketComponent<T extends PacketComponentI> extends
 	}
 	
 	protected static class ChildInfo<U extends PacketComponentI> extends AutoPacketComponentChildInfo<U> {
-		Method onReceiveMethod;
+		MethodHandle onReceiveMethod;
 	}
 	
 	//
@@ -58,9 +61,44 @@ public abstract class SwitchPacketComponent<T extends PacketComponentI> extends
 	
 	}
 	
+	/**
+	 * the on receive callback methods of each class of on receive objects, for each {@link SwitchPacketComponent} class
+	 */
+	private static final ClassValue<ConcurrentHashMap<Class<?>, MethodHandle[]>> ON_RECEIVE_METHODS = new ClassValue<ConcurrentHashMap<Class<?>, MethodHandle[]>>() {
+		@Override
+		protected ConcurrentHashMap<Class<?>, MethodHandle[]> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+	
 	private void collectOnReceiveMethods(Object onReceiveObject) {
 		
-		for(Method method : onReceiveObject.getClass().getMethods()) {
+		ConcurrentHashMap<Class<?>, MethodHandle[]> onReceiveMethodsByClass = ON_RECEIVE_METHODS.get(this.getClass());
+		
+		MethodHandle[] onReceiveMethods = onReceiveMethodsByClass.get(onReceiveObject.getClass());
+		if(onReceiveMethods == null) {
+			onReceiveMethods = findOnReceiveMethods(onReceiveObject.getClass());
+			onReceiveMethodsByClass.putIfAbsent(onReceiveObject.getClass(), onReceiveMethods);
+		}
+		
+		for(int i = 0; i < children.length; i++) {
+			children[i].onReceiveMethod = onReceiveMethods[i];
+		}
+		
+		this.onReceiveObject = onReceiveObject;
+		
+	}
+	
+	/**
+	 * scans the given class for methods with {@link OnReceive} annotations
+	 * @param onReceiveClass the class to scan
+	 * @return {@link MethodHandle}s of type (Object, PacketComponentI)void calling the on receive callback method of each child
+	 */
+	private MethodHandle[] findOnReceiveMethods(Class<?> onReceiveClass) {
+		
+		Method[] onReceiveMethods = new Method[children.length];
+		
+		for(Method method : onReceiveClass.getMethods()) {
 			
 			OnReceive onReceiveAnnotation = method.getAnnotation(OnReceive.class);
 			if(onReceiveAnnotation != null) {
@@ -74,9 +112,11 @@ public abstract class SwitchPacketComponent<T extends PacketComponentI> extends
 					
 					ChildInfo<T> matchingChild = null;
 					
-					for(ChildInfo<T> child : children) {
+					for(int index = 0; index < children.length; index++) {
 						
-						if(child.onReceiveMethod == method) {
+						ChildInfo<T> child = children[index];
+						
+						if(onReceiveMethods[index] == method) {
 							
 							throw new InstantiationError(String.format("Invalid on receive callback method '%s': parameter type '%s' matches multiple child packet components", method.getName(), parameterTypes[0].getSimpleName()));
 							
@@ -86,11 +126,11 @@ public abstract class SwitchPacketComponent<T extends PacketComponentI> extends
 								throw new InstantiationError(String.format("Invalid on receive callback method '%s': parameter type '%s' matches multiple child packet components", method.getName(), parameterTypes[0].getSimpleName()));
 							}
 							
-							if(child.onReceiveMethod != null) {
-								throw new InstantiationError(String.format("Invalid on receive callback method '%s': overlaps with method '%s'", method.getName(), child.onReceiveMethod.getName()));
+							if(onReceiveMethods[index] != null) {
+								throw new InstantiationError(String.format("Invalid on receive callback method '%s': overlaps with method '%s'", method.getName(), onReceiveMethods[index].getName()));
 							}
 							
-							child.onReceiveMethod = method;
+							onReceiveMethods[index] = method;
 							matchingChild = child;
 							
 							// don't break, finish checking for overlapping methods and children
@@ -111,7 +151,7 @@ public abstract class SwitchPacketComponent<T extends PacketComponentI> extends
 						throw new InstantiationError(String.format("Invalid on receive callback method '%s': must accept exactly one parameter of type or supertype of '%s'", method.getName(), child.getField().getType().getSimpleName()));
 					}
 					
-					child.onReceiveMethod = method;
+					onReceiveMethods[onReceiveAnnotation.index()] = method;
 					
 				}
 				
@@ -119,14 +159,25 @@ public abstract class SwitchPacketComponent<T extends PacketComponentI> extends
 			
 		}
 		
+		MethodHandle[] onReceiveMethodHandles = new MethodHandle[children.length];
+		
 		for(int i = 0; i < children.length; i++) {
-			ChildInfo<T> child = children[i];
-			if(child.onReceiveMethod == null) {
-				throw new InstantiationError(String.format("Invalid on receive object: missing on receive callback method for child type '%s' at index %d", child.getField().getType().getSimpleName(), i));
+			
+			Method method = onReceiveMethods[i];
+			if(method == null) {
+				throw new InstantiationError(String.format("Invalid on receive object: missing on receive callback method for child type '%s' at index %d", children[i].getField().getType().getSimpleName(), i));
 			}
+			
+			try {
+				method.setAccessible(true);
+				onReceiveMethodHandles[i] = MethodHandles.lookup().unreflect(method).asType(MethodType.methodType(void.class, Object.class, PacketComponentI.class));
+			} catch (IllegalAccessException e) {
+				throw new InstantiationError(String.format("Invalid on receive callback method '%s': could not access", method.getName()));
+			}
+			
 		}
-
-		this.onReceiveObject = onReceiveObject;
+		
+		return onReceiveMethodHandles;
 		
 	}
 	
@@ -254,13 +305,9 @@ public abstract class SwitchPacketComponent<T extends PacketComponentI> extends
 	
 	public void callOnReceive() {
 		try {
-			activeChild.onReceiveMethod.invoke(onReceiveObject, activeChild.getPacketComponent());
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException(e);
-		} catch (IllegalArgumentException e) {
-			throw new RuntimeException(e);
-		} catch (InvocationTargetException e) {
-			throw new RuntimeException(e);
+			activeChild.onReceiveMethod.invokeExact(onReceiveObject, (PacketComponentI) activeChild.getPacketComponent());
+		} catch (Throwable t) {
+			throw rethrow(t);
 		}
 	}
 	
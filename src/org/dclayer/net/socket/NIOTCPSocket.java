@@ -0,0 +1,717 @@
+package org.dclayer.net.socket;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.dclayer.exception.net.buf.BufException;
+import org.dclayer.exception.net.buf.EndOfBufException;
+import org.dclayer.exception.net.parse.ParseException;
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.meta.Log;
+import org.dclayer.net.a2s.A2SMessage;
+import org.dclayer.net.a2s.ApplicationConnection;
+import org.dclayer.net.a2s.ApplicationConnectionActionListener;
+import org.dclayer.net.a2s.rev35.Rev35Message;
+import org.dclayer.net.buf.DataByteBuf;
+import org.dclayer.net.buf.StreamByteBuf;
+import org.dclayer.net.buf.SubByteBuf;
+
+/**
+ * a TCP Server for application connections based on a non-blocking {@link ServerSocketChannel}.<br />
+ * a single selector thread accepts all connections and reads from them, parsing messages from the bytes received so far.
+ * parsed messages are handled by a fixed amount of worker threads shared by all connections, except for the revision
+ * message and responses to remote key operations, which are handled by the selector thread as their handlers never block.
+ * each connection has at most {@link #MAX_MESSAGES_IN_FLIGHT} messages queued or being handled at a time, reading from
+ * it is suspended while this limit is reached. at most 1/{@link #WORKER_SHARE_DIVISOR} of the workers handle messages of the
+ * same connection at a time, the other messages of the connection wait until one of them is done, so that a connection whose
+ * handlers block (e.g. while sending on a full application channel) can not occupy all workers.<br />
+ * messages to the application are written to the channel by the sending thread, bytes that do not fit into the socket's
+ * send buffer are written by the selector thread once possible. sending threads block while more than
+ * {@link #MAX_PENDING_OUTPUT_BYTES} bytes are pending.
+ */
+public class NIOTCPSocket extends Thread implements StreamSocket, HierarchicalLevel {
+
+	public static final int DEFAULT_NUM_WORKERS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+	public static final int MAX_MESSAGES_IN_FLIGHT = 16;
+
+	/**
+	 * the messages of one connection are handled by at most the amount of workers divided by this (but at least one) at a time
+	 */
+	public static final int WORKER_SHARE_DIVISOR = 4;
+
+	public static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+	public static final int MAX_MESSAGE_SIZE = 16 * 1024 * 1024;
+	public static final int MAX_PENDING_OUTPUT_BYTES = 1024 * 1024;
+
+	/**
+	 * a message of a {@link Connection} that is queued for or being handled by a {@link Worker}
+	 */
+	private class Job {
+
+		private final Connection connection;
+		private final A2SMessage message;
+
+		public Job(Connection connection, A2SMessage message) {
+			this.connection = connection;
+			this.message = message;
+		}
+
+	}
+
+	/**
+	 * a worker thread handling {@link Job}s
+	 */
+	private class Worker extends Thread {
+
+		private int index;
+
+		public Worker(int index) {
+			this.index = index;
+			this.setDaemon(true);
+			this.start();
+		}
+
+		@Override
+		public void run() {
+			for(;;) {
+
+				Job job;
+				try {
+					job = jobs.take();
+				} catch (InterruptedException e) {
+					continue;
+				}
+
+				try {
+					job.connection.applicationConnection.receive(job.message);
+				} catch(RuntimeException e) {
+					Log.exception(NIOTCPSocket.this, e);
+				}
+
+				job.connection.onJobDone(job);
+
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("NIOTCPSocket worker %d", index);
+		}
+
+	}
+
+	/**
+	 * a connection to an application instance, all methods except for the ones of its {@link OutputStream}
+	 * and {@link #onJobDone(Job)} are only called by the selector thread
+	 */
+	private class Connection {
+
+		/**
+		 * the {@link OutputStream} messages to the application are written to
+		 */
+		private class ConnectionOutputStream extends OutputStream {
+
+			private void ensure(int numBytes) throws IOException {
+				if(closed.get()) {
+					throw new IOException("connection closed");
+				}
+				if(outputBuffer.remaining() < numBytes) {
+					ByteBuffer newOutputBuffer = ByteBuffer.allocate(Math.max(2 * outputBuffer.capacity(), outputBuffer.position() + numBytes));
+					outputBuffer.flip();
+					newOutputBuffer.put(outputBuffer);
+					outputBuffer = newOutputBuffer;
+				}
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				outputLock.lock();
+				try {
+					ensure(1);
+					outputBuffer.put((byte) b);
+				} finally {
+					outputLock.unlock();
+				}
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				outputLock.lock();
+				try {
+					ensure(len);
+					outputBuffer.put(b, off, len);
+				} finally {
+					outputLock.unlock();
+				}
+			}
+
+			@Override
+			public void flush() throws IOException {
+
+				outputLock.lock();
+				try {
+
+					if(closed.get()) {
+						throw new IOException("connection closed");
+					}
+
+					if(!writePending) {
+						try {
+							writeOutput();
+						} catch (IOException e) {
+							close();
+							throw e;
+						}
+						if(writePending) {
+							schedule(Connection.this);
+						}
+					}
+
+					// the selector thread must never wait for itself
+					if(Thread.currentThread() == NIOTCPSocket.this) return;
+
+					while(outputBuffer.position() > MAX_PENDING_OUTPUT_BYTES && !closed.get()) {
+						try {
+							outputDrainedCondition.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new IOException(e);
+						}
+					}
+
+				} finally {
+					outputLock.unlock();
+				}
+
+			}
+
+		}
+
+		private final SocketChannel channel;
+		private final SelectionKey key;
+		private final ApplicationConnection applicationConnection;
+
+		private final AtomicBoolean closed = new AtomicBoolean(false);
+
+		private byte[] readBuffer = new byte[INITIAL_BUFFER_SIZE];
+		private ByteBuffer readByteBuffer = ByteBuffer.wrap(readBuffer);
+		/**
+		 * the position of the first byte in {@link #readBuffer} that was not parsed yet
+		 */
+		private int readPosition = 0;
+		/**
+		 * the amount of valid bytes in {@link #readBuffer}
+		 */
+		private int readLimit = 0;
+		private final DataByteBuf readDataByteBuf = new DataByteBuf(readBuffer);
+		/**
+		 * limits parsing to the bytes received so far, as {@link DataByteBuf} is only limited by the length of the byte array
+		 */
+		private final SubByteBuf parseByteBuf = new SubByteBuf();
+
+		/**
+		 * the message to read the first message into, null once the revision message was received
+		 */
+		private Rev35Message revisionMessage = new Rev35Message();
+
+		/**
+		 * the {@link Job}s that are not in flight
+		 */
+		private final ConcurrentLinkedQueue<Job> freeJobs = new ConcurrentLinkedQueue<>();
+		private int numJobs = 0;
+		/**
+		 * the message to parse into while all {@link Job}s are in flight, to still handle responses to remote key operations
+		 */
+		private A2SMessage reserveMessage;
+		/**
+		 * true while reading is suspended because all {@link Job}s are in flight
+		 */
+		private volatile boolean readSuspended = false;
+
+		/**
+		 * guards {@link #numJobsDispatched} and {@link #pendingJobs}, which are accessed by the selector thread and the workers
+		 */
+		private final ReentrantLock dispatchLock = new ReentrantLock();
+		/**
+		 * the amount of {@link Job}s of this connection that are queued for or being handled by a {@link Worker}
+		 */
+		private int numJobsDispatched = 0;
+		/**
+		 * the parsed {@link Job}s waiting until less than {@link NIOTCPSocket#maxWorkersPerConnection} {@link Job}s are dispatched
+		 */
+		private final ArrayDeque<Job> pendingJobs = new ArrayDeque<>();
+
+		private final ConnectionOutputStream outputStream = new ConnectionOutputStream();
+		/**
+		 * guards {@link #outputBuffer}, a lock instead of a monitor so that virtual threads waiting for the
+		 * output to drain do not pin their carrier
+		 */
+		private final ReentrantLock outputLock = new ReentrantLock();
+		private final Condition outputDrainedCondition = outputLock.newCondition();
+		/**
+		 * the bytes that were not written to the channel yet
+		 */
+		private ByteBuffer outputBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+		/**
+		 * true while bytes are pending that are written by the selector thread
+		 */
+		private volatile boolean writePending = false;
+
+		public Connection(SocketChannel channel) throws IOException {
+			this.channel = channel;
+			this.applicationConnection = applicationConnectionActionListener.onApplicationConnection(channel.socket(), new StreamByteBuf(outputStream));
+			this.key = channel.register(selector, SelectionKey.OP_READ, this);
+		}
+
+		/**
+		 * writes as many pending bytes to the channel as possible, must be called while holding {@link #outputLock}
+		 */
+		private void writeOutput() throws IOException {
+			outputBuffer.flip();
+			channel.write(outputBuffer);
+			outputBuffer.compact();
+			if(outputBuffer.position() > 0) {
+				writePending = true;
+				return;
+			}
+			writePending = false;
+			if(outputBuffer.capacity() > INITIAL_BUFFER_SIZE) {
+				outputBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+			}
+		}
+
+		private void onWritable() {
+			outputLock.lock();
+			try {
+				writeOutput();
+				outputDrainedCondition.signalAll();
+			} catch (IOException e) {
+				Log.exception(applicationConnection, e, "could not write to application connection");
+				close();
+				return;
+			} finally {
+				outputLock.unlock();
+			}
+			updateInterestOps();
+		}
+
+		private void onReadable() {
+
+			for(;;) {
+
+				if(readLimit >= readBuffer.length) {
+					makeRoom();
+					if(readLimit >= readBuffer.length) {
+						Log.warning(applicationConnection, "closing connection, message exceeds %d bytes", MAX_MESSAGE_SIZE);
+						close();
+						return;
+					}
+				}
+
+				int n;
+				try {
+					readByteBuffer.limit(readBuffer.length).position(readLimit);
+					n = channel.read(readByteBuffer);
+				} catch (IOException e) {
+					Log.exception(applicationConnection, e, "could not read from application connection");
+					close();
+					return;
+				}
+
+				if(n < 0) {
+					Log.debug(applicationConnection, "application connection closed by remote");
+					close();
+					return;
+				}
+
+				readLimit += n;
+
+				// if the buffer was not filled, no more bytes are available right now
+				if(readLimit < readBuffer.length) break;
+
+				parse();
+				if(closed.get()) return;
+				if(readSuspended) break;
+
+			}
+
+			parse();
+
+			if(!closed.get()) {
+				updateInterestOps();
+			}
+
+		}
+
+		/**
+		 * moves the bytes that were not parsed yet to the beginning of the read buffer, growing it if they fill it entirely
+		 */
+		private void makeRoom() {
+			int length = readLimit - readPosition;
+			byte[] buffer = readBuffer;
+			if(readPosition == 0) {
+				if(readBuffer.length >= MAX_MESSAGE_SIZE) return;
+				buffer = new byte[Math.min(2 * readBuffer.length, MAX_MESSAGE_SIZE)];
+			}
+			System.arraycopy(readBuffer, readPosition, buffer, 0, length);
+			setReadBuffer(buffer);
+			readPosition = 0;
+			readLimit = length;
+		}
+
+		private void setReadBuffer(byte[] readBuffer) {
+			if(readBuffer != this.readBuffer) {
+				this.readBuffer = readBuffer;
+				this.readByteBuffer = ByteBuffer.wrap(readBuffer);
+				this.readDataByteBuf.reset(readBuffer);
+			}
+		}
+
+		private Job takeJob() {
+			Job job = freeJobs.poll();
+			if(job == null && numJobs < MAX_MESSAGES_IN_FLIGHT) {
+				numJobs++;
+				job = new Job(this, applicationConnection.newReceiveMessage());
+			}
+			return job;
+		}
+
+		/**
+		 * queues the given {@link Job} for the {@link Worker}s, or keeps it pending if this connection already
+		 * has {@link NIOTCPSocket#maxWorkersPerConnection} {@link Job}s dispatched
+		 */
+		private void dispatch(Job job) {
+			dispatchLock.lock();
+			try {
+				if(numJobsDispatched >= maxWorkersPerConnection) {
+					pendingJobs.add(job);
+					return;
+				}
+				numJobsDispatched++;
+			} finally {
+				dispatchLock.unlock();
+			}
+			jobs.add(job);
+		}
+
+		/**
+		 * called by a {@link Worker} once it handled the message of the given {@link Job}
+		 */
+		private void onJobDone(Job job) {
+			Job nextJob;
+			dispatchLock.lock();
+			try {
+				nextJob = pendingJobs.poll();
+				if(nextJob == null) numJobsDispatched--;
+			} finally {
+				dispatchLock.unlock();
+			}
+			if(nextJob != null) {
+				jobs.add(nextJob);
+			}
+			freeJobs.offer(job);
+			if(readSuspended) {
+				schedule(this);
+			}
+		}
+
+		/**
+		 * parses and dispatches all complete messages in the read buffer
+		 */
+		private void parse() {
+
+			while(readPosition < readLimit && !readSuspended) {
+
+				Job job = null;
+				A2SMessage message;
+				if(revisionMessage != null) {
+					message = revisionMessage;
+				} else {
+					job = takeJob();
+					if(job != null) {
+						message = job.message;
+					} else {
+						if(reserveMessage == null) reserveMessage = applicationConnection.newReceiveMessage();
+						message = reserveMessage;
+					}
+				}
+
+				readDataByteBuf.seek(readPosition);
+				parseByteBuf.setByteBuf(readDataByteBuf, readLimit - readPosition);
+
+				try {
+					message.read(parseByteBuf);
+				} catch (EndOfBufException e) {
+					// incomplete, wait for more bytes
+					if(job != null) freeJobs.offer(job);
+					break;
+				} catch (ParseException e) {
+					Log.exception(applicationConnection, e);
+					close();
+					return;
+				} catch (BufException e) {
+					Log.exception(applicationConnection, e);
+					close();
+					return;
+				}
+
+				if(message == revisionMessage) {
+					readPosition = readDataByteBuf.getPosition();
+					revisionMessage = null;
+					applicationConnection.receiveRevision((Rev35Message) message);
+					continue;
+				}
+
+				if(message.isKeyResponse()) {
+					readPosition = readDataByteBuf.getPosition();
+					applicationConnection.receive(message);
+					if(job != null) freeJobs.offer(job);
+					continue;
+				}
+
+				if(job == null) {
+					// leave the message in the buffer until a job is done, the worker checks readSuspended afterwards
+					readSuspended = true;
+					if(!freeJobs.isEmpty()) {
+						readSuspended = false;
+						continue;
+					}
+					Log.debug(applicationConnection, "%d messages in flight, suspending reading", numJobs);
+					break;
+				}
+
+				readPosition = readDataByteBuf.getPosition();
+				dispatch(job);
+
+			}
+
+			if(readPosition >= readLimit) {
+				readPosition = readLimit = 0;
+				if(readBuffer.length > INITIAL_BUFFER_SIZE) {
+					setReadBuffer(new byte[INITIAL_BUFFER_SIZE]);
+				}
+			}
+
+		}
+
+		/**
+		 * called by the selector thread after this {@link Connection} was passed to {@link NIOTCPSocket#schedule(Connection)}
+		 */
+		private void onScheduled() {
+			if(closed.get()) return;
+			if(readSuspended && !freeJobs.isEmpty()) {
+				Log.debug(applicationConnection, "resuming reading");
+				readSuspended = false;
+				parse();
+				if(closed.get()) return;
+			}
+			updateInterestOps();
+		}
+
+		private void updateInterestOps() {
+			int interestOps = (readSuspended ? 0 : SelectionKey.OP_READ) | (writePending ? SelectionKey.OP_WRITE : 0);
+			try {
+				if(key.interestOps() != interestOps) {
+					key.interestOps(interestOps);
+				}
+			} catch (CancelledKeyException e) {
+				close();
+			}
+		}
+
+		private void close() {
+			if(!closed.compareAndSet(false, true)) return;
+			key.cancel();
+			try {
+				channel.close();
+			} catch (IOException e) {
+				Log.exception(applicationConnection, e, "exception while closing SocketChannel");
+			}
+			outputLock.lock();
+			try {
+				outputDrainedCondition.signalAll();
+			} finally {
+				outputLock.unlock();
+			}
+			applicationConnection.close();
+		}
+
+	}
+
+	//
+
+	private HierarchicalLevel parentHierarchicalLevel;
+	private ApplicationConnectionActionListener applicationConnectionActionListener;
+
+	private ServerSocketChannel serverSocketChannel;
+	private Selector selector;
+
+	/**
+	 * the {@link Connection}s that need attention of the selector thread
+	 */
+	private ConcurrentLinkedQueue<Connection> scheduledConnections = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * the jobs waiting to be handled
+	 */
+	private LinkedBlockingQueue<Job> jobs = new LinkedBlockingQueue<>();
+
+	private Worker[] workers;
+
+	/**
+	 * the maximum amount of {@link Job}s of one {@link Connection} that are queued for or being handled by the {@link Worker}s
+	 */
+	private final int maxWorkersPerConnection;
+
+	public NIOTCPSocket(int port) throws IOException {
+		this(port, DEFAULT_NUM_WORKERS);
+	}
+
+	/**
+	 * @param port the port to bind to on the loopback interface
+	 * @param numWorkers the amount of worker threads handling messages of all connections
+	 */
+	public NIOTCPSocket(int port, int numWorkers) throws IOException {
+		this.serverSocketChannel = ServerSocketChannel.open();
+		this.serverSocketChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		this.serverSocketChannel.configureBlocking(false);
+		this.selector = Selector.open();
+		this.serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+		this.maxWorkersPerConnection = Math.max(1, numWorkers / WORKER_SHARE_DIVISOR);
+		this.workers = new Worker[numWorkers];
+		for(int i = 0; i < numWorkers; i++) {
+			workers[i] = new Worker(i);
+		}
+	}
+
+	/**
+	 * makes the selector thread call {@link Connection#onScheduled()} on the given {@link Connection}
+	 */
+	private void schedule(Connection connection) {
+		scheduledConnections.offer(connection);
+		selector.wakeup();
+	}
+
+	private void accept() {
+		for(;;) {
+
+			SocketChannel channel;
+			try {
+				channel = serverSocketChannel.accept();
+			} catch (IOException e) {
+				Log.exception(this, e);
+				return;
+			}
+
+			if(channel == null) return;
+
+			try {
+				channel.configureBlocking(false);
+				// messages are written one at a time as soon as they are complete
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				Log.debug(this, "new connection from %s", channel.getRemoteAddress());
+				new Connection(channel);
+			} catch (IOException e) {
+				Log.exception(this, e);
+				try {
+					channel.close();
+				} catch (IOException e1) {
+					Log.exception(this, e1);
+				}
+			}
+
+		}
+	}
+
+	@Override
+	public void run() {
+
+		Log.msg(this, "listening for application connections on %s using %d worker threads", serverSocketChannel.socket().getLocalSocketAddress(), workers.length);
+
+		for(;;) {
+
+			try {
+				selector.select();
+			} catch (IOException e) {
+				Log.exception(this, e);
+				continue;
+			}
+
+			Connection connection;
+			while((connection = scheduledConnections.poll()) != null) {
+				connection.onScheduled();
+			}
+
+			Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+			while(iterator.hasNext()) {
+
+				SelectionKey key = iterator.next();
+				iterator.remove();
+
+				try {
+
+					if(!key.isValid()) continue;
+
+					if(key.isAcceptable()) {
+						accept();
+						continue;
+					}
+
+					connection = (Connection) key.attachment();
+					if(key.isWritable()) {
+						connection.onWritable();
+					}
+					if(key.isValid() && key.isReadable()) {
+						connection.onReadable();
+					}
+
+				} catch(CancelledKeyException e) {
+					// closed in the meantime
+				}
+
+			}
+
+		}
+
+	}
+
+	@Override
+	public void setApplicationConnectionActionListener(ApplicationConnectionActionListener applicationConnectionActionListener) {
+		boolean start = this.applicationConnectionActionListener == null;
+		this.applicationConnectionActionListener = applicationConnectionActionListener;
+		if(start) this.start();
+	}
+
+	@Override
+	public void setParentHierarchicalLevel(HierarchicalLevel parentHierarchicalLevel) {
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+	}
+
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return parentHierarchicalLevel;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("NIOTCPSocket(%d workers)", workers.length);
+	}
+
+}
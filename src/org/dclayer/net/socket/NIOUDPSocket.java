@@ -0,0 +1,228 @@
+package org.dclayer.net.socket;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.dclayer.listener.net.OnReceiveListener;
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.meta.Log;
+import org.dclayer.net.Data;
+import org.dclayer.net.DataPool;
+import org.dclayer.net.PooledData;
+
+/**
+ * a UDP Server based on a non-blocking {@link DatagramChannel} that provides sending and callback on receive.<br />
+ * upon each wakeup of its {@link Selector}, all datagrams that are ready are received and dispatched
+ * before waiting again, using the same direct receive buffer for all of them.<br />
+ * each datagram is passed on in a {@link PooledData} taken from the default {@link DataPool}, which the
+ * receiver can retain instead of copying it.<br />
+ * like a blocking socket, sending waits while the socket's send buffer is full instead of dropping the datagram.
+ */
+public class NIOUDPSocket extends Thread implements DatagramSocket, HierarchicalLevel {
+
+	/**
+	 * the maximum size of a datagram
+	 */
+	public static final int MAX_DATAGRAM_SIZE = 0xFFFF;
+
+	private HierarchicalLevel parentHierarchicalLevel;
+
+	/**
+	 * the {@link DatagramChannel} to listen on
+	 */
+	private DatagramChannel channel;
+	/**
+	 * the {@link Selector} waking up the receive thread when datagrams are available
+	 */
+	private Selector selector;
+	/**
+	 * the {@link Selector} sending threads wait on while the socket's send buffer is full
+	 */
+	private Selector writeSelector;
+	/**
+	 * direct buffer datagrams are received into
+	 */
+	private ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+	/**
+	 * direct buffer datagrams are copied into before being sent
+	 */
+	private ByteBuffer sendBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+	/**
+	 * lock held while sending, guarding the {@link #sendBuffer}
+	 */
+	private final ReentrantLock sendLock = new ReentrantLock();
+	/**
+	 * the {@link OnReceiveListener} to call upon receipt
+	 */
+	private OnReceiveListener onReceiveListener;
+
+	public NIOUDPSocket(int port) throws IOException {
+		this(port, false);
+	}
+	
+	/**
+	 * @param port the port to bind to
+	 * @param reusePort true if SO_REUSEPORT should be set before binding, allowing multiple sockets to share the port
+	 * @throws IOException if the channel can not be opened or bound or if SO_REUSEPORT is requested but not supported
+	 */
+	public NIOUDPSocket(int port, boolean reusePort) throws IOException {
+		this.channel = DatagramChannel.open();
+		try {
+			if(reusePort) {
+				if(!channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+					throw new IOException("SO_REUSEPORT is not supported on this platform");
+				}
+				this.channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+			}
+			this.channel.bind(new InetSocketAddress(port));
+			this.channel.configureBlocking(false);
+			this.selector = Selector.open();
+			this.channel.register(selector, SelectionKey.OP_READ);
+			this.writeSelector = Selector.open();
+			this.channel.register(writeSelector, SelectionKey.OP_WRITE);
+		} catch(IOException e) {
+			close();
+			throw e;
+		}
+		this.start();
+	}
+
+	@Override
+	public void run() {
+
+		for(;;) {
+
+			try {
+				selector.select();
+				selector.selectedKeys().clear();
+			} catch (IOException e) {
+				Log.exception(this, e);
+				continue;
+			} catch (ClosedSelectorException e) {
+				Log.debug(this, "closed, stopping");
+				return;
+			}
+
+			int numReceived = 0;
+
+			// drain all datagrams that are ready before selecting again
+			for(;;) {
+
+				SocketAddress socketAddress;
+
+				receiveBuffer.clear();
+
+				try {
+					socketAddress = channel.receive(receiveBuffer);
+				} catch (IOException e) {
+					Log.exception(this, e);
+					break;
+				}
+
+				if(socketAddress == null) break;
+
+				numReceived++;
+
+				receiveBuffer.flip();
+				int length = receiveBuffer.remaining();
+				PooledData data = DataPool.getDefault().take(length);
+				receiveBuffer.get(data.getData(), data.offset(), length);
+
+				Log.debug(this, "received %d bytes from %s: %s", data.length(), socketAddress.toString(), data);
+
+				InetSocketAddress inetSocketAddress;
+				try {
+					inetSocketAddress = (InetSocketAddress) socketAddress;
+				} catch(ClassCastException e) {
+					Log.exception(this, e);
+					data.release();
+					continue;
+				}
+
+				try {
+					if(this.onReceiveListener == null) {
+
+						Log.warning(this, "ignoring datagram from %s, service not ready yet", socketAddress.toString());
+
+					} else {
+						this.onReceiveListener.onReceiveS2S(inetSocketAddress, data);
+					}
+				} finally {
+					// the byte array returns to the pool unless the receiver retained the data
+					data.release();
+				}
+
+			}
+
+			Log.debug(this, "received %d datagrams in this batch", numReceived);
+
+		}
+	}
+
+	/**
+	 * send the given {@link Data} to the given {@link SocketAddress}
+	 * @param socketAddress the {@link SocketAddress} to send the data
+	 * @param data the {@link Data} to send
+	 * @throws IOException if sending fails
+	 */
+	@Override
+	public void send(SocketAddress socketAddress, Data data) throws IOException {
+		sendLock.lock();
+		try {
+			sendBuffer.clear();
+			sendBuffer.put(data.getData(), data.offset(), data.length());
+			sendBuffer.flip();
+			// the channel is non-blocking and sends nothing if the socket's send buffer is full, wait until it has space
+			while(channel.send(sendBuffer, socketAddress) == 0 && sendBuffer.hasRemaining()) {
+				Log.debug(this, "socket send buffer is full, waiting to send %d bytes to %s", data.length(), socketAddress);
+				writeSelector.select();
+				writeSelector.selectedKeys().clear();
+			}
+		} finally {
+			sendLock.unlock();
+		}
+		Log.debug(this, "sent %d bytes to %s: %s", data.length(), socketAddress, data);
+	}
+
+	/**
+	 * closes the channel and the selectors, stopping the receive thread
+	 */
+	public void close() {
+		try {
+			channel.close();
+			if(selector != null) selector.close();
+			if(writeSelector != null) writeSelector.close();
+		} catch (IOException e) {
+			Log.exception(this, e);
+		}
+	}
+
+	@Override
+	public void setOnReceiveListener(OnReceiveListener onReceiveListener) {
+		this.onReceiveListener = onReceiveListener;
+	}
+
+	@Override
+	public void setParentHierarchicalLevel(HierarchicalLevel parentHierarchicalLevel) {
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+	}
+
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return parentHierarchicalLevel;
+	}
+
+	@Override
+	public String toString() {
+		return "NIOUDPSocket";
+	}
+
+}
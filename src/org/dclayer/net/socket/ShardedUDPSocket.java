@@ -0,0 +1,74 @@
+package org.dclayer.net.socket;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+import org.dclayer.listener.net.OnReceiveListener;
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.net.Data;
+
+/**
+ * a UDP Server consisting of multiple {@link NIOUDPSocket}s bound to the same port using SO_REUSEPORT.<br />
+ * each of the sockets receives on its own thread, the kernel spreads remotes across the sockets
+ * (all datagrams of one remote address and port are received by the same socket).
+ */
+public class ShardedUDPSocket implements DatagramSocket, HierarchicalLevel {
+	
+	private HierarchicalLevel parentHierarchicalLevel;
+	
+	/**
+	 * the {@link NIOUDPSocket}s bound to the port
+	 */
+	private NIOUDPSocket[] shards;
+	
+	public ShardedUDPSocket(int port, int numShards) throws IOException {
+		this.shards = new NIOUDPSocket[numShards];
+		for(int i = 0; i < numShards; i++) {
+			try {
+				shards[i] = new NIOUDPSocket(port, true);
+			} catch(IOException e) {
+				// do not leave the shards created so far bound to the port
+				for(int j = 0; j < i; j++) {
+					shards[j].close();
+				}
+				throw e;
+			}
+			shards[i].setParentHierarchicalLevel(this);
+		}
+	}
+	
+	/**
+	 * sends the given {@link Data} to the given {@link SocketAddress}.<br />
+	 * datagrams to the same {@link SocketAddress} are always sent using the same shard
+	 * @param socketAddress the {@link SocketAddress} to send the data
+	 * @param data the {@link Data} to send
+	 * @throws IOException if sending fails
+	 */
+	@Override
+	public void send(SocketAddress socketAddress, Data data) throws IOException {
+		shards[(socketAddress.hashCode() & Integer.MAX_VALUE) % shards.length].send(socketAddress, data);
+	}
+	
+	@Override
+	public void setOnReceiveListener(OnReceiveListener onReceiveListener) {
+		for(NIOUDPSocket shard : shards) {
+			shard.setOnReceiveListener(onReceiveListener);
+		}
+	}
+	
+	@Override
+	public void setParentHierarchicalLevel(HierarchicalLevel parentHierarchicalLevel) {
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+	}
+	
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return parentHierarchicalLevel;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("ShardedUDPSocket(%d shards)", shards.length);
+	}
+	
+}
@@ -1,9 +1,11 @@
 package org.dclayer.net.socket;
 
+import org.dclayer.meta.HierarchicalLevel;
 import org.dclayer.net.a2s.ApplicationConnectionActionListener;
 
 public interface StreamSocket {
 	
 	public void setApplicationConnectionActionListener(ApplicationConnectionActionListener applicationConnectionActionListener);
+	public void setParentHierarchicalLevel(HierarchicalLevel parentHierarchicalLevel);
 
 }
@@ -60,6 +60,7 @@ public class TCPSocket extends Thread implements StreamSocket, HierarchicalLevel
 		return parentHierarchicalLevel;
 	}
 	
+	@Override
 	public void setParentHierarchicalLevel(HierarchicalLevel parentHierarchicalLevel) {
 		this.parentHierarchicalLevel = parentHierarchicalLevel;
 	}
@@ -91,6 +91,7 @@ public class UDPSocket extends Thread implements DatagramSocket, HierarchicalLev
 		this.onReceiveListener = onReceiveListener;
 	}
 	
+	@Override
 	public void setParentHierarchicalLevel(HierarchicalLevel parentHierarchicalLevel) {
 		this.parentHierarchicalLevel = parentHierarchicalLevel;
 	}
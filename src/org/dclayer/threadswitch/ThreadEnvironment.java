@@ -1,7 +1,11 @@
 package org.dclayer.threadswitch;
 
 
-public class ThreadEnvironment<T> implements Runnable {
+/**
+ * an object created by a {@link ThreadSwitch} that is handed to a worker thread of that {@link ThreadSwitch}
+ * together with a {@link ThreadExecutor} and reused afterwards
+ */
+public class ThreadEnvironment<T> {
 	
 	private T object;
 	private ThreadSwitch<T> threadSwitch;
@@ -9,7 +13,10 @@ public class ThreadEnvironment<T> implements Runnable {
 	protected ThreadEnvironment<T> next;
 	
 	private ThreadExecutor<T> threadExecutor;
-	private Thread thread;
+	/**
+	 * the time at which this was queued for execution, as returned by {@link System#nanoTime()}
+	 */
+	private long queueTime;
 	
 	private int id;
 	
@@ -20,48 +27,49 @@ public class ThreadEnvironment<T> implements Runnable {
 		
 		this.object = threadSwitch.newT();
 		
-		this.thread = new Thread(this);
-		this.thread.start();
-		
 	}
 	
 	public T getObject() {
 		return object;
 	}
 	
-	public synchronized void exec(ThreadExecutor<T> threadExecutor) {
-		
+	/**
+	 * replaces the object of this {@link ThreadEnvironment}
+	 * @param object the new object
+	 * @return the previous object
+	 */
+	public T exchangeObject(T object) {
+		T previous = this.object;
+		this.object = object;
+		return previous;
+	}
+	
+	/**
+	 * queues this {@link ThreadEnvironment} for execution of the given {@link ThreadExecutor} by a worker thread,
+	 * this {@link ThreadEnvironment} is returned to its {@link ThreadSwitch} afterwards
+	 */
+	public void exec(ThreadExecutor<T> threadExecutor) {
 		this.threadExecutor = threadExecutor;
-		notify();
-		
+		threadSwitch.exec(this);
 	}
-
-	@Override
-	public void run() {
-		
-		for(;;) {
-		
-			synchronized(this) {
-				if(threadExecutor == null) {
-					try {
-						wait();
-					} catch (InterruptedException e) {
-						e.printStackTrace();
-						return;
-					}
-				}
-			}
-			
-			threadExecutor.exec(this, object);
-			
-			synchronized(this) {
-				threadExecutor = null;
-			}
-			
-			threadSwitch.requeue(this);
-		
-		}
-			
+	
+	/**
+	 * returns this {@link ThreadEnvironment} to its {@link ThreadSwitch} without executing anything
+	 */
+	public void release() {
+		threadSwitch.requeue(this);
+	}
+	
+	ThreadExecutor<T> getThreadExecutor() {
+		return threadExecutor;
+	}
+	
+	void setQueueTime(long queueTime) {
+		this.queueTime = queueTime;
+	}
+	
+	long getQueueTime() {
+		return queueTime;
 	}
 	
 	@Override
@@ -0,0 +1,144 @@
+package org.dclayer.threadswitch;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * the kinds of threads the service can run its per-peer, per-channel and per-connection threads as.<br />
+ * these threads spend nearly all of their time blocked, with {@link #VIRTUAL} threads their number is not limited
+ * by the amount of OS threads and their stacks only take memory while they are used.
+ * threads of which there is only a fixed amount per service (sockets, schedulers, worker pools) are always platform threads.
+ */
+public enum ThreadMode {
+
+	PLATFORM("platform") {
+		@Override
+		public boolean isSupported() {
+			return true;
+		}
+
+		@Override
+		public Thread newThread(String name, Runnable runnable) {
+			return new Thread(runnable, name);
+		}
+	},
+	VIRTUAL("virtual") {
+		@Override
+		public boolean isSupported() {
+			return VirtualThreadBuilder.OF_VIRTUAL != null;
+		}
+
+		@Override
+		public Thread newThread(String name, Runnable runnable) {
+			try {
+				Object builder = VirtualThreadBuilder.OF_VIRTUAL.invoke(null);
+				builder = VirtualThreadBuilder.NAME.invoke(builder, name);
+				return (Thread) VirtualThreadBuilder.UNSTARTED.invoke(builder, runnable);
+			} catch (IllegalAccessException e) {
+				throw new UnsupportedOperationException(e);
+			} catch (InvocationTargetException e) {
+				throw new UnsupportedOperationException(e.getCause());
+			}
+		}
+	};
+
+	/**
+	 * the methods of java.lang.Thread.Builder, which is only available on Java 21 and later.
+	 * all fields are null if virtual threads are not supported.
+	 */
+	private static class VirtualThreadBuilder {
+
+		static final Method OF_VIRTUAL;
+		static final Method NAME;
+		static final Method UNSTARTED;
+
+		static {
+			Method ofVirtual = null, name = null, unstarted = null;
+			try {
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+				name = builderClass.getMethod("name", String.class);
+				unstarted = builderClass.getMethod("unstarted", Runnable.class);
+				ofVirtual = Thread.class.getMethod("ofVirtual");
+			} catch (ClassNotFoundException e) {
+				ofVirtual = null;
+			} catch (NoSuchMethodException e) {
+				ofVirtual = null;
+			}
+			OF_VIRTUAL = ofVirtual;
+			NAME = ofVirtual == null ? null : name;
+			UNSTARTED = ofVirtual == null ? null : unstarted;
+		}
+
+	}
+
+	/**
+	 * the {@link ThreadMode} used by {@link #start(String, Runnable)}
+	 */
+	private static volatile ThreadMode defaultThreadMode = PLATFORM;
+
+	public static ThreadMode getDefault() {
+		return defaultThreadMode;
+	}
+
+	/**
+	 * sets the {@link ThreadMode} used for threads created from now on
+	 * @param threadMode the {@link ThreadMode} to use
+	 * @throws UnsupportedOperationException if the given {@link ThreadMode} is not supported by this JVM
+	 */
+	public static void setDefault(ThreadMode threadMode) {
+		if(!threadMode.isSupported()) {
+			throw new UnsupportedOperationException(String.format("%s threads are not supported by this JVM", threadMode.getName()));
+		}
+		defaultThreadMode = threadMode;
+	}
+
+	/**
+	 * returns the {@link ThreadMode} with the given name
+	 * @param name the name of the {@link ThreadMode}
+	 * @return the {@link ThreadMode} with the given name or null if there is none
+	 */
+	public static ThreadMode get(String name) {
+		for(ThreadMode threadMode : values()) {
+			if(threadMode.name.equals(name)) return threadMode;
+		}
+		return null;
+	}
+
+	/**
+	 * creates and starts a new thread using the default {@link ThreadMode}
+	 * @param name the name of the new thread
+	 * @param runnable the {@link Runnable} to run in the new thread
+	 * @return the started thread
+	 */
+	public static Thread start(String name, Runnable runnable) {
+		Thread thread = defaultThreadMode.newThread(name, runnable);
+		thread.start();
+		return thread;
+	}
+
+	//
+
+	private String name;
+
+	private ThreadMode(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return true if threads of this {@link ThreadMode} can be created by this JVM
+	 */
+	public abstract boolean isSupported();
+
+	/**
+	 * creates a new thread of this {@link ThreadMode} without starting it
+	 * @param name the name of the new thread
+	 * @param runnable the {@link Runnable} to run in the new thread
+	 * @return the new thread
+	 */
+	public abstract Thread newThread(String name, Runnable runnable);
+
+}
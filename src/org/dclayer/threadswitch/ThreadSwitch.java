@@ -1,36 +1,292 @@
 package org.dclayer.threadswitch;
 
-public class ThreadSwitch<T> {
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.dclayer.meta.HierarchicalLevel;
+import org.dclayer.meta.Log;
+
+/**
+ * a bounded pool of worker threads executing {@link ThreadExecutor}s on {@link ThreadEnvironment}s.<br />
+ * each {@link ThreadEnvironment} owns an object created by {@link #newT()} that is reused whenever the
+ * {@link ThreadEnvironment} is. at most {@link #getMaxThreads()} {@link ThreadEnvironment}s are executed at once
+ * and at most {@link #getQueueCapacity()} more exist to be queued. {@link #get()} blocks while all {@link ThreadEnvironment}s
+ * are in use, slowing down the thread that hands out work. worker threads are created using the default
+ * {@link ThreadMode} when needed and exit once they were idle for {@link #getIdleTimeoutMillis()} milliseconds.
+ * exceptions thrown by {@link ThreadExecutor}s are logged, the worker thread continues with the next {@link ThreadEnvironment}.
+ */
+public class ThreadSwitch<T> implements HierarchicalLevel {
 	
-	private ThreadEnvironment<T> first;
+	private static volatile int defaultMaxThreads = 16;
+	private static volatile int defaultQueueCapacity = 64;
+	/**
+	 * the time after which idle worker threads exit, if not specified
+	 */
+	private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30000;
+	
+	/**
+	 * sets the maximum amount of worker threads of {@link ThreadSwitch}es created from now on without specifying it
+	 */
+	public static void setDefaultMaxThreads(int maxThreads) {
+		defaultMaxThreads = maxThreads;
+	}
+	
+	/**
+	 * sets the amount of {@link ThreadEnvironment}s in addition to one per worker thread of {@link ThreadSwitch}es created from now on without specifying it
+	 */
+	public static void setDefaultQueueCapacity(int queueCapacity) {
+		defaultQueueCapacity = queueCapacity;
+	}
+	
+	/**
+	 * a worker thread executing queued {@link ThreadEnvironment}s
+	 */
+	private class Worker implements Runnable {
+		
+		@Override
+		public void run() {
+			boolean retired = false;
+			try {
+				for(;;) {
+					
+					ThreadEnvironment<T> threadEnvironment = take();
+					if(threadEnvironment == null) {
+						retired = true;
+						return;
+					}
+					
+					try {
+						threadEnvironment.getThreadExecutor().exec(threadEnvironment, threadEnvironment.getObject());
+					} catch(Throwable t) {
+						Log.exception(ThreadSwitch.this, t instanceof Exception ? (Exception) t : new RuntimeException(t), "exception while executing %s", threadEnvironment);
+					} finally {
+						requeue(threadEnvironment);
+					}
+					
+				}
+			} finally {
+				if(!retired) {
+					// take() did not count this worker thread out, make sure that a new one is started for queued ThreadEnvironments
+					onWorkerExit();
+				}
+			}
+		}
+		
+	}
+	
+	//
 	
 	private Class<? extends T> tClass;
 	
+	private HierarchicalLevel parentHierarchicalLevel;
+	
+	private final int maxThreads;
+	private final int queueCapacity;
+	private final long idleTimeoutNanos;
+	
+	private final ReentrantLock lock = new ReentrantLock();
+	/**
+	 * signalled when a {@link ThreadEnvironment} is queued
+	 */
+	private final Condition queuedCondition = lock.newCondition();
+	/**
+	 * signalled when a {@link ThreadEnvironment} is returned
+	 */
+	private final Condition freeCondition = lock.newCondition();
+	
+	/**
+	 * the first {@link ThreadEnvironment} that is not in use
+	 */
+	private ThreadEnvironment<T> first;
+	/**
+	 * the {@link ThreadEnvironment}s waiting for a worker thread
+	 */
+	private final ArrayDeque<ThreadEnvironment<T>> queue = new ArrayDeque<>();
+	
 	private int envId = 0;
+	private int numThreads = 0;
+	private int numIdleThreads = 0;
+	
+	private int maxQueueDepth = 0;
+	private long numThreadsStarted = 0;
+	private long numThreadsRetired = 0;
+	private long numExecuted = 0;
+	private long totalQueueWaitNanos = 0;
+	private long numBlockedGets = 0;
+	private long totalGetWaitNanos = 0;
+	
+	public ThreadSwitch(Class<? extends T> tClass, HierarchicalLevel parentHierarchicalLevel) {
+		this(tClass, defaultMaxThreads, defaultQueueCapacity, DEFAULT_IDLE_TIMEOUT_MILLIS, parentHierarchicalLevel);
+	}
 	
-	public ThreadSwitch(Class<? extends T> tClass) {
+	/**
+	 * @param tClass the class of the objects of the {@link ThreadEnvironment}s
+	 * @param maxThreads the maximum amount of {@link ThreadEnvironment}s executed at once
+	 * @param queueCapacity the amount of {@link ThreadEnvironment}s created in addition to one per worker thread
+	 * @param idleTimeoutMillis the time after which idle worker threads exit
+	 */
+	public ThreadSwitch(Class<? extends T> tClass, int maxThreads, int queueCapacity, long idleTimeoutMillis, HierarchicalLevel parentHierarchicalLevel) {
 		this.tClass = tClass;
-		this.first = new ThreadEnvironment<>(this, envId++);
+		this.parentHierarchicalLevel = parentHierarchicalLevel;
+		this.maxThreads = Math.max(1, maxThreads);
+		this.queueCapacity = Math.max(0, queueCapacity);
+		this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
 	}
 	
-	public synchronized ThreadEnvironment<T> get() {
-		
-		if(first == null) {
+	/**
+	 * returns a {@link ThreadEnvironment} that is not in use, creating a new one if there is none and the limit is not reached
+	 * @return the {@link ThreadEnvironment}, or null if all are in use
+	 */
+	private ThreadEnvironment<T> poll() {
+		ThreadEnvironment<T> threadEnvironment = first;
+		if(threadEnvironment != null) {
+			first = threadEnvironment.next;
+			threadEnvironment.next = null;
+			return threadEnvironment;
+		}
+		if(envId < maxThreads + queueCapacity) {
 			return new ThreadEnvironment<>(this, envId++);
 		}
-		
-		ThreadEnvironment<T> threadEnvironment = first;
-		first = threadEnvironment.next;
-		
-		return threadEnvironment;
-		
+		return null;
 	}
 	
-	public synchronized void requeue(ThreadEnvironment<T> threadEnvironment) {
-		
-		threadEnvironment.next = first;
-		first = threadEnvironment;
-		
+	/**
+	 * returns a {@link ThreadEnvironment} that is not in use, waiting until one is returned if all are in use.
+	 * the returned {@link ThreadEnvironment} must be passed to either {@link ThreadEnvironment#exec(ThreadExecutor)}
+	 * or {@link ThreadEnvironment#release()}.
+	 * @return the {@link ThreadEnvironment}
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public ThreadEnvironment<T> get() throws InterruptedException {
+		lock.lock();
+		try {
+			ThreadEnvironment<T> threadEnvironment = poll();
+			if(threadEnvironment != null) {
+				return threadEnvironment;
+			}
+			long start = System.nanoTime();
+			while((threadEnvironment = poll()) == null) {
+				freeCondition.await();
+			}
+			numBlockedGets++;
+			totalGetWaitNanos += System.nanoTime() - start;
+			return threadEnvironment;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * returns a {@link ThreadEnvironment} that is not in use without waiting.
+	 * the returned {@link ThreadEnvironment} must be passed to either {@link ThreadEnvironment#exec(ThreadExecutor)}
+	 * or {@link ThreadEnvironment#release()}.
+	 * @return the {@link ThreadEnvironment}, or null if all are in use
+	 */
+	public ThreadEnvironment<T> tryGet() {
+		lock.lock();
+		try {
+			return poll();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * returns the given {@link ThreadEnvironment}, which is not in use anymore
+	 */
+	void requeue(ThreadEnvironment<T> threadEnvironment) {
+		lock.lock();
+		try {
+			threadEnvironment.next = first;
+			first = threadEnvironment;
+			freeCondition.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * queues the given {@link ThreadEnvironment} for execution, starting a new worker thread if none is idle and the limit is not reached
+	 */
+	void exec(ThreadEnvironment<T> threadEnvironment) {
+		boolean startThread = false;
+		lock.lock();
+		try {
+			threadEnvironment.setQueueTime(System.nanoTime());
+			queue.addLast(threadEnvironment);
+			maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+			if(numIdleThreads > 0) {
+				queuedCondition.signal();
+			} else if(numThreads < maxThreads) {
+				numThreads++;
+				numThreadsStarted++;
+				startThread = true;
+			}
+		} finally {
+			lock.unlock();
+		}
+		if(startThread) {
+			startWorker();
+		}
+	}
+	
+	private void startWorker() {
+		ThreadMode.start(String.format("ThreadSwitch<%s> worker", tClass.getSimpleName()), new Worker());
+	}
+	
+	/**
+	 * counts out a worker thread that exits abnormally, starting a new one if {@link ThreadEnvironment}s are queued and none is idle
+	 */
+	private void onWorkerExit() {
+		boolean startThread = false;
+		lock.lock();
+		try {
+			numThreads--;
+			if(!queue.isEmpty() && numIdleThreads <= 0) {
+				numThreads++;
+				numThreadsStarted++;
+				startThread = true;
+			}
+		} finally {
+			lock.unlock();
+		}
+		if(startThread) {
+			startWorker();
+		}
+	}
+	
+	/**
+	 * waits for a queued {@link ThreadEnvironment}, called by worker threads
+	 * @return the {@link ThreadEnvironment} to execute, or null if the calling worker thread should exit
+	 */
+	private ThreadEnvironment<T> take() {
+		lock.lock();
+		try {
+			long remainingNanos = idleTimeoutNanos;
+			while(queue.isEmpty()) {
+				if(remainingNanos <= 0) {
+					numThreads--;
+					numThreadsRetired++;
+					return null;
+				}
+				numIdleThreads++;
+				try {
+					remainingNanos = queuedCondition.awaitNanos(remainingNanos);
+				} catch (InterruptedException e) {
+					remainingNanos = 0;
+				} finally {
+					numIdleThreads--;
+				}
+			}
+			ThreadEnvironment<T> threadEnvironment = queue.pollFirst();
+			numExecuted++;
+			totalQueueWaitNanos += System.nanoTime() - threadEnvironment.getQueueTime();
+			return threadEnvironment;
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	protected T newT() {
@@ -44,5 +300,144 @@ public class ThreadSwitch<T> {
 			return null;
 		}
 	}
-
+	
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+	
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+	
+	public long getIdleTimeoutMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos);
+	}
+	
+	/**
+	 * @return the current amount of worker threads
+	 */
+	public int getNumThreads() {
+		lock.lock();
+		try {
+			return numThreads;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the amount of {@link ThreadEnvironment}s currently waiting for a worker thread
+	 */
+	public int getQueueDepth() {
+		lock.lock();
+		try {
+			return queue.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the highest amount of {@link ThreadEnvironment}s that were waiting for a worker thread at once
+	 */
+	public int getMaxQueueDepth() {
+		lock.lock();
+		try {
+			return maxQueueDepth;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the amount of worker threads that were started
+	 */
+	public long getNumThreadsStarted() {
+		lock.lock();
+		try {
+			return numThreadsStarted;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the amount of worker threads that exited after being idle
+	 */
+	public long getNumThreadsRetired() {
+		lock.lock();
+		try {
+			return numThreadsRetired;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the amount of {@link ThreadEnvironment}s that were executed
+	 */
+	public long getNumExecuted() {
+		lock.lock();
+		try {
+			return numExecuted;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the total time in nanoseconds that executed {@link ThreadEnvironment}s waited for a worker thread
+	 */
+	public long getTotalQueueWaitNanos() {
+		lock.lock();
+		try {
+			return totalQueueWaitNanos;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the amount of calls to {@link #get()} that had to wait for a {@link ThreadEnvironment} to be returned
+	 */
+	public long getNumBlockedGets() {
+		lock.lock();
+		try {
+			return numBlockedGets;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the total time in nanoseconds that calls to {@link #get()} waited for a {@link ThreadEnvironment} to be returned
+	 */
+	public long getTotalGetWaitNanos() {
+		lock.lock();
+		try {
+			return totalGetWaitNanos;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public HierarchicalLevel getParentHierarchicalLevel() {
+		return parentHierarchicalLevel;
+	}
+	
+	@Override
+	public String toString() {
+		lock.lock();
+		try {
+			return String.format("ThreadSwitch(threads=%d/%d, queued=%d/%d, maxQueued=%d, executed=%d, avgQueueWait=%dus, blockedGets=%d, avgGetWait=%dus)",
+					numThreads, maxThreads, queue.size(), queueCapacity, maxQueueDepth, numExecuted,
+					numExecuted == 0 ? 0 : totalQueueWaitNanos / numExecuted / 1000,
+					numBlockedGets,
+					numBlockedGets == 0 ? 0 : totalGetWaitNanos / numBlockedGets / 1000);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
 }